@@ -1,25 +1,114 @@
 package calendar;
 
 import calendar.controller.CalendarController;
+import calendar.controller.journal.SyncPolicy;
 import calendar.controller.mode.Mode;
 import calendar.controller.mode.ModeFactory;
 import calendar.model.Calendar;
 import calendar.view.ui.CalendarGUI;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
 import java.time.ZoneId;
+import java.util.ArrayList;
+import java.util.List;
 
 /**
  * Main application class for the Calendar.
  *
  * <p>Command-line modes: --mode headless path-of-script-file : Runs in headless (script) mode.
  * --mode interactive : Runs in interactive text mode. (no arguments) : Launches the GUI.
+ *
+ * <p>Any mode can be preceded by --journal path-of-journal-file [--sync always|interval|none] to
+ * rebuild the calendars from the journal at startup and record every change in it. The sync policy
+ * defaults to interval, which forces the journal to disk every 200 milliseconds.
+ *
+ * <p>Alternatively, --snapshot path-of-snapshot-file loads every calendar from a binary snapshot
+ * at startup, if the file exists, and saves them all back to it on exit. Adding --mapped opens
+ * each calendar from the file only when it is first used and reads its events a page at a time. A
+ * snapshot cannot be combined with a journal, whose changes would then be applied twice.
  */
 public class CalendarApp {
+  private static final long SYNC_INTERVAL_MILLIS = 200;
+
   /** Main method to start the application. */
   public static void main(String[] args) {
     // Create a default calendar using the system default timezone.
     Calendar defaultCalendar = new Calendar("Default Calendar", ZoneId.systemDefault());
     CalendarController controller = new CalendarController(defaultCalendar);
 
+    String journalPath = null;
+    String snapshotPath = null;
+    boolean mapped = false;
+    SyncPolicy policy = SyncPolicy.INTERVAL;
+    List<String> rest = new ArrayList<>();
+    for (int i = 0; i < args.length; i++) {
+      if (args[i].equalsIgnoreCase("--journal") && i + 1 < args.length) {
+        journalPath = args[++i];
+      } else if (args[i].equalsIgnoreCase("--snapshot") && i + 1 < args.length) {
+        snapshotPath = args[++i];
+      } else if (args[i].equalsIgnoreCase("--mapped")) {
+        mapped = true;
+      } else if (args[i].equalsIgnoreCase("--sync") && i + 1 < args.length) {
+        try {
+          policy = SyncPolicy.valueOf(args[++i].toUpperCase());
+        } catch (IllegalArgumentException e) {
+          System.err.println("Invalid sync policy: " + args[i]);
+          System.exit(1);
+        }
+      } else {
+        rest.add(args[i]);
+      }
+    }
+    args = rest.toArray(new String[0]);
+    if (journalPath != null && snapshotPath != null) {
+      System.err.println("Use either --journal or --snapshot, not both.");
+      System.exit(1);
+    }
+    if (snapshotPath != null) {
+      Path snapshot = Paths.get(snapshotPath);
+      if (Files.exists(snapshot)) {
+        try {
+          if (mapped) {
+            controller.mapSnapshot(snapshot);
+          } else {
+            controller.loadSnapshot(snapshot);
+          }
+        } catch (Exception e) {
+          System.err.println("Could not load snapshot: " + e.getMessage());
+          System.exit(1);
+        }
+      }
+      Runtime.getRuntime()
+          .addShutdownHook(
+              new Thread(
+                  () -> {
+                    try {
+                      controller.saveSnapshot(snapshot);
+                    } catch (Exception e) {
+                      System.err.println("Could not save snapshot: " + e.getMessage());
+                    }
+                  }));
+    }
+    if (journalPath != null) {
+      try {
+        controller.openJournal(Paths.get(journalPath), policy, SYNC_INTERVAL_MILLIS);
+      } catch (Exception e) {
+        System.err.println("Could not open journal: " + e.getMessage());
+        System.exit(1);
+      }
+      Runtime.getRuntime()
+          .addShutdownHook(
+              new Thread(
+                  () -> {
+                    try {
+                      controller.closeJournal();
+                    } catch (Exception e) {
+                      System.err.println("Could not close journal: " + e.getMessage());
+                    }
+                  }));
+    }
+
     if (args.length == 0) {
       javax.swing.SwingUtilities.invokeLater(
           () -> {
@@ -4,18 +4,37 @@ import calendar.controller.export.CSVCalendarExporter;
 import calendar.controller.export.CalendarExporter;
 import calendar.controller.importer.CSVCalendarImporter;
 import calendar.controller.importer.CalendarImporter;
+import calendar.controller.journal.CalendarJournal;
+import calendar.controller.journal.SyncPolicy;
 import calendar.model.Calendar;
+import calendar.model.CalendarSnapshot;
+import calendar.model.EventCursor;
+import calendar.model.EventPage;
+import calendar.model.FreeSlotFinder;
+import calendar.model.RangeStats;
+import calendar.model.TimeSlot;
+import calendar.model.change.CalendarChangeListener;
+import calendar.model.change.ChangeType;
 import calendar.model.event.Event;
 import calendar.model.event.RecurringEvent;
 import calendar.model.event.SingleEvent;
+import calendar.model.persist.SnapshotFile;
+import calendar.model.store.StorageType;
 import calendar.view.views.CalendarView;
+import java.io.IOException;
+import java.nio.file.Path;
 import java.time.DayOfWeek;
+import java.time.Duration;
 import java.time.LocalDate;
 import java.time.LocalDateTime;
 import java.time.format.DateTimeFormatter;
+import java.util.ArrayList;
 import java.util.HashSet;
 import java.util.List;
+import java.util.Map;
 import java.util.Set;
+import java.util.function.Supplier;
+import java.util.stream.Stream;
 
 /**
  * Controller for calendar operations and command processing. This version delegates presentation
@@ -28,6 +47,7 @@ public class CalendarController {
   private final CalendarExporter exporter;
   private final CalendarImporter importer;
   private Calendar activeCalendar;
+  private CalendarJournal journal = CalendarJournal.disabled();
 
   /** Constructs a CalendarController with the specified default calendar. */
   public CalendarController(Calendar defaultCalendar) {
@@ -40,12 +60,103 @@ public class CalendarController {
     importer = new CSVCalendarImporter();
   }
 
+  /**
+   * Rebuilds the calendars from the changes recorded in a journal file, then records every later
+   * change in it. Call this before any other change is made. Listeners hear of the replayed
+   * changes merged, once per calendar. Returns the number of changes replayed.
+   */
+  public int openJournal(Path path, SyncPolicy policy, long intervalMillis) throws Exception {
+    int replayed =
+        calendarManager.batchChanges(() -> CalendarJournal.replay(path, calendarManager));
+    journal = CalendarJournal.open(path, policy, intervalMillis);
+    return replayed;
+  }
+
+  /** Writes out any changes the journal has buffered and stops recording changes. */
+  public void closeJournal() throws IOException {
+    CalendarJournal open = journal;
+    journal = CalendarJournal.disabled();
+    open.close();
+  }
+
+  /**
+   * Adds a listener to be told of every later change to any calendar, including calendars being
+   * created, renamed or replaced.
+   */
+  public void addChangeListener(CalendarChangeListener listener) {
+    calendarManager.addChangeListener(listener);
+  }
+
+  /** Removes a change listener, if present. */
+  public void removeChangeListener(CalendarChangeListener listener) {
+    calendarManager.removeChangeListener(listener);
+  }
+
+  /** Saves every calendar, with all its events, to a binary snapshot file. */
+  public void saveSnapshot(Path path) throws IOException {
+    List<Calendar> calendars = new ArrayList<>();
+    for (String calName : calendarManager.getCalendarNames()) {
+      Calendar cal = calendarManager.getCalendar(calName);
+      if (cal != null) {
+        calendars.add(cal);
+      }
+    }
+    SnapshotFile.write(calendars, path);
+  }
+
+  /**
+   * Replaces every calendar with the calendars in a snapshot file. The active calendar becomes the
+   * loaded calendar with the same name, or any loaded calendar if none has it. Returns the number
+   * of calendars loaded.
+   */
+  public int loadSnapshot(Path path) throws Exception {
+    if (journal.isEnabled()) {
+      throw new Exception("Cannot load a snapshot while a journal is open.");
+    }
+    List<Calendar> calendars = SnapshotFile.read(path);
+    if (calendars.isEmpty()) {
+      throw new Exception("Snapshot " + path + " holds no calendars.");
+    }
+    calendarManager.replaceCalendars(calendars);
+    Calendar active = calendarManager.getCalendar(activeCalendar.getName());
+    activeCalendar = active != null ? active : calendars.get(0);
+    return calendars.size();
+  }
+
+  /**
+   * Replaces every calendar with the calendars in a snapshot file, like {@link #loadSnapshot}, but
+   * opens each calendar only when it is first used, and then leaves its single events in the file
+   * to be read a page at a time. Returns the number of calendars in the file.
+   */
+  public int mapSnapshot(Path path) throws Exception {
+    if (journal.isEnabled()) {
+      throw new Exception("Cannot load a snapshot while a journal is open.");
+    }
+    Map<String, Supplier<Calendar>> loaders = SnapshotFile.map(path);
+    if (loaders.isEmpty()) {
+      throw new Exception("Snapshot " + path + " holds no calendars.");
+    }
+    calendarManager.replaceCalendarsLazily(loaders);
+    String activeName = activeCalendar.getName();
+    activeCalendar =
+        calendarManager.getCalendar(
+            loaders.containsKey(activeName) ? activeName : loaders.keySet().iterator().next());
+    return loaders.size();
+  }
+
   /** Creates a new calendar with the given name and timezone. */
   public void createCalendar(String calName, String timezone) throws Exception {
-    if (calendarManager.getCalendar(calName) != null) {
+    createCalendar(calName, timezone, StorageType.INDEXED);
+  }
+
+  /** Creates a new calendar with the given name and timezone, using the given event storage. */
+  public void createCalendar(String calName, String timezone, StorageType storage)
+      throws Exception {
+    if (calendarManager.hasCalendar(calName)) {
       throw new Exception("Calendar with name " + calName + " already exists.");
     }
-    calendarManager.createCalendar(calName, timezone);
+    calendarManager.createCalendar(calName, timezone, storage);
+    journal.calendarCreated(calName, timezone, storage);
   }
 
   /** Edits a property (name or timezone) of the specified calendar. */
@@ -54,6 +165,7 @@ public class CalendarController {
       throw new Exception("Calendar " + calName + " not found.");
     }
     calendarManager.editCalendar(calName, property, newValue);
+    journal.calendarEdited(calName, property, newValue);
   }
 
   /** Sets the active calendar by its name. */
@@ -79,6 +191,7 @@ public class CalendarController {
     LocalDateTime end = LocalDateTime.parse(endStr, dtFormatter);
     SingleEvent event = new SingleEvent(name, start, end, description, location, isPublic);
     activeCalendar.addEvent(event, autoDecline);
+    journal.eventsAdded(activeCalendar.getName(), List.of(event));
   }
 
   /** Creates a recurring timed event with a fixed number of occurrences. */
@@ -105,9 +218,8 @@ public class CalendarController {
     RecurringEvent recurringEvent =
         new RecurringEvent(
             name, start, end, description, location, isPublic, weekdays, occurrences);
-    for (SingleEvent instance : recurringEvent.getEventInstances()) {
-      activeCalendar.addEvent(instance, autoDecline);
-    }
+    activeCalendar.addRecurringEvent(recurringEvent, autoDecline);
+    journal.seriesAdded(activeCalendar.getName(), recurringEvent);
   }
 
   /** Creates a recurring timed event until a specified date-time. */
@@ -128,9 +240,8 @@ public class CalendarController {
     Set<DayOfWeek> weekdays = parseWeekdays(weekdaysStr);
     RecurringEvent recurringEvent =
         new RecurringEvent(name, start, end, description, location, isPublic, weekdays, until);
-    for (SingleEvent instance : recurringEvent.getEventInstances()) {
-      activeCalendar.addEvent(instance, autoDecline);
-    }
+    activeCalendar.addRecurringEvent(recurringEvent, autoDecline);
+    journal.seriesAdded(activeCalendar.getName(), recurringEvent);
   }
 
   /** Creates a single all-day event. */
@@ -147,6 +258,7 @@ public class CalendarController {
     LocalDateTime end = date.atTime(23, 59);
     SingleEvent event = new SingleEvent(name, start, end, description, location, isPublic);
     activeCalendar.addEvent(event, autoDecline);
+    journal.eventsAdded(activeCalendar.getName(), List.of(event));
   }
 
   /** Creates a recurring all-day event with a fixed number of occurrences. */
@@ -173,9 +285,8 @@ public class CalendarController {
     RecurringEvent recurringEvent =
         new RecurringEvent(
             name, start, end, description, location, isPublic, weekdays, occurrences);
-    for (SingleEvent instance : recurringEvent.getEventInstances()) {
-      activeCalendar.addEvent(instance, autoDecline);
-    }
+    activeCalendar.addRecurringEvent(recurringEvent, autoDecline);
+    journal.seriesAdded(activeCalendar.getName(), recurringEvent);
   }
 
   /** Creates a recurring all-day event until a specified date. */
@@ -197,9 +308,8 @@ public class CalendarController {
     Set<DayOfWeek> weekdays = parseWeekdays(weekdaysStr);
     RecurringEvent recurringEvent =
         new RecurringEvent(name, start, end, description, location, isPublic, weekdays, until);
-    for (SingleEvent instance : recurringEvent.getEventInstances()) {
-      activeCalendar.addEvent(instance, autoDecline);
-    }
+    activeCalendar.addRecurringEvent(recurringEvent, autoDecline);
+    journal.seriesAdded(activeCalendar.getName(), recurringEvent);
   }
 
   /** Edits a single event identified by name and start/end times. */
@@ -212,6 +322,15 @@ public class CalendarController {
     if (!found) {
       throw new Exception("No matching event found for editing.");
     }
+    journal.singleEventEdited(activeCalendar.getName(), property, eventName, start, end, newValue);
+  }
+
+  /** Edits the event with the given id, as shown when events are printed. */
+  public void editEventById(String property, long id, String newValue) throws Exception {
+    if (!activeCalendar.editEventById(property, id, newValue)) {
+      throw new Exception("No event with id " + id + " found for editing.");
+    }
+    journal.eventEditedById(activeCalendar.getName(), property, id, newValue);
   }
 
   /** Edits events matching the given name and start time. */
@@ -222,6 +341,7 @@ public class CalendarController {
     if (count == 0) {
       throw new Exception("No matching events found");
     }
+    journal.eventsEditedFrom(activeCalendar.getName(), property, eventName, start, newValue);
   }
 
   /** Edits all events with the given name. */
@@ -230,6 +350,7 @@ public class CalendarController {
     if (count == 0) {
       throw new Exception("No matching events found");
     }
+    journal.eventsEdited(activeCalendar.getName(), property, eventName, newValue);
   }
 
   /**
@@ -246,6 +367,25 @@ public class CalendarController {
     if (eventToCopy == null) {
       throw new Exception("Event " + eventName + " not found at " + sourceDateTimeStr);
     }
+    copyTo(eventToCopy, targetCalendarName, targetDateTimeStr);
+  }
+
+  /**
+   * Copies the event with the given id from the active calendar to the target calendar with a new
+   * start time.
+   */
+  public void copyEventById(long id, String targetCalendarName, String targetDateTimeStr)
+      throws Exception {
+    Event eventToCopy = activeCalendar.findEventById(id);
+    if (eventToCopy == null) {
+      throw new Exception("Event with id " + id + " not found.");
+    }
+    copyTo(eventToCopy, targetCalendarName, targetDateTimeStr);
+  }
+
+  /** Adds a copy of an event to the target calendar, moved to start at the given time. */
+  private void copyTo(Event eventToCopy, String targetCalendarName, String targetDateTimeStr)
+      throws Exception {
     Calendar targetCal = calendarManager.getCalendar(targetCalendarName);
     if (targetCal == null) {
       throw new Exception("Target calendar " + targetCalendarName + " not found.");
@@ -261,7 +401,8 @@ public class CalendarController {
             eventToCopy.getDescription(),
             eventToCopy.getLocation(),
             eventToCopy.isPublic());
-    targetCal.addEvent(copiedEvent, true);
+    targetCal.addEvent(copiedEvent, true, ChangeType.COPIED);
+    journal.eventsAdded(targetCal.getName(), List.of(copiedEvent));
   }
 
   /**
@@ -283,17 +424,9 @@ public class CalendarController {
     LocalDateTime earliest =
         eventsToCopy.stream().map(Event::getStart).min(LocalDateTime::compareTo).orElse(targetBase);
     long offset = java.time.Duration.between(earliest, targetBase).toMinutes();
-    for (Event e : eventsToCopy) {
-      SingleEvent copiedEvent =
-          new SingleEvent(
-              e.getName(),
-              e.getStart().plusMinutes(offset),
-              e.getEnd().plusMinutes(offset),
-              e.getDescription(),
-              e.getLocation(),
-              e.isPublic());
-      targetCal.addEvent(copiedEvent, true);
-    }
+    List<Event> copies = shiftedCopies(eventsToCopy, offset);
+    targetCal.addEvents(copies, true, ChangeType.COPIED);
+    journal.eventsAdded(targetCal.getName(), copies);
   }
 
   /**
@@ -317,17 +450,28 @@ public class CalendarController {
     LocalDateTime earliest =
         eventsToCopy.stream().map(Event::getStart).min(LocalDateTime::compareTo).orElse(targetBase);
     long offset = java.time.Duration.between(earliest, targetBase).toMinutes();
-    for (Event e : eventsToCopy) {
-      SingleEvent copiedEvent =
+    List<Event> copies = shiftedCopies(eventsToCopy, offset);
+    targetCal.addEvents(copies, true, ChangeType.COPIED);
+    journal.eventsAdded(targetCal.getName(), copies);
+  }
+
+  /**
+   * Returns single event copies of the given events moved by an offset in minutes. The copies are
+   * added as one batch, so a copy that conflicts anywhere leaves the target calendar unchanged.
+   */
+  private static List<Event> shiftedCopies(List<Event> events, long offset) {
+    List<Event> copies = new ArrayList<>();
+    for (Event e : events) {
+      copies.add(
           new SingleEvent(
               e.getName(),
               e.getStart().plusMinutes(offset),
               e.getEnd().plusMinutes(offset),
               e.getDescription(),
               e.getLocation(),
-              e.isPublic());
-      targetCal.addEvent(copiedEvent, true);
+              e.isPublic()));
     }
+    return copies;
   }
 
   /** Exports the active calendar to a file using the configured exporter. */
@@ -340,22 +484,108 @@ public class CalendarController {
    * events imported.
    */
   public int importCalendar(String fileName) throws Exception {
-    return importer.importCalendar(activeCalendar, fileName);
+    List<Event> events = importer.readEvents(fileName);
+    int count = activeCalendar.addEvents(events, false, ChangeType.IMPORTED);
+    journal.eventsAdded(activeCalendar.getName(), events);
+    return count;
   }
 
-  /** Returns a list of events on the specified date. */
+  /** Returns a list of events on the specified date, from the calendar's query cache if held. */
   public List<Event> getEventsOn(String dateStr) {
     LocalDate date = LocalDate.parse(dateStr, dateFormatter);
     return activeCalendar.getEventsOn(date);
   }
 
-  /** Returns a list of events between the specified date-times. */
+  /**
+   * Returns the events on each day between the specified dates inclusive, keyed by date. Days
+   * without events are omitted.
+   */
+  public Map<LocalDate, List<Event>> getEventsByDay(String fromDateStr, String toDateStr) {
+    LocalDate from = LocalDate.parse(fromDateStr, dateFormatter);
+    LocalDate to = LocalDate.parse(toDateStr, dateFormatter);
+    return activeCalendar.getEventsByDay(from, to);
+  }
+
+  /** Returns a list of events between the specified date-times, from the query cache if held. */
   public List<Event> getEventsBetween(String startStr, String endStr) {
     LocalDateTime start = LocalDateTime.parse(startStr, dtFormatter);
     LocalDateTime end = LocalDateTime.parse(endStr, dtFormatter);
     return activeCalendar.getEventsBetween(start, end);
   }
 
+  /**
+   * Returns the events between the specified date-times as a stream in start order, read lazily
+   * from a snapshot of the calendar.
+   */
+  public Stream<Event> streamEventsBetween(String startStr, String endStr) {
+    LocalDateTime start = LocalDateTime.parse(startStr, dtFormatter);
+    LocalDateTime end = LocalDateTime.parse(endStr, dtFormatter);
+    return activeCalendar.streamEventsBetween(start, end);
+  }
+
+  /**
+   * Returns event counts per day or week, busy minutes and peak concurrency of the active calendar
+   * over the specified dates inclusive.
+   */
+  public RangeStats getStats(String fromStr, String toStr, RangeStats.Bucket bucket) {
+    LocalDate from = LocalDate.parse(fromStr, dateFormatter);
+    LocalDate to = LocalDate.parse(toStr, dateFormatter);
+    return activeCalendar.getStats(from, to, bucket);
+  }
+
+  /**
+   * Returns the events of the active calendar whose text contains every word of the query, in
+   * start order. With both date-times given, only events overlapping the range are returned.
+   */
+  public List<Event> searchEvents(String query, String fromStr, String toStr) {
+    LocalDateTime from = fromStr == null ? null : LocalDateTime.parse(fromStr, dtFormatter);
+    LocalDateTime to = toStr == null ? null : LocalDateTime.parse(toStr, dtFormatter);
+    return activeCalendar.searchEvents(query, from, to);
+  }
+
+  /**
+   * Returns up to {@code limit} names of events in the active calendar that start with the prefix,
+   * the most common first.
+   */
+  public List<String> completeEventNames(String prefix, int limit) {
+    return activeCalendar.completeEventNames(prefix, limit);
+  }
+
+  /** Returns the first {@code count} events starting at or after the specified date-time. */
+  public List<Event> getNextEvents(String fromStr, int count) {
+    LocalDateTime from = LocalDateTime.parse(fromStr, dtFormatter);
+    return activeCalendar.getNextEvents(from, count);
+  }
+
+  /**
+   * Returns a page of at most {@code limit} of the events between the specified date-times,
+   * starting just after the event the cursor names, or at the first event if it is null.
+   */
+  public EventPage getEventsPage(String startStr, String endStr, int limit, String afterStr) {
+    LocalDateTime start = LocalDateTime.parse(startStr, dtFormatter);
+    LocalDateTime end = LocalDateTime.parse(endStr, dtFormatter);
+    return activeCalendar.pageEventsBetween(start, end, limit, parseCursor(afterStr));
+  }
+
+  /**
+   * Returns a page of at most {@code limit} of the events on the specified date, starting just
+   * after the event the cursor names, or at the first event if it is null.
+   */
+  public EventPage getEventsOnPage(String dateStr, int limit, String afterStr) {
+    LocalDate date = LocalDate.parse(dateStr, dateFormatter);
+    return activeCalendar.pageEventsOn(date, limit, parseCursor(afterStr));
+  }
+
+  private static EventCursor parseCursor(String text) {
+    return text == null ? null : EventCursor.parse(text);
+  }
+
+  /** Returns the query cache counters of the current calendar, formatted for display. */
+  public String getQueryCacheStatus() {
+    return CalendarView.formatQueryCacheStats(
+        activeCalendar.getName(), activeCalendar.getQueryCacheStats());
+  }
+
   /** Returns the busy status for the specified date-time. */
   public String getBusyStatus(String dateTimeStr) {
     boolean busy = isBusy(dateTimeStr);
@@ -368,6 +598,33 @@ public class CalendarController {
     return activeCalendar.isBusy(dateTime);
   }
 
+  /**
+   * Returns up to {@code count} of the earliest slots of at least {@code minutes} minutes between
+   * two date-times in which every named calendar is free. With no names, only the active calendar
+   * is searched.
+   */
+  public List<TimeSlot> findFreeSlots(
+      int minutes, String fromStr, String toStr, List<String> calendarNames, int count)
+      throws Exception {
+    if (minutes <= 0) {
+      throw new IllegalArgumentException("Slot length must be positive.");
+    }
+    LocalDateTime from = LocalDateTime.parse(fromStr, dtFormatter);
+    LocalDateTime to = LocalDateTime.parse(toStr, dtFormatter);
+    List<CalendarSnapshot> snapshots = new ArrayList<>();
+    if (calendarNames.isEmpty()) {
+      snapshots.add(activeCalendar.snapshot());
+    }
+    for (String calName : calendarNames) {
+      Calendar cal = calendarManager.getCalendar(calName);
+      if (cal == null) {
+        throw new Exception("Calendar " + calName + " not found.");
+      }
+      snapshots.add(cal.snapshot());
+    }
+    return FreeSlotFinder.find(snapshots, from, to, Duration.ofMinutes(minutes), count);
+  }
+
   public String getCurrentCalendarName() {
     return activeCalendar.getName();
   }
@@ -1,25 +1,99 @@
 package calendar.controller;
 
 import calendar.model.Calendar;
+import calendar.model.change.CalendarChange;
+import calendar.model.change.CalendarChangeListener;
+import calendar.model.change.ChangeBus;
+import calendar.model.change.ChangeType;
+import calendar.model.store.StorageType;
 import java.time.ZoneId;
+import java.util.Collection;
 import java.util.HashMap;
 import java.util.HashSet;
 import java.util.Map;
 import java.util.Set;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.Supplier;
 
-/** Manages multiple calendars by providing methods to create, edit, and retrieve calendars. */
+/**
+ * Manages multiple calendars by providing methods to create, edit, and retrieve calendars.
+ * Calendars are held in a concurrent map, so lookups never block; changes to the set of calendars
+ * are serialized so that a rename cannot race a create of the same name.
+ *
+ * <p>Calendars can also be given as loaders, such as those of a mapped snapshot file, in which case
+ * each calendar is opened the first time it is looked up.
+ *
+ * <p>Change listeners added to the manager hear of every change to any calendar it holds, and of
+ * calendars being created or replaced. Changes are delivered after the manager's lock is released,
+ * merged per calendar when they come in a burst.
+ */
 public class CalendarManager {
-  private final Map<String, Calendar> calendars = new HashMap<>();
+  private final Map<String, Calendar> calendars = new ConcurrentHashMap<>();
+  private final Map<String, Supplier<Calendar>> unopened = new ConcurrentHashMap<>();
+  private final ChangeBus changes = new ChangeBus();
+  private final CalendarChangeListener forward = changes::publish;
+
+  /** Adds a listener to be told of later changes to any calendar and to the set of calendars. */
+  public void addChangeListener(CalendarChangeListener listener) {
+    changes.addListener(listener);
+  }
+
+  /** Removes a change listener, if present. */
+  public void removeChangeListener(CalendarChangeListener listener) {
+    changes.removeListener(listener);
+  }
+
+  /**
+   * Runs work that changes calendars and tells listeners of all its changes when it ends, merged
+   * into one change per calendar.
+   */
+  public <T> T batchChanges(Callable<T> work) throws Exception {
+    return changes.batch(work);
+  }
 
   /**
    * Adds an existing calendar to the manager. Throws an exception if a calendar with the same name
    * already exists.
    */
   public void addCalendar(Calendar calendar) {
-    if (calendars.containsKey(calendar.getName())) {
-      throw new IllegalArgumentException("Calendar name must be unique.");
+    synchronized (this) {
+      if (exists(calendar.getName())) {
+        throw new IllegalArgumentException("Calendar name must be unique.");
+      }
+      put(calendar);
     }
-    calendars.put(calendar.getName(), calendar);
+    publish(calendar.getName());
+  }
+
+  /**
+   * Replaces every calendar with the given ones, such as calendars loaded from a snapshot. Throws
+   * an exception, leaving the calendars unchanged, if two of them have the same name.
+   */
+  public void replaceCalendars(Collection<Calendar> replacements) {
+    Map<String, Calendar> byName = new HashMap<>();
+    for (Calendar calendar : replacements) {
+      if (byName.put(calendar.getName(), calendar) != null) {
+        throw new IllegalArgumentException("Calendar name must be unique.");
+      }
+    }
+    synchronized (this) {
+      clear();
+      byName.values().forEach(this::put);
+    }
+    publish(null);
+  }
+
+  /**
+   * Replaces every calendar with the ones the given loaders return, by name. Each loader is called
+   * when its calendar is first looked up, and must return a calendar with that name.
+   */
+  public void replaceCalendarsLazily(Map<String, Supplier<Calendar>> loaders) {
+    synchronized (this) {
+      clear();
+      unopened.putAll(loaders);
+    }
+    publish(null);
   }
 
   /**
@@ -27,35 +101,106 @@ public class CalendarManager {
    * instance.
    */
   public void createCalendar(String name, String timezoneStr) {
-    if (calendars.containsKey(name)) {
-      throw new IllegalArgumentException("Calendar name must be unique.");
+    createCalendar(name, timezoneStr, StorageType.INDEXED);
+  }
+
+  /** Creates a new calendar whose single events are kept in a store of the given type. */
+  public void createCalendar(String name, String timezoneStr, StorageType storage) {
+    synchronized (this) {
+      if (exists(name)) {
+        throw new IllegalArgumentException("Calendar name must be unique.");
+      }
+      put(new Calendar(name, ZoneId.of(timezoneStr), storage));
     }
-    Calendar cal = new Calendar(name, ZoneId.of(timezoneStr));
-    calendars.put(name, cal);
+    publish(name);
   }
 
+  /** Returns the names of all calendars, including those not opened yet. */
   public Set<String> getCalendarNames() {
-    return new HashSet<>(calendars.keySet());
+    Set<String> names = new HashSet<>(calendars.keySet());
+    names.addAll(unopened.keySet());
+    return names;
   }
 
-  /** Returns the calendar with the specified name. */
+  /** Returns the calendar with the specified name, opening it if it has not been opened yet. */
   public Calendar getCalendar(String name) {
-    return calendars.get(name);
+    Calendar cal = calendars.get(name);
+    if (cal != null || !unopened.containsKey(name)) {
+      return cal;
+    }
+    return open(name);
+  }
+
+  private synchronized Calendar open(String name) {
+    Supplier<Calendar> loader = unopened.get(name);
+    if (loader == null) {
+      // Opened, or renamed, by another thread meanwhile.
+      return calendars.get(name);
+    }
+    Calendar cal = loader.get();
+    // Publish the calendar before dropping its loader so lookups always find one of them.
+    put(cal);
+    unopened.remove(name);
+    return cal;
+  }
+
+  /** Adds a calendar to the map and starts forwarding its changes. */
+  private void put(Calendar cal) {
+    cal.addChangeListener(forward);
+    calendars.put(cal.getName(), cal);
+  }
+
+  /** Drops every calendar, opened or not, and stops forwarding their changes. */
+  private void clear() {
+    for (Calendar cal : calendars.values()) {
+      cal.removeChangeListener(forward);
+    }
+    calendars.clear();
+    unopened.clear();
+  }
+
+  /** Tells listeners that the named calendar, or with a null name every calendar, was replaced. */
+  private void publish(String name) {
+    if (changes.hasListeners()) {
+      changes.publish(new CalendarChange(name, ChangeType.CALENDAR, null, null, 0, 0));
+    }
   }
 
-  /** Edits an existing calendar's property. */
+  /** Returns true if a calendar has the given name, without opening it. */
+  public boolean hasCalendar(String name) {
+    return exists(name);
+  }
+
+  private boolean exists(String name) {
+    return calendars.containsKey(name) || unopened.containsKey(name);
+  }
+
+  /**
+   * Edits an existing calendar's property. The calendar reports the change itself, and listeners
+   * hear of it once the manager's lock is released.
+   */
   public void editCalendar(String name, String property, String newValue) {
-    Calendar cal = calendars.get(name);
+    changes.hold();
+    try {
+      editCalendarLocked(name, property, newValue);
+    } finally {
+      changes.release();
+    }
+  }
+
+  private synchronized void editCalendarLocked(String name, String property, String newValue) {
+    Calendar cal = getCalendar(name);
     if (cal == null) {
       throw new IllegalArgumentException("Calendar not found.");
     }
     if (property.equalsIgnoreCase("name")) {
-      if (calendars.containsKey(newValue)) {
+      if (exists(newValue)) {
         throw new IllegalArgumentException("New calendar name must be unique.");
       }
-      calendars.remove(name);
+      // Publish the new name before dropping the old one so lookups always find the calendar.
       cal.setName(newValue);
       calendars.put(newValue, cal);
+      calendars.remove(name);
     } else if (property.equalsIgnoreCase("timezone")) {
       cal.setTimezone(newValue);
     } else {
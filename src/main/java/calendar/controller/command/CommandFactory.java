@@ -35,6 +35,14 @@ public class CommandFactory {
         return new ExportCommand(tokens, controller);
       case "show":
         return new ShowCommand(tokens, controller);
+      case "find":
+        return new FindCommand(tokens, controller);
+      case "stats":
+        return new StatsCommand(tokens, controller);
+      case "search":
+        return new SearchCommand(tokens, controller);
+      case "complete":
+        return new CompleteCommand(tokens, controller);
       default: {
         throw new InvalidCommandException(commandType);
       }
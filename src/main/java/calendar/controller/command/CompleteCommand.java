@@ -0,0 +1,55 @@
+package calendar.controller.command;
+
+import calendar.controller.CalendarController;
+import calendar.view.exceptions.InvalidCommandException;
+import calendar.view.exceptions.MissingParameterException;
+import calendar.view.views.CalendarView;
+
+/**
+ * Concrete implementation of the complete command, which lists the event names starting with a
+ * prefix, the most common first: {@code complete <prefix> [--limit <n>]}. In interactive mode it
+ * saves typing exact names for the edit and copy commands.
+ */
+public class CompleteCommand implements Command {
+  /** The number of names listed unless --limit says otherwise. */
+  public static final int DEFAULT_LIMIT = 10;
+
+  private final String[] tokens;
+  private final CalendarController controller;
+
+  /** Constructor for the complete command. */
+  public CompleteCommand(String[] tokens, CalendarController controller) {
+    this.tokens = tokens;
+    this.controller = controller;
+  }
+
+  /** Executes the complete command. */
+  @Override
+  public String execute() throws Exception {
+    if (tokens.length < 2) {
+      throw new MissingParameterException("name prefix");
+    }
+    String prefix = tokens[1];
+    int limit = DEFAULT_LIMIT;
+    if (tokens.length > 2) {
+      if (tokens.length != 4 || !tokens[2].equalsIgnoreCase("--limit")) {
+        throw new InvalidCommandException(
+            "complete command must be 'complete <prefix> [--limit <n>]'");
+      }
+      limit = parseLimit(tokens[3]);
+    }
+    return CalendarView.formatCompletions(prefix, controller.completeEventNames(prefix, limit));
+  }
+
+  private static int parseLimit(String value) throws InvalidCommandException {
+    try {
+      int limit = Integer.parseInt(value);
+      if (limit > 0) {
+        return limit;
+      }
+    } catch (NumberFormatException e) {
+      // Reported below like any other value that is not positive.
+    }
+    throw new InvalidCommandException("--limit must be a positive number: " + value);
+  }
+}
@@ -19,7 +19,30 @@ public class CopyCommand implements Command {
   @Override
   public String execute() throws Exception {
     int index = 1;
-    if (tokens[index].equalsIgnoreCase("event")) {
+    if (tokens[index].equalsIgnoreCase("event")
+        && tokens.length > 2
+        && tokens[2].equalsIgnoreCase("--id")) {
+      index = 3;
+      if (index >= tokens.length) {
+        throw new MissingParameterException("event id");
+      }
+      long id = EditCommand.parseId(tokens[index++]);
+      if (index >= tokens.length || !tokens[index].equalsIgnoreCase("--target")) {
+        throw new MissingParameterException("target calendar");
+      }
+      index++;
+      String targetCal = tokens[index++];
+      if (index >= tokens.length || !tokens[index].equalsIgnoreCase("to")) {
+        throw new MissingParameterException("to");
+      }
+      index++;
+      if (index >= tokens.length) {
+        throw new MissingParameterException("target datetime");
+      }
+      String targetDateTime = tokens[index];
+      controller.copyEventById(id, targetCal, targetDateTime);
+      return "Event " + id + " copied to calendar " + targetCal + ".";
+    } else if (tokens[index].equalsIgnoreCase("event")) {
       index++;
       String eventName = tokens[index++];
       if (!tokens[index].equalsIgnoreCase("on")) {
@@ -1,6 +1,7 @@
 package calendar.controller.command;
 
 import calendar.controller.CalendarController;
+import calendar.model.store.StorageType;
 import calendar.view.exceptions.InvalidCommandException;
 import calendar.view.exceptions.InvalidTokenException;
 import calendar.view.exceptions.MissingParameterException;
@@ -16,7 +17,10 @@ public class CreateCommand implements Command {
     this.controller = controller;
   }
 
-  /** Processes a create calendar command. */
+  /**
+   * Processes a create calendar command. An optional {@code --storage indexed|columnar} after the
+   * timezone chooses how the calendar stores its events.
+   */
   private static String processCreateCalendar(String[] tokens, CalendarController controller)
       throws Exception {
     int index = 2;
@@ -30,7 +34,19 @@ public class CreateCommand implements Command {
     }
     index++;
     String timezone = tokens[index++];
-    controller.createCalendar(calName, timezone);
+    StorageType storage = StorageType.INDEXED;
+    if (index < tokens.length && tokens[index].equalsIgnoreCase("--storage")) {
+      index++;
+      if (index >= tokens.length) {
+        throw new MissingParameterException("storage type");
+      }
+      try {
+        storage = StorageType.valueOf(tokens[index++].toUpperCase());
+      } catch (IllegalArgumentException e) {
+        throw new InvalidCommandException("Storage type: " + tokens[index - 1]);
+      }
+    }
+    controller.createCalendar(calName, timezone, storage);
     return "Calendar created: " + calName + " with timezone " + timezone;
   }
 
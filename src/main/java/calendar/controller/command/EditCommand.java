@@ -42,7 +42,9 @@ public class EditCommand implements Command {
       throw new MissingParameterException("edit command");
     }
     String target = tokens[1].toLowerCase();
-    if (target.equals("event")) {
+    if (target.equals("event") && tokens.length > 3 && tokens[3].equalsIgnoreCase("--id")) {
+      return processEditById(tokens, controller);
+    } else if (target.equals("event")) {
       if (tokens.length < 9) {
         throw new MissingParameterException("edit event command parameters");
       }
@@ -83,6 +85,31 @@ public class EditCommand implements Command {
     }
   }
 
+  /** Processes {@code edit event <property> --id <id> with <newValue>}. */
+  private static String processEditById(String[] tokens, CalendarController controller)
+      throws Exception {
+    String property = tokens[2];
+    if (tokens.length < 5) {
+      throw new MissingParameterException("event id");
+    }
+    long id = parseId(tokens[4]);
+    if (tokens.length < 7 || !tokens[5].equalsIgnoreCase("with")) {
+      throw new InvalidTokenException("with");
+    }
+    String newValue = tokens[6];
+    controller.editEventById(property, id, newValue);
+    return "Event " + id + " edited.";
+  }
+
+  /** Parses an event id. */
+  static long parseId(String token) throws InvalidCommandException {
+    try {
+      return Long.parseLong(token);
+    } catch (NumberFormatException e) {
+      throw new InvalidCommandException("Event id: " + token);
+    }
+  }
+
   /** Executes the edit calendar command. */
   @Override
   public String execute() throws Exception {
@@ -0,0 +1,79 @@
+package calendar.controller.command;
+
+import calendar.controller.CalendarController;
+import calendar.model.TimeSlot;
+import calendar.view.exceptions.InvalidCommandException;
+import calendar.view.exceptions.InvalidTokenException;
+import calendar.view.exceptions.MissingParameterException;
+import calendar.view.views.CalendarView;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * Concrete implementation of the find command, which searches for free time:
+ * {@code find slot <minutes> between <datetime> and <datetime> [--calendars <a,b,...>]
+ * [--count <k>]}. Without {@code --calendars} only the active calendar is searched, and without
+ * {@code --count} only the earliest slot is returned.
+ */
+public class FindCommand implements Command {
+  private final String[] tokens;
+  private final CalendarController controller;
+
+  /** Constructor for the find command. */
+  public FindCommand(String[] tokens, CalendarController controller) {
+    this.tokens = tokens;
+    this.controller = controller;
+  }
+
+  /** Executes the find command. */
+  @Override
+  public String execute() throws Exception {
+    if (tokens.length < 2 || !tokens[1].equalsIgnoreCase("slot")) {
+      throw new InvalidCommandException("find command must be 'find slot ...'");
+    }
+    if (tokens.length < 3) {
+      throw new MissingParameterException("slot length in minutes");
+    }
+    int minutes = parseNumber(tokens[2], "Slot length");
+    if (tokens.length < 5 || !tokens[3].equalsIgnoreCase("between")) {
+      throw new InvalidTokenException("between");
+    }
+    String start = tokens[4];
+    if (tokens.length < 7 || !tokens[5].equalsIgnoreCase("and")) {
+      throw new InvalidTokenException("and");
+    }
+    String end = tokens[6];
+    List<String> calendars = new ArrayList<>();
+    int count = 1;
+    int index = 7;
+    while (index < tokens.length) {
+      String option = tokens[index++];
+      if (index >= tokens.length) {
+        throw new MissingParameterException(option);
+      }
+      if (option.equalsIgnoreCase("--calendars")) {
+        calendars.addAll(Arrays.asList(tokens[index++].split(",")));
+      } else if (option.equalsIgnoreCase("--count")) {
+        count = parseNumber(tokens[index++], "Slot count");
+      } else {
+        throw new InvalidCommandException("Unknown find option: " + option);
+      }
+    }
+    List<TimeSlot> slots = controller.findFreeSlots(minutes, start, end, calendars, count);
+    return CalendarView.formatFreeSlots(minutes, start, end, slots);
+  }
+
+  /** Parses a positive whole number. */
+  private static int parseNumber(String token, String what) throws InvalidCommandException {
+    try {
+      int value = Integer.parseInt(token);
+      if (value > 0) {
+        return value;
+      }
+    } catch (NumberFormatException e) {
+      // Reported below.
+    }
+    throw new InvalidCommandException(what + ": " + token);
+  }
+}
@@ -1,17 +1,26 @@
 package calendar.controller.command;
 
 import calendar.controller.CalendarController;
+import calendar.model.EventPage;
 import calendar.model.event.Event;
 import calendar.view.exceptions.InvalidCommandException;
 import calendar.view.exceptions.InvalidTokenException;
 import calendar.view.exceptions.MissingParameterException;
 import calendar.view.views.CalendarView;
 import java.util.List;
+import java.util.stream.Stream;
 
-/** Concrete implementation of the print command. */
+/**
+ * Concrete implementation of the print command. The {@code on} and {@code from} forms take
+ * optional {@code --limit N} and {@code --after <cursor>} options to print one page of the events
+ * at a time; a page that leaves events out ends with the cursor to pass for the next one. The
+ * {@code next N after <datetime>} form prints the first N events starting at or after a time.
+ */
 public class PrintCommand implements Command {
   private final String[] tokens;
   private final CalendarController controller;
+  private int limit = Integer.MAX_VALUE;
+  private String after;
 
   public PrintCommand(String[] tokens, CalendarController controller) {
     this.tokens = tokens;
@@ -31,18 +40,73 @@ public class PrintCommand implements Command {
         throw new MissingParameterException("date for print events on");
       }
       String date = tokens[3];
-      List<Event> events = controller.getEventsOn(date);
-      return CalendarView.formatEventsOn(date, events);
+      if (!parsePaging(4)) {
+        List<Event> events = controller.getEventsOn(date);
+        return CalendarView.formatEventsOn(date, events);
+      }
+      EventPage page = controller.getEventsOnPage(date, limit, after);
+      return CalendarView.formatEventsOn(date, page.getEvents())
+          + CalendarView.formatNextPage(page.getNext());
     } else if (tokens[2].equalsIgnoreCase("from")) {
       if (tokens.length < 6 || !tokens[4].equalsIgnoreCase("to")) {
         throw new InvalidTokenException("to");
       }
       String startDateTime = tokens[3];
       String endDateTime = tokens[5];
-      List<Event> events = controller.getEventsBetween(startDateTime, endDateTime);
-      return CalendarView.formatEventsBetween(startDateTime, endDateTime, events);
+      if (!parsePaging(6)) {
+        Stream<Event> events = controller.streamEventsBetween(startDateTime, endDateTime);
+        return CalendarView.formatEventsBetween(startDateTime, endDateTime, events);
+      }
+      EventPage page = controller.getEventsPage(startDateTime, endDateTime, limit, after);
+      return CalendarView.formatEventsBetween(startDateTime, endDateTime, page.getEvents())
+          + CalendarView.formatNextPage(page.getNext());
+    } else if (tokens[2].equalsIgnoreCase("next")) {
+      if (tokens.length < 6 || !tokens[4].equalsIgnoreCase("after")) {
+        throw new InvalidCommandException(
+            "print events next command must be 'print events next <N> after <datetime>'");
+      }
+      int count = parsePositive(tokens[3], "event count");
+      String from = tokens[5];
+      return CalendarView.formatNextEvents(from, controller.getNextEvents(from, count));
     } else {
       throw new InvalidCommandException("Invalid print events command.");
     }
   }
+
+  /**
+   * Reads the paging options from the given index on, returning true if there were any. Any other
+   * token there is an error.
+   */
+  private boolean parsePaging(int index) throws Exception {
+    boolean paged = false;
+    while (index < tokens.length) {
+      String option = tokens[index++];
+      if (index >= tokens.length) {
+        throw new MissingParameterException("value for " + option);
+      }
+      String value = tokens[index++];
+      if (option.equalsIgnoreCase("--limit")) {
+        limit = parsePositive(value, "--limit");
+      } else if (option.equalsIgnoreCase("--after")) {
+        after = value;
+      } else {
+        throw new InvalidCommandException("Unknown print option: " + option);
+      }
+      paged = true;
+    }
+    return paged;
+  }
+
+  private static int parsePositive(String value, String what) throws InvalidCommandException {
+    int number;
+    try {
+      number = Integer.parseInt(value);
+    } catch (NumberFormatException e) {
+      number = 0;
+    }
+    if (number <= 0) {
+      throw new InvalidCommandException(what + " must be a positive number: " + value);
+    }
+    return number;
+  }
 }
@@ -0,0 +1,61 @@
+package calendar.controller.command;
+
+import calendar.controller.CalendarController;
+import calendar.model.event.Event;
+import calendar.view.exceptions.InvalidCommandException;
+import calendar.view.exceptions.InvalidTokenException;
+import calendar.view.exceptions.MissingParameterException;
+import calendar.view.views.CalendarView;
+import java.util.List;
+
+/**
+ * Concrete implementation of the search command, which finds events by the words in their name,
+ * description and location: {@code search events "<words>" [from <datetime> to <datetime>]}. An
+ * event matches when it contains every word, ignoring case. A single word need not be quoted.
+ */
+public class SearchCommand implements Command {
+  private final String[] tokens;
+  private final CalendarController controller;
+
+  /** Constructor for the search command. */
+  public SearchCommand(String[] tokens, CalendarController controller) {
+    this.tokens = tokens;
+    this.controller = controller;
+  }
+
+  /** Executes the search command. */
+  @Override
+  public String execute() throws Exception {
+    if (tokens.length < 2 || !tokens[1].equalsIgnoreCase("events")) {
+      throw new InvalidCommandException("search command must be 'search events \"<words>\" ...'");
+    }
+    if (tokens.length < 3) {
+      throw new MissingParameterException("search words");
+    }
+    int index = 2;
+    StringBuilder query = new StringBuilder(tokens[index++]);
+    if (query.charAt(0) == '"') {
+      while (query.length() < 2 || query.charAt(query.length() - 1) != '"') {
+        if (index >= tokens.length) {
+          throw new InvalidTokenException("\"");
+        }
+        query.append(' ').append(tokens[index++]);
+      }
+      query.deleteCharAt(query.length() - 1).deleteCharAt(0);
+    }
+    String from = null;
+    String to = null;
+    if (index < tokens.length) {
+      if (!tokens[index].equalsIgnoreCase("from") || index + 1 >= tokens.length) {
+        throw new InvalidTokenException("from");
+      }
+      from = tokens[index + 1];
+      if (index + 3 >= tokens.length || !tokens[index + 2].equalsIgnoreCase("to")) {
+        throw new InvalidTokenException("to");
+      }
+      to = tokens[index + 3];
+    }
+    List<Event> events = controller.searchEvents(query.toString(), from, to);
+    return CalendarView.formatSearchResults(query.toString(), events);
+  }
+}
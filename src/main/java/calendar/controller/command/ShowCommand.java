@@ -17,6 +17,9 @@ public class ShowCommand implements Command {
   /** Executes the show command. */
   @Override
   public String execute() throws Exception {
+    if (tokens.length == 2 && tokens[1].equalsIgnoreCase("cache")) {
+      return controller.getQueryCacheStatus();
+    }
     if (tokens.length < 4
         || !tokens[1].equalsIgnoreCase("status")
         || !tokens[2].equalsIgnoreCase("on")) {
@@ -0,0 +1,52 @@
+package calendar.controller.command;
+
+import calendar.controller.CalendarController;
+import calendar.model.RangeStats;
+import calendar.view.exceptions.InvalidCommandException;
+import calendar.view.exceptions.InvalidTokenException;
+import calendar.view.exceptions.MissingParameterException;
+import calendar.view.views.CalendarView;
+
+/**
+ * Concrete implementation of the stats command, which aggregates the active calendar over a range
+ * of dates: {@code stats from <date> to <date> [by day|week]}. Counts are per day unless
+ * {@code by week} is given.
+ */
+public class StatsCommand implements Command {
+  private final String[] tokens;
+  private final CalendarController controller;
+
+  /** Constructor for the stats command. */
+  public StatsCommand(String[] tokens, CalendarController controller) {
+    this.tokens = tokens;
+    this.controller = controller;
+  }
+
+  /** Executes the stats command. */
+  @Override
+  public String execute() throws Exception {
+    if (tokens.length < 3 || !tokens[1].equalsIgnoreCase("from")) {
+      throw new InvalidTokenException("from");
+    }
+    String from = tokens[2];
+    if (tokens.length < 5 || !tokens[3].equalsIgnoreCase("to")) {
+      throw new InvalidTokenException("to");
+    }
+    String to = tokens[4];
+    RangeStats.Bucket bucket = RangeStats.Bucket.DAY;
+    if (tokens.length > 5) {
+      if (!tokens[5].equalsIgnoreCase("by")) {
+        throw new InvalidTokenException("by");
+      }
+      if (tokens.length < 7) {
+        throw new MissingParameterException("day or week");
+      }
+      try {
+        bucket = RangeStats.Bucket.valueOf(tokens[6].toUpperCase());
+      } catch (IllegalArgumentException e) {
+        throw new InvalidCommandException("stats can be grouped by day or week: " + tokens[6]);
+      }
+    }
+    return CalendarView.formatStats(controller.getStats(from, to, bucket));
+  }
+}
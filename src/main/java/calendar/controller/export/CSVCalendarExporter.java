@@ -8,9 +8,13 @@ import java.io.IOException;
 import java.nio.file.Paths;
 import java.time.LocalDateTime;
 import java.time.format.DateTimeFormatter;
-import java.util.List;
+import java.util.Iterator;
 
-/** Exports a calendar to a CSV file formatted for Google Calendar import. */
+/**
+ * Exports a calendar to a CSV file formatted for Google Calendar import. The events are streamed
+ * from a snapshot, so edits made while the file is written do not show up in it half applied, and
+ * the memory used does not grow with the size of the calendar.
+ */
 public class CSVCalendarExporter implements CalendarExporter {
 
   /** Exports the given calendar to a CSV file. */
@@ -25,11 +29,14 @@ public class CSVCalendarExporter implements CalendarExporter {
           "\"Subject\",\"Start Date\",\"Start Time\",\"End Date\","
               + "\"End Time\",\"All Day Event\",\"Description\",\"Location\",\"Private\"");
       writer.newLine();
-      // Retrieve all events using a wide range.
-      List<Event> events =
-          calendar.getEventsBetween(
-              LocalDateTime.of(1, 1, 1, 0, 0), LocalDateTime.of(9999, 12, 31, 23, 59));
-      for (Event event : events) {
+      // Stream all events using a wide range, so only a window of them is held at once.
+      Iterator<Event> events =
+          calendar
+              .streamEventsBetween(
+                  LocalDateTime.of(1, 1, 1, 0, 0), LocalDateTime.of(9999, 12, 31, 23, 59))
+              .iterator();
+      while (events.hasNext()) {
+        Event event = events.next();
         String subject = event.getName();
         String startDate = dateFormatter.format(event.getStart());
         String endDate = dateFormatter.format(event.getEnd());
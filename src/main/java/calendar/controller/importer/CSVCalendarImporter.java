@@ -1,34 +1,37 @@
 package calendar.controller.importer;
 
-import calendar.model.Calendar;
+import calendar.model.event.Event;
 import calendar.model.event.SingleEvent;
 import java.io.BufferedReader;
 import java.io.FileReader;
 import java.time.LocalDate;
 import java.time.LocalDateTime;
 import java.time.format.DateTimeFormatter;
+import java.util.ArrayList;
+import java.util.List;
 
 /**
  * Imports calendar events from a CSV file into a Calendar.
  *
  * <p>This importer reads CSV files with dates formatted as "MM/dd/yyyy". The first line is assumed
- * to be a header and is skipped. Each subsequent line should contain at least 9 values.
+ * to be a header and is skipped. Each subsequent line should contain at least 9 values. The whole
+ * file is parsed before anything is added, and the events are then added as one batch, so a file
+ * that fails to parse leaves the calendar unchanged.
  */
 public class CSVCalendarImporter implements CalendarImporter {
 
   /**
-   * Imports events from the specified CSV file into the provided Calendar.
+   * Reads the events in the specified CSV file, in file order.
    *
-   * @param calendar the Calendar into which events should be imported
-   * @param fileName the path to the CSV file to import events from
-   * @return the number of events successfully imported
+   * @param fileName the path to the CSV file to read events from
+   * @return the events read
    * @throws Exception if an error occurs during file reading or event processing
    */
   @Override
-  public int importCalendar(Calendar calendar, String fileName) throws Exception {
+  public List<Event> readEvents(String fileName) throws Exception {
     // The CSV export writes dates in "MM/dd/yyyy" format.
     DateTimeFormatter csvDateFormatter = DateTimeFormatter.ofPattern("MM/dd/yyyy");
-    int importCount = 0;
+    List<Event> events = new ArrayList<>();
     try (BufferedReader reader = new BufferedReader(new FileReader(fileName))) {
       String line;
       boolean firstLine = true;
@@ -69,10 +72,9 @@ public class CSVCalendarImporter implements CalendarImporter {
         // Create the event.
         SingleEvent event =
             new SingleEvent(subject, startDateTime, endDateTime, description, location, true);
-        calendar.addEvent(event, false);
-        importCount++;
+        events.add(event);
       }
     }
-    return importCount;
+    return events;
   }
 }
@@ -1,12 +1,19 @@
 package calendar.controller.importer;
 
 import calendar.model.Calendar;
+import calendar.model.event.Event;
+import java.util.List;
 
 /** An interface to define the behavior for importing calendar events from a file. */
 public interface CalendarImporter {
+  /** Reads the events in the specified file without adding them to any calendar. */
+  List<Event> readEvents(String fileName) throws Exception;
+
   /**
    * Imports events into the provided Calendar from the specified CSV file. Returns the number of
    * events imported.
    */
-  int importCalendar(Calendar calendar, String fileName) throws Exception;
+  default int importCalendar(Calendar calendar, String fileName) throws Exception {
+    return calendar.addEvents(readEvents(fileName), false);
+  }
 }
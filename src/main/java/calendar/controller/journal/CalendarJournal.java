@@ -0,0 +1,358 @@
+package calendar.controller.journal;
+
+import calendar.controller.CalendarManager;
+import calendar.model.Calendar;
+import calendar.model.event.Event;
+import calendar.model.event.RecurringEvent;
+import calendar.model.event.SingleEvent;
+import calendar.model.store.StorageType;
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.Closeable;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.time.DayOfWeek;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.time.ZoneOffset;
+import java.util.ArrayList;
+import java.util.EnumSet;
+import java.util.List;
+import java.util.Set;
+
+/**
+ * Records every change made to a set of calendars in a {@link Journal}, and rebuilds the calendars
+ * by replaying it. Each record holds one change as the model saw it: events are stored with their
+ * parsed times rather than as the command text or file that produced them, so replaying an import
+ * does not read the CSV file again, and a copy does not need its source calendar.
+ *
+ * <p>Only changes that succeeded are recorded, and calendars assign ids in the order changes are
+ * made, so replaying a journal gives every event the id it had before.
+ *
+ * <p>A journal made with {@link #disabled()} records nothing, which lets callers record changes
+ * without checking whether journaling is on.
+ */
+public final class CalendarJournal implements Closeable {
+  private static final byte CREATE_CALENDAR = 1;
+  private static final byte EDIT_CALENDAR = 2;
+  private static final byte ADD_EVENTS = 3;
+  private static final byte ADD_SERIES = 4;
+  private static final byte EDIT_SINGLE = 5;
+  private static final byte EDIT_BY_ID = 6;
+  private static final byte EDIT_FROM = 7;
+  private static final byte EDIT_ALL = 8;
+
+  private final Journal journal;
+
+  private CalendarJournal(Journal journal) {
+    this.journal = journal;
+  }
+
+  /** Returns a journal that records nothing. */
+  public static CalendarJournal disabled() {
+    return new CalendarJournal(null);
+  }
+
+  /** Returns true if changes are being recorded in a file. */
+  public boolean isEnabled() {
+    return journal != null;
+  }
+
+  /** Opens a journal file for recording, creating it if it does not exist. */
+  public static CalendarJournal open(Path path, SyncPolicy policy, long intervalMillis)
+      throws IOException {
+    return new CalendarJournal(Journal.open(path, policy, intervalMillis));
+  }
+
+  /**
+   * Applies every change recorded in a journal file to the calendars of a manager, in order, and
+   * returns the number of changes. A file that does not exist holds no changes.
+   *
+   * @throws Exception if the file is not a journal or a change cannot be applied
+   */
+  public static int replay(Path path, CalendarManager manager) throws Exception {
+    return Journal.read(path, payload -> apply(payload, manager));
+  }
+
+  /** Records that a calendar was created. */
+  public void calendarCreated(String name, String timezone, StorageType storage)
+      throws IOException {
+    if (journal == null) {
+      return;
+    }
+    Record record = new Record(CREATE_CALENDAR);
+    record.string(name);
+    record.string(timezone);
+    record.string(storage.name());
+    journal.append(record.bytes());
+  }
+
+  /** Records that a property of a calendar was changed. */
+  public void calendarEdited(String name, String property, String newValue) throws IOException {
+    if (journal == null) {
+      return;
+    }
+    Record record = new Record(EDIT_CALENDAR);
+    record.string(name);
+    record.string(property);
+    record.string(newValue);
+    journal.append(record.bytes());
+  }
+
+  /** Records that events were added to a calendar, in one batch if there are several. */
+  public void eventsAdded(String calendar, List<? extends Event> events) throws IOException {
+    if (journal == null || events.isEmpty()) {
+      return;
+    }
+    Record record = new Record(ADD_EVENTS);
+    record.string(calendar);
+    record.out.writeInt(events.size());
+    for (Event event : events) {
+      record.event(event);
+    }
+    journal.append(record.bytes());
+  }
+
+  /**
+   * Records that a series was added to a calendar. A series with no occurrences is never added,
+   * so it is not recorded.
+   */
+  public void seriesAdded(String calendar, RecurringEvent series) throws IOException {
+    if (journal == null || series.isEmpty()) {
+      return;
+    }
+    Record record = new Record(ADD_SERIES);
+    record.string(calendar);
+    record.event(series);
+    int weekdays = 0;
+    for (DayOfWeek day : series.getWeekdays()) {
+      weekdays |= 1 << (day.getValue() - 1);
+    }
+    record.out.writeByte(weekdays);
+    record.out.writeLong(series.getLastDate().toEpochDay());
+    journal.append(record.bytes());
+  }
+
+  /** Records an edit of the single event or occurrence with the given name, start and end. */
+  public void singleEventEdited(
+      String calendar,
+      String property,
+      String name,
+      LocalDateTime start,
+      LocalDateTime end,
+      String newValue)
+      throws IOException {
+    if (journal == null) {
+      return;
+    }
+    Record record = new Record(EDIT_SINGLE);
+    record.string(calendar);
+    record.string(property);
+    record.string(name);
+    record.dateTime(start);
+    record.dateTime(end);
+    record.string(newValue);
+    journal.append(record.bytes());
+  }
+
+  /** Records an edit of the event with the given id. */
+  public void eventEditedById(String calendar, String property, long id, String newValue)
+      throws IOException {
+    if (journal == null) {
+      return;
+    }
+    Record record = new Record(EDIT_BY_ID);
+    record.string(calendar);
+    record.string(property);
+    record.out.writeLong(id);
+    record.string(newValue);
+    journal.append(record.bytes());
+  }
+
+  /** Records an edit of the events with the given name starting at or after a date-time. */
+  public void eventsEditedFrom(
+      String calendar, String property, String name, LocalDateTime start, String newValue)
+      throws IOException {
+    if (journal == null) {
+      return;
+    }
+    Record record = new Record(EDIT_FROM);
+    record.string(calendar);
+    record.string(property);
+    record.string(name);
+    record.dateTime(start);
+    record.string(newValue);
+    journal.append(record.bytes());
+  }
+
+  /** Records an edit of every event with the given name. */
+  public void eventsEdited(String calendar, String property, String name, String newValue)
+      throws IOException {
+    if (journal == null) {
+      return;
+    }
+    Record record = new Record(EDIT_ALL);
+    record.string(calendar);
+    record.string(property);
+    record.string(name);
+    record.string(newValue);
+    journal.append(record.bytes());
+  }
+
+  /** Writes out any buffered changes, forcing them to disk unless the policy is NONE. */
+  public void sync() throws IOException {
+    if (journal != null) {
+      journal.sync();
+    }
+  }
+
+  /** Writes out any buffered changes and closes the file. */
+  @Override
+  public void close() throws IOException {
+    if (journal != null) {
+      journal.close();
+    }
+  }
+
+  /** Applies one recorded change to the calendars of a manager. */
+  private static void apply(byte[] payload, CalendarManager manager) throws Exception {
+    DataInputStream in = new DataInputStream(new ByteArrayInputStream(payload));
+    byte type = in.readByte();
+    switch (type) {
+      case CREATE_CALENDAR:
+        manager.createCalendar(
+            readString(in), readString(in), StorageType.valueOf(readString(in)));
+        break;
+      case EDIT_CALENDAR:
+        manager.editCalendar(readString(in), readString(in), readString(in));
+        break;
+      case ADD_EVENTS: {
+        Calendar calendar = calendarNamed(manager, readString(in));
+        int count = in.readInt();
+        List<Event> events = new ArrayList<>(count);
+        for (int i = 0; i < count; i++) {
+          events.add(readEvent(in));
+        }
+        calendar.addEvents(events, false);
+        break;
+      }
+      case ADD_SERIES: {
+        Calendar calendar = calendarNamed(manager, readString(in));
+        Event rule = readEvent(in);
+        int mask = in.readByte();
+        Set<DayOfWeek> weekdays = EnumSet.noneOf(DayOfWeek.class);
+        for (DayOfWeek day : DayOfWeek.values()) {
+          if ((mask & (1 << (day.getValue() - 1))) != 0) {
+            weekdays.add(day);
+          }
+        }
+        LocalDate lastDate = LocalDate.ofEpochDay(in.readLong());
+        calendar.addRecurringEvent(
+            new RecurringEvent(
+                rule.getName(),
+                rule.getStart(),
+                rule.getEnd(),
+                rule.getDescription(),
+                rule.getLocation(),
+                rule.isPublic(),
+                weekdays,
+                lastDate.atStartOfDay()),
+            false);
+        break;
+      }
+      case EDIT_SINGLE:
+        calendarNamed(manager, readString(in))
+            .editSingleEvent(
+                readString(in), readString(in), readDateTime(in), readDateTime(in), readString(in));
+        break;
+      case EDIT_BY_ID:
+        calendarNamed(manager, readString(in))
+            .editEventById(readString(in), in.readLong(), readString(in));
+        break;
+      case EDIT_FROM:
+        calendarNamed(manager, readString(in))
+            .editEventsFrom(readString(in), readString(in), readDateTime(in), readString(in));
+        break;
+      case EDIT_ALL:
+        calendarNamed(manager, readString(in))
+            .editEvents(readString(in), readString(in), readString(in));
+        break;
+      default:
+        throw new IOException("Unknown journal record type: " + type);
+    }
+  }
+
+  private static Calendar calendarNamed(CalendarManager manager, String name) throws IOException {
+    Calendar calendar = manager.getCalendar(name);
+    if (calendar == null) {
+      throw new IOException("Journal refers to unknown calendar " + name);
+    }
+    return calendar;
+  }
+
+  private static Event readEvent(DataInputStream in) throws IOException {
+    return new SingleEvent(
+        readString(in),
+        readDateTime(in),
+        readDateTime(in),
+        readString(in),
+        readString(in),
+        in.readBoolean());
+  }
+
+  private static String readString(DataInputStream in) throws IOException {
+    int length = in.readInt();
+    if (length < 0) {
+      return null;
+    }
+    byte[] bytes = new byte[length];
+    in.readFully(bytes);
+    return new String(bytes, StandardCharsets.UTF_8);
+  }
+
+  private static LocalDateTime readDateTime(DataInputStream in) throws IOException {
+    return LocalDateTime.ofEpochSecond(in.readLong(), in.readInt(), ZoneOffset.UTC);
+  }
+
+  /** The contents of one record, written field by field. */
+  private static final class Record {
+    private final ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+    private final DataOutputStream out = new DataOutputStream(bytes);
+
+    Record(byte type) throws IOException {
+      out.writeByte(type);
+    }
+
+    /** Writes a string as its UTF-8 length and bytes, or a length of -1 for null. */
+    void string(String value) throws IOException {
+      if (value == null) {
+        out.writeInt(-1);
+        return;
+      }
+      byte[] encoded = value.getBytes(StandardCharsets.UTF_8);
+      out.writeInt(encoded.length);
+      out.write(encoded);
+    }
+
+    void dateTime(LocalDateTime value) throws IOException {
+      out.writeLong(value.toEpochSecond(ZoneOffset.UTC));
+      out.writeInt(value.getNano());
+    }
+
+    void event(Event event) throws IOException {
+      string(event.getName());
+      dateTime(event.getStart());
+      dateTime(event.getEnd());
+      string(event.getDescription());
+      string(event.getLocation());
+      out.writeBoolean(event.isPublic());
+    }
+
+    byte[] bytes() {
+      return bytes.toByteArray();
+    }
+  }
+}
@@ -0,0 +1,300 @@
+package calendar.controller.journal;
+
+import java.io.BufferedInputStream;
+import java.io.Closeable;
+import java.io.DataInputStream;
+import java.io.EOFException;
+import java.io.IOException;
+import java.io.InterruptedIOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.Channels;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.zip.CRC32;
+
+/**
+ * An append-only file of records. The file starts with a magic number and a format version, and
+ * each record is its length, a CRC-32 of its contents and the contents. A crash can leave the last
+ * record cut short; reading stops at the first record that is incomplete or fails its checksum,
+ * and opening the file for appending cuts it back to the end of the last good record.
+ *
+ * <p>Appends use group commit. Records are framed into a shared buffer, and whichever caller
+ * commits next writes out the whole buffer with one write and, unless the policy is
+ * {@link SyncPolicy#NONE}, one force; callers whose records went out with it return without
+ * writing. Under {@link SyncPolicy#INTERVAL} no caller waits: a background thread commits the
+ * buffer at a fixed interval, and an append commits it early only when it fills.
+ */
+public final class Journal implements Closeable {
+  private static final int MAGIC = 0x43414c4a;
+  private static final int VERSION = 1;
+  private static final int HEADER_BYTES = 8;
+  private static final int RECORD_HEADER_BYTES = 8;
+  private static final int GROUP_BYTES = 1 << 16;
+
+  private final FileChannel channel;
+  private final SyncPolicy policy;
+  private final ScheduledExecutorService flusher;
+  private ByteBuffer pending = ByteBuffer.allocate(GROUP_BYTES);
+  // Records framed into a buffer so far, and records known to be written under the policy.
+  private long appended;
+  private long committed;
+  private boolean writing;
+  private boolean closed;
+  private IOException flushFailure;
+
+  private Journal(FileChannel channel, SyncPolicy policy, long intervalMillis) {
+    this.channel = channel;
+    this.policy = policy;
+    if (policy == SyncPolicy.INTERVAL) {
+      flusher =
+          Executors.newSingleThreadScheduledExecutor(
+              task -> {
+                Thread thread = new Thread(task, "journal-flusher");
+                thread.setDaemon(true);
+                return thread;
+              });
+      flusher.scheduleWithFixedDelay(
+          this::flushInBackground, intervalMillis, intervalMillis, TimeUnit.MILLISECONDS);
+    } else {
+      flusher = null;
+    }
+  }
+
+  /**
+   * Opens a journal for appending, creating the file if it does not exist. The interval is only
+   * used by {@link SyncPolicy#INTERVAL}.
+   *
+   * @throws IOException if the file cannot be opened or is not a journal
+   */
+  public static Journal open(Path path, SyncPolicy policy, long intervalMillis)
+      throws IOException {
+    FileChannel channel =
+        FileChannel.open(
+            path, StandardOpenOption.CREATE, StandardOpenOption.READ, StandardOpenOption.WRITE);
+    try {
+      long end;
+      if (channel.size() == 0) {
+        ByteBuffer header = ByteBuffer.allocate(HEADER_BYTES).putInt(MAGIC).putInt(VERSION);
+        header.flip();
+        while (header.hasRemaining()) {
+          channel.write(header);
+        }
+        channel.force(true);
+        end = HEADER_BYTES;
+      } else {
+        end = scan(channel, payload -> {});
+      }
+      channel.truncate(end);
+      channel.position(end);
+      return new Journal(channel, policy, intervalMillis);
+    } catch (Exception e) {
+      channel.close();
+      throw e instanceof IOException ? (IOException) e : new IOException(e);
+    }
+  }
+
+  /** Receives the contents of each record read back from a journal. */
+  public interface RecordHandler {
+    /** Handles one record. */
+    void accept(byte[] payload) throws Exception;
+  }
+
+  /**
+   * Passes the contents of every complete record in a journal to the handler, in the order they
+   * were appended, and returns how many there were. A file that does not exist has no records.
+   *
+   * @throws Exception if the file is not a journal or the handler fails
+   */
+  public static int read(Path path, RecordHandler handler) throws Exception {
+    if (!Files.exists(path)) {
+      return 0;
+    }
+    int[] count = new int[1];
+    try (FileChannel channel = FileChannel.open(path, StandardOpenOption.READ)) {
+      scan(
+          channel,
+          payload -> {
+            handler.accept(payload);
+            count[0]++;
+          });
+    }
+    return count[0];
+  }
+
+  /** Reads the records of a journal from the start and returns the end of the last good one. */
+  private static long scan(FileChannel channel, RecordHandler handler) throws Exception {
+    channel.position(0);
+    DataInputStream in =
+        new DataInputStream(new BufferedInputStream(Channels.newInputStream(channel), 1 << 16));
+    try {
+      if (in.readInt() != MAGIC || in.readInt() != VERSION) {
+        throw new IOException("Not a calendar journal.");
+      }
+    } catch (EOFException e) {
+      throw new IOException("Not a calendar journal.");
+    }
+    long end = HEADER_BYTES;
+    long size = channel.size();
+    CRC32 crc = new CRC32();
+    while (end + RECORD_HEADER_BYTES <= size) {
+      int length = in.readInt();
+      int checksum = in.readInt();
+      if (length < 0 || end + RECORD_HEADER_BYTES + length > size) {
+        break;
+      }
+      byte[] payload = new byte[length];
+      in.readFully(payload);
+      crc.reset();
+      crc.update(payload);
+      if ((int) crc.getValue() != checksum) {
+        break;
+      }
+      handler.accept(payload);
+      end += RECORD_HEADER_BYTES + length;
+    }
+    return end;
+  }
+
+  /**
+   * Appends a record. Under {@link SyncPolicy#ALWAYS} and {@link SyncPolicy#NONE} the record has
+   * been written when this returns; under {@link SyncPolicy#INTERVAL} it may still be buffered.
+   */
+  public void append(byte[] payload) throws IOException {
+    long seq;
+    synchronized (this) {
+      if (closed) {
+        throw new IOException("Journal is closed.");
+      }
+      if (flushFailure != null) {
+        throw flushFailure;
+      }
+      int needed = RECORD_HEADER_BYTES + payload.length;
+      if (pending.remaining() < needed) {
+        ByteBuffer larger =
+            ByteBuffer.allocate(Math.max(pending.capacity() * 2, pending.position() + needed));
+        pending.flip();
+        pending = larger.put(pending);
+      }
+      CRC32 crc = new CRC32();
+      crc.update(payload);
+      pending.putInt(payload.length).putInt((int) crc.getValue()).put(payload);
+      seq = ++appended;
+      if (policy == SyncPolicy.INTERVAL && pending.position() < GROUP_BYTES) {
+        return;
+      }
+    }
+    commit(seq);
+  }
+
+  /** Writes out every record appended so far, forcing it unless the policy is NONE. */
+  public void sync() throws IOException {
+    long seq;
+    synchronized (this) {
+      seq = appended;
+    }
+    commit(seq);
+  }
+
+  /**
+   * Makes sure record {@code seq} has been committed. The first caller to find no commit under way
+   * takes the whole buffer and writes it; others wait for it and then find their record committed,
+   * or take the next buffer.
+   */
+  private void commit(long seq) throws IOException {
+    ByteBuffer batch;
+    long upTo;
+    synchronized (this) {
+      while (writing && committed < seq) {
+        try {
+          wait();
+        } catch (InterruptedException e) {
+          Thread.currentThread().interrupt();
+          throw new InterruptedIOException("Interrupted waiting for a journal commit.");
+        }
+      }
+      if (committed >= seq) {
+        return;
+      }
+      writing = true;
+      batch = pending;
+      pending = ByteBuffer.allocate(GROUP_BYTES);
+      upTo = appended;
+    }
+    boolean done = false;
+    long start = channel.position();
+    try {
+      batch.flip();
+      while (batch.hasRemaining()) {
+        channel.write(batch);
+      }
+      if (policy != SyncPolicy.NONE) {
+        channel.force(false);
+      }
+      done = true;
+    } finally {
+      synchronized (this) {
+        writing = false;
+        if (done) {
+          committed = upTo;
+        } else {
+          // Drop whatever part of the batch reached the file, and put the records back in front of
+          // any appended since so that a later commit retries them.
+          try {
+            channel.truncate(start);
+            channel.position(start);
+          } catch (IOException e) {
+            flushFailure = e;
+          }
+          batch.rewind();
+          ByteBuffer restored = ByteBuffer.allocate(batch.remaining() + pending.capacity());
+          pending.flip();
+          pending = restored.put(batch).put(pending);
+        }
+        notifyAll();
+      }
+    }
+  }
+
+  private void flushInBackground() {
+    try {
+      sync();
+    } catch (IOException e) {
+      synchronized (this) {
+        flushFailure = e;
+      }
+    }
+  }
+
+  /** Commits any buffered records and closes the file. */
+  @Override
+  public void close() throws IOException {
+    synchronized (this) {
+      if (closed) {
+        return;
+      }
+      closed = true;
+    }
+    if (flusher != null) {
+      // Let a running flush finish: interrupting a thread inside a channel write closes the file.
+      flusher.shutdown();
+      try {
+        flusher.awaitTermination(1, TimeUnit.MINUTES);
+      } catch (InterruptedException e) {
+        Thread.currentThread().interrupt();
+      }
+    }
+    try {
+      sync();
+      if (policy == SyncPolicy.NONE) {
+        channel.force(false);
+      }
+    } finally {
+      channel.close();
+    }
+  }
+}
@@ -0,0 +1,20 @@
+package calendar.controller.journal;
+
+/** When a journal forces the records it has written out to the storage device. */
+public enum SyncPolicy {
+  /**
+   * Every record is written and forced to the device before the mutation that produced it
+   * returns. Mutations that commit at the same time share one force.
+   */
+  ALWAYS,
+  /**
+   * Records are buffered and written and forced together at a fixed interval, or sooner when the
+   * buffer fills. A crash can lose the changes of the last interval.
+   */
+  INTERVAL,
+  /**
+   * Every record is handed to the operating system before the mutation returns but never forced,
+   * so it survives the process dying but not the machine losing power.
+   */
+  NONE
+}
@@ -1,27 +1,145 @@
 package calendar.model;
 
+import calendar.model.change.CalendarChange;
+import calendar.model.change.CalendarChangeListener;
+import calendar.model.change.ChangeBus;
+import calendar.model.change.ChangeType;
 import calendar.model.event.AbstractCalendarEvent;
 import calendar.model.event.Event;
+import calendar.model.event.RecurringEvent;
+import calendar.model.event.SingleEvent;
+import calendar.model.index.BusyBitmap;
+import calendar.model.index.EventIntervalTree;
+import calendar.model.index.NameTrie;
+import calendar.model.index.TextIndex;
+import calendar.model.store.EventPages;
+import calendar.model.store.EventStore;
+import calendar.model.store.MappedEventStore;
+import calendar.model.store.StorageType;
+import calendar.model.store.StringDictionary;
+import java.time.Duration;
 import java.time.LocalDate;
 import java.time.LocalDateTime;
+import java.time.LocalTime;
 import java.time.ZoneId;
 import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.IdentityHashMap;
 import java.util.List;
+import java.util.Map;
+import java.util.NavigableMap;
+import java.util.Set;
+import java.util.concurrent.Callable;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.locks.StampedLock;
+import java.util.function.Function;
+import java.util.function.Supplier;
+import java.util.stream.Stream;
 
 /**
  * Represents a calendar containing events associated with a unique name and time zone. this class
  * provides functionality for managing events, checking for scheduling conflicts, and editing
  * calendar or event properties.
+ *
+ * <p>Single events are held by an {@link EventStore}, which answers range, day, busy and name
+ * queries without scanning the whole calendar. Query results are returned in start order, with
+ * events that start together kept in the order they were added.
+ *
+ * <p>Recurring events are stored as series rather than as one event per occurrence. Each series is
+ * indexed in a second interval tree under the span from its first to its last possible occurrence,
+ * and queries expand only the occurrences that fall inside the requested window. Editing a single
+ * occurrence detaches it from its series as a single event, and editing a series from a given
+ * start splits it in two.
+ *
+ * <p>A busy bitmap records, for each day with single events, which minutes they cover. Event
+ * times never change after an event is added, so the bitmap is only ever added to, and busy
+ * checks at whole minutes, busy-minute counts and free-minute searches read it instead of the
+ * events. Series stay out of the bitmap, so memory still grows with the number of series rather
+ * than occurrences: a query ORs their minutes into each day's bits from the rule as it reads the
+ * day. A calendar restored with its events left on undecoded pages has no complete bitmap, and
+ * answers those queries from the events in the window asked about instead.
+ *
+ * <p>Every event and series added to a calendar is given a {@code long} id, and occurrences of a
+ * series get ids derived from the series id and their date. The store keeps a hash map from id to
+ * event and the calendar one from series id to series, so finding or editing an event by id is
+ * constant time however large the calendar is.
+ *
+ * <p>Each calendar has a string dictionary that interns the names, descriptions and locations of
+ * the events added to it and the text values of edits, so that imported, copied and recurring
+ * events with the same values share one string instance.
+ *
+ * <p>A calendar is safe to use from several threads. Adding and editing events takes the write
+ * side of a {@link StampedLock}, and queries over the mutable indexes take the read side, so
+ * readers do not block each other. With the default store, event queries do not hold the lock at
+ * all: they copy the persistent tree roots under an optimistic stamp, validate it, and run over
+ * that snapshot. Nothing mutable is ever read under an optimistic stamp.
+ *
+ * <p>Readers that need a stable view across many queries, such as an export, can take a
+ * {@link CalendarSnapshot}. Stored events and series are never modified in place: an edit
+ * replaces them with edited copies in the persistent trees, so a snapshot only has to keep the
+ * current tree roots and costs the same to take however large the calendar is.
+ *
+ * <p>Results of day, day-map and range queries are kept in a bounded {@link QueryCache}. Each
+ * change records its version and the dates of the events it affected there, so a cached result is
+ * served until a change touches one of its dates, however many changes happen elsewhere.
+ *
+ * <p>Searches by words go through an inverted {@link TextIndex} of event text, built by the first
+ * search so that calendars nobody searches do not pay for it. Name completion and bulk edits by
+ * name prefix go through a {@link NameTrie} of event names, built the same way on first use.
+ *
+ * <p>Listeners added with {@link #addChangeListener} are told of every change once the write lock
+ * is released: its {@link ChangeType}, the dates of the events it affected and the version it
+ * left. Changes made in a burst, or inside {@link #batchChanges}, reach them merged into one.
  */
 public class Calendar {
-  private final List<Event> events = new ArrayList<>();
-  private String name;
-  private ZoneId timezone;
+  /** The number of query results a calendar caches unless told otherwise. */
+  public static final int DEFAULT_QUERY_CACHE_ENTRIES = 256;
+
+  /** Begins the name given to a bulk edit to match every event name with the prefix after it. */
+  public static final String PREFIX_MATCHER = "prefix:";
+
+  private final StampedLock lock = new StampedLock();
+  // Writers waiting for the lock. New readers hold back while there are any, so a steady stream
+  // of overlapping readers cannot keep a writer out.
+  private final AtomicInteger waitingWriters = new AtomicInteger();
+  private final StorageType storage;
+  private final StringDictionary strings = new StringDictionary();
+  private final EventStore singles;
+  private final BusyBitmap busy = new BusyBitmap();
+  private final ChangeBus changes = new ChangeBus();
+  private final QueryCache queryCache = new QueryCache(DEFAULT_QUERY_CACHE_ENTRIES);
+  // False when events were restored without being decoded, so the bitmap does not cover them.
+  private boolean busyComplete = true;
+  private final Map<String, List<RecurringEvent>> seriesByName = new HashMap<>();
+  private final Map<RecurringEvent, Long> seriesSeq = new IdentityHashMap<>();
+  // A series split in two keeps its id, so one id can name several parts with disjoint dates.
+  private final Map<Long, List<RecurringEvent>> seriesById = new HashMap<>();
+  // Built by the first search, then kept up to date by adds and edits.
+  private volatile TextIndex textIndex;
+  // Built by the first completion or prefix edit, then kept up to date like the text index.
+  private volatile NameTrie nameTrie;
+  private EventIntervalTree series = EventIntervalTree.empty();
+  private long nextSeq;
+  private long nextId = 1;
+  private long version;
+  private volatile String name;
+  private volatile ZoneId timezone;
 
   /** Constructs a Calendar with the specified name and timezone. */
   public Calendar(String name, ZoneId timezone) {
+    this(name, timezone, StorageType.INDEXED);
+  }
+
+  /** Constructs a Calendar that keeps its single events in a store of the given type. */
+  public Calendar(String name, ZoneId timezone, StorageType storage) {
     this.name = name;
     this.timezone = timezone;
+    this.storage = storage;
+    this.singles = storage.newStore(strings);
   }
 
   /** Returns the calendar name. */
@@ -32,6 +150,12 @@ public class Calendar {
   /** Sets the calendar name. */
   public void setName(String name) {
     this.name = name;
+    publishCalendarChange();
+  }
+
+  /** Returns the type of store the calendar keeps its single events in. */
+  public StorageType getStorageType() {
+    return storage;
   }
 
   /** Returns the calendar timezone. */
@@ -42,6 +166,7 @@ public class Calendar {
   /** Sets the calendar timezone using the IANA timezone ID. */
   public void setTimezone(String timezone) {
     this.timezone = ZoneId.of(timezone);
+    publishCalendarChange();
   }
 
   /** Edits a property of the calendar. */
@@ -53,123 +178,1113 @@ public class Calendar {
     } else {
       throw new Exception("Invalid calendar property: " + property);
     }
+    publishCalendarChange();
+  }
+
+  /** Adds a listener to be told of every later change to the calendar. */
+  public void addChangeListener(CalendarChangeListener listener) {
+    changes.addListener(listener);
   }
 
-  /** Adds an event to the calendar, checking conflicts if autoDecline is true. */
+  /** Removes a change listener, if present. */
+  public void removeChangeListener(CalendarChangeListener listener) {
+    changes.removeListener(listener);
+  }
+
+  /**
+   * Runs work that changes the calendar and tells listeners of all its changes at once, merged,
+   * when it ends.
+   */
+  public <T> T batchChanges(Callable<T> work) throws Exception {
+    return changes.batch(work);
+  }
+
+  /**
+   * Adds an event to the calendar, checking conflicts if autoDecline is true. Two events conflict
+   * when their time ranges overlap, end points included; the check is a single probe of the
+   * event store plus a check of the recurring events whose span covers the new event.
+   */
   public void addEvent(Event event, boolean autoDecline) throws Exception {
-    if (autoDecline) {
-      for (Event e : events) {
-        if (conflict(e, event)) {
-          throw new Exception("Event conflict detected.");
+    addEvent(event, autoDecline, ChangeType.ADDED);
+  }
+
+  /** Adds an event like {@link #addEvent(Event, boolean)}, reporting it as the given change. */
+  public void addEvent(Event event, boolean autoDecline, ChangeType type) throws Exception {
+    Span span = new Span(event.getStart(), event.getEnd());
+    long stamp = writeLock();
+    long changed;
+    try {
+      if (autoDecline && view().overlapsAny(event.getStart(), event.getEnd())) {
+        throw new Exception("Event conflict detected.");
+      }
+      intern(event);
+      addToStore(List.of(event));
+      indexText(event);
+      countName(event.getName(), 1);
+      busy.mark(event.getStart(), event.getEnd());
+      changed = advance(span);
+    } finally {
+      lock.unlockWrite(stamp);
+    }
+    publish(type, span, 1, changed);
+  }
+
+  /**
+   * Adds a batch of events to the calendar, all or nothing. If autoDecline is true and any event
+   * overlaps another event in the batch or an event already in the calendar, nothing is added.
+   *
+   * <p>The batch is sorted by start once. Conflicts are then found in one sweep that merges it with
+   * the existing events overlapping the batch's overall range, which are already returned in start
+   * order, so the cost is one sort plus one linear pass rather than one probe per event. The store
+   * indexes are updated once for the whole batch, and the calendar version advances by one.
+   *
+   * @return the number of events added
+   */
+  public int addEvents(Collection<? extends Event> events, boolean autoDecline) throws Exception {
+    return addEvents(events, autoDecline, ChangeType.ADDED);
+  }
+
+  /**
+   * Adds a batch of events like {@link #addEvents(Collection, boolean)}, reporting it as one change
+   * of the given type.
+   */
+  public int addEvents(Collection<? extends Event> events, boolean autoDecline, ChangeType type)
+      throws Exception {
+    List<Event> batch = new ArrayList<>(events);
+    if (batch.isEmpty()) {
+      return 0;
+    }
+    batch.sort(Comparator.comparing(Event::getStart));
+    long stamp = writeLock();
+    long changed;
+    Span span = new Span();
+    try {
+      if (autoDecline && hasConflict(batch)) {
+        throw new Exception("Event conflict detected.");
+      }
+      for (Event event : batch) {
+        intern(event);
+      }
+      // The side indexes follow the store, so a batch the store rejects leaves no trace in them.
+      addToStore(batch);
+      for (Event event : batch) {
+        indexText(event);
+        countName(event.getName(), 1);
+        busy.mark(event.getStart(), event.getEnd());
+        span.include(event.getStart(), event.getEnd());
+      }
+      changed = advance(span);
+    } finally {
+      lock.unlockWrite(stamp);
+    }
+    publish(type, span, batch.size(), changed);
+    return batch.size();
+  }
+
+  /**
+   * Fills an empty calendar with saved contents in one step: single events in start order and
+   * series, both already carrying their ids, and the id to give the next event added. Nothing is
+   * checked for conflicts, and the store indexes are built once for all the single events, as
+   * {@link #addEvents} does for a batch.
+   *
+   * @throws IllegalStateException if the calendar already has events
+   */
+  public void restore(List<? extends Event> events, List<RecurringEvent> seriesList, long nextId) {
+    long stamp = writeLock();
+    try {
+      checkEmpty();
+      for (Event event : events) {
+        intern(event);
+        busy.mark(event.getStart(), event.getEnd());
+      }
+      singles.addAll(events);
+      textIndex = null;
+      nameTrie = null;
+      restoreSeries(seriesList);
+      this.nextId = nextId;
+      advance(new Span());
+    } finally {
+      lock.unlockWrite(stamp);
+    }
+  }
+
+  /**
+   * Fills an empty calendar that uses {@link StorageType#MAPPED} storage with saved contents,
+   * leaving the single events on their pages to be decoded when queries reach them. The series are
+   * restored as objects.
+   *
+   * @throws IllegalStateException if the calendar already has events or is not mapped
+   */
+  public void restore(EventPages pages, List<RecurringEvent> seriesList, long nextId) {
+    long stamp = writeLock();
+    try {
+      if (!(singles instanceof MappedEventStore)) {
+        throw new IllegalStateException("Only a mapped calendar can leave its events on pages.");
+      }
+      checkEmpty();
+      ((MappedEventStore) singles).attach(pages);
+      textIndex = null;
+      nameTrie = null;
+      restoreSeries(seriesList);
+      busyComplete = pages.eventCount() == 0;
+      this.nextId = nextId;
+      advance(new Span());
+    } finally {
+      lock.unlockWrite(stamp);
+    }
+  }
+
+  private void checkEmpty() {
+    if (singles.size() != 0 || !seriesSeq.isEmpty()) {
+      throw new IllegalStateException("Only an empty calendar can be restored.");
+    }
+  }
+
+  /** Adds restored series, which already carry their ids, without checking for conflicts. */
+  private void restoreSeries(List<RecurringEvent> seriesList) {
+    for (RecurringEvent recurringEvent : seriesList) {
+      intern(recurringEvent);
+      addSeries(recurringEvent, nextSeq++);
+    }
+  }
+
+  /**
+   * Returns true if an event of a sorted batch overlaps another event of the batch or an existing
+   * event. Walking both lists in start order, an event conflicts with an earlier one exactly when
+   * it starts no later than the latest end seen so far, so it is enough to keep the latest end of
+   * each list. Existing events overlapping one another are not a conflict.
+   */
+  private boolean hasConflict(List<Event> batch) {
+    LocalDateTime batchEnd = batch.get(0).getEnd();
+    for (Event event : batch) {
+      if (event.getEnd().isAfter(batchEnd)) {
+        batchEnd = event.getEnd();
+      }
+    }
+    List<Event> existing = view().getEventsBetween(batch.get(0).getStart(), batchEnd);
+    LocalDateTime latestNew = null;
+    LocalDateTime latestExisting = null;
+    int i = 0;
+    int j = 0;
+    while (i < batch.size()) {
+      if (j < existing.size()
+          && existing.get(j).getStart().isBefore(batch.get(i).getStart())) {
+        Event event = existing.get(j++);
+        if (latestNew != null && !event.getStart().isAfter(latestNew)) {
+          return true;
+        }
+        latestExisting = later(latestExisting, event.getEnd());
+      } else {
+        Event event = batch.get(i++);
+        if (latestNew != null && !event.getStart().isAfter(latestNew)
+            || latestExisting != null && !event.getStart().isAfter(latestExisting)) {
+          return true;
         }
+        latestNew = later(latestNew, event.getEnd());
       }
     }
-    events.add(event);
+    // Existing events starting after the last new one still conflict if they start before it ends.
+    return j < existing.size() && !existing.get(j).getStart().isAfter(latestNew);
   }
 
-  /** Returns the list of events on a given date. */
-  public List<Event> getEventsOn(LocalDate date) {
-    List<Event> result = new ArrayList<>();
-    for (Event e : events) {
-      if (e.getStart().toLocalDate().equals(date)) {
-        result.add(e);
+  private static LocalDateTime later(LocalDateTime a, LocalDateTime b) {
+    return a == null || b.isAfter(a) ? b : a;
+  }
+
+  /**
+   * Adds a recurring event to the calendar as a single series. If autoDecline is true and any
+   * occurrence conflicts with an existing event, nothing is added.
+   */
+  public void addRecurringEvent(RecurringEvent recurringEvent, boolean autoDecline)
+      throws Exception {
+    if (recurringEvent.isEmpty()) {
+      return;
+    }
+    Span span = new Span(spanStart(recurringEvent), spanEnd(recurringEvent));
+    long stamp = writeLock();
+    long changed;
+    try {
+      if (autoDecline) {
+        CalendarSnapshot current = view();
+        List<LocalDate> dates = new ArrayList<>();
+        recurringEvent.forEachOccurrenceDate(
+            recurringEvent.getFirstDate(), recurringEvent.getLastDate(), dates::add);
+        for (LocalDate date : dates) {
+          if (current.overlapsAny(
+              recurringEvent.occurrenceStart(date), recurringEvent.occurrenceEnd(date))) {
+            throw new Exception("Event conflict detected.");
+          }
+        }
       }
+      intern(recurringEvent);
+      assignId(recurringEvent);
+      addSeries(recurringEvent, nextSeq++);
+      changed = advance(span);
+    } finally {
+      lock.unlockWrite(stamp);
     }
-    return result;
+    publish(ChangeType.ADDED, span, recurringEvent.countOccurrences(), changed);
   }
 
-  /** Returns the list of events between the given start and end date-times. */
-  public List<Event> getEventsBetween(LocalDateTime start, LocalDateTime end) {
-    List<Event> result = new ArrayList<>();
-    for (Event e : events) {
-      if (!e.getStart().isAfter(end) && !e.getEnd().isBefore(start)) {
-        result.add(e);
+  /**
+   * Returns an immutable snapshot of the calendar's current version. Taking a snapshot copies no
+   * events, and later changes to the calendar are not visible through it.
+   */
+  public CalendarSnapshot snapshot() {
+    if (singles.hasPersistentSnapshots()) {
+      long stamp = lock.tryOptimisticRead();
+      CalendarSnapshot snapshot =
+          new CalendarSnapshot(name, timezone, version, nextId, singles.snapshot(), series);
+      if (lock.validate(stamp)) {
+        return snapshot;
+      }
+    }
+    long stamp = readLock();
+    try {
+      return new CalendarSnapshot(name, timezone, version, nextId, singles.snapshot(), series);
+    } finally {
+      lock.unlockRead(stamp);
+    }
+  }
+
+  /**
+   * Returns a view over the live state, for queries that run under the lock. Unlike a snapshot it
+   * follows later changes to the single events.
+   */
+  private CalendarSnapshot view() {
+    return new CalendarSnapshot(name, timezone, version, nextId, singles, series);
+  }
+
+  /** Returns the average number of event string values that share each interned string. */
+  public double getStringDedupRatio() {
+    return read(strings::dedupRatio);
+  }
+
+  /**
+   * Runs an event query over the calendar's current state. When the store's snapshots are
+   * persistent the query runs over a snapshot, without holding the lock; otherwise it runs over
+   * the live indexes under the read lock.
+   */
+  private <T> T query(Function<CalendarSnapshot, T> query) {
+    if (singles.hasPersistentSnapshots()) {
+      return query.apply(snapshot());
+    }
+    return read(() -> query.apply(view()));
+  }
+
+  /** Takes the write lock, letting waiting readers know a writer is ahead of them. */
+  private long writeLock() {
+    waitingWriters.incrementAndGet();
+    try {
+      return lock.writeLock();
+    } finally {
+      waitingWriters.decrementAndGet();
+    }
+  }
+
+  /**
+   * Takes the read lock once no writer is waiting. StampedLock lets a reader in whenever the lock
+   * is not write-locked, so without this a writer could wait for as long as readers overlap.
+   */
+  private long readLock() {
+    while (waitingWriters.get() > 0) {
+      Thread.yield();
+    }
+    return lock.readLock();
+  }
+
+  /** Runs a query that reads mutable state under the read lock. */
+  private <T> T read(Supplier<T> query) {
+    long stamp = readLock();
+    try {
+      return query.get();
+    } finally {
+      lock.unlockRead(stamp);
+    }
+  }
+
+  /**
+   * Moves to the next version after a change to the events in a span, or to every event if the
+   * span is empty, and returns it. Cached results for the span's dates stop being served.
+   */
+  private long advance(Span span) {
+    version++;
+    queryCache.invalidate(version, span.from, span.to);
+    return version;
+  }
+
+  /** Tells listeners of a change to events in a span, if anything changed and anyone listens. */
+  private void publish(ChangeType type, Span span, int count, long changed) {
+    if (count > 0 && changes.hasListeners()) {
+      changes.publish(new CalendarChange(name, type, span.from, span.to, count, changed));
+    }
+  }
+
+  /** Tells listeners that the calendar's name or timezone changed. */
+  private void publishCalendarChange() {
+    if (changes.hasListeners()) {
+      changes.publish(
+          new CalendarChange(name, ChangeType.CALENDAR, null, null, 0, read(() -> version)));
+    }
+  }
+
+  /** Replaces the strings of an event with their interned instances. */
+  private void intern(Event event) {
+    if (event instanceof AbstractCalendarEvent) {
+      ((AbstractCalendarEvent) event).internStrings(strings::intern);
+    }
+  }
+
+  /** Indexes the words of an event under its id, if the text index has been built. */
+  private void indexText(Event event) {
+    TextIndex index = textIndex;
+    if (index != null) {
+      index.add(event.getId(), event);
+    }
+  }
+
+  /**
+   * Moves a single event's id from the words of its old text to those of its new text after an
+   * edit, if the text index has been built.
+   *
+   * @param before the event as it was before the edit
+   */
+  private void indexEdit(Event before, String property, String newValue) {
+    TextIndex index = textIndex;
+    if (index != null) {
+      index.update(before.getId(), before, property, newValue);
+    }
+  }
+
+  /**
+   * Removes a series part's id from the words that no other part of the series still contains,
+   * if the text index has been built.
+   */
+  private void unindexSeries(RecurringEvent removed, List<RecurringEvent> remaining) {
+    TextIndex index = textIndex;
+    if (index != null) {
+      Set<String> kept = new HashSet<>();
+      for (RecurringEvent part : remaining) {
+        kept.addAll(TextIndex.words(part));
+      }
+      index.update(removed.getId(), TextIndex.words(removed), kept);
+    }
+  }
+
+  /** Adds to the number of events with a name, if the name trie has been built. */
+  private void countName(String name, long delta) {
+    NameTrie trie = nameTrie;
+    if (trie != null) {
+      trie.add(name, delta);
+    }
+  }
+
+  /** Moves a single event from its old name to its new one in the name trie on a rename. */
+  private void renameSingle(String oldName, String property, String newValue) {
+    if ("name".equalsIgnoreCase(property)) {
+      countName(oldName, -1);
+      countName(newValue, 1);
+    }
+  }
+
+  /** Returns the first single event with the given name, start and end, or null. */
+  private Event findSingle(String name, LocalDateTime start, LocalDateTime end) {
+    for (Event event : singles.startingOn(start.toLocalDate())) {
+      if (event.getName().equals(name)
+          && event.getStart().equals(start)
+          && event.getEnd().equals(end)) {
+        return event;
+      }
+    }
+    return null;
+  }
+
+  /** Gives an event the next id. */
+  private void assignId(Event event) {
+    if (event instanceof AbstractCalendarEvent) {
+      ((AbstractCalendarEvent) event).setId(nextId++);
+    }
+  }
+
+  /**
+   * Gives new events ids and adds them to the store. If the store rejects them, which it does
+   * before storing any, the events get their old ids back and the ids are given out again.
+   */
+  private void addToStore(List<Event> events) {
+    long firstId = nextId;
+    long[] oldIds = new long[events.size()];
+    for (int i = 0; i < oldIds.length; i++) {
+      oldIds[i] = events.get(i).getId();
+      assignId(events.get(i));
+    }
+    try {
+      if (events.size() == 1) {
+        singles.add(events.get(0));
+      } else {
+        singles.addAll(events);
       }
+    } catch (RuntimeException e) {
+      nextId = firstId;
+      for (int i = 0; i < oldIds.length; i++) {
+        if (events.get(i) instanceof AbstractCalendarEvent) {
+          ((AbstractCalendarEvent) events.get(i)).setId(oldIds[i]);
+        }
+      }
+      throw e;
     }
+  }
+
+  /** Returns the interned instance of a new property value if the property holds text. */
+  private String internValue(String property, String newValue) {
+    return "ispublic".equalsIgnoreCase(property) ? newValue : strings.intern(newValue);
+  }
+
+  /** Adds a series to the span tree and the series name index under the given sequence number. */
+  private void addSeries(RecurringEvent recurringEvent, long seq) {
+    seriesSeq.put(recurringEvent, seq);
+    series = series.insert(recurringEvent, spanStart(recurringEvent), spanEnd(recurringEvent), seq);
+    seriesByName
+        .computeIfAbsent(recurringEvent.getName(), n -> new ArrayList<>())
+        .add(recurringEvent);
+    seriesById.computeIfAbsent(recurringEvent.getId(), id -> new ArrayList<>()).add(recurringEvent);
+    indexText(recurringEvent);
+    countName(recurringEvent.getName(), recurringEvent.countOccurrences());
+  }
+
+  /** Removes a series from the span tree and the series name index. */
+  private void removeSeries(RecurringEvent recurringEvent) {
+    long seq = seriesSeq.remove(recurringEvent);
+    series = series.remove(spanStart(recurringEvent), seq);
+    removeFromSeriesNameIndex(recurringEvent);
+    List<RecurringEvent> parts = seriesById.get(recurringEvent.getId());
+    parts.remove(recurringEvent);
+    if (parts.isEmpty()) {
+      seriesById.remove(recurringEvent.getId());
+    }
+    unindexSeries(recurringEvent, parts);
+    countName(recurringEvent.getName(), -recurringEvent.countOccurrences());
+  }
+
+  /** Returns the part of the series with the given id that has an occurrence on a date. */
+  private RecurringEvent seriesOccurringOn(long seriesId, LocalDate date) {
+    List<RecurringEvent> parts = seriesById.get(seriesId);
+    if (parts != null) {
+      for (RecurringEvent part : parts) {
+        if (part.occursOn(date)) {
+          return part;
+        }
+      }
+    }
+    return null;
+  }
+
+  /** Returns the start of the first possible occurrence of a series. */
+  private static LocalDateTime spanStart(RecurringEvent recurringEvent) {
+    return recurringEvent.occurrenceStart(recurringEvent.getFirstDate());
+  }
+
+  /** Returns the end of the last possible occurrence of a series. */
+  private static LocalDateTime spanEnd(RecurringEvent recurringEvent) {
+    return recurringEvent.occurrenceEnd(recurringEvent.getLastDate());
+  }
+
+  /** Returns the list of events on a given date. The list is cached and cannot be modified. */
+  public List<Event> getEventsOn(LocalDate date) {
+    return cached(
+        QueryCache.key(QueryCache.Kind.EVENTS_ON, date, date, date, date),
+        state -> Collections.unmodifiableList(state.getEventsOn(date)));
+  }
+
+  /**
+   * Returns the events starting on each date from {@code from} to {@code to} inclusive, keyed by
+   * date. Dates without events are left out of the map. The map is cached and cannot be modified.
+   */
+  public NavigableMap<LocalDate, List<Event>> getEventsByDay(LocalDate from, LocalDate to) {
+    return cached(
+        QueryCache.key(QueryCache.Kind.EVENTS_BY_DAY, from, to, from, to),
+        state -> Collections.unmodifiableNavigableMap(state.getEventsByDay(from, to)));
+  }
+
+  /**
+   * Returns the list of events between the given start and end date-times. The list is cached and
+   * cannot be modified.
+   */
+  public List<Event> getEventsBetween(LocalDateTime start, LocalDateTime end) {
+    return cached(
+        QueryCache.key(
+            QueryCache.Kind.EVENTS_BETWEEN, start, end, start.toLocalDate(), end.toLocalDate()),
+        state -> Collections.unmodifiableList(state.getEventsBetween(start, end)));
+  }
+
+  /**
+   * Returns the events between the given start and end date-times as a stream in start order,
+   * read lazily from a snapshot taken now. Later changes to the calendar do not show up in it.
+   */
+  public Stream<Event> streamEventsBetween(LocalDateTime start, LocalDateTime end) {
+    return snapshot().streamEventsBetween(start, end);
+  }
+
+  /** Returns the events on a given date as a stream in start order, read lazily from a snapshot. */
+  public Stream<Event> streamEventsOn(LocalDate date) {
+    return snapshot().streamEventsOn(date);
+  }
+
+  /**
+   * Returns event counts per day or week, busy minutes with overlaps merged, and peak concurrency
+   * over the dates from {@code from} to {@code to} inclusive, read from a snapshot in one pass.
+   */
+  public RangeStats getStats(LocalDate from, LocalDate to, RangeStats.Bucket bucket) {
+    return snapshot().getStats(from, to, bucket);
+  }
+
+  /**
+   * Returns the first {@code count} events starting at or after the given date-time, in start
+   * order, read from a snapshot without listing or sorting the rest of the calendar.
+   */
+  public List<Event> getNextEvents(LocalDateTime from, int count) {
+    return snapshot().getNextEvents(from, count);
+  }
+
+  /**
+   * Returns a page of at most {@code limit} of the events between the given date-times, starting
+   * just after the cursor's event, or at the first event if the cursor is null.
+   */
+  public EventPage pageEventsBetween(
+      LocalDateTime start, LocalDateTime end, int limit, EventCursor after) {
+    return snapshot().pageEventsBetween(start, end, limit, after);
+  }
+
+  /**
+   * Returns a page of at most {@code limit} of the events on a given date, starting just after the
+   * cursor's event, or at the first event if the cursor is null.
+   */
+  public EventPage pageEventsOn(LocalDate date, int limit, EventCursor after) {
+    return snapshot().pageEventsOn(date, limit, after);
+  }
+
+  /**
+   * Returns a query's result from the cache, or runs the query and caches its result along with the
+   * version it was computed at.
+   */
+  @SuppressWarnings("unchecked")
+  private <T> T cached(QueryCache.Key key, Function<CalendarSnapshot, T> query) {
+    Object hit = queryCache.get(key);
+    if (hit != null) {
+      return (T) hit;
+    }
+    long[] computedAt = new long[1];
+    T result =
+        query(
+            state -> {
+              computedAt[0] = state.getVersion();
+              return query.apply(state);
+            });
+    queryCache.put(key, computedAt[0], result);
     return result;
   }
 
-  /** Returns true if an event covers the given date-time. */
+  /** Sets how many query results the calendar caches; 0 turns caching off. */
+  public void setQueryCacheCapacity(int entries) {
+    queryCache.setCapacity(entries);
+  }
+
+  /** Returns the hit, miss and eviction counts of the calendar's query cache. */
+  public QueryCacheStats getQueryCacheStats() {
+    return queryCache.stats();
+  }
+
+  /**
+   * Returns true if an event covers the given date-time. A whole minute is answered with one bit
+   * test of the busy bitmap; a time with seconds falls back to the event indexes.
+   */
   public boolean isBusy(LocalDateTime dateTime) {
-    for (Event e : events) {
-      if (!dateTime.isBefore(e.getStart()) && !dateTime.isAfter(e.getEnd())) {
-        return true;
-      }
+    if (dateTime.getSecond() == 0 && dateTime.getNano() == 0) {
+      return read(
+          () -> busyComplete ? busy.isBusy(dateTime, this::markSeries) : view().isBusy(dateTime));
     }
-    return false;
+    return read(() -> view().isBusy(dateTime));
+  }
+
+  /** Returns the number of busy minutes from {@code from} up to but not including {@code to}. */
+  public long getBusyMinutes(LocalDateTime from, LocalDateTime to) {
+    return read(
+        () ->
+            busyComplete
+                ? busy.busyMinutes(from, to, this::markSeries)
+                : busyBitmapOver(from, to).busyMinutes(from, to));
+  }
+
+  /** Returns the first whole minute at or after the given time that no event covers. */
+  public LocalDateTime getFirstFreeMinute(LocalDateTime from) {
+    return read(
+        () -> {
+          if (busyComplete) {
+            return busy.firstFreeMinute(from, this::markSeries);
+          }
+          // Search windows of doubling length. A free minute found inside the window is the answer,
+          // since any event covering it overlaps the window and was marked.
+          Duration window = Duration.ofDays(1);
+          while (true) {
+            LocalDateTime to = from.plus(window);
+            LocalDateTime free = busyBitmapOver(from, to).firstFreeMinute(from);
+            if (free.isBefore(to)) {
+              return free;
+            }
+            window = window.multipliedBy(2);
+          }
+        });
+  }
+
+  /**
+   * Marks the minutes that occurrences of series cover on a date into a day's bits. Series are
+   * kept out of the busy bitmap so that it grows with single events only, and an occurrence starts
+   * and ends on its own date, so only the series whose span covers the date are checked.
+   */
+  private void markSeries(LocalDate date, long[] bits) {
+    series.forEachOverlapping(
+        date.atStartOfDay(),
+        date.atTime(LocalTime.MAX),
+        e -> {
+          RecurringEvent recurringEvent = (RecurringEvent) e;
+          if (recurringEvent.occursOn(date)) {
+            BusyBitmap.markWithinDay(
+                bits, recurringEvent.occurrenceStart(date), recurringEvent.occurrenceEnd(date));
+          }
+        });
   }
 
-  /** Checks if two events conflict. */
-  private boolean conflict(Event e1, Event e2) {
-    return !(e2.getEnd().isBefore(e1.getStart()) || e2.getStart().isAfter(e1.getEnd()));
+  /** Returns a bitmap marked with the events that overlap a window, read from the event indexes. */
+  private BusyBitmap busyBitmapOver(LocalDateTime from, LocalDateTime to) {
+    BusyBitmap window = new BusyBitmap();
+    for (Event event : view().getEventsBetween(from, to)) {
+      window.mark(event.getStart(), event.getEnd());
+    }
+    return window;
   }
 
   /** Edits a single event matching name and start/end times. */
   public boolean editSingleEvent(
       String property, String name, LocalDateTime start, LocalDateTime end, String newValue) {
-    for (Event event : events) {
-      if (event.getName().equals(name)
-          && event.getStart().equals(start)
-          && event.getEnd().equals(end)) {
-        updateProperty((AbstractCalendarEvent) event, property, newValue);
-        return true;
+    Span span = new Span(start, end);
+    long stamp = writeLock();
+    long changed = 0;
+    try {
+      String value = internValue(property, newValue);
+      // With the text index built, edit the event it is told about by id, so that of two events
+      // alike in name and times the index moves the one that changed.
+      Event target = textIndex == null ? null : findSingle(name, start, end);
+      boolean edited =
+          target == null
+              ? singles.editMatching(name, start, end, property, value)
+              : singles.editById(target.getId(), property, value);
+      if (edited) {
+        if (target != null) {
+          indexEdit(target, property, value);
+        }
+        renameSingle(name, property, value);
+        changed = advance(span);
+      } else {
+        LocalDate date = start.toLocalDate();
+        for (RecurringEvent candidate : seriesNamed(name)) {
+          if (candidate.occursOn(date)
+              && candidate.occurrenceStart(date).equals(start)
+              && candidate.occurrenceEnd(date).equals(end)) {
+            detach(candidate, date, property, value);
+            changed = advance(span);
+            break;
+          }
+        }
       }
+    } finally {
+      lock.unlockWrite(stamp);
     }
-    return false;
+    if (changed == 0) {
+      return false;
+    }
+    publish(ChangeType.EDITED, span, 1, changed);
+    return true;
   }
 
-  /** Edits events with the given name and start time. */
+  /**
+   * Edits the event with the given id, which may be a single event or an occurrence of a series.
+   * An occurrence is detached from its series and keeps its id. Returns false if no event has the
+   * id.
+   */
+  public boolean editEventById(String property, long id, String newValue) {
+    long stamp = writeLock();
+    long changed = 0;
+    Span span = null;
+    try {
+      String value = internValue(property, newValue);
+      Event single = singles.findById(id);
+      if (single != null && singles.editById(id, property, value)) {
+        indexEdit(single, property, value);
+        renameSingle(single.getName(), property, value);
+        span = new Span(single.getStart(), single.getEnd());
+        changed = advance(span);
+      } else if (RecurringEvent.isOccurrenceId(id)) {
+        LocalDate date = RecurringEvent.dateOf(id);
+        RecurringEvent part = seriesOccurringOn(RecurringEvent.seriesIdOf(id), date);
+        if (part != null) {
+          span = new Span(part.occurrenceStart(date), part.occurrenceEnd(date));
+          detach(part, date, property, value);
+          changed = advance(span);
+        }
+      }
+    } finally {
+      lock.unlockWrite(stamp);
+    }
+    if (changed == 0) {
+      return false;
+    }
+    publish(ChangeType.EDITED, span, 1, changed);
+    return true;
+  }
+
+  /**
+   * Edits events with the given name and start time. A name beginning with {@link
+   * #PREFIX_MATCHER} edits the events of every name that starts with the rest of it.
+   */
   public int editEventsFrom(String property, String name, LocalDateTime start, String newValue) {
+    long stamp = writeLock();
     int count = 0;
-    for (Event event : events) {
-      if (event.getName().equals(name)
-          && (event.getStart().equals(start) || event.getStart().isAfter(start))) {
-        updateProperty((AbstractCalendarEvent) event, property, newValue);
-        count++;
+    long changed = 0;
+    Span span = new Span();
+    try {
+      String value = internValue(property, newValue);
+      for (String matched : namesMatching(name, property, value)) {
+        count += editNamedFrom(property, matched, start, value, span);
+      }
+      if (count > 0) {
+        changed = advance(span);
       }
+    } finally {
+      lock.unlockWrite(stamp);
     }
+    publish(ChangeType.EDITED, span, count, changed);
     return count;
   }
 
-  /** Edits all events with the given name. */
+  /**
+   * Edits all events with the given name. A name beginning with {@link #PREFIX_MATCHER} edits the
+   * events of every name that starts with the rest of it.
+   */
   public int editEvents(String property, String name, String newValue) {
+    long stamp = writeLock();
     int count = 0;
-    for (Event event : events) {
-      if (event.getName().equals(name)) {
-        updateProperty((AbstractCalendarEvent) event, property, newValue);
-        count++;
+    long changed = 0;
+    Span span = new Span();
+    try {
+      String value = internValue(property, newValue);
+      for (String matched : namesMatching(name, property, value)) {
+        count += editNamed(property, matched, value, span);
+      }
+      if (count > 0) {
+        changed = advance(span);
+      }
+    } finally {
+      lock.unlockWrite(stamp);
+    }
+    publish(ChangeType.EDITED, span, count, changed);
+    return count;
+  }
+
+  /** Edits the events with exactly the given name starting at or after a time, under the lock. */
+  private int editNamedFrom(
+      String property, String name, LocalDateTime start, String value, Span span) {
+    int count =
+        singles.editNamed(
+            name,
+            start,
+            property,
+            value,
+            event -> {
+              span.include(event);
+              indexEdit(event, property, value);
+              renameSingle(name, property, value);
+            });
+    for (RecurringEvent candidate : seriesNamed(name)) {
+      LocalDate splitDate = start.toLocalDate();
+      if (candidate.occurrenceStart(splitDate).isBefore(start)) {
+        splitDate = splitDate.plusDays(1);
+      }
+      if (!splitDate.isAfter(candidate.getFirstDate())) {
+        count += candidate.countOccurrences();
+        span.include(spanStart(candidate), spanEnd(candidate));
+        updateProperty(candidate, property, value);
+      } else if (!splitDate.isAfter(candidate.getLastDate())) {
+        int affected = candidate.countOccurrencesBetween(splitDate, candidate.getLastDate());
+        if (affected > 0) {
+          count += affected;
+          RecurringEvent tail = split(candidate, splitDate);
+          span.include(spanStart(tail), spanEnd(tail));
+          updateProperty(tail, property, value);
+        }
       }
     }
     return count;
   }
 
-  /** Updates an event property based on a string identifier. */
-  private void updateProperty(AbstractCalendarEvent event, String property, String newValue) {
-    switch (property.toLowerCase()) {
-      case "name":
-        event.setName(newValue);
-        break;
-      case "description":
-        event.setDescription(newValue);
-        break;
-      case "location":
-        event.setLocation(newValue);
-        break;
-      case "ispublic":
-        event.setIsPublic(Boolean.parseBoolean(newValue));
-        break;
-      default:
-        break;
+  /** Edits every event with exactly the given name, under the lock. */
+  private int editNamed(String property, String name, String value, Span span) {
+    int count =
+        singles.editNamed(
+            name,
+            null,
+            property,
+            value,
+            event -> {
+              span.include(event);
+              indexEdit(event, property, value);
+              renameSingle(name, property, value);
+            });
+    for (RecurringEvent candidate : seriesNamed(name)) {
+      count += candidate.countOccurrences();
+      span.include(spanStart(candidate), spanEnd(candidate));
+      updateProperty(candidate, property, value);
+    }
+    return count;
+  }
+
+  /**
+   * Returns the names a bulk edit applies to: the name itself, or for a {@link #PREFIX_MATCHER}
+   * the names in the trie that start with the rest of it. When the edit renames events to one of
+   * those names, that name comes first, so events renamed to it by the edit are not edited again
+   * when it is reached. Called under the write lock.
+   */
+  private List<String> namesMatching(String name, String property, String value) {
+    if (!name.startsWith(PREFIX_MATCHER)) {
+      return List.of(name);
+    }
+    if (nameTrie == null) {
+      nameTrie = newNameTrie();
+    }
+    List<String> names = nameTrie.namesWithPrefix(name.substring(PREFIX_MATCHER.length()));
+    if ("name".equalsIgnoreCase(property) && names.remove(value)) {
+      names.add(0, value);
+    }
+    return names;
+  }
+
+  /**
+   * Returns up to {@code limit} names of events in the calendar that start with the prefix, the
+   * names shared by most events first. A series counts once for each of its occurrences.
+   *
+   * <p>The first completion builds the calendar's {@link NameTrie}; adds and edits keep it up to
+   * date from then on.
+   *
+   * @throws IllegalArgumentException if the limit is not positive
+   */
+  public List<String> completeEventNames(String prefix, int limit) {
+    if (limit <= 0) {
+      throw new IllegalArgumentException("Completion limit must be positive.");
+    }
+    if (nameTrie == null) {
+      long stamp = writeLock();
+      try {
+        if (nameTrie == null) {
+          nameTrie = newNameTrie();
+        }
+      } finally {
+        lock.unlockWrite(stamp);
+      }
+    }
+    return read(() -> nameTrie.complete(prefix, limit));
+  }
+
+  /** Counts the names of every stored event and series into a new trie. */
+  private NameTrie newNameTrie() {
+    NameTrie trie = new NameTrie();
+    view().forEachSingleEvent(event -> trie.add(event.getName(), 1));
+    for (RecurringEvent recurringEvent : seriesSeq.keySet()) {
+      trie.add(recurringEvent.getName(), recurringEvent.countOccurrences());
     }
+    return trie;
+  }
+
+  /** Returns a copy of the list of series with the given name. */
+  private List<RecurringEvent> seriesNamed(String name) {
+    List<RecurringEvent> named = seriesByName.get(name);
+    return named == null ? new ArrayList<>() : new ArrayList<>(named);
+  }
+
+  /**
+   * Detaches the occurrence on the given date from its series, applies the edit to it and stores it
+   * as a single event. The series is replaced by a copy without the date, or dropped if that was
+   * its last occurrence.
+   */
+  private void detach(
+      RecurringEvent recurringEvent, LocalDate date, String property, String newValue) {
+    SingleEvent occurrence = recurringEvent.occurrenceOn(date);
+    occurrence.setProperty(property, newValue);
+    singles.add(occurrence);
+    busy.mark(occurrence.getStart(), occurrence.getEnd());
+    indexText(occurrence);
+    countName(occurrence.getName(), 1);
+    long seq = seriesSeq.get(recurringEvent);
+    removeSeries(recurringEvent);
+    RecurringEvent rest = recurringEvent.copy();
+    rest.exclude(date);
+    if (!rest.isEmpty()) {
+      addSeries(rest, seq);
+    }
+  }
+
+  /**
+   * Splits a series at the given date and returns the part on and after it. The series is replaced
+   * by the earlier part, with a shorter span, or dropped if it has no occurrences left.
+   */
+  private RecurringEvent split(RecurringEvent recurringEvent, LocalDate date) {
+    long seq = seriesSeq.get(recurringEvent);
+    removeSeries(recurringEvent);
+    RecurringEvent head = recurringEvent.copy();
+    RecurringEvent tail = head.splitAt(date);
+    if (!head.isEmpty()) {
+      addSeries(head, seq);
+    }
+    addSeries(tail, seq);
+    return tail;
+  }
+
+  /** Removes a series from the series name index, dropping the entry if it becomes empty. */
+  private void removeFromSeriesNameIndex(RecurringEvent recurringEvent) {
+    List<RecurringEvent> named = seriesByName.get(recurringEvent.getName());
+    named.remove(recurringEvent);
+    if (named.isEmpty()) {
+      seriesByName.remove(recurringEvent.getName());
+    }
+  }
+
+  /** Replaces a series with a copy that has the property changed. */
+  private void updateProperty(RecurringEvent recurringEvent, String property, String newValue) {
+    long seq = seriesSeq.get(recurringEvent);
+    removeSeries(recurringEvent);
+    RecurringEvent edited = recurringEvent.copy();
+    edited.setProperty(property, newValue);
+    addSeries(edited, seq);
   }
 
   /** Finds an event by its name and start time. */
   public Event findEventByNameAndStart(String eventName, LocalDateTime start) {
-    for (Event e : events) {
-      if (e.getName().equals(eventName) && e.getStart().equals(start)) {
-        return e;
+    return query(state -> state.findEventByNameAndStart(eventName, start));
+  }
+
+  /** Finds an event, single or an occurrence of a series, by its id, or returns null. */
+  public Event findEventById(long id) {
+    return read(
+        () -> {
+          Event single = singles.findById(id);
+          if (single != null || !RecurringEvent.isOccurrenceId(id)) {
+            return single;
+          }
+          LocalDate date = RecurringEvent.dateOf(id);
+          RecurringEvent part = seriesOccurringOn(RecurringEvent.seriesIdOf(id), date);
+          return part == null ? null : part.occurrenceOn(date);
+        });
+  }
+
+  /**
+   * Returns the events overlapping [from, to] whose name, description and location together
+   * contain every word of the query, ignoring case, in start order. A null bound leaves that side
+   * of the range open. Series are matched once and then expanded to their occurrences in the
+   * range.
+   *
+   * <p>The first search builds the calendar's {@link TextIndex}; adds and edits keep it up to date
+   * from then on, moving an edited event's id off the words its old text had.
+   *
+   * @throws IllegalArgumentException if the query has no words
+   */
+  public List<Event> searchEvents(String query, LocalDateTime from, LocalDateTime to) {
+    List<String> words = TextIndex.words(query);
+    if (words.isEmpty()) {
+      throw new IllegalArgumentException("Search needs at least one word.");
+    }
+    LocalDateTime start = from == null ? LocalDateTime.MIN : from;
+    LocalDateTime end = to == null ? LocalDateTime.MAX : to;
+    if (textIndex == null) {
+      buildTextIndex();
+    }
+    return read(
+        () -> {
+          List<Event> result = new ArrayList<>();
+          for (long id : textIndex.lookup(words)) {
+            List<RecurringEvent> parts = seriesById.get(id);
+            if (parts != null) {
+              for (RecurringEvent part : parts) {
+                if (TextIndex.matches(part, words)) {
+                  addOccurrencesOverlapping(part, start, end, result);
+                }
+              }
+              continue;
+            }
+            // The postings of a single event are exact, so only its range needs checking.
+            Event single = singles.findById(id);
+            if (single != null
+                && !single.getStart().isAfter(end)
+                && !single.getEnd().isBefore(start)) {
+              result.add(single);
+            }
+          }
+          result.sort(Comparator.comparing(Event::getStart));
+          return result;
+        });
+  }
+
+  /** Indexes every stored event and series, unless another search did so first. */
+  private void buildTextIndex() {
+    long stamp = writeLock();
+    try {
+      if (textIndex == null) {
+        TextIndex index = new TextIndex();
+        view().forEachSingleEvent(event -> index.add(event.getId(), event));
+        for (RecurringEvent recurringEvent : seriesSeq.keySet()) {
+          index.add(recurringEvent.getId(), recurringEvent);
+        }
+        textIndex = index;
+      }
+    } finally {
+      lock.unlockWrite(stamp);
+    }
+  }
+
+  /** Adds the occurrences of a series that overlap [from, to] to a list. */
+  private static void addOccurrencesOverlapping(
+      RecurringEvent recurringEvent, LocalDateTime from, LocalDateTime to, List<Event> result) {
+    recurringEvent.forEachOccurrenceDate(
+        from.toLocalDate(),
+        to.toLocalDate(),
+        date -> {
+          if (!recurringEvent.occurrenceStart(date).isAfter(to)
+              && !recurringEvent.occurrenceEnd(date).isBefore(from)) {
+            result.add(recurringEvent.occurrenceOn(date));
+          }
+        });
+  }
+
+  /** The dates from the earliest start to the latest end of a set of events. */
+  private static final class Span {
+    private LocalDate from;
+    private LocalDate to;
+
+    Span() {}
+
+    Span(LocalDateTime start, LocalDateTime end) {
+      include(start, end);
+    }
+
+    void include(Event event) {
+      include(event.getStart(), event.getEnd());
+    }
+
+    void include(LocalDateTime start, LocalDateTime end) {
+      LocalDate startDate = start.toLocalDate();
+      LocalDate endDate = end.toLocalDate();
+      if (from == null || startDate.isBefore(from)) {
+        from = startDate;
+      }
+      if (to == null || endDate.isAfter(to)) {
+        to = endDate;
       }
     }
-    return null;
   }
 }
@@ -0,0 +1,340 @@
+package calendar.model;
+
+import calendar.model.event.Event;
+import calendar.model.event.RecurringEvent;
+import calendar.model.event.SingleEvent;
+import calendar.model.index.EventIntervalTree;
+import calendar.model.store.EventView;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.time.LocalTime;
+import java.time.ZoneId;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Map;
+import java.util.NavigableMap;
+import java.util.Objects;
+import java.util.function.Consumer;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+import java.util.stream.StreamSupport;
+
+/**
+ * An immutable view of a calendar as it was at one version. A snapshot holds the persistent
+ * interval tree of recurring series and a snapshot of the single event store, so taking one copies
+ * nothing, and the calendar can go on changing while the snapshot is read. Events are replaced
+ * rather than modified when they are edited, so the events a snapshot returns never change either.
+ *
+ * <p>Nothing needs to be released: once no snapshot refers to an old version, the nodes and
+ * events that only it used are reclaimed by the garbage collector.
+ */
+public final class CalendarSnapshot {
+  private final String name;
+  private final ZoneId timezone;
+  private final long version;
+  private final long nextId;
+  private final EventView singles;
+  private final EventIntervalTree series;
+
+  /** Constructs a snapshot from a calendar's state. */
+  CalendarSnapshot(
+      String name,
+      ZoneId timezone,
+      long version,
+      long nextId,
+      EventView singles,
+      EventIntervalTree series) {
+    this.name = name;
+    this.timezone = timezone;
+    this.version = version;
+    this.nextId = nextId;
+    this.singles = singles;
+    this.series = series;
+  }
+
+  /** Returns the calendar name at the time of the snapshot. */
+  public String getName() {
+    return name;
+  }
+
+  /** Returns the calendar timezone at the time of the snapshot. */
+  public ZoneId getTimezone() {
+    return timezone;
+  }
+
+  /** Returns the calendar version the snapshot shows. Each change to a calendar adds one. */
+  public long getVersion() {
+    return version;
+  }
+
+  /** Returns the id the calendar would give the next event or series added to it. */
+  public long getNextId() {
+    return nextId;
+  }
+
+  /**
+   * Passes every stored single event to the action in start order, including occurrences that
+   * were detached from their series, but not the occurrences still in a series.
+   */
+  public void forEachSingleEvent(Consumer<Event> action) {
+    singles.forEachOverlapping(LocalDateTime.MIN, LocalDateTime.MAX, action);
+  }
+
+  /** Passes every stored series to the action, in order of the start of its first occurrence. */
+  public void forEachSeries(Consumer<RecurringEvent> action) {
+    for (Event e : series) {
+      action.accept((RecurringEvent) e);
+    }
+  }
+
+  /** Returns the list of events on a given date. */
+  public List<Event> getEventsOn(LocalDate date) {
+    List<Event> result = singles.startingOn(date);
+    List<RecurringEvent> candidates =
+        seriesOverlapping(date.atStartOfDay(), date.atTime(LocalTime.MAX));
+    for (RecurringEvent candidate : candidates) {
+      SingleEvent occurrence = candidate.occurrenceOn(date);
+      if (occurrence != null) {
+        result.add(occurrence);
+      }
+    }
+    if (!candidates.isEmpty()) {
+      sortByStart(result);
+    }
+    return result;
+  }
+
+  /**
+   * Returns the events starting on each date from {@code from} to {@code to} inclusive, keyed by
+   * date. Dates without events are left out of the map.
+   */
+  public NavigableMap<LocalDate, List<Event>> getEventsByDay(LocalDate from, LocalDate to) {
+    NavigableMap<LocalDate, List<Event>> result = singles.startingBetween(from, to);
+    List<RecurringEvent> candidates =
+        seriesOverlapping(from.atStartOfDay(), to.atTime(LocalTime.MAX));
+    for (RecurringEvent candidate : candidates) {
+      candidate.forEachOccurrence(
+          from,
+          to,
+          e -> result.computeIfAbsent(e.getStart().toLocalDate(), d -> new ArrayList<>()).add(e));
+    }
+    for (Map.Entry<LocalDate, List<Event>> entry : result.entrySet()) {
+      if (!candidates.isEmpty()) {
+        sortByStart(entry.getValue());
+      }
+      entry.setValue(Collections.unmodifiableList(entry.getValue()));
+    }
+    return result;
+  }
+
+  /** Returns the list of events between the given start and end date-times. */
+  public List<Event> getEventsBetween(LocalDateTime start, LocalDateTime end) {
+    List<Event> result = new ArrayList<>();
+    singles.forEachOverlapping(start, end, result::add);
+    List<RecurringEvent> candidates = seriesOverlapping(start, end);
+    for (RecurringEvent candidate : candidates) {
+      result.addAll(occurrencesOverlapping(candidate, start, end));
+    }
+    if (!candidates.isEmpty()) {
+      sortByStart(result);
+    }
+    return result;
+  }
+
+  /**
+   * Returns the events between the given start and end date-times as a stream in start order. The
+   * events are read a window at a time as the stream is consumed, so it holds only a small part of
+   * a large range at once and stops reading when the stream is cut short.
+   */
+  public Stream<Event> streamEventsBetween(LocalDateTime start, LocalDateTime end) {
+    return StreamSupport.stream(new EventSpliterator(this, start, end, true), false);
+  }
+
+  /** Returns the events on a given date as a stream in start order, read as it is consumed. */
+  public Stream<Event> streamEventsOn(LocalDate date) {
+    return StreamSupport.stream(
+        new EventSpliterator(this, date.atStartOfDay(), date.atTime(LocalTime.MAX), false), false);
+  }
+
+  /** Returns the events starting from {@code from} to {@code to} as a stream in start order. */
+  public Stream<Event> streamEventsStartingBetween(LocalDateTime from, LocalDateTime to) {
+    return StreamSupport.stream(new EventSpliterator(this, from, to, false), false);
+  }
+
+  /**
+   * Returns event counts per bucket, busy minutes and peak concurrency over the dates from
+   * {@code from} to {@code to} inclusive, computed in one pass over the events in start order.
+   */
+  public RangeStats getStats(LocalDate from, LocalDate to, RangeStats.Bucket bucket) {
+    if (to.isBefore(from)) {
+      throw new IllegalArgumentException("End date must not be before start date.");
+    }
+    return RangeStats.collect(
+        streamEventsBetween(from.atStartOfDay(), to.atTime(LocalTime.MAX)).iterator(),
+        from,
+        to,
+        bucket);
+  }
+
+  /**
+   * Returns the first {@code count} events starting at or after the given date-time, in start
+   * order. The events are read from the start-ordered indexes a window at a time from that point,
+   * so the cost grows with the count and not with the size of the calendar.
+   */
+  public List<Event> getNextEvents(LocalDateTime from, int count) {
+    checkLimit(count);
+    return streamEventsStartingBetween(from, LocalDateTime.MAX)
+        .limit(count)
+        .collect(Collectors.toList());
+  }
+
+  /**
+   * Returns a page of at most {@code limit} of the events between the given date-times, starting
+   * just after the cursor's event, or at the first event if the cursor is null. Resuming looks up
+   * the cursor's start in the indexes rather than listing the events before it, and a page holds
+   * no more than its own events however wide the range is.
+   */
+  public EventPage pageEventsBetween(
+      LocalDateTime start, LocalDateTime end, int limit, EventCursor after) {
+    checkLimit(limit);
+    if (after == null) {
+      return EventPage.take(streamEventsBetween(start, end).iterator(), limit);
+    }
+    // Events that start before the range still belong to it if they overlap its start.
+    return EventPage.take(
+        StreamSupport.stream(new EventSpliterator(this, after, end), false)
+            .filter(e -> !e.getEnd().isBefore(start))
+            .iterator(),
+        limit);
+  }
+
+  /**
+   * Returns a page of at most {@code limit} of the events on a given date, starting just after
+   * the cursor's event, or at the first event if the cursor is null.
+   */
+  public EventPage pageEventsOn(LocalDate date, int limit, EventCursor after) {
+    checkLimit(limit);
+    if (after == null) {
+      return EventPage.take(streamEventsOn(date).iterator(), limit);
+    }
+    LocalDateTime start = date.atStartOfDay();
+    return EventPage.take(
+        StreamSupport.stream(new EventSpliterator(this, after, date.atTime(LocalTime.MAX)), false)
+            .filter(e -> !e.getStart().isBefore(start))
+            .iterator(),
+        limit);
+  }
+
+  private static void checkLimit(int limit) {
+    if (limit <= 0) {
+      throw new IllegalArgumentException("Event count must be positive.");
+    }
+  }
+
+  /**
+   * Returns the events that overlap [from, to] and start no earlier than {@code earliestStart}, in
+   * the order {@link #getEventsBetween} lists them.
+   */
+  List<Event> eventsStartingIn(LocalDateTime from, LocalDateTime to, LocalDateTime earliestStart) {
+    List<Event> result = new ArrayList<>();
+    singles.forEachOverlapping(
+        from,
+        to,
+        e -> {
+          if (!e.getStart().isBefore(earliestStart)) {
+            result.add(e);
+          }
+        });
+    List<RecurringEvent> candidates = seriesOverlapping(from, to);
+    for (RecurringEvent candidate : candidates) {
+      for (Event e : occurrencesOverlapping(candidate, from, to)) {
+        if (!e.getStart().isBefore(earliestStart)) {
+          result.add(e);
+        }
+      }
+    }
+    if (!candidates.isEmpty()) {
+      sortByStart(result);
+    }
+    return result;
+  }
+
+  /** Returns true if any single event or recurring occurrence overlaps the given range. */
+  public boolean overlapsAny(LocalDateTime start, LocalDateTime end) {
+    if (singles.anyOverlapping(start, end)) {
+      return true;
+    }
+    for (RecurringEvent candidate : seriesOverlapping(start, end)) {
+      if (!occurrencesOverlapping(candidate, start, end).isEmpty()) {
+        return true;
+      }
+    }
+    return false;
+  }
+
+  /** Returns true if an event covers the given date-time. */
+  public boolean isBusy(LocalDateTime dateTime) {
+    if (singles.covers(dateTime)) {
+      return true;
+    }
+    LocalDate date = dateTime.toLocalDate();
+    for (RecurringEvent candidate : seriesOverlapping(dateTime, dateTime)) {
+      if (candidate.occursOn(date)
+          && !dateTime.isBefore(candidate.occurrenceStart(date))
+          && !dateTime.isAfter(candidate.occurrenceEnd(date))) {
+        return true;
+      }
+    }
+    return false;
+  }
+
+  /** Finds an event by its name and start time. */
+  public Event findEventByNameAndStart(String eventName, LocalDateTime start) {
+    Event single = singles.findByNameAndStart(eventName, start);
+    if (single != null) {
+      return single;
+    }
+    LocalDate date = start.toLocalDate();
+    for (RecurringEvent candidate : seriesOverlapping(start, start)) {
+      if (Objects.equals(candidate.getName(), eventName)
+          && candidate.occursOn(date)
+          && candidate.occurrenceStart(date).equals(start)) {
+        return candidate.occurrenceOn(date);
+      }
+    }
+    return null;
+  }
+
+  /** Returns the series whose span overlaps the given range. */
+  private List<RecurringEvent> seriesOverlapping(LocalDateTime start, LocalDateTime end) {
+    List<RecurringEvent> result = new ArrayList<>();
+    series.forEachOverlapping(start, end, e -> result.add((RecurringEvent) e));
+    return result;
+  }
+
+  /**
+   * Returns the occurrences of a series that overlap the given range. An occurrence starts and ends
+   * on the same date, so only dates inside the range need to be checked.
+   */
+  private static List<Event> occurrencesOverlapping(
+      RecurringEvent recurringEvent, LocalDateTime start, LocalDateTime end) {
+    List<Event> result = new ArrayList<>();
+    recurringEvent.forEachOccurrenceDate(
+        start.toLocalDate(),
+        end.toLocalDate(),
+        date -> {
+          if (!recurringEvent.occurrenceStart(date).isAfter(end)
+              && !recurringEvent.occurrenceEnd(date).isBefore(start)) {
+            result.add(recurringEvent.occurrenceOn(date));
+          }
+        });
+    return result;
+  }
+
+  /** Sorts events by start time, keeping the existing order of events that start together. */
+  private static void sortByStart(List<Event> list) {
+    list.sort(Comparator.comparing(Event::getStart));
+  }
+}
@@ -0,0 +1,77 @@
+package calendar.model;
+
+import calendar.model.event.Event;
+import java.time.LocalDateTime;
+import java.time.format.DateTimeParseException;
+import java.util.Objects;
+
+/**
+ * A position in a listing of events, just after the event with a given start and id. Events are
+ * listed in start order, so a listing resumes by looking up the start in the calendar's indexes
+ * and skipping past the event with the id among those that start with it.
+ *
+ * <p>A cursor is written as {@code <start>#<id>}, such as {@code 2025-04-07T09:00#12}.
+ */
+public final class EventCursor {
+  private final LocalDateTime start;
+  private final long id;
+
+  /** Constructs a cursor just after the event with the given start and id. */
+  public EventCursor(LocalDateTime start, long id) {
+    this.start = Objects.requireNonNull(start);
+    this.id = id;
+  }
+
+  /** Returns a cursor just after the given event. */
+  public static EventCursor after(Event event) {
+    return new EventCursor(event.getStart(), event.getId());
+  }
+
+  /** Parses a cursor written by {@link #toString}. */
+  public static EventCursor parse(String text) {
+    int hash = text.lastIndexOf('#');
+    try {
+      if (hash > 0) {
+        return new EventCursor(
+            LocalDateTime.parse(text.substring(0, hash)), Long.parseLong(text.substring(hash + 1)));
+      }
+    } catch (DateTimeParseException | NumberFormatException e) {
+      // Reported below.
+    }
+    throw new IllegalArgumentException("Invalid cursor: " + text);
+  }
+
+  /** Returns the start of the event the cursor follows. */
+  public LocalDateTime getStart() {
+    return start;
+  }
+
+  /** Returns the id of the event the cursor follows. */
+  public long getId() {
+    return id;
+  }
+
+  /** Returns true if the cursor points just after the given event. */
+  boolean follows(Event event) {
+    return event.getId() == id && event.getStart().equals(start);
+  }
+
+  @Override
+  public boolean equals(Object o) {
+    if (!(o instanceof EventCursor)) {
+      return false;
+    }
+    EventCursor other = (EventCursor) o;
+    return start.equals(other.start) && id == other.id;
+  }
+
+  @Override
+  public int hashCode() {
+    return Objects.hash(start, id);
+  }
+
+  @Override
+  public String toString() {
+    return start + "#" + id;
+  }
+}
@@ -0,0 +1,45 @@
+package calendar.model;
+
+import calendar.model.event.Event;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Iterator;
+import java.util.List;
+
+/** One page of a listing of events, with the cursor to pass for the next page if there is one. */
+public final class EventPage {
+  private final List<Event> events;
+  private final EventCursor next;
+
+  /** Constructs a page holding the given events, followed by the page at {@code next}. */
+  public EventPage(List<Event> events, EventCursor next) {
+    this.events = Collections.unmodifiableList(events);
+    this.next = next;
+  }
+
+  /**
+   * Takes up to {@code limit} events from a listing. The listing is read one event further to tell
+   * whether another page follows, and no further.
+   */
+  static EventPage take(Iterator<Event> listing, int limit) {
+    List<Event> events = new ArrayList<>(Math.min(limit, 1024));
+    while (events.size() < limit && listing.hasNext()) {
+      events.add(listing.next());
+    }
+    EventCursor next =
+        listing.hasNext() && !events.isEmpty()
+            ? EventCursor.after(events.get(events.size() - 1))
+            : null;
+    return new EventPage(events, next);
+  }
+
+  /** Returns the events on the page, in start order. */
+  public List<Event> getEvents() {
+    return events;
+  }
+
+  /** Returns the cursor of the next page, or null if this is the last page. */
+  public EventCursor getNext() {
+    return next;
+  }
+}
@@ -0,0 +1,128 @@
+package calendar.model;
+
+import calendar.model.event.Event;
+import java.time.LocalDateTime;
+import java.time.temporal.ChronoUnit;
+import java.util.Collections;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Spliterator;
+import java.util.function.Consumer;
+
+/**
+ * Yields the events of a snapshot in start order, reading them a window at a time so that only one
+ * window's events are held at once. Windows start at one day; an empty window doubles the next
+ * one, so long gaps are crossed in a few reads, and a crowded window halves it, so a dense stretch
+ * is never read in one piece. Windows partition the range by start time, so no event is yielded
+ * twice, and the first window also takes the events that start before the range but overlap it.
+ *
+ * <p>Events are read only as the stream consumes them, so a stream cut short by {@code limit} or
+ * {@code findFirst} reads no further than it got.
+ *
+ * <p>A spliterator can resume a listing from a cursor. It then starts at the cursor's start time,
+ * where the events that start together all fall in the first window, and skips those up to and
+ * including the cursor's event.
+ */
+final class EventSpliterator implements Spliterator<Event> {
+  private static final long FIRST_WINDOW_MINUTES = 24 * 60;
+  private static final long MAX_WINDOW_MINUTES = 1L << 60;
+  private static final int CROWDED_WINDOW = 512;
+
+  private final CalendarSnapshot calendar;
+  private final LocalDateTime end;
+  // The start of the next window, or null once the range is read.
+  private LocalDateTime next;
+  // Events starting before this are taken only if they overlap the range start.
+  private LocalDateTime earliestStart;
+  // Skipped to on the first window, then null.
+  private EventCursor after;
+  private long windowMinutes = FIRST_WINDOW_MINUTES;
+  private Iterator<Event> window = Collections.emptyIterator();
+
+  /**
+   * Constructs a spliterator over the events overlapping [start, end], or with {@code overlapping}
+   * false over the events starting in it.
+   */
+  EventSpliterator(
+      CalendarSnapshot calendar, LocalDateTime start, LocalDateTime end, boolean overlapping) {
+    this.calendar = calendar;
+    this.end = end;
+    this.next = start;
+    this.earliestStart = overlapping ? LocalDateTime.MIN : start;
+  }
+
+  /**
+   * Constructs a spliterator over the events starting from the cursor's start time up to
+   * {@code end}, beginning just after the cursor's event.
+   */
+  EventSpliterator(CalendarSnapshot calendar, EventCursor after, LocalDateTime end) {
+    this(calendar, after.getStart(), end, false);
+    this.after = after;
+  }
+
+  @Override
+  public boolean tryAdvance(Consumer<? super Event> action) {
+    while (!window.hasNext()) {
+      if (next == null) {
+        return false;
+      }
+      readWindow();
+    }
+    action.accept(window.next());
+    return true;
+  }
+
+  /** Reads the events starting in the next window and sizes the one after it. */
+  private void readWindow() {
+    LocalDateTime from = next;
+    LocalDateTime to;
+    if (ChronoUnit.MINUTES.between(from, end) < windowMinutes) {
+      to = end;
+      next = null;
+    } else {
+      next = from.plusMinutes(windowMinutes);
+      to = next.minusNanos(1);
+    }
+    List<Event> events = calendar.eventsStartingIn(from, to, earliestStart);
+    earliestStart = next;
+    if (after != null) {
+      events = skipThrough(events, after);
+      after = null;
+    }
+    if (events.isEmpty()) {
+      windowMinutes = Math.min(windowMinutes * 2, MAX_WINDOW_MINUTES);
+    } else if (events.size() > CROWDED_WINDOW && windowMinutes > 1) {
+      windowMinutes /= 2;
+    }
+    window = events.iterator();
+  }
+
+  /**
+   * Returns the events after the cursor's event, or all of them if none of the events starting
+   * with it has its id.
+   */
+  private static List<Event> skipThrough(List<Event> events, EventCursor after) {
+    for (int i = 0; i < events.size() && events.get(i).getStart().equals(after.getStart()); i++) {
+      if (after.follows(events.get(i))) {
+        return events.subList(i + 1, events.size());
+      }
+    }
+    return events;
+  }
+
+  /** Returns null: the events are read in order from one end, so the range is not split. */
+  @Override
+  public Spliterator<Event> trySplit() {
+    return null;
+  }
+
+  @Override
+  public long estimateSize() {
+    return Long.MAX_VALUE;
+  }
+
+  @Override
+  public int characteristics() {
+    return ORDERED | NONNULL | IMMUTABLE;
+  }
+}
@@ -0,0 +1,95 @@
+package calendar.model;
+
+import calendar.model.event.Event;
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.Iterator;
+import java.util.List;
+import java.util.PriorityQueue;
+
+/**
+ * Finds the stretches of time in which every one of a set of calendars is free.
+ *
+ * <p>Each calendar supplies its events in start order, and a k-way merge over a priority queue
+ * keyed by start walks all of them as one sorted stream of busy intervals. A sweep keeps the latest
+ * busy end seen so far; whenever the next event starts far enough beyond it, the space between is a
+ * free slot. Events are streamed from each calendar, which reads them a window at a time, so a
+ * search that succeeds early only looks at the events near its start however large the calendars
+ * are.
+ *
+ * <p>Slots follow the calendar's conflict rule, under which events that touch conflict: a slot
+ * starts one minute after the busy time before it and ends one minute before the busy time after
+ * it, so an event created over any part of a slot is accepted with auto-decline on.
+ */
+public final class FreeSlotFinder {
+  private FreeSlotFinder() {}
+
+  /**
+   * Returns up to {@code count} free slots of at least {@code length} between {@code from} and
+   * {@code to}, earliest first, in which none of the given calendars has an event.
+   */
+  public static List<TimeSlot> find(
+      List<CalendarSnapshot> calendars,
+      LocalDateTime from,
+      LocalDateTime to,
+      Duration length,
+      int count) {
+    if (count <= 0 || length.isNegative() || to.isBefore(from)) {
+      return Collections.emptyList();
+    }
+    PriorityQueue<BusyCursor> heads =
+        new PriorityQueue<>(Comparator.comparing((BusyCursor c) -> c.head.getStart()));
+    for (CalendarSnapshot calendar : calendars) {
+      BusyCursor cursor = new BusyCursor(calendar, from, to);
+      if (cursor.advance()) {
+        heads.add(cursor);
+      }
+    }
+    List<TimeSlot> slots = new ArrayList<>();
+    LocalDateTime free = from;
+    while (!heads.isEmpty()) {
+      BusyCursor cursor = heads.poll();
+      Event busy = cursor.head;
+      LocalDateTime gapEnd = busy.getStart().minusMinutes(1);
+      if (!gapEnd.isBefore(free) && Duration.between(free, gapEnd).compareTo(length) >= 0) {
+        slots.add(new TimeSlot(free, gapEnd));
+        if (slots.size() == count) {
+          return slots;
+        }
+      }
+      LocalDateTime afterBusy = busy.getEnd().plusMinutes(1);
+      if (afterBusy.isAfter(free)) {
+        free = afterBusy;
+      }
+      if (cursor.advance()) {
+        heads.add(cursor);
+      }
+    }
+    if (!to.isBefore(free) && Duration.between(free, to).compareTo(length) >= 0) {
+      slots.add(new TimeSlot(free, to));
+    }
+    return slots;
+  }
+
+  /** Walks the events of one calendar that overlap a range in start order, as it streams them. */
+  private static final class BusyCursor {
+    private final Iterator<Event> events;
+    private Event head;
+
+    BusyCursor(CalendarSnapshot calendar, LocalDateTime from, LocalDateTime limit) {
+      this.events = calendar.streamEventsBetween(from, limit).iterator();
+    }
+
+    /** Moves to the next event, returning false when there are none left in the range. */
+    boolean advance() {
+      if (!events.hasNext()) {
+        return false;
+      }
+      head = events.next();
+      return true;
+    }
+  }
+}
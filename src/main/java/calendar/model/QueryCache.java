@@ -0,0 +1,233 @@
+package calendar.model;
+
+import java.time.LocalDate;
+import java.util.Objects;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * A bounded cache of query results for one calendar, evicting the least recently used entries
+ * when full. Each entry remembers the calendar version it was computed at and the dates its window
+ * covers.
+ *
+ * <p>Changes are not applied to entries when they happen. Instead the calendar logs each change's
+ * version and dates here, and a lookup checks the entry against the changes logged since it was
+ * computed: an entry stays valid through changes to other dates. Because validity is decided at
+ * lookup, a result computed just before a change and stored just after it is never served, and
+ * queries need not hold the calendar's lock while they store results. The log keeps the most
+ * recent {@value #LOG_SIZE} changes; an entry older than all of them is treated as invalid.
+ *
+ * <p>Lookups take no lock, so readers of a calendar do not contend here. Entries live in a
+ * concurrent map and are evicted by the clock algorithm, an approximation of least recently used:
+ * a stored entry joins the back of a queue, and a hit only marks it used, writing nothing if it is
+ * marked already. When the cache grows past its capacity, one thread at a time takes entries from
+ * the front of the queue, evicting those not used since they last passed and sending the others
+ * round again unmarked. Other threads keep storing results meanwhile without waiting.
+ *
+ * <p>The log is a ring that only the calendar's writer appends to, and a lookup reads it from the
+ * newest record back, stopping at the first that predates its entry, so it reads only the changes
+ * made since the entry was computed. Before the writer overwrites a record it publishes that
+ * record's version as the oldest known, and it writes a record's dates before its version, so a
+ * lookup that reads a record half overwritten still finds entries older than the old record stale.
+ */
+final class QueryCache {
+  private static final int LOG_SIZE = 64;
+
+  private final ConcurrentHashMap<Key, Entry> entries = new ConcurrentHashMap<>();
+  // Each entry in the map once, in the order it will be considered for eviction, along with
+  // entries that have since left the map, which are dropped when they reach the front.
+  private final ConcurrentLinkedQueue<Entry> clock = new ConcurrentLinkedQueue<>();
+  private final AtomicInteger queued = new AtomicInteger();
+  // Three slots per change: the version it made, then its first and last day.
+  private final AtomicLongArray log = new AtomicLongArray(LOG_SIZE * 3);
+  private final ReentrantLock evicting = new ReentrantLock();
+  private final LongAdder hits = new LongAdder();
+  private final LongAdder misses = new LongAdder();
+  private final LongAdder evictions = new LongAdder();
+  // The number of changes ever logged. Written only by the calendar's writer, under its lock.
+  private volatile long appended;
+  // Entries computed before this version may predate a change that has left the log.
+  private volatile long oldestKnown;
+  private volatile int capacity;
+
+  QueryCache(int capacity) {
+    this.capacity = capacity;
+  }
+
+  /** The queries whose results are cached. */
+  enum Kind {
+    EVENTS_ON,
+    EVENTS_BY_DAY,
+    EVENTS_BETWEEN
+  }
+
+  /** Returns a key for a query of the given kind over a window of dates, both included. */
+  static Key key(Kind kind, Object from, Object to, LocalDate firstDate, LocalDate lastDate) {
+    return new Key(kind, from, to, firstDate.toEpochDay(), lastDate.toEpochDay());
+  }
+
+  /** Returns the cached result for a key if it is still valid, or null. */
+  Object get(Key key) {
+    Entry entry = entries.get(key);
+    if (entry != null && isValid(key, entry.version)) {
+      if (!entry.used) {
+        entry.used = true;
+      }
+      hits.increment();
+      return entry.value;
+    }
+    if (entry != null) {
+      entries.remove(key, entry);
+    }
+    misses.increment();
+    return null;
+  }
+
+  /** Stores a result computed at the given calendar version. */
+  void put(Key key, long version, Object value) {
+    int limit = capacity;
+    if (limit <= 0 || !isValid(key, version)) {
+      return;
+    }
+    Entry entry = new Entry(key, version, value);
+    entries.put(key, entry);
+    clock.add(entry);
+    queued.incrementAndGet();
+    // Check again after evicting: a put that found the lock taken left its entry for whoever
+    // held it, and that thread may have finished its pass before the entry arrived.
+    while ((entries.size() > limit || queued.get() > 2 * limit) && evicting.tryLock()) {
+      try {
+        evictDownTo(limit);
+      } finally {
+        evicting.unlock();
+      }
+    }
+  }
+
+  /**
+   * Records a change that made the given version and affected events from {@code from} to
+   * {@code to}. Null dates mean every date. Called only by the calendar's writer.
+   */
+  void invalidate(long version, LocalDate from, LocalDate to) {
+    int at = (int) (appended % LOG_SIZE) * 3;
+    long overwritten = log.get(at);
+    if (overwritten != 0) {
+      // Publish before the record leaves the log, for lookups that will not find it there.
+      oldestKnown = overwritten;
+    }
+    log.set(at + 1, from == null ? Long.MIN_VALUE : from.toEpochDay());
+    log.set(at + 2, to == null ? Long.MAX_VALUE : to.toEpochDay());
+    log.set(at, version);
+    appended = appended + 1;
+  }
+
+  /** Sets the number of entries kept, dropping the least recently used ones if there are more. */
+  void setCapacity(int capacity) {
+    this.capacity = capacity;
+    evicting.lock();
+    try {
+      evictDownTo(Math.max(capacity, 0));
+    } finally {
+      evicting.unlock();
+    }
+  }
+
+  QueryCacheStats stats() {
+    return new QueryCacheStats(
+        hits.sum(), misses.sum(), evictions.sum(), entries.size(), capacity);
+  }
+
+  private boolean isValid(Key key, long version) {
+    // Records are in version order, so walk back from the newest until one predates the entry.
+    long count = appended;
+    for (long i = count - 1; i >= Math.max(0, count - LOG_SIZE); i--) {
+      int at = (int) (i % LOG_SIZE) * 3;
+      if (log.get(at) <= version) {
+        break;
+      }
+      if (log.get(at + 1) <= key.lastDay && log.get(at + 2) >= key.firstDay) {
+        return false;
+      }
+    }
+    // Read after the log, so a record overwritten while it was scanned is accounted for here.
+    return version >= oldestKnown;
+  }
+
+  /**
+   * Evicts entries until at most {@code size} remain, and drops entries that have left the map from
+   * the queue until it holds at most twice that many. Called holding {@link #evicting}.
+   */
+  private void evictDownTo(int size) {
+    while (entries.size() > size || queued.get() > 2 * size) {
+      Entry entry = clock.poll();
+      if (entry == null) {
+        return;
+      }
+      queued.decrementAndGet();
+      if (entries.get(entry.key) != entry) {
+        continue;
+      }
+      if (entries.size() <= size) {
+        requeue(entry);
+      } else if (entry.used) {
+        entry.used = false;
+        requeue(entry);
+      } else if (entries.remove(entry.key, entry)) {
+        evictions.increment();
+      }
+    }
+  }
+
+  private void requeue(Entry entry) {
+    clock.add(entry);
+    queued.incrementAndGet();
+  }
+
+  /** A query kind and its arguments, with the days its window covers. */
+  static final class Key {
+    private final Kind kind;
+    private final Object from;
+    private final Object to;
+    private final long firstDay;
+    private final long lastDay;
+
+    private Key(Kind kind, Object from, Object to, long firstDay, long lastDay) {
+      this.kind = kind;
+      this.from = from;
+      this.to = to;
+      this.firstDay = firstDay;
+      this.lastDay = lastDay;
+    }
+
+    @Override
+    public boolean equals(Object o) {
+      if (!(o instanceof Key)) {
+        return false;
+      }
+      Key other = (Key) o;
+      return kind == other.kind && from.equals(other.from) && to.equals(other.to);
+    }
+
+    @Override
+    public int hashCode() {
+      return Objects.hash(kind, from, to);
+    }
+  }
+
+  private static final class Entry {
+    private final Key key;
+    private final long version;
+    private final Object value;
+    private volatile boolean used;
+
+    Entry(Key key, long version, Object value) {
+      this.key = key;
+      this.version = version;
+      this.value = value;
+    }
+  }
+}
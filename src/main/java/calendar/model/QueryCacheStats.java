@@ -0,0 +1,57 @@
+package calendar.model;
+
+/** Counters of a calendar's query cache, for judging how large it should be. */
+public final class QueryCacheStats {
+  private final long hits;
+  private final long misses;
+  private final long evictions;
+  private final int size;
+  private final int capacity;
+
+  /** Constructs the counters of a cache. */
+  public QueryCacheStats(long hits, long misses, long evictions, int size, int capacity) {
+    this.hits = hits;
+    this.misses = misses;
+    this.evictions = evictions;
+    this.size = size;
+    this.capacity = capacity;
+  }
+
+  /** Returns the number of queries answered from the cache. */
+  public long getHits() {
+    return hits;
+  }
+
+  /** Returns the number of queries that had to be run, including those whose entry was stale. */
+  public long getMisses() {
+    return misses;
+  }
+
+  /** Returns the number of entries dropped to make room for newer ones. */
+  public long getEvictions() {
+    return evictions;
+  }
+
+  /** Returns the number of entries held now. */
+  public int getSize() {
+    return size;
+  }
+
+  /** Returns the most entries the cache holds. */
+  public int getCapacity() {
+    return capacity;
+  }
+
+  /** Returns the share of queries answered from the cache, or 0 if there were none. */
+  public double getHitRate() {
+    long total = hits + misses;
+    return total == 0 ? 0 : (double) hits / total;
+  }
+
+  @Override
+  public String toString() {
+    return String.format(
+        "%d hits, %d misses (%.1f%% hit rate), %d evictions, %d of %d entries used",
+        hits, misses, getHitRate() * 100, evictions, size, capacity);
+  }
+}
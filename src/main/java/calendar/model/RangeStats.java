@@ -0,0 +1,185 @@
+package calendar.model;
+
+import calendar.model.event.Event;
+import java.time.DayOfWeek;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.time.temporal.ChronoUnit;
+import java.time.temporal.TemporalAdjusters;
+import java.util.Collections;
+import java.util.Iterator;
+import java.util.NavigableMap;
+import java.util.PriorityQueue;
+import java.util.TreeMap;
+
+/**
+ * Aggregates over the events of a range of dates: event counts per day or week, busy minutes with
+ * overlapping events counted once, and the most events in progress at once.
+ *
+ * <p>All of them are computed in one pass over the events in start order. Since each event starts
+ * no earlier than the one before, overlaps merge by extending the current busy stretch, and the
+ * events in progress are tracked in a heap of end times that holds no more events than the peak.
+ * Busy minutes are counted the way {@link Calendar#getBusyMinutes} counts them, each whole minute
+ * an event covers from its start up to its end counting once, so the two agree and an event from
+ * 10:00 to 11:00 is 60 busy minutes.
+ */
+public final class RangeStats {
+  /** How event counts are grouped. */
+  public enum Bucket {
+    DAY,
+    WEEK;
+
+    /** Returns the first date of the bucket holding a date. Weeks start on Monday. */
+    public LocalDate bucketOf(LocalDate date) {
+      return this == DAY ? date : date.with(TemporalAdjusters.previousOrSame(DayOfWeek.MONDAY));
+    }
+
+    /** Returns the first date of the bucket after the one starting on a date. */
+    LocalDate next(LocalDate bucketStart) {
+      return this == DAY ? bucketStart.plusDays(1) : bucketStart.plusWeeks(1);
+    }
+  }
+
+  private final LocalDate from;
+  private final LocalDate to;
+  private final Bucket bucket;
+  private final NavigableMap<LocalDate, Integer> counts;
+  private final int eventCount;
+  private final long busyMinutes;
+  private final int peakConcurrency;
+  private final LocalDateTime peakAt;
+
+  private RangeStats(
+      LocalDate from,
+      LocalDate to,
+      Bucket bucket,
+      NavigableMap<LocalDate, Integer> counts,
+      int eventCount,
+      long busyMinutes,
+      int peakConcurrency,
+      LocalDateTime peakAt) {
+    this.from = from;
+    this.to = to;
+    this.bucket = bucket;
+    this.counts = Collections.unmodifiableNavigableMap(counts);
+    this.eventCount = eventCount;
+    this.busyMinutes = busyMinutes;
+    this.peakConcurrency = peakConcurrency;
+    this.peakAt = peakAt;
+  }
+
+  /**
+   * Aggregates the events overlapping the dates from {@code from} to {@code to} inclusive, given in
+   * start order. Events are counted in the bucket of the date they start on, so events that started
+   * before the range add to the busy minutes and concurrency but not to the counts.
+   */
+  static RangeStats collect(Iterator<Event> events, LocalDate from, LocalDate to, Bucket bucket) {
+    LocalDateTime rangeStart = from.atStartOfDay();
+    LocalDateTime rangeEnd = to.plusDays(1).atStartOfDay();
+    NavigableMap<LocalDate, Integer> counts = new TreeMap<>();
+    for (LocalDate b = bucket.bucketOf(from); !b.isAfter(to); b = bucket.next(b)) {
+      counts.put(b, 0);
+    }
+    int eventCount = 0;
+    long busyMinutes = 0;
+    // The current stretch of busy minutes, from its first up to but not including its end, or
+    // null before the first event.
+    LocalDateTime busyFirst = null;
+    LocalDateTime busyEnd = null;
+    PriorityQueue<LocalDateTime> inProgress = new PriorityQueue<>();
+    int peak = 0;
+    LocalDateTime peakAt = null;
+    while (events.hasNext()) {
+      Event event = events.next();
+      LocalDateTime start = event.getStart();
+      if (!start.isBefore(rangeStart)) {
+        counts.merge(bucket.bucketOf(start.toLocalDate()), 1, Integer::sum);
+        eventCount++;
+      }
+
+      LocalDateTime first = max(ceilMinute(start), rangeStart);
+      LocalDateTime end = min(ceilMinute(event.getEnd()), rangeEnd);
+      if (first.isBefore(end)) {
+        if (busyEnd != null && !first.isAfter(busyEnd)) {
+          busyEnd = max(busyEnd, end);
+        } else {
+          busyMinutes += stretch(busyFirst, busyEnd);
+          busyFirst = first;
+          busyEnd = end;
+        }
+      }
+
+      // Events that touch are in progress together, as they conflict.
+      while (!inProgress.isEmpty() && inProgress.peek().isBefore(start)) {
+        inProgress.poll();
+      }
+      inProgress.add(event.getEnd());
+      if (inProgress.size() > peak) {
+        peak = inProgress.size();
+        peakAt = max(start, rangeStart);
+      }
+    }
+    busyMinutes += stretch(busyFirst, busyEnd);
+    return new RangeStats(from, to, bucket, counts, eventCount, busyMinutes, peak, peakAt);
+  }
+
+  private static long stretch(LocalDateTime first, LocalDateTime end) {
+    return first == null ? 0 : ChronoUnit.MINUTES.between(first, end);
+  }
+
+  private static LocalDateTime ceilMinute(LocalDateTime t) {
+    LocalDateTime floor = t.truncatedTo(ChronoUnit.MINUTES);
+    return floor.equals(t) ? t : floor.plusMinutes(1);
+  }
+
+  private static LocalDateTime max(LocalDateTime a, LocalDateTime b) {
+    return a.isAfter(b) ? a : b;
+  }
+
+  private static LocalDateTime min(LocalDateTime a, LocalDateTime b) {
+    return a.isBefore(b) ? a : b;
+  }
+
+  /** Returns the first date of the range. */
+  public LocalDate getFrom() {
+    return from;
+  }
+
+  /** Returns the last date of the range. */
+  public LocalDate getTo() {
+    return to;
+  }
+
+  /** Returns how the counts are grouped. */
+  public Bucket getBucket() {
+    return bucket;
+  }
+
+  /**
+   * Returns the number of events starting in each bucket, keyed by the bucket's first date. Every
+   * bucket in the range is present, including those without events.
+   */
+  public NavigableMap<LocalDate, Integer> getCounts() {
+    return counts;
+  }
+
+  /** Returns the number of events starting in the range. */
+  public int getEventCount() {
+    return eventCount;
+  }
+
+  /** Returns the number of whole minutes in the range that some event covers. */
+  public long getBusyMinutes() {
+    return busyMinutes;
+  }
+
+  /** Returns the most events in progress at one time in the range. */
+  public int getPeakConcurrency() {
+    return peakConcurrency;
+  }
+
+  /** Returns when the peak concurrency was first reached, or null if there were no events. */
+  public LocalDateTime getPeakAt() {
+    return peakAt;
+  }
+}
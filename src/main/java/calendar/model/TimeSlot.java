@@ -0,0 +1,51 @@
+package calendar.model;
+
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.Objects;
+
+/** A free stretch of time from a start to an end date-time, both included. */
+public final class TimeSlot {
+  private final LocalDateTime start;
+  private final LocalDateTime end;
+
+  /** Constructs a slot from start to end. */
+  public TimeSlot(LocalDateTime start, LocalDateTime end) {
+    this.start = start;
+    this.end = end;
+  }
+
+  /** Returns the first moment of the slot. */
+  public LocalDateTime getStart() {
+    return start;
+  }
+
+  /** Returns the last moment of the slot. */
+  public LocalDateTime getEnd() {
+    return end;
+  }
+
+  /** Returns the length of the slot. */
+  public Duration getLength() {
+    return Duration.between(start, end);
+  }
+
+  @Override
+  public boolean equals(Object o) {
+    if (!(o instanceof TimeSlot)) {
+      return false;
+    }
+    TimeSlot other = (TimeSlot) o;
+    return start.equals(other.start) && end.equals(other.end);
+  }
+
+  @Override
+  public int hashCode() {
+    return Objects.hash(start, end);
+  }
+
+  @Override
+  public String toString() {
+    return start + " to " + end;
+  }
+}
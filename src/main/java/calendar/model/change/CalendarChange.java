@@ -0,0 +1,121 @@
+package calendar.model.change;
+
+import java.time.LocalDate;
+import java.util.Collections;
+import java.util.EnumSet;
+import java.util.Set;
+
+/**
+ * A change to one calendar: what kind of change it was, the dates of the events it affected and
+ * the calendar version it left behind. Consumers such as views and caches can use the dates to
+ * update only what the change touched.
+ *
+ * <p>Changes made in a burst are merged into one, which holds every kind of change among them,
+ * the smallest range of dates covering all of theirs and the total number of events.
+ */
+public final class CalendarChange {
+  private final String calendarName;
+  private final Set<ChangeType> types;
+  private final LocalDate from;
+  private final LocalDate to;
+  private final int eventCount;
+  private final long version;
+
+  /**
+   * Constructs a change to the named calendar affecting events from {@code from} to {@code to}
+   * inclusive. Both dates are null for a change that may affect any date.
+   */
+  public CalendarChange(
+      String calendarName,
+      ChangeType type,
+      LocalDate from,
+      LocalDate to,
+      int eventCount,
+      long version) {
+    this(calendarName, EnumSet.of(type), from, to, eventCount, version);
+  }
+
+  private CalendarChange(
+      String calendarName,
+      Set<ChangeType> types,
+      LocalDate from,
+      LocalDate to,
+      int eventCount,
+      long version) {
+    this.calendarName = calendarName;
+    this.types = Collections.unmodifiableSet(types);
+    this.from = from;
+    this.to = to;
+    this.eventCount = eventCount;
+    this.version = version;
+  }
+
+  /** Returns the name of the calendar changed, or null if every calendar was replaced. */
+  public String getCalendarName() {
+    return calendarName;
+  }
+
+  /** Returns the kinds of change this change stands for. */
+  public Set<ChangeType> getTypes() {
+    return types;
+  }
+
+  /** Returns the first date with affected events, or null if any date may be affected. */
+  public LocalDate getFrom() {
+    return from;
+  }
+
+  /** Returns the last date with affected events, or null if any date may be affected. */
+  public LocalDate getTo() {
+    return to;
+  }
+
+  /** Returns the number of events and occurrences added or edited. */
+  public int getEventCount() {
+    return eventCount;
+  }
+
+  /** Returns the calendar version after the change, or 0 for a change of the set of calendars. */
+  public long getVersion() {
+    return version;
+  }
+
+  /** Returns true if the change may affect events on any date from {@code start} to {@code end}. */
+  public boolean affects(LocalDate start, LocalDate end) {
+    return from == null || !from.isAfter(end) && !to.isBefore(start);
+  }
+
+  /** Returns a change standing for this change followed by another to the same calendar. */
+  public CalendarChange merge(CalendarChange other) {
+    Set<ChangeType> merged = EnumSet.copyOf(types);
+    merged.addAll(other.types);
+    boolean anyDate = from == null || other.from == null;
+    return new CalendarChange(
+        other.calendarName,
+        merged,
+        anyDate ? null : earlier(from, other.from),
+        anyDate ? null : later(to, other.to),
+        eventCount + other.eventCount,
+        Math.max(version, other.version));
+  }
+
+  private static LocalDate earlier(LocalDate a, LocalDate b) {
+    return a.isBefore(b) ? a : b;
+  }
+
+  private static LocalDate later(LocalDate a, LocalDate b) {
+    return a.isAfter(b) ? a : b;
+  }
+
+  @Override
+  public String toString() {
+    return types
+        + " "
+        + calendarName
+        + (from == null ? " all dates" : " " + from + " to " + to)
+        + ", "
+        + eventCount
+        + " events, version "
+        + version;
+  }
+}
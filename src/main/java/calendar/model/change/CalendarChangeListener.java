@@ -0,0 +1,10 @@
+package calendar.model.change;
+
+/** Receives the changes made to a calendar, or to the calendars of a manager. */
+public interface CalendarChangeListener {
+  /**
+   * Called after a change, once the calendar is unlocked, on the thread that made it. A change may
+   * stand for several that were made in a burst.
+   */
+  void calendarChanged(CalendarChange change);
+}
@@ -0,0 +1,123 @@
+package calendar.model.change;
+
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.Callable;
+import java.util.concurrent.CopyOnWriteArrayList;
+
+/**
+ * Delivers changes to a set of listeners, merging changes that arrive in a burst.
+ *
+ * <p>A change is delivered on the thread that publishes it. Changes published while a delivery is
+ * under way, by a listener or by another thread, are merged per calendar and delivered by the
+ * thread already delivering once its round ends, so listeners are never called concurrently and
+ * a burst reaches them as one change per calendar. While a {@link #batch} runs, every change
+ * published is held and merged the same way until the batch ends.
+ *
+ * <p>Publishing to a bus without listeners does nothing, so a calendar nobody listens to pays only
+ * for the check.
+ */
+public final class ChangeBus {
+  private final List<CalendarChangeListener> listeners = new CopyOnWriteArrayList<>();
+  // Keyed by calendar name; a null key holds changes to the whole set of calendars.
+  private final Map<String, CalendarChange> pending = new LinkedHashMap<>();
+  private boolean delivering;
+  private int batches;
+
+  /** Adds a listener. */
+  public void addListener(CalendarChangeListener listener) {
+    listeners.add(listener);
+  }
+
+  /** Removes a listener, if present. */
+  public void removeListener(CalendarChangeListener listener) {
+    listeners.remove(listener);
+  }
+
+  /** Returns true if any listener would receive a change published now. */
+  public boolean hasListeners() {
+    return !listeners.isEmpty();
+  }
+
+  /** Publishes a change, delivering it now unless a delivery or batch is under way. */
+  public void publish(CalendarChange change) {
+    if (listeners.isEmpty()) {
+      return;
+    }
+    synchronized (this) {
+      pending.merge(change.getCalendarName(), change, CalendarChange::merge);
+      if (delivering || batches > 0) {
+        return;
+      }
+      delivering = true;
+    }
+    deliver();
+  }
+
+  /**
+   * Runs work, holding back the changes it publishes and delivering them merged once it ends,
+   * whether it completes or throws. Batches may nest.
+   */
+  public <T> T batch(Callable<T> work) throws Exception {
+    hold();
+    try {
+      return work.call();
+    } finally {
+      release();
+    }
+  }
+
+  /**
+   * Holds back every change published until a matching {@link #release}, for callers that cannot
+   * pass their work to {@link #batch}.
+   */
+  public void hold() {
+    synchronized (this) {
+      batches++;
+    }
+  }
+
+  /** Ends a {@link #hold}, delivering the changes held if no other hold remains. */
+  public void release() {
+    boolean deliver;
+    synchronized (this) {
+      batches--;
+      deliver = batches == 0 && !delivering && !pending.isEmpty();
+      if (deliver) {
+        delivering = true;
+      }
+    }
+    if (deliver) {
+      deliver();
+    }
+  }
+
+  /** Delivers pending changes in rounds until none are left. */
+  private void deliver() {
+    try {
+      while (true) {
+        List<CalendarChange> round;
+        synchronized (this) {
+          if (pending.isEmpty() || batches > 0) {
+            delivering = false;
+            return;
+          }
+          round = new ArrayList<>(pending.values());
+          pending.clear();
+        }
+        for (CalendarChange change : round) {
+          for (CalendarChangeListener listener : listeners) {
+            listener.calendarChanged(change);
+          }
+        }
+      }
+    } catch (RuntimeException | Error e) {
+      synchronized (this) {
+        delivering = false;
+      }
+      throw e;
+    }
+  }
+}
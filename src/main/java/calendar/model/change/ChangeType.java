@@ -0,0 +1,18 @@
+package calendar.model.change;
+
+/** What kind of change a {@link CalendarChange} reports. */
+public enum ChangeType {
+  /** Events or series were created. */
+  ADDED,
+  /** Events were copied in from another calendar or date. */
+  COPIED,
+  /** Events were imported from a file. */
+  IMPORTED,
+  /** Properties of existing events were changed; event times never change. */
+  EDITED,
+  /**
+   * A calendar was created or renamed, its timezone changed, or the set of calendars was replaced.
+   * Such a change may affect any date.
+   */
+  CALENDAR
+}
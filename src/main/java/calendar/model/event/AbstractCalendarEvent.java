@@ -1,6 +1,7 @@
 package calendar.model.event;
 
 import java.time.LocalDateTime;
+import java.util.function.UnaryOperator;
 
 /**
  * This class provides common properties and behaviors for all types of calendar events, including
@@ -15,6 +16,7 @@ public abstract class AbstractCalendarEvent implements Event {
   protected String description;
   protected String location;
   protected boolean isPublic;
+  protected long id = NO_ID;
 
   /** Constructs an AbstractCalendarEvent. */
   public AbstractCalendarEvent(
@@ -32,6 +34,17 @@ public abstract class AbstractCalendarEvent implements Event {
     this.isPublic = isPublic;
   }
 
+  /** Returns the id assigned by the calendar holding the event. */
+  @Override
+  public long getId() {
+    return id;
+  }
+
+  /** Sets the id. Calendars call this when the event is added. */
+  public void setId(long id) {
+    this.id = id;
+  }
+
   /** Returns the event name. */
   @Override
   public String getName() {
@@ -87,4 +100,37 @@ public abstract class AbstractCalendarEvent implements Event {
   public void setIsPublic(boolean isPublic) {
     this.isPublic = isPublic;
   }
+
+  /**
+   * Replaces the name, description and location with the strings the given pool returns for them,
+   * so that equal values held by many events can share one instance.
+   */
+  public void internStrings(UnaryOperator<String> pool) {
+    name = pool.apply(name);
+    description = pool.apply(description);
+    location = pool.apply(location);
+  }
+
+  /**
+   * Sets a property identified by its name: name, description, location or ispublic, in any case.
+   * Unknown properties are ignored.
+   */
+  public void setProperty(String property, String newValue) {
+    switch (property.toLowerCase()) {
+      case "name":
+        setName(newValue);
+        break;
+      case "description":
+        setDescription(newValue);
+        break;
+      case "location":
+        setLocation(newValue);
+        break;
+      case "ispublic":
+        setIsPublic(Boolean.parseBoolean(newValue));
+        break;
+      default:
+        break;
+    }
+  }
 }
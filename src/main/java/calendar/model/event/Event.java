@@ -8,6 +8,15 @@ import java.time.LocalDateTime;
  * visibility
  */
 public interface Event {
+  /** The id of an event that has not been added to a calendar. */
+  long NO_ID = 0;
+
+  /**
+   * Returns the id the calendar assigned to the event when it was added, or {@link #NO_ID}. Ids
+   * are unique within a calendar and survive edits.
+   */
+  long getId();
+
   /** Returns the event name. */
   String getName();
 
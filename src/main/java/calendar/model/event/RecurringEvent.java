@@ -3,20 +3,48 @@ package calendar.model.event;
 import java.time.DayOfWeek;
 import java.time.LocalDate;
 import java.time.LocalDateTime;
+import java.time.LocalTime;
+import java.time.temporal.ChronoUnit;
 import java.util.ArrayList;
+import java.util.Collections;
 import java.util.List;
+import java.util.NavigableSet;
 import java.util.Set;
+import java.util.TreeSet;
+import java.util.function.Consumer;
 
 /**
- * Represents a recurring event composed of multiple single events. A recurring event is defined by
- * either a fixed number of occurrences or an end date, and repeats on specified days of the week.
- * Each occurrence is stored as a separate SingleEvent instance.
+ * Represents a recurring event. A recurring event is defined by either a fixed number of
+ * occurrences or an end date, and repeats on specified days of the week at the same time of day.
+ *
+ * <p>The series is stored as a rule rather than as a list of instances: the days of the week, the
+ * time of day, and the first and last dates that occurrences may fall on. Occurrences are created
+ * as SingleEvent views only when they are asked for, so a long series costs the same memory as a
+ * short one. Individual dates can be excluded from the series, which is how an occurrence is
+ * detached when it is edited on its own.
+ *
+ * <p>Occurrence dates are computed rather than searched for. The weekdays are turned into a list
+ * of day offsets within each seven-day block counted from the first date, so the nth date of the
+ * rule is a week stride plus an offset, and the number of rule dates up to any date is a division
+ * plus a table lookup. Iterating a window visits only the dates that match.
+ *
+ * <p>Occurrences have ids of their own, derived from the series id and the occurrence date, so an
+ * occurrence keeps the same id whenever it is created and after it is detached. Series ids fit in
+ * the low 32 bits and occurrence ids hold the series id above them, so the two never collide.
  */
 public class RecurringEvent extends AbstractCalendarEvent {
   private final Set<DayOfWeek> weekdays;
-  private final int occurrences;
-  private final LocalDateTime until;
-  private List<SingleEvent> eventInstances;
+  private final LocalTime startTime;
+  private final LocalTime endTime;
+  private final NavigableSet<LocalDate> excluded = new TreeSet<>();
+  private final LocalDate firstDate;
+  // Bit (n - 1) is set when the event repeats on the day of the week with value n.
+  private final int weekdayMask;
+  // Offsets, in days from the start of each seven-day block, of the dates that match the rule.
+  private final int[] offsets;
+  // Number of offsets less than or equal to each day of the block.
+  private final int[] matchesUpTo;
+  private LocalDate lastDate;
 
   /** Constructs a recurring event using an occurrences count. */
   public RecurringEvent(
@@ -30,9 +58,16 @@ public class RecurringEvent extends AbstractCalendarEvent {
       int occurrences) {
     super(name, start, end, description, location, isPublic);
     this.weekdays = weekdays;
-    this.occurrences = occurrences;
-    this.until = null;
-    generateEventInstances();
+    this.startTime = start.toLocalTime();
+    this.endTime = end.toLocalTime();
+    this.firstDate = start.toLocalDate();
+    this.weekdayMask = weekdayMask(weekdays);
+    this.offsets = weekdayOffsets(firstDate, weekdayMask);
+    this.matchesUpTo = matchesUpTo(offsets);
+    this.lastDate =
+        occurrences <= 0 || offsets.length == 0
+            ? firstDate.minusDays(1)
+            : nthDate(occurrences - 1);
   }
 
   /** Constructs a recurring event using an until date. */
@@ -47,51 +82,263 @@ public class RecurringEvent extends AbstractCalendarEvent {
       LocalDateTime until) {
     super(name, start, end, description, location, isPublic);
     this.weekdays = weekdays;
-    this.until = until;
-    this.occurrences = 0;
-    generateEventInstances();
+    this.startTime = start.toLocalTime();
+    this.endTime = end.toLocalTime();
+    this.firstDate = start.toLocalDate();
+    this.weekdayMask = weekdayMask(weekdays);
+    this.offsets = weekdayOffsets(firstDate, weekdayMask);
+    this.matchesUpTo = matchesUpTo(offsets);
+    // The start date is always considered, even when the until date comes before it.
+    LocalDate untilDate = until.toLocalDate();
+    this.lastDate = untilDate.isBefore(firstDate) ? firstDate : untilDate;
   }
 
-  /** Generates instances for the recurring event. */
-  private void generateEventInstances() {
-    eventInstances = new ArrayList<>();
-    LocalDate currentDate = start.toLocalDate();
+  /** Constructs the part of an existing series that falls between two dates. */
+  private RecurringEvent(RecurringEvent source, LocalDate firstDate, LocalDate lastDate) {
+    super(
+        source.name,
+        LocalDateTime.of(firstDate, source.startTime),
+        LocalDateTime.of(firstDate, source.endTime),
+        source.description,
+        source.location,
+        source.isPublic);
+    this.weekdays = source.weekdays;
+    this.startTime = source.startTime;
+    this.endTime = source.endTime;
+    this.firstDate = firstDate;
+    this.weekdayMask = weekdayMask(weekdays);
+    this.offsets = weekdayOffsets(firstDate, weekdayMask);
+    this.matchesUpTo = matchesUpTo(offsets);
+    this.lastDate = lastDate;
+    this.id = source.id;
+    excluded.addAll(source.excluded.subSet(firstDate, true, lastDate, true));
+  }
+
+  /** Returns the bitmask of the given days of the week. */
+  private static int weekdayMask(Set<DayOfWeek> weekdays) {
+    int mask = 0;
+    for (DayOfWeek day : weekdays) {
+      mask |= 1 << (day.getValue() - 1);
+    }
+    return mask;
+  }
+
+  /** Returns the offsets of the matching days within each seven-day block from a date. */
+  private static int[] weekdayOffsets(LocalDate from, int mask) {
+    int first = from.getDayOfWeek().getValue() - 1;
+    int[] result = new int[Integer.bitCount(mask)];
+    int count = 0;
+    for (int offset = 0; offset < 7; offset++) {
+      if ((mask & (1 << ((first + offset) % 7))) != 0) {
+        result[count++] = offset;
+      }
+    }
+    return result;
+  }
+
+  /** Returns, for each day of a block, how many offsets fall on or before it. */
+  private static int[] matchesUpTo(int[] offsets) {
+    int[] result = new int[7];
     int count = 0;
-    if (until == null) {
-      if (occurrences <= 0) {
-        return;
+    for (int day = 0; day < 7; day++) {
+      if (count < offsets.length && offsets[count] == day) {
+        count++;
       }
-      while (true) {
-        if (weekdays.contains(currentDate.getDayOfWeek())) {
-          LocalDateTime instanceStart = LocalDateTime.of(currentDate, start.toLocalTime());
-          LocalDateTime instanceEnd = LocalDateTime.of(currentDate, end.toLocalTime());
-          eventInstances.add(
-              new SingleEvent(name, instanceStart, instanceEnd, description, location, isPublic));
-          count++;
-          if (count >= occurrences) {
-            break;
-          }
-        }
-        currentDate = currentDate.plusDays(1);
+      result[day] = count;
+    }
+    return result;
+  }
+
+  /** Returns the date of the rule's nth matching day, counting from zero. */
+  private LocalDate nthDate(long n) {
+    return firstDate.plusDays(n / offsets.length * 7 + offsets[(int) (n % offsets.length)]);
+  }
+
+  /** Returns how many of the rule's matching days fall from the first date up to a date. */
+  private long ruleCountUpTo(LocalDate date) {
+    if (date.isBefore(firstDate)) {
+      return 0;
+    }
+    long days = ChronoUnit.DAYS.between(firstDate, date);
+    return days / 7 * offsets.length + matchesUpTo[(int) (days % 7)];
+  }
+
+  /**
+   * Returns the date of the nth occurrence of the rule, counting from one. Excluded dates are still
+   * counted, and the last date of the series is not checked.
+   */
+  public LocalDate getNthOccurrenceDate(int n) {
+    if (n <= 0 || offsets.length == 0) {
+      return null;
+    }
+    return nthDate(n - 1);
+  }
+
+  /** Returns the days of the week the event repeats on. */
+  public Set<DayOfWeek> getWeekdays() {
+    return weekdays;
+  }
+
+  /** Returns the first date an occurrence may fall on. */
+  public LocalDate getFirstDate() {
+    return firstDate;
+  }
+
+  /** Returns the last date an occurrence may fall on. */
+  public LocalDate getLastDate() {
+    return lastDate;
+  }
+
+  /** Returns the dates inside the series span on which the rule matches but nothing occurs. */
+  public NavigableSet<LocalDate> getExcludedDates() {
+    return Collections.unmodifiableNavigableSet(excluded);
+  }
+
+  /** Returns the date of the first occurrence, or null if the series has none. */
+  public LocalDate getFirstOccurrenceDate() {
+    long last = ruleCountUpTo(lastDate);
+    for (long n = 0; n < last; n++) {
+      LocalDate date = nthDate(n);
+      if (!excluded.contains(date)) {
+        return date;
       }
-    } else {
-      while (true) {
-        if (weekdays.contains(currentDate.getDayOfWeek())) {
-          LocalDateTime instanceStart = LocalDateTime.of(currentDate, start.toLocalTime());
-          LocalDateTime instanceEnd = LocalDateTime.of(currentDate, end.toLocalTime());
-          eventInstances.add(
-              new SingleEvent(name, instanceStart, instanceEnd, description, location, isPublic));
-        }
-        currentDate = currentDate.plusDays(1);
-        if (currentDate.atStartOfDay().isAfter(until)) {
-          break;
-        }
+    }
+    return null;
+  }
+
+  /** Returns the date of the last occurrence, or null if the series has none. */
+  public LocalDate getLastOccurrenceDate() {
+    for (long n = ruleCountUpTo(lastDate) - 1; n >= 0; n--) {
+      LocalDate date = nthDate(n);
+      if (!excluded.contains(date)) {
+        return date;
       }
     }
+    return null;
+  }
+
+  /** Returns true if the series has no occurrences. */
+  public boolean isEmpty() {
+    return countOccurrences() == 0;
+  }
+
+  /** Returns the number of occurrences in the series. */
+  public int countOccurrences() {
+    return countOccurrencesBetween(firstDate, lastDate);
+  }
+
+  /** Returns the number of occurrences falling on dates from {@code from} to {@code to}. */
+  public int countOccurrencesBetween(LocalDate from, LocalDate to) {
+    LocalDate start = from.isBefore(firstDate) ? firstDate : from;
+    LocalDate end = to.isAfter(lastDate) ? lastDate : to;
+    if (start.isAfter(end)) {
+      return 0;
+    }
+    long ruleDates = ruleCountUpTo(end) - ruleCountUpTo(start.minusDays(1));
+    return (int) (ruleDates - excluded.subSet(start, true, end, true).size());
+  }
+
+  /** Returns true if an occurrence falls on the given date. */
+  public boolean occursOn(LocalDate date) {
+    if (date.isBefore(firstDate) || date.isAfter(lastDate) || excluded.contains(date)) {
+      return false;
+    }
+    return (weekdayMask & (1 << (date.getDayOfWeek().getValue() - 1))) != 0;
+  }
+
+  /** Returns the start of the occurrence on the given date. */
+  public LocalDateTime occurrenceStart(LocalDate date) {
+    return LocalDateTime.of(date, startTime);
+  }
+
+  /** Returns the end of the occurrence on the given date. */
+  public LocalDateTime occurrenceEnd(LocalDate date) {
+    return LocalDateTime.of(date, endTime);
+  }
+
+  /** Returns the occurrence on the given date as a single event, or null if there is none. */
+  public SingleEvent occurrenceOn(LocalDate date) {
+    if (!occursOn(date)) {
+      return null;
+    }
+    SingleEvent occurrence =
+        new SingleEvent(
+            name, occurrenceStart(date), occurrenceEnd(date), description, location, isPublic);
+    if (id != NO_ID) {
+      occurrence.setId(occurrenceId(id, date));
+    }
+    return occurrence;
+  }
+
+  /** Returns the id of the occurrence on a date of the series with the given id. */
+  public static long occurrenceId(long seriesId, LocalDate date) {
+    return seriesId << 32 | (date.toEpochDay() & 0xFFFFFFFFL);
+  }
+
+  /** Returns true if an id belongs to an occurrence of a series. */
+  public static boolean isOccurrenceId(long id) {
+    return id >>> 32 != 0;
+  }
+
+  /** Returns the id of the series an occurrence id belongs to. */
+  public static long seriesIdOf(long occurrenceId) {
+    return occurrenceId >>> 32;
+  }
+
+  /** Returns the date of the occurrence with the given id. */
+  public static LocalDate dateOf(long occurrenceId) {
+    return LocalDate.ofEpochDay((int) occurrenceId);
+  }
+
+  /** Passes the date of every occurrence from {@code from} to {@code to} to the action. */
+  public void forEachOccurrenceDate(LocalDate from, LocalDate to, Consumer<LocalDate> action) {
+    LocalDate start = from.isBefore(firstDate) ? firstDate : from;
+    LocalDate end = to.isAfter(lastDate) ? lastDate : to;
+    if (start.isAfter(end)) {
+      return;
+    }
+    long last = ruleCountUpTo(end);
+    for (long n = ruleCountUpTo(start.minusDays(1)); n < last; n++) {
+      LocalDate date = nthDate(n);
+      if (!excluded.contains(date)) {
+        action.accept(date);
+      }
+    }
+  }
+
+  /**
+   * Passes every occurrence on dates from {@code from} to {@code to} to the action, in date
+   * order.
+   */
+  public void forEachOccurrence(LocalDate from, LocalDate to, Consumer<SingleEvent> action) {
+    forEachOccurrenceDate(from, to, date -> action.accept(occurrenceOn(date)));
+  }
+
+  /** Removes the occurrence on the given date from the series. */
+  public void exclude(LocalDate date) {
+    excluded.add(date);
+  }
+
+  /**
+   * Splits the series at the given date. This series keeps the occurrences before the date, and
+   * the returned series holds the occurrences on and after it.
+   */
+  public RecurringEvent splitAt(LocalDate date) {
+    RecurringEvent tail = new RecurringEvent(this, date, lastDate);
+    lastDate = date.minusDays(1);
+    excluded.tailSet(lastDate, false).clear();
+    return tail;
+  }
+
+  /** Returns an independent copy of this series, including its excluded dates. */
+  public RecurringEvent copy() {
+    return new RecurringEvent(this, firstDate, lastDate);
   }
 
-  /** Returns the list of single event instances. */
+  /** Returns the list of single event instances, created on demand. */
   public List<SingleEvent> getEventInstances() {
+    List<SingleEvent> eventInstances = new ArrayList<>();
+    forEachOccurrence(firstDate, lastDate, eventInstances::add);
     return eventInstances;
   }
 }
@@ -0,0 +1,253 @@
+package calendar.model.index;
+
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.time.LocalTime;
+import java.time.temporal.ChronoUnit;
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * Minute-by-minute occupancy of a calendar, kept as two 1440-bit bitmaps per day in 46 longs. Bit
+ * {@code m} of a day's first bitmap is set when some event covers the minute starting {@code m}
+ * minutes after midnight, from the event's start up to but not including its end, and bit {@code
+ * m} of its second bitmap when some event ends at that instant. Days with no events have no bits.
+ *
+ * <p>Busy minutes are counted from the first bitmap, so an event from 10:00 to 11:00 is 60 busy
+ * minutes. A busy check includes an event's end, as it does everywhere else in the calendar, so it
+ * tests a bit in each bitmap: that event makes 11:00 busy, though not the minute after it. Counts
+ * and searches over a range work a word at a time. Event times never change once an event is
+ * added, so bits are only ever set.
+ *
+ * <p>Events that would cost a bitmap for every day they recur, such as the occurrences of
+ * recurring series, need not be marked. Queries accept a {@link DayOverlay} that ORs their
+ * minutes into a copy of each day's bits as the query reaches it, so they cost memory only while
+ * a day is being read.
+ */
+public final class BusyBitmap {
+  /** The number of minutes in a day. */
+  public static final int MINUTES_PER_DAY = 24 * 60;
+
+  private static final int WORDS = (MINUTES_PER_DAY + 63) >> 6;
+  // The bit of minute 0 in the bitmap of event ends, which follows the covered minutes.
+  private static final int ENDS = WORDS << 6;
+  private static final long LAST_WORD_MASK = -1L >>> (WORDS * 64 - MINUTES_PER_DAY);
+
+  private final Map<LocalDate, long[]> days = new HashMap<>();
+
+  /** Adds the busy minutes of events not marked in the bitmap to the bits of a day. */
+  public interface DayOverlay {
+    /**
+     * Sets the bits of the minutes on {@code date} that the overlaid events cover, with {@link
+     * #markWithinDay}.
+     */
+    void addTo(LocalDate date, long[] bits);
+  }
+
+  /**
+   * Marks the whole minutes from {@code start} up to but not including {@code end} as busy, and
+   * {@code end} itself as the end of an event.
+   */
+  public void mark(LocalDateTime start, LocalDateTime end) {
+    if (end.isBefore(start)) {
+      return;
+    }
+    LocalDateTime first = ceilMinute(start);
+    LocalDateTime last = ceilMinute(end).minusMinutes(1);
+    for (LocalDate date = first.toLocalDate();
+        !first.isAfter(last) && !date.isAfter(last.toLocalDate());
+        date = date.plusDays(1)) {
+      int from = date.equals(first.toLocalDate()) ? minuteOfDay(first) : 0;
+      int to = date.equals(last.toLocalDate()) ? minuteOfDay(last) : MINUTES_PER_DAY - 1;
+      setRange(days.computeIfAbsent(date, d -> newDay()), from, to);
+    }
+    if (isWholeMinute(end)) {
+      int m = ENDS + minuteOfDay(end);
+      setRange(days.computeIfAbsent(end.toLocalDate(), d -> newDay()), m, m);
+    }
+  }
+
+  /**
+   * Returns true if the given whole minute is marked busy.
+   *
+   * @throws IllegalArgumentException if the time has seconds or nanoseconds
+   */
+  public boolean isBusy(LocalDateTime minute) {
+    return isBusy(minute, null);
+  }
+
+  /**
+   * Returns true if the given whole minute is marked busy or covered by the overlay, which may be
+   * null.
+   *
+   * @throws IllegalArgumentException if the time has seconds or nanoseconds
+   */
+  public boolean isBusy(LocalDateTime minute, DayOverlay overlay) {
+    if (!isWholeMinute(minute)) {
+      throw new IllegalArgumentException("Busy bitmaps hold whole minutes: " + minute);
+    }
+    long[] bits = bitsOn(minute.toLocalDate(), overlay);
+    int m = minuteOfDay(minute);
+    return bits != null && ((bits[m >> 6] | bits[(ENDS + m) >> 6]) & (1L << m)) != 0;
+  }
+
+  /**
+   * Returns the number of busy minutes from {@code from} up to but not including {@code to}. Both
+   * times are truncated to the minute. A minute counts if an event covers it up to its end, so the
+   * minute an event ends at does not.
+   */
+  public long busyMinutes(LocalDateTime from, LocalDateTime to) {
+    return busyMinutes(from, to, null);
+  }
+
+  /** Counts busy minutes like {@link #busyMinutes(LocalDateTime, LocalDateTime)}, plus overlay. */
+  public long busyMinutes(LocalDateTime from, LocalDateTime to, DayOverlay overlay) {
+    LocalDateTime first = from.truncatedTo(ChronoUnit.MINUTES);
+    LocalDateTime end = to.truncatedTo(ChronoUnit.MINUTES);
+    long count = 0;
+    for (LocalDate date = first.toLocalDate();
+        first.isBefore(end) && !date.isAfter(end.toLocalDate());
+        date = date.plusDays(1)) {
+      long[] bits = bitsOn(date, overlay);
+      if (bits == null) {
+        continue;
+      }
+      int lo = date.equals(first.toLocalDate()) ? minuteOfDay(first) : 0;
+      int hi = date.equals(end.toLocalDate()) ? minuteOfDay(end) : MINUTES_PER_DAY;
+      if (lo < hi) {
+        count += countRange(bits, lo, hi - 1);
+      }
+    }
+    return count;
+  }
+
+  /**
+   * Returns the first minute at or after {@code from}, truncated to the minute, that is free: that
+   * is not busy as {@link #isBusy} sees it, so the minute an event ends at is not free.
+   */
+  public LocalDateTime firstFreeMinute(LocalDateTime from) {
+    return firstFreeMinute(from, null);
+  }
+
+  /**
+   * Returns the first minute at or after {@code from}, truncated to the minute, that is neither
+   * marked nor covered by the overlay.
+   */
+  public LocalDateTime firstFreeMinute(LocalDateTime from, DayOverlay overlay) {
+    LocalDateTime first = from.truncatedTo(ChronoUnit.MINUTES);
+    LocalDate date = first.toLocalDate();
+    int m = minuteOfDay(first);
+    while (true) {
+      long[] bits = bitsOn(date, overlay);
+      int free = bits == null ? m : nextClear(bits, m);
+      if (free >= 0) {
+        return date.atStartOfDay().plusMinutes(free);
+      }
+      date = date.plusDays(1);
+      m = 0;
+    }
+  }
+
+  /**
+   * Sets the bits of a day for an event from {@code start} to {@code end} as {@link #mark} would.
+   * Both must fall on the same date.
+   */
+  public static void markWithinDay(long[] bits, LocalDateTime start, LocalDateTime end) {
+    if (end.isBefore(start)) {
+      return;
+    }
+    LocalDateTime first = ceilMinute(start);
+    if (first.isBefore(end)) {
+      setRange(bits, minuteOfDay(first), minuteOfDay(ceilMinute(end).minusMinutes(1)));
+    }
+    if (isWholeMinute(end)) {
+      setRange(bits, ENDS + minuteOfDay(end), ENDS + minuteOfDay(end));
+    }
+  }
+
+  private static long[] newDay() {
+    return new long[2 * WORDS];
+  }
+
+  /**
+   * Returns the bits of a day, or null if the day has none marked and there is no overlay. With an
+   * overlay, returns a copy with the overlaid minutes added.
+   */
+  private long[] bitsOn(LocalDate date, DayOverlay overlay) {
+    long[] bits = days.get(date);
+    if (overlay == null) {
+      return bits;
+    }
+    long[] merged = bits == null ? newDay() : bits.clone();
+    overlay.addTo(date, merged);
+    return merged;
+  }
+
+  /** Sets bits {@code from} to {@code to}, both included, a word at a time. */
+  private static void setRange(long[] bits, int from, int to) {
+    int firstWord = from >> 6;
+    int lastWord = to >> 6;
+    long firstMask = -1L << from;
+    long lastMask = -1L >>> (63 - (to & 63));
+    if (firstWord == lastWord) {
+      bits[firstWord] |= firstMask & lastMask;
+      return;
+    }
+    bits[firstWord] |= firstMask;
+    for (int w = firstWord + 1; w < lastWord; w++) {
+      bits[w] = -1L;
+    }
+    bits[lastWord] |= lastMask;
+  }
+
+  /** Counts the set bits from {@code from} to {@code to}, both included. */
+  private static int countRange(long[] bits, int from, int to) {
+    int firstWord = from >> 6;
+    int lastWord = to >> 6;
+    long firstMask = -1L << from;
+    long lastMask = -1L >>> (63 - (to & 63));
+    if (firstWord == lastWord) {
+      return Long.bitCount(bits[firstWord] & firstMask & lastMask);
+    }
+    int count = Long.bitCount(bits[firstWord] & firstMask);
+    for (int w = firstWord + 1; w < lastWord; w++) {
+      count += Long.bitCount(bits[w]);
+    }
+    return count + Long.bitCount(bits[lastWord] & lastMask);
+  }
+
+  /**
+   * Returns the first minute at or after {@code from} in the day that is clear in both bitmaps, or
+   * -1 if there is none.
+   */
+  private static int nextClear(long[] bits, int from) {
+    int w = from >> 6;
+    long free = ~(bits[w] | bits[WORDS + w]) & (-1L << from);
+    while (true) {
+      if (w == WORDS - 1) {
+        free &= LAST_WORD_MASK;
+      }
+      if (free != 0) {
+        return (w << 6) + Long.numberOfTrailingZeros(free);
+      }
+      if (++w == WORDS) {
+        return -1;
+      }
+      free = ~(bits[w] | bits[WORDS + w]);
+    }
+  }
+
+  private static boolean isWholeMinute(LocalDateTime dateTime) {
+    return dateTime.getSecond() == 0 && dateTime.getNano() == 0;
+  }
+
+  private static LocalDateTime ceilMinute(LocalDateTime dateTime) {
+    LocalDateTime floor = dateTime.truncatedTo(ChronoUnit.MINUTES);
+    return floor.equals(dateTime) ? floor : floor.plusMinutes(1);
+  }
+
+  private static int minuteOfDay(LocalDateTime dateTime) {
+    LocalTime time = dateTime.toLocalTime();
+    return time.getHour() * 60 + time.getMinute();
+  }
+}
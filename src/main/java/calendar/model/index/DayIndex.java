@@ -0,0 +1,230 @@
+package calendar.model.index;
+
+import calendar.model.event.Event;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.function.BiConsumer;
+
+/**
+ * Events filed in buckets by start date, each bucket in start order with events that start
+ * together in the order they were filed. The buckets are the nodes of an AVL tree keyed by date,
+ * so a day is found by a search over the days that have events and a window of days is a walk of
+ * the matching subtrees.
+ *
+ * <p>Like {@link EventIntervalTree}, the index is persistent: a change copies the bucket it
+ * touches and the nodes above it and returns a new index, so a reference to an index always
+ * describes the same events.
+ */
+public final class DayIndex {
+  private static final DayIndex EMPTY = new DayIndex(null);
+  private static final Comparator<Event> BY_START = Comparator.comparing(Event::getStart);
+
+  private final Node root;
+
+  private DayIndex(Node root) {
+    this.root = root;
+  }
+
+  /** Returns the empty index. */
+  public static DayIndex empty() {
+    return EMPTY;
+  }
+
+  /** Returns the events starting on a date, in start order, as an unmodifiable list. */
+  public List<Event> on(LocalDate date) {
+    Node node = root;
+    while (node != null) {
+      int cmp = date.compareTo(node.date);
+      if (cmp == 0) {
+        return node.events();
+      }
+      node = cmp < 0 ? node.left : node.right;
+    }
+    return List.of();
+  }
+
+  /**
+   * Passes each date in [from, to] that has events to the action, in date order, with its events
+   * as an unmodifiable list.
+   */
+  public void forEachBetween(
+      LocalDate from, LocalDate to, BiConsumer<LocalDate, List<Event>> action) {
+    forEachBetween(root, from, to, action);
+  }
+
+  /** Returns an index that also has the event, after the events that start no later than it. */
+  public DayIndex with(Event event) {
+    LocalDate date = event.getStart().toLocalDate();
+    Event[] bucket = bucket(date);
+    int index = bucket.length;
+    while (index > 0 && bucket[index - 1].getStart().isAfter(event.getStart())) {
+      index--;
+    }
+    Event[] grown = new Event[bucket.length + 1];
+    System.arraycopy(bucket, 0, grown, 0, index);
+    grown[index] = event;
+    System.arraycopy(bucket, index, grown, index + 1, bucket.length - index);
+    return new DayIndex(put(root, date, grown));
+  }
+
+  /**
+   * Returns an index that also has the events, copying each bucket the batch touches once rather
+   * than once per event. The result is the same as adding the events one at a time.
+   */
+  public DayIndex withAll(List<? extends Event> events) {
+    Map<LocalDate, List<Event>> byDate = new LinkedHashMap<>();
+    for (Event event : events) {
+      byDate.computeIfAbsent(event.getStart().toLocalDate(), d -> new ArrayList<>()).add(event);
+    }
+    Node node = root;
+    for (Map.Entry<LocalDate, List<Event>> entry : byDate.entrySet()) {
+      Event[] bucket = bucket(node, entry.getKey());
+      Event[] grown = Arrays.copyOf(bucket, bucket.length + entry.getValue().size());
+      for (int i = 0; i < entry.getValue().size(); i++) {
+        grown[bucket.length + i] = entry.getValue().get(i);
+      }
+      // The sort is stable, so events that start together keep the order they were added in.
+      Arrays.sort(grown, BY_START);
+      node = put(node, entry.getKey(), grown);
+    }
+    return new DayIndex(node);
+  }
+
+  /**
+   * Returns an index with an event replaced by another that starts at the same time, in the same
+   * place in its bucket. Events are matched by identity.
+   *
+   * @throws IllegalArgumentException if the event is not in the index or the replacement starts
+   *     at a different time
+   */
+  public DayIndex replacing(Event event, Event replacement) {
+    if (!event.getStart().equals(replacement.getStart())) {
+      throw new IllegalArgumentException("A replacement must start when the event does.");
+    }
+    LocalDate date = event.getStart().toLocalDate();
+    Event[] bucket = bucket(date);
+    for (int i = 0; i < bucket.length; i++) {
+      if (bucket[i] == event) {
+        Event[] copy = bucket.clone();
+        copy[i] = replacement;
+        return new DayIndex(put(root, date, copy));
+      }
+    }
+    throw new IllegalArgumentException("The event is not in the index.");
+  }
+
+  private Event[] bucket(LocalDate date) {
+    return bucket(root, date);
+  }
+
+  private static Event[] bucket(Node node, LocalDate date) {
+    while (node != null) {
+      int cmp = date.compareTo(node.date);
+      if (cmp == 0) {
+        return node.events;
+      }
+      node = cmp < 0 ? node.left : node.right;
+    }
+    return new Event[0];
+  }
+
+  private static void forEachBetween(
+      Node node, LocalDate from, LocalDate to, BiConsumer<LocalDate, List<Event>> action) {
+    if (node == null) {
+      return;
+    }
+    boolean afterFrom = !node.date.isBefore(from);
+    boolean beforeTo = !node.date.isAfter(to);
+    if (afterFrom) {
+      forEachBetween(node.left, from, to, action);
+    }
+    if (afterFrom && beforeTo) {
+      action.accept(node.date, node.events());
+    }
+    if (beforeTo) {
+      forEachBetween(node.right, from, to, action);
+    }
+  }
+
+  /** Returns a tree with the bucket for a date set, adding a node if the date has none. */
+  private static Node put(Node node, LocalDate date, Event[] events) {
+    if (node == null) {
+      return new Node(date, events, null, null);
+    }
+    int cmp = date.compareTo(node.date);
+    if (cmp == 0) {
+      return new Node(date, events, node.left, node.right);
+    }
+    if (cmp < 0) {
+      return balance(node.withChildren(put(node.left, date, events), node.right));
+    }
+    return balance(node.withChildren(node.left, put(node.right, date, events)));
+  }
+
+  private static int height(Node node) {
+    return node == null ? 0 : node.height;
+  }
+
+  private static Node balance(Node node) {
+    int diff = height(node.left) - height(node.right);
+    if (diff > 1) {
+      Node left = node.left;
+      if (height(left.left) < height(left.right)) {
+        left = rotateLeft(left);
+      }
+      return rotateRight(node.withChildren(left, node.right));
+    }
+    if (diff < -1) {
+      Node right = node.right;
+      if (height(right.right) < height(right.left)) {
+        right = rotateRight(right);
+      }
+      return rotateLeft(node.withChildren(node.left, right));
+    }
+    return node;
+  }
+
+  private static Node rotateLeft(Node node) {
+    Node right = node.right;
+    return right.withChildren(node.withChildren(node.left, right.left), right.right);
+  }
+
+  private static Node rotateRight(Node node) {
+    Node left = node.left;
+    return left.withChildren(left.left, node.withChildren(left.right, node.right));
+  }
+
+  /** An immutable tree node holding the bucket of one date. The bucket array is never changed. */
+  private static final class Node {
+    final LocalDate date;
+    final Event[] events;
+    final Node left;
+    final Node right;
+    final int height;
+
+    Node(LocalDate date, Event[] events, Node left, Node right) {
+      this.date = date;
+      this.events = events;
+      this.left = left;
+      this.right = right;
+      this.height = Math.max(height(left), height(right)) + 1;
+    }
+
+    List<Event> events() {
+      return Collections.unmodifiableList(Arrays.asList(events));
+    }
+
+    Node withChildren(Node left, Node right) {
+      if (left == this.left && right == this.right) {
+        return this;
+      }
+      return new Node(date, events, left, right);
+    }
+  }
+}
@@ -0,0 +1,374 @@
+package calendar.model.index;
+
+import calendar.model.event.Event;
+import java.time.LocalDateTime;
+import java.util.ArrayDeque;
+import java.util.Deque;
+import java.util.Iterator;
+import java.util.List;
+import java.util.NoSuchElementException;
+import java.util.function.Consumer;
+
+/**
+ * An augmented AVL tree of events ordered by start time, with ties broken by insertion sequence.
+ * Every node also records the latest end time found in its subtree, which lets overlap queries skip
+ * whole subtrees that finish before the query window.
+ *
+ * <p>The tree is persistent: nodes are never modified after construction, and an insertion copies
+ * only the nodes on its search path and returns a new tree. A reference to a tree therefore always
+ * describes the same set of events.
+ */
+public final class EventIntervalTree implements Iterable<Event> {
+  private static final EventIntervalTree EMPTY = new EventIntervalTree(null);
+
+  private final Node root;
+
+  private EventIntervalTree(Node root) {
+    this.root = root;
+  }
+
+  /** Returns the empty tree. */
+  public static EventIntervalTree empty() {
+    return EMPTY;
+  }
+
+  /** Returns the number of events in the tree. */
+  public int size() {
+    return root == null ? 0 : root.size;
+  }
+
+  /** Returns true if the tree holds no events. */
+  public boolean isEmpty() {
+    return root == null;
+  }
+
+  /**
+   * Returns a tree that also contains the given event.
+   *
+   * @param event the event to add
+   * @param seq the insertion sequence number, used to order events with equal start times
+   * @return the new tree
+   */
+  public EventIntervalTree insert(Event event, long seq) {
+    return insert(event, event.getStart(), event.getEnd(), seq);
+  }
+
+  /**
+   * Returns a tree that also contains the given event, indexed under the given time range rather
+   * than the event's own start and end. This lets an entry stand for a whole span of time, such as
+   * every occurrence of a recurring event.
+   *
+   * @param event the event to add
+   * @param start the start of the range to index the event under
+   * @param end the end of the range to index the event under
+   * @param seq the insertion sequence number, used to order entries with equal start times
+   * @return the new tree
+   */
+  public EventIntervalTree insert(Event event, LocalDateTime start, LocalDateTime end, long seq) {
+    return new EventIntervalTree(insert(root, new Node(event, seq, start, end, null, null)));
+  }
+
+  /**
+   * Returns a tree that also contains the given events, which must be in start order. The events
+   * get consecutive sequence numbers starting at {@code firstSeq}, which must be greater than any
+   * already in the tree. A batch that is large compared to the tree is merged with the existing
+   * entries in one pass and the result rebuilt as a perfectly balanced tree, rather than inserted
+   * one path at a time.
+   */
+  public EventIntervalTree insertAll(List<? extends Event> events, long firstSeq) {
+    if (events.size() * 8L < size()) {
+      EventIntervalTree tree = this;
+      long seq = firstSeq;
+      for (Event event : events) {
+        tree = tree.insert(event, seq++);
+      }
+      return tree;
+    }
+    Node[] merged = new Node[size() + events.size()];
+    Deque<Node> stack = new ArrayDeque<>();
+    Node node = root;
+    int count = 0;
+    int next = 0;
+    while (node != null || !stack.isEmpty()) {
+      while (node != null) {
+        stack.push(node);
+        node = node.left;
+      }
+      node = stack.pop();
+      // Existing entries go first on equal starts because their sequence numbers are lower.
+      while (next < events.size() && events.get(next).getStart().isBefore(node.start)) {
+        merged[count++] = leaf(events.get(next), firstSeq + next);
+        next++;
+      }
+      merged[count++] = node;
+      node = node.right;
+    }
+    while (next < events.size()) {
+      merged[count++] = leaf(events.get(next), firstSeq + next);
+      next++;
+    }
+    return new EventIntervalTree(build(merged, 0, merged.length));
+  }
+
+  /**
+   * Returns a tree without the entry indexed under the given start time and sequence number. The
+   * tree is returned unchanged if there is no such entry.
+   */
+  public EventIntervalTree remove(LocalDateTime start, long seq) {
+    Node newRoot = remove(root, start, seq);
+    return newRoot == root ? this : new EventIntervalTree(newRoot);
+  }
+
+  /**
+   * Passes every event that overlaps the inclusive window [from, to] to the action, in start
+   * order. An event overlaps when it starts no later than {@code to} and ends no earlier than
+   * {@code from}.
+   */
+  public void forEachOverlapping(LocalDateTime from, LocalDateTime to, Consumer<Event> action) {
+    forEachOverlapping(root, from, to, action);
+  }
+
+  /**
+   * Passes every event whose start lies in the inclusive range [from, to] to the action, in start
+   * order.
+   */
+  public void forEachStartingBetween(
+      LocalDateTime from, LocalDateTime to, Consumer<Event> action) {
+    forEachStartingBetween(root, from, to, action);
+  }
+
+  /**
+   * Returns some event that overlaps the inclusive window [from, to], or null if there is none.
+   * This walks a single root-to-leaf path.
+   */
+  public Event findAnyOverlapping(LocalDateTime from, LocalDateTime to) {
+    Node node = root;
+    while (node != null) {
+      if (overlaps(node, from, to)) {
+        return node.event;
+      }
+      if (node.left != null && !node.left.maxEnd.isBefore(from)) {
+        node = node.left;
+      } else {
+        node = node.right;
+      }
+    }
+    return null;
+  }
+
+  /** Returns true if some event covers the given instant. */
+  public boolean covers(LocalDateTime dateTime) {
+    return findAnyOverlapping(dateTime, dateTime) != null;
+  }
+
+  /** Returns an iterator over all events in start order. */
+  @Override
+  public Iterator<Event> iterator() {
+    return new InOrderIterator(root);
+  }
+
+  private static void forEachOverlapping(
+      Node node, LocalDateTime from, LocalDateTime to, Consumer<Event> action) {
+    if (node == null || node.maxEnd.isBefore(from)) {
+      return;
+    }
+    forEachOverlapping(node.left, from, to, action);
+    if (node.start.isAfter(to)) {
+      return;
+    }
+    if (!node.end.isBefore(from)) {
+      action.accept(node.event);
+    }
+    forEachOverlapping(node.right, from, to, action);
+  }
+
+  private static void forEachStartingBetween(
+      Node node, LocalDateTime from, LocalDateTime to, Consumer<Event> action) {
+    if (node == null) {
+      return;
+    }
+    if (!node.start.isBefore(from)) {
+      forEachStartingBetween(node.left, from, to, action);
+      if (node.start.isAfter(to)) {
+        return;
+      }
+      action.accept(node.event);
+    }
+    forEachStartingBetween(node.right, from, to, action);
+  }
+
+  private static boolean overlaps(Node node, LocalDateTime from, LocalDateTime to) {
+    return !node.start.isAfter(to) && !node.end.isBefore(from);
+  }
+
+  private static int compare(LocalDateTime start, long seq, Node node) {
+    int cmp = start.compareTo(node.start);
+    return cmp != 0 ? cmp : Long.compare(seq, node.seq);
+  }
+
+  private static Node insert(Node node, Node leaf) {
+    if (node == null) {
+      return leaf;
+    }
+    if (compare(leaf.start, leaf.seq, node) < 0) {
+      return balance(node.withChildren(insert(node.left, leaf), node.right));
+    }
+    return balance(node.withChildren(node.left, insert(node.right, leaf)));
+  }
+
+  private static Node leaf(Event event, long seq) {
+    return new Node(event, seq, event.getStart(), event.getEnd(), null, null);
+  }
+
+  /** Builds a balanced tree from the entries in positions [from, to) of an ordered array. */
+  private static Node build(Node[] nodes, int from, int to) {
+    if (from >= to) {
+      return null;
+    }
+    int mid = (from + to) >>> 1;
+    Node node = nodes[mid];
+    return new Node(
+        node.event,
+        node.seq,
+        node.start,
+        node.end,
+        build(nodes, from, mid),
+        build(nodes, mid + 1, to));
+  }
+
+  private static Node remove(Node node, LocalDateTime start, long seq) {
+    if (node == null) {
+      return null;
+    }
+    int cmp = compare(start, seq, node);
+    if (cmp < 0) {
+      Node left = remove(node.left, start, seq);
+      return left == node.left ? node : balance(node.withChildren(left, node.right));
+    }
+    if (cmp > 0) {
+      Node right = remove(node.right, start, seq);
+      return right == node.right ? node : balance(node.withChildren(node.left, right));
+    }
+    if (node.left == null) {
+      return node.right;
+    }
+    if (node.right == null) {
+      return node.left;
+    }
+    Node successor = node.right;
+    while (successor.left != null) {
+      successor = successor.left;
+    }
+    return balance(successor.withChildren(node.left, removeMin(node.right)));
+  }
+
+  private static Node removeMin(Node node) {
+    if (node.left == null) {
+      return node.right;
+    }
+    return balance(node.withChildren(removeMin(node.left), node.right));
+  }
+
+  private static int height(Node node) {
+    return node == null ? 0 : node.height;
+  }
+
+  private static Node balance(Node node) {
+    int diff = height(node.left) - height(node.right);
+    if (diff > 1) {
+      Node left = node.left;
+      if (height(left.left) < height(left.right)) {
+        left = rotateLeft(left);
+      }
+      return rotateRight(node.withChildren(left, node.right));
+    }
+    if (diff < -1) {
+      Node right = node.right;
+      if (height(right.right) < height(right.left)) {
+        right = rotateRight(right);
+      }
+      return rotateLeft(node.withChildren(node.left, right));
+    }
+    return node;
+  }
+
+  private static Node rotateLeft(Node node) {
+    Node right = node.right;
+    return right.withChildren(node.withChildren(node.left, right.left), right.right);
+  }
+
+  private static Node rotateRight(Node node) {
+    Node left = node.left;
+    return left.withChildren(left.left, node.withChildren(left.right, node.right));
+  }
+
+  /** An immutable tree node. */
+  private static final class Node {
+    final Event event;
+    final long seq;
+    final LocalDateTime start;
+    final LocalDateTime end;
+    final LocalDateTime maxEnd;
+    final Node left;
+    final Node right;
+    final int height;
+    final int size;
+
+    Node(Event event, long seq, LocalDateTime start, LocalDateTime end, Node left, Node right) {
+      this.event = event;
+      this.seq = seq;
+      this.start = start;
+      this.end = end;
+      this.left = left;
+      this.right = right;
+      LocalDateTime max = end;
+      if (left != null && left.maxEnd.isAfter(max)) {
+        max = left.maxEnd;
+      }
+      if (right != null && right.maxEnd.isAfter(max)) {
+        max = right.maxEnd;
+      }
+      this.maxEnd = max;
+      this.height = Math.max(height(left), height(right)) + 1;
+      this.size = (left == null ? 0 : left.size) + (right == null ? 0 : right.size) + 1;
+    }
+
+    Node withChildren(Node left, Node right) {
+      if (left == this.left && right == this.right) {
+        return this;
+      }
+      return new Node(event, seq, start, end, left, right);
+    }
+  }
+
+  /** Iterates the nodes of a tree in order using an explicit stack. */
+  private static final class InOrderIterator implements Iterator<Event> {
+    private final Deque<Node> stack = new ArrayDeque<>();
+
+    InOrderIterator(Node root) {
+      pushLeft(root);
+    }
+
+    private void pushLeft(Node node) {
+      while (node != null) {
+        stack.push(node);
+        node = node.left;
+      }
+    }
+
+    @Override
+    public boolean hasNext() {
+      return !stack.isEmpty();
+    }
+
+    @Override
+    public Event next() {
+      if (stack.isEmpty()) {
+        throw new NoSuchElementException();
+      }
+      Node node = stack.pop();
+      pushLeft(node.right);
+      return node.event;
+    }
+  }
+}
@@ -0,0 +1,212 @@
+package calendar.model.index;
+
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.PriorityQueue;
+import java.util.TreeMap;
+
+/**
+ * A radix tree over the distinct names of a calendar's events, counting the events with each name.
+ * Each node holds the name up to its position, so a chain of nodes with one child each is stored as
+ * a single node and the depth of the tree is bounded by the number of places where names diverge,
+ * not by their length.
+ *
+ * <p>Every node also records the largest count found in its subtree. Completing a prefix walks the
+ * subtree best first by that bound, so the most frequent names come out first and a search for the
+ * top few stops after visiting little more than the paths to them, however many names share the
+ * prefix.
+ */
+public final class NameTrie {
+  private static final Comparator<Candidate> BEST_FIRST =
+      Comparator.comparingLong((Candidate c) -> -c.priority())
+          .thenComparing(c -> c.node.name)
+          .thenComparing(c -> !c.terminal);
+
+  private final Node root = new Node("");
+  private int size;
+
+  /**
+   * Adds {@code delta} to the number of events with a name, which may be negative. A name whose
+   * count drops to zero is removed.
+   *
+   * @throws IllegalArgumentException if the count would become negative
+   */
+  public void add(String name, long delta) {
+    if (delta == 0) {
+      return;
+    }
+    if (delta < 0 && count(name) < -delta) {
+      throw new IllegalArgumentException("Fewer than " + -delta + " events named " + name);
+    }
+    List<Node> path = new ArrayList<>();
+    Node node = root;
+    path.add(node);
+    while (node.name.length() < name.length()) {
+      char next = name.charAt(node.name.length());
+      Node child = node.children.get(next);
+      if (child == null) {
+        child = new Node(name);
+      } else if (!name.startsWith(child.name)) {
+        Node fork = new Node(name.substring(0, commonPrefixLength(child.name, name)));
+        fork.children.put(child.name.charAt(fork.name.length()), child);
+        child = fork;
+      }
+      node.children.put(next, child);
+      node = child;
+      path.add(node);
+    }
+    if (node.count == 0) {
+      size++;
+    }
+    node.count += delta;
+    if (node.count == 0) {
+      size--;
+    }
+    for (int i = path.size() - 1; i > 0; i--) {
+      prune(path.get(i - 1), path.get(i));
+    }
+    root.best = bestOf(root);
+  }
+
+  /** Returns the number of events with exactly the given name. */
+  public long count(String name) {
+    Node node = find(name);
+    return node == null || !node.name.equals(name) ? 0 : node.count;
+  }
+
+  /** Returns the number of distinct names. */
+  public int size() {
+    return size;
+  }
+
+  /**
+   * Returns up to {@code limit} names starting with the prefix, the most frequent first and names
+   * with the same count in alphabetical order.
+   */
+  public List<String> complete(String prefix, int limit) {
+    List<String> result = new ArrayList<>();
+    Node start = find(prefix);
+    if (start == null) {
+      return result;
+    }
+    PriorityQueue<Candidate> queue = new PriorityQueue<>(BEST_FIRST);
+    queue.add(new Candidate(start, false));
+    while (!queue.isEmpty() && result.size() < limit) {
+      Candidate candidate = queue.poll();
+      if (candidate.terminal) {
+        result.add(candidate.node.name);
+        continue;
+      }
+      if (candidate.node.count > 0) {
+        queue.add(new Candidate(candidate.node, true));
+      }
+      for (Node child : candidate.node.children.values()) {
+        queue.add(new Candidate(child, false));
+      }
+    }
+    return result;
+  }
+
+  /** Returns every name starting with the prefix, in alphabetical order. */
+  public List<String> namesWithPrefix(String prefix) {
+    List<String> result = new ArrayList<>();
+    Node start = find(prefix);
+    if (start != null) {
+      collect(start, result);
+    }
+    return result;
+  }
+
+  /**
+   * Returns the highest node whose name starts with the prefix, which holds every name that does,
+   * or null if there is none.
+   */
+  private Node find(String prefix) {
+    Node node = root;
+    while (node.name.length() < prefix.length()) {
+      Node child = node.children.get(prefix.charAt(node.name.length()));
+      if (child == null) {
+        return null;
+      }
+      boolean matches =
+          child.name.length() >= prefix.length()
+              ? child.name.startsWith(prefix)
+              : prefix.startsWith(child.name);
+      if (!matches) {
+        return null;
+      }
+      node = child;
+    }
+    return node;
+  }
+
+  private static void collect(Node node, List<String> result) {
+    if (node.count > 0) {
+      result.add(node.name);
+    }
+    for (Node child : node.children.values()) {
+      collect(child, result);
+    }
+  }
+
+  /**
+   * Drops a node that no longer holds a name or leads to one, merges one that holds no name into
+   * its only child, and refreshes its subtree bound.
+   */
+  private static void prune(Node parent, Node node) {
+    char key = node.name.charAt(parent.name.length());
+    if (node.count == 0 && node.children.isEmpty()) {
+      parent.children.remove(key);
+    } else if (node.count == 0 && node.children.size() == 1) {
+      parent.children.put(key, node.children.firstEntry().getValue());
+    } else {
+      node.best = bestOf(node);
+    }
+  }
+
+  private static long bestOf(Node node) {
+    long best = node.count;
+    for (Node child : node.children.values()) {
+      best = Math.max(best, child.best);
+    }
+    return best;
+  }
+
+  private static int commonPrefixLength(String a, String b) {
+    int length = Math.min(a.length(), b.length());
+    for (int i = 0; i < length; i++) {
+      if (a.charAt(i) != b.charAt(i)) {
+        return i;
+      }
+    }
+    return length;
+  }
+
+  /** A node of the tree, holding the full name up to its position. */
+  private static final class Node {
+    private final String name;
+    private final TreeMap<Character, Node> children = new TreeMap<>();
+    private long count;
+    private long best;
+
+    Node(String name) {
+      this.name = name;
+    }
+  }
+
+  /** A node waiting to be expanded, or a name waiting to be returned. */
+  private static final class Candidate {
+    private final Node node;
+    private final boolean terminal;
+
+    Candidate(Node node, boolean terminal) {
+      this.node = node;
+      this.terminal = terminal;
+    }
+
+    long priority() {
+      return terminal ? node.count : node.best;
+    }
+  }
+}
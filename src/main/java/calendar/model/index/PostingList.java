@@ -0,0 +1,60 @@
+package calendar.model.index;
+
+import java.util.Arrays;
+
+/**
+ * A sorted set of event ids, kept in a growable array of longs. Ids are handed out in increasing
+ * order, so adding the id of a new event appends to the end; only reindexing an older event after
+ * an edit inserts into or removes from the middle.
+ */
+final class PostingList {
+  private long[] ids = new long[4];
+  private int size;
+
+  /** Adds an id, returning false if it was already present. */
+  boolean add(long id) {
+    if (size > 0 && ids[size - 1] >= id) {
+      int at = Arrays.binarySearch(ids, 0, size, id);
+      if (at >= 0) {
+        return false;
+      }
+      insertAt(-at - 1, id);
+      return true;
+    }
+    insertAt(size, id);
+    return true;
+  }
+
+  /** Removes an id, returning false if it was not present. */
+  boolean remove(long id) {
+    int at = Arrays.binarySearch(ids, 0, size, id);
+    if (at < 0) {
+      return false;
+    }
+    System.arraycopy(ids, at + 1, ids, at, size - at - 1);
+    size--;
+    return true;
+  }
+
+  /** Returns true if the id is present, by binary search. */
+  boolean contains(long id) {
+    return Arrays.binarySearch(ids, 0, size, id) >= 0;
+  }
+
+  int size() {
+    return size;
+  }
+
+  long get(int index) {
+    return ids[index];
+  }
+
+  private void insertAt(int at, long id) {
+    if (size == ids.length) {
+      ids = Arrays.copyOf(ids, size * 2);
+    }
+    System.arraycopy(ids, at, ids, at + 1, size - at);
+    ids[at] = id;
+    size++;
+  }
+}
@@ -0,0 +1,172 @@
+package calendar.model.index;
+
+import calendar.model.event.Event;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * An inverted index from the words in event names, descriptions and locations to the ids of the
+ * events that contain them. A word is a run of letters and digits, compared without case.
+ *
+ * <p>An edit moves the event's id from the words only its old text had to the words only its new
+ * text has, with {@link #update}, so the posting lists of a single event name exactly the words it
+ * contains and their size follows the calendar rather than its edit history. Several parts of a
+ * series share one id, and the id stays under a word while any part still contains it; callers
+ * check each part with {@link #matches}.
+ */
+public final class TextIndex {
+  private final Map<String, PostingList> postings = new HashMap<>();
+
+  /** Returns the distinct words of a text, in lower case, in the order they first appear. */
+  public static List<String> words(String text) {
+    if (text == null) {
+      return new ArrayList<>();
+    }
+    Set<String> words = new LinkedHashSet<>();
+    int start = -1;
+    for (int i = 0; i <= text.length(); i++) {
+      boolean inWord = i < text.length() && Character.isLetterOrDigit(text.charAt(i));
+      if (inWord && start < 0) {
+        start = i;
+      } else if (!inWord && start >= 0) {
+        words.add(text.substring(start, i).toLowerCase());
+        start = -1;
+      }
+    }
+    return new ArrayList<>(words);
+  }
+
+  /** Returns true if the event's name, description and location together contain every word. */
+  public static boolean matches(Event event, List<String> words) {
+    return words(event).containsAll(words);
+  }
+
+  /** Returns the distinct words of an event's name, description and location. */
+  public static Set<String> words(Event event) {
+    return words(event.getName(), event.getDescription(), event.getLocation());
+  }
+
+  private static Set<String> words(String name, String description, String location) {
+    Set<String> found = new LinkedHashSet<>(words(name));
+    found.addAll(words(description));
+    found.addAll(words(location));
+    return found;
+  }
+
+  /** Indexes the words of an event's name, description and location under the given id. */
+  public void add(long id, Event event) {
+    add(id, event.getName());
+    add(id, event.getDescription());
+    add(id, event.getLocation());
+  }
+
+  /** Indexes the words of a text under the given id. */
+  public void add(long id, String text) {
+    for (String word : words(text)) {
+      postings.computeIfAbsent(word, w -> new PostingList()).add(id);
+    }
+  }
+
+  /**
+   * Moves an event's id to the words of its text after an edit that set a property to a new
+   * value: the id leaves the words the event no longer contains in any field and joins the new
+   * ones. Properties other than name, description and location change nothing.
+   *
+   * @param before the event as it was before the edit
+   */
+  public void update(long id, Event before, String property, String newValue) {
+    String name = before.getName();
+    String description = before.getDescription();
+    String location = before.getLocation();
+    switch (property.toLowerCase()) {
+      case "name":
+        name = newValue;
+        break;
+      case "description":
+        description = newValue;
+        break;
+      case "location":
+        location = newValue;
+        break;
+      default:
+        return;
+    }
+    update(id, words(before), words(name, description, location));
+  }
+
+  /** Moves an id from the words only {@code before} has to the words only {@code after} has. */
+  public void update(long id, Set<String> before, Set<String> after) {
+    for (String word : before) {
+      if (!after.contains(word)) {
+        remove(id, word);
+      }
+    }
+    for (String word : after) {
+      if (!before.contains(word)) {
+        postings.computeIfAbsent(word, w -> new PostingList()).add(id);
+      }
+    }
+  }
+
+  /** Removes an id from a word's posting list, dropping the list if it becomes empty. */
+  private void remove(long id, String word) {
+    PostingList list = postings.get(word);
+    if (list != null && list.remove(id) && list.size() == 0) {
+      postings.remove(word);
+    }
+  }
+
+  /**
+   * Returns the ids, in increasing order, indexed under every one of the given words. The shortest
+   * posting list is walked and each of its ids looked up in the others by binary search, so the
+   * cost follows the rarest word rather than the most common one.
+   */
+  public long[] lookup(List<String> words) {
+    List<PostingList> lists = new ArrayList<>();
+    for (String word : words) {
+      PostingList list = postings.get(word.toLowerCase());
+      if (list == null) {
+        return new long[0];
+      }
+      lists.add(list);
+    }
+    if (lists.isEmpty()) {
+      return new long[0];
+    }
+    lists.sort(Comparator.comparingInt(PostingList::size));
+    PostingList shortest = lists.get(0);
+    long[] result = new long[shortest.size()];
+    int count = 0;
+    for (int i = 0; i < shortest.size(); i++) {
+      long id = shortest.get(i);
+      boolean inAll = true;
+      for (int j = 1; j < lists.size() && inAll; j++) {
+        inAll = lists.get(j).contains(id);
+      }
+      if (inAll) {
+        result[count++] = id;
+      }
+    }
+    return Arrays.copyOf(result, count);
+  }
+
+  /** Returns the number of distinct words indexed. */
+  public int wordCount() {
+    return postings.size();
+  }
+
+  /** Returns the number of ids indexed, summed over every word. */
+  public long postingCount() {
+    long count = 0;
+    for (PostingList list : postings.values()) {
+      count += list.size();
+    }
+    return count;
+  }
+}
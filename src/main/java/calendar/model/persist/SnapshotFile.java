@@ -0,0 +1,643 @@
+package calendar.model.persist;
+
+import calendar.model.Calendar;
+import calendar.model.CalendarSnapshot;
+import calendar.model.event.Event;
+import calendar.model.event.RecurringEvent;
+import calendar.model.event.SingleEvent;
+import calendar.model.store.EventPages;
+import calendar.model.store.StorageType;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.time.DayOfWeek;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.time.LocalTime;
+import java.time.ZoneId;
+import java.time.ZoneOffset;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Comparator;
+import java.util.EnumSet;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.function.Supplier;
+
+/**
+ * A binary file holding a set of calendars with all their events, for saving them together and
+ * loading them back far faster than importing them event by event.
+ *
+ * <p>The file starts with a magic number and a format version. Each calendar is then written as a
+ * section of its own, one after another through a {@link FileChannel}, and the file ends with a
+ * directory giving the name, offset and length of every section and a footer pointing at the
+ * directory. Sections are written without knowing in advance how large they are, and a reader can
+ * find one calendar's section without reading the others.
+ *
+ * <p>A section holds the calendar's name, timezone, storage type and next id, then a dictionary of
+ * the distinct names, descriptions and locations its events use, then its series, and then its
+ * single events in start order. Events refer to strings by their dictionary code. The single
+ * events are split into pages of {@value #PAGE_EVENTS}, each listed in a page index with its
+ * offset, first start, latest end and the latest end of it and every page before it, so that the
+ * first page a query needs can be found by binary search of the index. An id table lists every
+ * event's id and page in id order.
+ * Times are epoch minutes: each start is stored as the distance from the start before it in the
+ * page and each end as a duration, both as variable length integers, so most events take a few
+ * bytes for their times. Times with seconds carry the extra seconds separately.
+ *
+ * <p>{@link #read} decodes every section into a new calendar and fills it with one bulk
+ * {@link Calendar#restore}, which builds each index once rather than adding events one at a time.
+ * {@link #map} instead maps each section into memory when its calendar is first used and leaves the
+ * single events on their pages, to be decoded as queries reach them. Since a save replaces the file
+ * rather than writing over it, a mapped calendar keeps reading the file it was opened from.
+ */
+public final class SnapshotFile {
+  private static final int MAGIC = 0x43414c53;
+  private static final int VERSION = 3;
+  private static final int HEADER_BYTES = 8;
+  private static final int FOOTER_BYTES = 12;
+  private static final int PAGE_EVENTS = 1024;
+  private static final int PAGE_INDEX_BYTES = 36;
+  private static final int ID_ENTRY_BYTES = 12;
+  private static final int FLAG_PUBLIC = 1;
+  private static final int FLAG_SECONDS = 2;
+  private static final long NANOS_PER_SECOND = 1_000_000_000L;
+
+  private SnapshotFile() {}
+
+  /**
+   * Writes the calendars to a file, replacing it. The file is written under a temporary name and
+   * moved into place once it is complete, so a crash while saving leaves the old file intact. Each
+   * calendar is saved as of one {@link Calendar#snapshot}, so it may go on changing meanwhile.
+   */
+  public static void write(Collection<Calendar> calendars, Path path) throws IOException {
+    Path temp = path.resolveSibling(path.getFileName() + ".tmp");
+    try (FileChannel channel =
+        FileChannel.open(
+            temp,
+            StandardOpenOption.CREATE,
+            StandardOpenOption.TRUNCATE_EXISTING,
+            StandardOpenOption.WRITE)) {
+      writeFully(channel, ByteBuffer.allocate(HEADER_BYTES).putInt(MAGIC).putInt(VERSION).flip());
+      Encoder directory = new Encoder();
+      directory.putInt(calendars.size());
+      long offset = HEADER_BYTES;
+      for (Calendar calendar : calendars) {
+        CalendarSnapshot snapshot = calendar.snapshot();
+        Encoder section = encodeSection(snapshot, calendar.getStorageType());
+        writeFully(channel, section.toBuffer());
+        directory.putString(snapshot.getName());
+        directory.putLong(offset);
+        directory.putLong(section.size());
+        offset += section.size();
+      }
+      writeFully(channel, directory.toBuffer());
+      writeFully(channel, ByteBuffer.allocate(FOOTER_BYTES).putLong(offset).putInt(MAGIC).flip());
+      channel.force(true);
+    }
+    Files.move(temp, path, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+  }
+
+  /**
+   * Reads every calendar in a file, in the order they were written.
+   *
+   * @throws IOException if the file cannot be read or is not a calendar snapshot
+   */
+  public static List<Calendar> read(Path path) throws IOException {
+    try (FileChannel channel = FileChannel.open(path, StandardOpenOption.READ)) {
+      List<Calendar> calendars = new ArrayList<>();
+      for (DirectoryEntry entry : readDirectory(channel)) {
+        Section section = new Section(readFully(channel, entry.offset, (int) entry.length));
+        // Pages follow the index back to back, so reading them in order needs no seeking.
+        List<Event> events = new ArrayList<>(section.eventCount());
+        for (int page = 0; page < section.pageCount(); page++) {
+          events.addAll(section.decode(page));
+        }
+        Calendar calendar = new Calendar(section.name, section.timezone, section.storage);
+        calendar.restore(events, section.seriesList, section.nextId);
+        calendars.add(calendar);
+      }
+      return calendars;
+    }
+  }
+
+  /**
+   * Reads the directory of a file and returns a loader for each calendar in it, by name, in the
+   * order they were written. A loader maps the calendar's section into memory and returns a new
+   * calendar with {@link StorageType#MAPPED} storage whose single events stay on their pages. It
+   * throws {@link UncheckedIOException} if the file can no longer be read.
+   *
+   * @throws IOException if the file cannot be read or is not a calendar snapshot
+   */
+  public static Map<String, Supplier<Calendar>> map(Path path) throws IOException {
+    Map<String, Supplier<Calendar>> loaders = new LinkedHashMap<>();
+    try (FileChannel channel = FileChannel.open(path, StandardOpenOption.READ)) {
+      for (DirectoryEntry entry : readDirectory(channel)) {
+        loaders.put(entry.name, () -> mapSection(path, entry));
+      }
+    }
+    return loaders;
+  }
+
+  private static Calendar mapSection(Path path, DirectoryEntry entry) {
+    // A mapping stays valid after its channel is closed.
+    try (FileChannel channel = FileChannel.open(path, StandardOpenOption.READ)) {
+      Section section =
+          new Section(channel.map(FileChannel.MapMode.READ_ONLY, entry.offset, entry.length));
+      Calendar calendar = new Calendar(section.name, section.timezone, StorageType.MAPPED);
+      calendar.restore(section, section.seriesList, section.nextId);
+      return calendar;
+    } catch (IOException e) {
+      throw new UncheckedIOException(e);
+    }
+  }
+
+  /** Checks the header and footer of a file and reads its directory. */
+  private static List<DirectoryEntry> readDirectory(FileChannel channel) throws IOException {
+    long size = channel.size();
+    if (size < HEADER_BYTES + FOOTER_BYTES) {
+      throw new IOException("Not a calendar snapshot.");
+    }
+    ByteBuffer header = readFully(channel, 0, HEADER_BYTES);
+    if (header.getInt() != MAGIC) {
+      throw new IOException("Not a calendar snapshot.");
+    }
+    int version = header.getInt();
+    if (version != VERSION) {
+      throw new IOException("Unsupported calendar snapshot version: " + version);
+    }
+    ByteBuffer footer = readFully(channel, size - FOOTER_BYTES, FOOTER_BYTES);
+    long directoryOffset = footer.getLong();
+    if (footer.getInt() != MAGIC || directoryOffset < HEADER_BYTES) {
+      throw new IOException("Calendar snapshot is incomplete.");
+    }
+    Decoder directory =
+        new Decoder(
+            readFully(channel, directoryOffset, (int) (size - FOOTER_BYTES - directoryOffset)));
+    int count = directory.getInt();
+    List<DirectoryEntry> entries = new ArrayList<>(count);
+    for (int i = 0; i < count; i++) {
+      entries.add(
+          new DirectoryEntry(directory.getString(), directory.getLong(), directory.getLong()));
+    }
+    return entries;
+  }
+
+  /** Encodes one calendar as a section. */
+  private static Encoder encodeSection(CalendarSnapshot snapshot, StorageType storage) {
+    Map<String, Integer> codes = new HashMap<>();
+    List<String> strings = new ArrayList<>();
+
+    Encoder series = new Encoder();
+    List<RecurringEvent> seriesList = new ArrayList<>();
+    snapshot.forEachSeries(seriesList::add);
+    series.putVarLong(seriesList.size());
+    for (RecurringEvent recurringEvent : seriesList) {
+      series.putVarLong(code(recurringEvent.getName(), codes, strings));
+      series.putVarLong(code(recurringEvent.getDescription(), codes, strings));
+      series.putVarLong(code(recurringEvent.getLocation(), codes, strings));
+      series.putByte(recurringEvent.isPublic() ? FLAG_PUBLIC : 0);
+      series.putVarLong(recurringEvent.getId());
+      series.putVarLong(recurringEvent.getStart().toLocalTime().toNanoOfDay());
+      series.putVarLong(recurringEvent.getEnd().toLocalTime().toNanoOfDay());
+      int weekdays = 0;
+      for (DayOfWeek day : recurringEvent.getWeekdays()) {
+        weekdays |= 1 << (day.getValue() - 1);
+      }
+      series.putByte(weekdays);
+      long firstDay = recurringEvent.getFirstDate().toEpochDay();
+      series.putVarLong(zigzag(firstDay));
+      series.putVarLong(recurringEvent.getLastDate().toEpochDay() - firstDay);
+      series.putVarLong(recurringEvent.getExcludedDates().size());
+      long previousDay = firstDay;
+      for (LocalDate date : recurringEvent.getExcludedDates()) {
+        series.putVarLong(date.toEpochDay() - previousDay);
+        previousDay = date.toEpochDay();
+      }
+    }
+
+    List<Event> events = new ArrayList<>();
+    snapshot.forEachSingleEvent(events::add);
+    Encoder pages = new Encoder();
+    Encoder pageIndex = new Encoder();
+    long[][] idPages = new long[events.size()][];
+    long maxEndThrough = Long.MIN_VALUE;
+    for (int first = 0; first < events.size(); first += PAGE_EVENTS) {
+      int last = Math.min(first + PAGE_EVENTS, events.size());
+      long firstStart = minutes(events.get(first).getStart());
+      long maxEnd = Long.MIN_VALUE;
+      pageIndex.putLong(pages.size());
+      pageIndex.putLong(firstStart);
+      long previousStart = firstStart;
+      for (int i = first; i < last; i++) {
+        Event event = events.get(i);
+        long start = minutes(event.getStart());
+        long end = minutes(event.getEnd());
+        maxEnd = Math.max(maxEnd, end);
+        int secondsStart = seconds(event.getStart());
+        int secondsEnd = seconds(event.getEnd());
+        boolean hasSeconds =
+            secondsStart != 0
+                || secondsEnd != 0
+                || event.getStart().getNano() != 0
+                || event.getEnd().getNano() != 0;
+        pages.putVarLong(start - previousStart);
+        pages.putVarLong(zigzag(end - start));
+        pages.putByte((event.isPublic() ? FLAG_PUBLIC : 0) | (hasSeconds ? FLAG_SECONDS : 0));
+        if (hasSeconds) {
+          pages.putVarLong(secondsStart * NANOS_PER_SECOND + event.getStart().getNano());
+          pages.putVarLong(secondsEnd * NANOS_PER_SECOND + event.getEnd().getNano());
+        }
+        pages.putVarLong(code(event.getName(), codes, strings));
+        pages.putVarLong(code(event.getDescription(), codes, strings));
+        pages.putVarLong(code(event.getLocation(), codes, strings));
+        pages.putVarLong(event.getId());
+        idPages[i] = new long[] {event.getId(), first / PAGE_EVENTS};
+        previousStart = start;
+      }
+      maxEndThrough = Math.max(maxEndThrough, maxEnd);
+      pageIndex.putLong(maxEnd);
+      pageIndex.putLong(maxEndThrough);
+      pageIndex.putInt(last - first);
+    }
+    Arrays.sort(idPages, Comparator.comparingLong(idPage -> idPage[0]));
+    Encoder idTable = new Encoder();
+    for (long[] idPage : idPages) {
+      idTable.putLong(idPage[0]);
+      idTable.putInt((int) idPage[1]);
+    }
+
+    Encoder section = new Encoder();
+    section.putString(snapshot.getName());
+    section.putString(snapshot.getTimezone().getId());
+    section.putString(storage.name());
+    section.putLong(snapshot.getNextId());
+    section.putVarLong(strings.size());
+    for (String value : strings) {
+      section.putString(value);
+    }
+    section.putEncoded(series);
+    section.putInt(events.size());
+    section.putInt((events.size() + PAGE_EVENTS - 1) / PAGE_EVENTS);
+    section.putEncoded(pageIndex);
+    section.putEncoded(idTable);
+    section.putEncoded(pages);
+    return section;
+  }
+
+  /** Returns the dictionary code of a string, adding it if new. Null is code 0. */
+  private static int code(String value, Map<String, Integer> codes, List<String> strings) {
+    if (value == null) {
+      return 0;
+    }
+    Integer code = codes.get(value);
+    if (code == null) {
+      strings.add(value);
+      code = strings.size();
+      codes.put(value, code);
+    }
+    return code;
+  }
+
+  private static long minutes(LocalDateTime dateTime) {
+    return Math.floorDiv(dateTime.toEpochSecond(ZoneOffset.UTC), 60);
+  }
+
+  private static int seconds(LocalDateTime dateTime) {
+    return Math.floorMod(dateTime.toEpochSecond(ZoneOffset.UTC), 60);
+  }
+
+  private static LocalDateTime dateTime(long minutes, long nanos) {
+    return LocalDateTime.ofEpochSecond(
+        minutes * 60 + nanos / NANOS_PER_SECOND,
+        (int) (nanos % NANOS_PER_SECOND),
+        ZoneOffset.UTC);
+  }
+
+  /** Maps signed values to unsigned ones so that small negative values stay short. */
+  private static long zigzag(long value) {
+    return (value << 1) ^ (value >> 63);
+  }
+
+  private static long unzigzag(long value) {
+    return (value >>> 1) ^ -(value & 1);
+  }
+
+  private static void writeFully(FileChannel channel, ByteBuffer buffer) throws IOException {
+    while (buffer.hasRemaining()) {
+      channel.write(buffer);
+    }
+  }
+
+  private static ByteBuffer readFully(FileChannel channel, long position, int length)
+      throws IOException {
+    ByteBuffer buffer = ByteBuffer.allocate(length);
+    while (buffer.hasRemaining()) {
+      if (channel.read(buffer, position + buffer.position()) < 0) {
+        throw new IOException("Calendar snapshot is incomplete.");
+      }
+    }
+    buffer.flip();
+    return buffer;
+  }
+
+  /** Where a section lies in the file. */
+  private static final class DirectoryEntry {
+    private final String name;
+    private final long offset;
+    private final long length;
+
+    DirectoryEntry(String name, long offset, long length) {
+      this.name = name;
+      this.offset = offset;
+      this.length = length;
+    }
+  }
+
+  /**
+   * A decoded section header, with its series, page index and id table, over the buffer holding
+   * the section. Pages are decoded from the buffer on request, each through its own view of it, so
+   * several threads can decode at once.
+   */
+  private static final class Section implements EventPages {
+    private final ByteBuffer buffer;
+    private final String name;
+    private final ZoneId timezone;
+    private final StorageType storage;
+    private final long nextId;
+    private final String[] strings;
+    private final List<RecurringEvent> seriesList;
+    private final int eventCount;
+    private final int pageCount;
+    private final int pageIndexStart;
+    private final int idTableStart;
+    private final int pagesStart;
+
+    Section(ByteBuffer buffer) {
+      this.buffer = buffer;
+      Decoder in = new Decoder(buffer.duplicate());
+      name = in.getString();
+      timezone = ZoneId.of(in.getString());
+      storage = StorageType.valueOf(in.getString());
+      nextId = in.getLong();
+      strings = new String[(int) in.getVarLong() + 1];
+      for (int i = 1; i < strings.length; i++) {
+        strings[i] = in.getString();
+      }
+      seriesList = decodeSeries(in);
+      eventCount = in.getInt();
+      pageCount = in.getInt();
+      pageIndexStart = in.position();
+      idTableStart = pageIndexStart + pageCount * PAGE_INDEX_BYTES;
+      pagesStart = idTableStart + eventCount * ID_ENTRY_BYTES;
+    }
+
+    private List<RecurringEvent> decodeSeries(Decoder in) {
+      int seriesCount = (int) in.getVarLong();
+      List<RecurringEvent> result = new ArrayList<>(seriesCount);
+      for (int i = 0; i < seriesCount; i++) {
+        String seriesName = strings[(int) in.getVarLong()];
+        String description = strings[(int) in.getVarLong()];
+        String location = strings[(int) in.getVarLong()];
+        boolean isPublic = (in.getByte() & FLAG_PUBLIC) != 0;
+        long id = in.getVarLong();
+        LocalTime startTime = LocalTime.ofNanoOfDay(in.getVarLong());
+        LocalTime endTime = LocalTime.ofNanoOfDay(in.getVarLong());
+        int mask = in.getByte();
+        Set<DayOfWeek> weekdays = EnumSet.noneOf(DayOfWeek.class);
+        for (DayOfWeek day : DayOfWeek.values()) {
+          if ((mask & (1 << (day.getValue() - 1))) != 0) {
+            weekdays.add(day);
+          }
+        }
+        LocalDate firstDate = LocalDate.ofEpochDay(unzigzag(in.getVarLong()));
+        LocalDate lastDate = firstDate.plusDays(in.getVarLong());
+        RecurringEvent recurringEvent =
+            new RecurringEvent(
+                seriesName,
+                firstDate.atTime(startTime),
+                firstDate.atTime(endTime),
+                description,
+                location,
+                isPublic,
+                weekdays,
+                lastDate.atStartOfDay());
+        long excludedCount = in.getVarLong();
+        long day = firstDate.toEpochDay();
+        for (long j = 0; j < excludedCount; j++) {
+          day += in.getVarLong();
+          recurringEvent.exclude(LocalDate.ofEpochDay(day));
+        }
+        recurringEvent.setId(id);
+        result.add(recurringEvent);
+      }
+      return result;
+    }
+
+    @Override
+    public int pageCount() {
+      return pageCount;
+    }
+
+    @Override
+    public int eventCount() {
+      return eventCount;
+    }
+
+    @Override
+    public long firstStart(int page) {
+      return buffer.getLong(pageIndexStart + page * PAGE_INDEX_BYTES + 8);
+    }
+
+    @Override
+    public long maxEnd(int page) {
+      return buffer.getLong(pageIndexStart + page * PAGE_INDEX_BYTES + 16);
+    }
+
+    @Override
+    public long maxEndThrough(int page) {
+      return buffer.getLong(pageIndexStart + page * PAGE_INDEX_BYTES + 24);
+    }
+
+    @Override
+    public List<Event> decode(int page) {
+      int entry = pageIndexStart + page * PAGE_INDEX_BYTES;
+      int count = buffer.getInt(entry + 32);
+      Decoder in =
+          new Decoder(buffer.duplicate().position(pagesStart + (int) buffer.getLong(entry)));
+      List<Event> events = new ArrayList<>(count);
+      long previousStart = buffer.getLong(entry + 8);
+      for (int i = 0; i < count; i++) {
+        long start = previousStart + in.getVarLong();
+        long end = start + unzigzag(in.getVarLong());
+        int flags = in.getByte();
+        long startNanos = 0;
+        long endNanos = 0;
+        if ((flags & FLAG_SECONDS) != 0) {
+          startNanos = in.getVarLong();
+          endNanos = in.getVarLong();
+        }
+        SingleEvent event =
+            new SingleEvent(
+                strings[(int) in.getVarLong()],
+                dateTime(start, startNanos),
+                dateTime(end, endNanos),
+                strings[(int) in.getVarLong()],
+                strings[(int) in.getVarLong()],
+                (flags & FLAG_PUBLIC) != 0);
+        event.setId(in.getVarLong());
+        events.add(event);
+        previousStart = start;
+      }
+      return events;
+    }
+
+    /** Binary searches the id table, which is read in place. */
+    @Override
+    public int pageOfId(long id) {
+      int low = 0;
+      int high = eventCount - 1;
+      while (low <= high) {
+        int mid = (low + high) >>> 1;
+        long midId = buffer.getLong(idTableStart + mid * ID_ENTRY_BYTES);
+        if (midId < id) {
+          low = mid + 1;
+        } else if (midId > id) {
+          high = mid - 1;
+        } else {
+          return buffer.getInt(idTableStart + mid * ID_ENTRY_BYTES + 8);
+        }
+      }
+      return -1;
+    }
+  }
+
+  /** A growable byte array written front to back. */
+  private static final class Encoder {
+    private byte[] bytes = new byte[256];
+    private int size;
+
+    int size() {
+      return size;
+    }
+
+    private void ensure(int extra) {
+      if (size + extra > bytes.length) {
+        bytes = Arrays.copyOf(bytes, Math.max(bytes.length * 2, size + extra));
+      }
+    }
+
+    void putByte(int value) {
+      ensure(1);
+      bytes[size++] = (byte) value;
+    }
+
+    void putInt(int value) {
+      ensure(4);
+      for (int shift = 24; shift >= 0; shift -= 8) {
+        bytes[size++] = (byte) (value >>> shift);
+      }
+    }
+
+    void putLong(long value) {
+      ensure(8);
+      for (int shift = 56; shift >= 0; shift -= 8) {
+        bytes[size++] = (byte) (value >>> shift);
+      }
+    }
+
+    /** Writes a non-negative value seven bits at a time, low bits first. */
+    void putVarLong(long value) {
+      ensure(10);
+      while ((value & ~0x7FL) != 0) {
+        bytes[size++] = (byte) ((value & 0x7F) | 0x80);
+        value >>>= 7;
+      }
+      bytes[size++] = (byte) value;
+    }
+
+    void putString(String value) {
+      byte[] encoded = value.getBytes(StandardCharsets.UTF_8);
+      putVarLong(encoded.length);
+      ensure(encoded.length);
+      System.arraycopy(encoded, 0, bytes, size, encoded.length);
+      size += encoded.length;
+    }
+
+    void putEncoded(Encoder other) {
+      ensure(other.size);
+      System.arraycopy(other.bytes, 0, bytes, size, other.size);
+      size += other.size;
+    }
+
+    ByteBuffer toBuffer() {
+      return ByteBuffer.wrap(bytes, 0, size);
+    }
+  }
+
+  /** Reads values written by an {@link Encoder} from a buffer. */
+  private static final class Decoder {
+    private final ByteBuffer buffer;
+
+    Decoder(ByteBuffer buffer) {
+      this.buffer = buffer;
+    }
+
+    int position() {
+      return buffer.position();
+    }
+
+    int getByte() {
+      return buffer.get() & 0xFF;
+    }
+
+    int getInt() {
+      return buffer.getInt();
+    }
+
+    long getLong() {
+      return buffer.getLong();
+    }
+
+    long getVarLong() {
+      long value = 0;
+      int shift = 0;
+      byte b;
+      do {
+        b = buffer.get();
+        value |= (long) (b & 0x7F) << shift;
+        shift += 7;
+      } while (b < 0);
+      return value;
+    }
+
+    String getString() {
+      int length = (int) getVarLong();
+      String value;
+      if (buffer.hasArray()) {
+        value =
+            new String(
+                buffer.array(),
+                buffer.arrayOffset() + buffer.position(),
+                length,
+                StandardCharsets.UTF_8);
+        buffer.position(buffer.position() + length);
+      } else {
+        byte[] bytes = new byte[length];
+        buffer.get(bytes);
+        value = new String(bytes, StandardCharsets.UTF_8);
+      }
+      return value;
+    }
+  }
+}
@@ -0,0 +1,488 @@
+package calendar.model.store;
+
+import calendar.model.event.Event;
+import calendar.model.event.SingleEvent;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.time.ZoneOffset;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.NavigableMap;
+import java.util.Objects;
+import java.util.TreeMap;
+import java.util.function.Consumer;
+
+/**
+ * An event store that keeps events as parallel primitive columns rather than as objects. Start and
+ * end times are stored as minutes since the epoch in {@code long} arrays, names, descriptions and
+ * locations as codes into a shared {@link StringDictionary}, visibility as one bit per row, and
+ * ids in a {@code long} column with a primitive {@link IdRows} table from id to row.
+ * Rows are kept in the order events were added, and an event object is created only when one is
+ * returned from a query.
+ *
+ * <p>Range queries use a separate array of row numbers sorted by start time. New rows are first
+ * appended to an unsorted tail, which is scanned directly and merged into the sorted array once it
+ * grows past the square root of the row count. Within the sorted array a query starts its scan at
+ * the first row that could still be running, found by binary search using the longest event
+ * duration, and skips any block of 64 rows whose latest end is before the query window.
+ *
+ * <p>Times are held to the minute, which is the precision of every command and import format.
+ * Adding an event whose start or end has seconds throws an IllegalArgumentException.
+ *
+ * <p>A snapshot shares the column arrays with the live store and records the row count. Appending
+ * only writes past that count and growing a column allocates a new array, so the snapshot's rows
+ * never change under it. The first edit after a snapshot copies the string columns before writing
+ * to them, and the first add or edit copies the visibility bits, which pack several rows per word.
+ */
+public class ColumnarEventStore implements EventStore {
+  private static final int INITIAL_CAPACITY = 16;
+  private static final int BLOCK_SHIFT = 6;
+  private static final int MIN_PENDING = 64;
+
+  private final StringDictionary strings;
+  private long[] starts = new long[INITIAL_CAPACITY];
+  private long[] ends = new long[INITIAL_CAPACITY];
+  private int[] names = new int[INITIAL_CAPACITY];
+  private int[] descriptions = new int[INITIAL_CAPACITY];
+  private int[] locations = new int[INITIAL_CAPACITY];
+  private long[] ids = new long[INITIAL_CAPACITY];
+  private long[] publicBits = new long[1];
+  // Row of each id; null in a snapshot, which finds ids by scanning the id column.
+  private final IdRows rowsById;
+  private int size;
+  // Rows 0 to sortedCount - 1 ordered by start, ties by row; later rows are the unsorted tail.
+  private int[] order = new int[0];
+  private int sortedCount;
+  // Latest end among each block of 64 consecutive positions of the order array.
+  private long[] blockMaxEnd = new long[0];
+  private long maxDuration;
+  // Set when a snapshot shares the string code columns or the visibility bits.
+  private boolean codesShared;
+  private boolean bitsShared;
+
+  /** Constructs an empty store with its own string dictionary. */
+  public ColumnarEventStore() {
+    this(new StringDictionary());
+  }
+
+  /** Constructs an empty store that encodes its strings with the given dictionary. */
+  public ColumnarEventStore(StringDictionary strings) {
+    this.strings = strings;
+    this.rowsById = new IdRows();
+  }
+
+  /** Constructs a read-only copy of a store that shares its arrays. */
+  private ColumnarEventStore(ColumnarEventStore source) {
+    this.strings = source.strings.snapshot();
+    this.starts = source.starts;
+    this.ends = source.ends;
+    this.names = source.names;
+    this.descriptions = source.descriptions;
+    this.locations = source.locations;
+    this.ids = source.ids;
+    this.rowsById = null;
+    this.publicBits = source.publicBits;
+    this.size = source.size;
+    this.order = source.order;
+    this.sortedCount = source.sortedCount;
+    this.blockMaxEnd = source.blockMaxEnd;
+    this.maxDuration = source.maxDuration;
+  }
+
+  @Override
+  public void add(Event event) {
+    append(event);
+    if (size - sortedCount > Math.max(MIN_PENDING, (int) Math.sqrt(size))) {
+      mergePending();
+    }
+  }
+
+  /**
+   * Appends the rows of a batch and merges them into the order array once at the end. Every time
+   * is checked before the first row is written, so a batch is either stored whole or not at all.
+   */
+  @Override
+  public void addAll(List<? extends Event> events) {
+    for (Event event : events) {
+      toMinutes(event.getStart());
+      toMinutes(event.getEnd());
+    }
+    for (Event event : events) {
+      append(event);
+    }
+    if (size - sortedCount > Math.max(MIN_PENDING, (int) Math.sqrt(size))) {
+      mergePending();
+    }
+  }
+
+  /** Writes an event to a new row in the unsorted tail. */
+  private void append(Event event) {
+    long start = toMinutes(event.getStart());
+    long end = toMinutes(event.getEnd());
+    if (size == starts.length) {
+      int capacity = size * 2;
+      starts = Arrays.copyOf(starts, capacity);
+      ends = Arrays.copyOf(ends, capacity);
+      names = Arrays.copyOf(names, capacity);
+      descriptions = Arrays.copyOf(descriptions, capacity);
+      locations = Arrays.copyOf(locations, capacity);
+      ids = Arrays.copyOf(ids, capacity);
+    }
+    if (size >> 6 == publicBits.length) {
+      publicBits = Arrays.copyOf(publicBits, publicBits.length * 2);
+      bitsShared = false;
+    } else if (bitsShared) {
+      publicBits = publicBits.clone();
+      bitsShared = false;
+    }
+    int row = size++;
+    starts[row] = start;
+    ends[row] = end;
+    names[row] = strings.encode(event.getName());
+    descriptions[row] = strings.encode(event.getDescription());
+    locations[row] = strings.encode(event.getLocation());
+    ids[row] = event.getId();
+    if (event.getId() != Event.NO_ID) {
+      rowsById.put(event.getId(), row);
+    }
+    setPublic(row, event.isPublic());
+    maxDuration = Math.max(maxDuration, end - start);
+  }
+
+  @Override
+  public int size() {
+    return size;
+  }
+
+  /** Returns the number of distinct strings held for names, descriptions and locations. */
+  public int distinctStrings() {
+    return strings.size();
+  }
+
+  @Override
+  public void forEachOverlapping(LocalDateTime from, LocalDateTime to, Consumer<Event> action) {
+    long lo = ceilMinutes(from);
+    for (int row : matching(lo - maxDuration, floorMinutes(to), lo, Integer.MAX_VALUE)) {
+      action.accept(materialize(row));
+    }
+  }
+
+  @Override
+  public boolean anyOverlapping(LocalDateTime from, LocalDateTime to) {
+    long lo = ceilMinutes(from);
+    return matching(lo - maxDuration, floorMinutes(to), lo, 1).length > 0;
+  }
+
+  @Override
+  public boolean covers(LocalDateTime dateTime) {
+    return anyOverlapping(dateTime, dateTime);
+  }
+
+  @Override
+  public List<Event> startingOn(LocalDate date) {
+    long dayStart = dayStart(date);
+    List<Event> result = new ArrayList<>();
+    for (int row : matching(dayStart, dayStart + 1439, Long.MIN_VALUE, Integer.MAX_VALUE)) {
+      result.add(materialize(row));
+    }
+    return result;
+  }
+
+  @Override
+  public NavigableMap<LocalDate, List<Event>> startingBetween(LocalDate from, LocalDate to) {
+    NavigableMap<LocalDate, List<Event>> result = new TreeMap<>();
+    long last = dayStart(to) + 1439;
+    for (int row : matching(dayStart(from), last, Long.MIN_VALUE, Integer.MAX_VALUE)) {
+      Event event = materialize(row);
+      result.computeIfAbsent(event.getStart().toLocalDate(), d -> new ArrayList<>()).add(event);
+    }
+    return result;
+  }
+
+  @Override
+  public Event findByNameAndStart(String name, LocalDateTime start) {
+    if (!isWholeMinute(start)) {
+      return null;
+    }
+    long minute = toMinutes(start);
+    // Names are compared as strings so that a snapshot can answer without the live code table.
+    for (int row : matching(minute, minute, Long.MIN_VALUE, Integer.MAX_VALUE)) {
+      if (Objects.equals(strings.decode(names[row]), name)) {
+        return materialize(row);
+      }
+    }
+    return null;
+  }
+
+  @Override
+  public Event findById(long id) {
+    int row = rowOf(id);
+    return row < 0 ? null : materialize(row);
+  }
+
+  @Override
+  public boolean editById(long id, String property, String newValue) {
+    int row = rowOf(id);
+    if (row < 0) {
+      return false;
+    }
+    setProperty(row, property, newValue);
+    return true;
+  }
+
+  /** Returns the row holding an id, or -1 if no row does. */
+  private int rowOf(long id) {
+    if (id == Event.NO_ID) {
+      return -1;
+    }
+    if (rowsById != null) {
+      return rowsById.get(id);
+    }
+    for (int row = 0; row < size; row++) {
+      if (ids[row] == id) {
+        return row;
+      }
+    }
+    return -1;
+  }
+
+  @Override
+  public boolean editMatching(
+      String name, LocalDateTime start, LocalDateTime end, String property, String newValue) {
+    int code = strings.lookup(name);
+    if (code == StringDictionary.ABSENT || !isWholeMinute(start) || !isWholeMinute(end)) {
+      return false;
+    }
+    long minute = toMinutes(start);
+    long endMinute = toMinutes(end);
+    for (int row : matching(minute, minute, Long.MIN_VALUE, Integer.MAX_VALUE)) {
+      if (names[row] == code && ends[row] == endMinute) {
+        setProperty(row, property, newValue);
+        return true;
+      }
+    }
+    return false;
+  }
+
+  @Override
+  public int editNamed(
+      String name,
+      LocalDateTime from,
+      String property,
+      String newValue,
+      Consumer<Event> edited) {
+    int code = strings.lookup(name);
+    if (code == StringDictionary.ABSENT) {
+      return 0;
+    }
+    long min = from == null ? Long.MIN_VALUE : ceilMinutes(from);
+    int count = 0;
+    for (int row = 0; row < size; row++) {
+      if (names[row] == code && starts[row] >= min) {
+        edited.accept(materialize(row));
+        setProperty(row, property, newValue);
+        count++;
+      }
+    }
+    return count;
+  }
+
+  @Override
+  public EventView snapshot() {
+    codesShared = true;
+    bitsShared = true;
+    return new ColumnarEventStore(this);
+  }
+
+  /** Sets a property of a row: name, description, location or ispublic, in any case. */
+  private void setProperty(int row, String property, String newValue) {
+    if (codesShared) {
+      names = names.clone();
+      descriptions = descriptions.clone();
+      locations = locations.clone();
+      codesShared = false;
+    }
+    if (bitsShared) {
+      publicBits = publicBits.clone();
+      bitsShared = false;
+    }
+    switch (property.toLowerCase()) {
+      case "name":
+        names[row] = strings.encode(newValue);
+        break;
+      case "description":
+        descriptions[row] = strings.encode(newValue);
+        break;
+      case "location":
+        locations[row] = strings.encode(newValue);
+        break;
+      case "ispublic":
+        setPublic(row, Boolean.parseBoolean(newValue));
+        break;
+      default:
+        break;
+    }
+  }
+
+  /**
+   * Returns the rows whose start lies in [minStart, maxStart] and whose end is at least minEnd, in
+   * start order with ties in row order. At most {@code limit} rows are taken from each of the
+   * sorted array and the unsorted tail.
+   */
+  private int[] matching(long minStart, long maxStart, long minEnd, int limit) {
+    int[] sorted = new int[8];
+    int sortedMatches = 0;
+    int pos = lowerBound(minStart);
+    while (pos < sortedCount && sortedMatches < limit) {
+      int block = pos >> BLOCK_SHIFT;
+      if (blockMaxEnd[block] < minEnd) {
+        pos = (block + 1) << BLOCK_SHIFT;
+        continue;
+      }
+      int row = order[pos++];
+      if (starts[row] > maxStart) {
+        break;
+      }
+      if (ends[row] >= minEnd) {
+        if (sortedMatches == sorted.length) {
+          sorted = Arrays.copyOf(sorted, sortedMatches * 2);
+        }
+        sorted[sortedMatches++] = row;
+      }
+    }
+    int[] pending = new int[size - sortedCount];
+    int pendingMatches = 0;
+    for (int row = sortedCount; row < size && pendingMatches < limit; row++) {
+      if (starts[row] >= minStart && starts[row] <= maxStart && ends[row] >= minEnd) {
+        pending[pendingMatches++] = row;
+      }
+    }
+    sortByStart(pending, pendingMatches);
+    int[] result = new int[sortedMatches + pendingMatches];
+    int i = 0;
+    int j = 0;
+    int k = 0;
+    while (i < sortedMatches || j < pendingMatches) {
+      if (j == pendingMatches || i < sortedMatches && starts[sorted[i]] <= starts[pending[j]]) {
+        result[k++] = sorted[i++];
+      } else {
+        result[k++] = pending[j++];
+      }
+    }
+    return result;
+  }
+
+  /** Returns the first position in the order array whose row starts at or after the minute. */
+  private int lowerBound(long minute) {
+    int lo = 0;
+    int hi = sortedCount;
+    while (lo < hi) {
+      int mid = (lo + hi) >>> 1;
+      if (starts[order[mid]] < minute) {
+        lo = mid + 1;
+      } else {
+        hi = mid;
+      }
+    }
+    return lo;
+  }
+
+  /** Sorts the first {@code count} rows of an array by start, keeping the order of ties. */
+  private void sortByStart(int[] rows, int count) {
+    for (int i = 1; i < count; i++) {
+      int row = rows[i];
+      int j = i;
+      while (j > 0 && starts[rows[j - 1]] > starts[row]) {
+        rows[j] = rows[j - 1];
+        j--;
+      }
+      rows[j] = row;
+    }
+  }
+
+  /** Merges the unsorted tail into the order array and rebuilds the block end times. */
+  private void mergePending() {
+    int pendingCount = size - sortedCount;
+    int[] pending = new int[pendingCount];
+    for (int i = 0; i < pendingCount; i++) {
+      pending[i] = sortedCount + i;
+    }
+    sortByStart(pending, pendingCount);
+    int[] merged = new int[size];
+    int i = 0;
+    int j = 0;
+    int k = 0;
+    while (i < sortedCount || j < pendingCount) {
+      if (j == pendingCount || i < sortedCount && starts[order[i]] <= starts[pending[j]]) {
+        merged[k++] = order[i++];
+      } else {
+        merged[k++] = pending[j++];
+      }
+    }
+    order = merged;
+    sortedCount = size;
+    blockMaxEnd = new long[(size + (1 << BLOCK_SHIFT) - 1) >> BLOCK_SHIFT];
+    Arrays.fill(blockMaxEnd, Long.MIN_VALUE);
+    for (int pos = 0; pos < size; pos++) {
+      int block = pos >> BLOCK_SHIFT;
+      blockMaxEnd[block] = Math.max(blockMaxEnd[block], ends[order[pos]]);
+    }
+  }
+
+  /** Creates an event object holding the values of a row. */
+  private Event materialize(int row) {
+    SingleEvent event =
+        new SingleEvent(
+            strings.decode(names[row]),
+            toDateTime(starts[row]),
+            toDateTime(ends[row]),
+            strings.decode(descriptions[row]),
+            strings.decode(locations[row]),
+            isPublic(row));
+    event.setId(ids[row]);
+    return event;
+  }
+
+  private boolean isPublic(int row) {
+    return (publicBits[row >> 6] & (1L << row)) != 0;
+  }
+
+  private void setPublic(int row, boolean isPublic) {
+    if (isPublic) {
+      publicBits[row >> 6] |= 1L << row;
+    } else {
+      publicBits[row >> 6] &= ~(1L << row);
+    }
+  }
+
+  private static boolean isWholeMinute(LocalDateTime dateTime) {
+    return dateTime.getSecond() == 0 && dateTime.getNano() == 0;
+  }
+
+  /** Returns the epoch minute of a date-time that falls on a whole minute. */
+  private static long toMinutes(LocalDateTime dateTime) {
+    if (!isWholeMinute(dateTime)) {
+      throw new IllegalArgumentException("Columnar storage holds times to the minute: " + dateTime);
+    }
+    return floorMinutes(dateTime);
+  }
+
+  /** Returns the epoch minute at or before a date-time. */
+  private static long floorMinutes(LocalDateTime dateTime) {
+    return Math.floorDiv(dateTime.toEpochSecond(ZoneOffset.UTC), 60);
+  }
+
+  /** Returns the epoch minute at or after a date-time. */
+  private static long ceilMinutes(LocalDateTime dateTime) {
+    return floorMinutes(dateTime) + (isWholeMinute(dateTime) ? 0 : 1);
+  }
+
+  private static long dayStart(LocalDate date) {
+    return date.toEpochDay() * 1440;
+  }
+
+  private static LocalDateTime toDateTime(long minutes) {
+    return LocalDateTime.ofEpochSecond(minutes * 60, 0, ZoneOffset.UTC);
+  }
+}
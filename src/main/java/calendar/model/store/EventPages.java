@@ -0,0 +1,73 @@
+package calendar.model.store;
+
+import calendar.model.event.Event;
+import java.util.List;
+
+/**
+ * Single events kept outside the heap, such as in a snapshot file mapped into memory, as a run of
+ * pages. Each page holds consecutive events in start order, and the page bounds are known without
+ * decoding the page, so a query can pick out the pages it needs and decode only those. First starts
+ * and the latest ends up to each page never decrease from one page to the next, so the first page
+ * a query needs is found by binary search.
+ *
+ * <p>Times are given in minutes since the epoch, rounded down.
+ */
+public interface EventPages {
+  /** Returns the number of pages. */
+  int pageCount();
+
+  /** Returns the number of events on all pages. */
+  int eventCount();
+
+  /** Returns the start of the first event on a page. */
+  long firstStart(int page);
+
+  /** Returns the latest end of any event on a page. */
+  long maxEnd(int page);
+
+  /** Returns the latest end of any event on a page or on a page before it. */
+  long maxEndThrough(int page);
+
+  /** Decodes a page into new event objects, in start order. */
+  List<Event> decode(int page);
+
+  /** Returns the page holding the event with the given id, or -1 if no event has it. */
+  int pageOfId(long id);
+
+  /**
+   * Returns the first page that may hold an event starting at or after a time, or the page count
+   * if there are no pages. Events that start together can run on from one page onto the next, so
+   * this is the page before the first whose first start is that late, if there is one.
+   */
+  default int firstPageStartingFrom(long minute) {
+    int low = 0;
+    int high = pageCount();
+    while (low < high) {
+      int mid = (low + high) >>> 1;
+      if (firstStart(mid) < minute) {
+        low = mid + 1;
+      } else {
+        high = mid;
+      }
+    }
+    return Math.max(low - 1, 0);
+  }
+
+  /**
+   * Returns the first page that may hold an event ending at or after a time, or the page count if
+   * there is none: no event on an earlier page ends that late.
+   */
+  default int firstPageEndingFrom(long minute) {
+    int low = 0;
+    int high = pageCount();
+    while (low < high) {
+      int mid = (low + high) >>> 1;
+      if (maxEndThrough(mid) < minute) {
+        low = mid + 1;
+      } else {
+        high = mid;
+      }
+    }
+    return low;
+  }
+}
@@ -0,0 +1,74 @@
+package calendar.model.store;
+
+import calendar.model.event.Event;
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.function.Consumer;
+
+/**
+ * Storage for the single events of a calendar. A calendar keeps its recurring series itself and
+ * hands every stand-alone event, including occurrences detached from a series, to its store.
+ *
+ * <p>Events are changed only through the store's edit methods, so a store is free to return copies
+ * rather than the objects it was given. An event that has been returned is never changed
+ * afterwards: edits replace the stored event, which lets a snapshot share everything that has not
+ * been edited since it was taken.
+ */
+public interface EventStore extends EventView {
+  /** Adds an event without checking for conflicts. */
+  void add(Event event);
+
+  /**
+   * Adds a batch of events, given in start order, without checking for conflicts. The indexes are
+   * updated once for the whole batch rather than once per event.
+   */
+  void addAll(List<? extends Event> events);
+
+  /** Returns the event with the given id, or null if there is none. */
+  Event findById(long id);
+
+  /**
+   * Sets a property of the event with the given id. Returns false if there is no such event.
+   */
+  boolean editById(long id, String property, String newValue);
+
+  /**
+   * Sets a property of the first event with the given name, start and end. Returns false if there
+   * is no such event.
+   */
+  boolean editMatching(
+      String name, LocalDateTime start, LocalDateTime end, String property, String newValue);
+
+  /**
+   * Sets a property of every event with the given name that starts at or after {@code from}, or of
+   * every event with the name when {@code from} is null. Returns the number of events changed.
+   */
+  default int editNamed(String name, LocalDateTime from, String property, String newValue) {
+    return editNamed(name, from, property, newValue, event -> {});
+  }
+
+  /**
+   * Sets a property like {@link #editNamed(String, LocalDateTime, String, String)}, and passes each
+   * event changed, as it was before the change, to {@code edited}.
+   */
+  int editNamed(
+      String name,
+      LocalDateTime from,
+      String property,
+      String newValue,
+      Consumer<Event> edited);
+
+  /**
+   * Returns a view of the events as they are now. Later adds and edits are not visible through it.
+   */
+  EventView snapshot();
+
+  /**
+   * Returns true if {@link #snapshot} only copies references to immutable state, so it may be
+   * taken under an optimistic stamp and kept once the stamp validates. Stores whose snapshots touch
+   * mutable state must be snapshot under a lock.
+   */
+  default boolean hasPersistentSnapshots() {
+    return false;
+  }
+}
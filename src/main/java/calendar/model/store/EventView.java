@@ -0,0 +1,45 @@
+package calendar.model.store;
+
+import calendar.model.event.Event;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.NavigableMap;
+import java.util.function.Consumer;
+
+/**
+ * Read access to a set of single events. Every {@link EventStore} is a view of its current
+ * contents, and {@link EventStore#snapshot} returns a view that keeps showing the contents as they
+ * were when it was taken.
+ *
+ * <p>Events are listed in start order, with events that start together kept in the order they
+ * were added.
+ */
+public interface EventView {
+  /** Returns the number of events. */
+  int size();
+
+  /**
+   * Passes every event that overlaps the inclusive window [from, to] to the action, in start
+   * order.
+   */
+  void forEachOverlapping(LocalDateTime from, LocalDateTime to, Consumer<Event> action);
+
+  /** Returns true if some event overlaps the inclusive window [from, to]. */
+  boolean anyOverlapping(LocalDateTime from, LocalDateTime to);
+
+  /** Returns true if some event covers the given instant. */
+  boolean covers(LocalDateTime dateTime);
+
+  /** Returns the events starting on the given date. */
+  List<Event> startingOn(LocalDate date);
+
+  /**
+   * Returns the events starting on each date from {@code from} to {@code to} inclusive, keyed by
+   * date. Dates without events are left out of the map.
+   */
+  NavigableMap<LocalDate, List<Event>> startingBetween(LocalDate from, LocalDate to);
+
+  /** Returns the first event with the given name and start time, or null if there is none. */
+  Event findByNameAndStart(String name, LocalDateTime start);
+}
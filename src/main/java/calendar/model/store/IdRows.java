@@ -0,0 +1,67 @@
+package calendar.model.store;
+
+import calendar.model.event.Event;
+
+/**
+ * The row of each event id in a {@link ColumnarEventStore}, kept in two primitive arrays with open
+ * addressing and linear probing. An entry costs twelve bytes plus its share of free slots, rather
+ * than the boxed key, boxed value and node a {@code HashMap} would allocate for it. Ids are never
+ * removed, and {@link Event#NO_ID} marks a free slot, so it cannot be added.
+ */
+final class IdRows {
+  private static final int INITIAL_CAPACITY = 16;
+
+  private long[] ids = new long[INITIAL_CAPACITY];
+  private int[] rows = new int[INITIAL_CAPACITY];
+  private int size;
+
+  /** Records the row of an id, replacing any row recorded for it before. */
+  void put(long id, int row) {
+    if (id == Event.NO_ID) {
+      throw new IllegalArgumentException("Events without an id have no row to record.");
+    }
+    // Keep at most three quarters of the slots in use, so probes stay short.
+    if ((size + 1) * 4L > ids.length * 3L) {
+      grow();
+    }
+    int slot = find(ids, id);
+    if (ids[slot] == Event.NO_ID) {
+      ids[slot] = id;
+      size++;
+    }
+    rows[slot] = row;
+  }
+
+  /** Returns the row of an id, or -1 if it has none. */
+  int get(long id) {
+    if (id == Event.NO_ID) {
+      return -1;
+    }
+    int slot = find(ids, id);
+    return ids[slot] == id ? rows[slot] : -1;
+  }
+
+  /** Returns the slot holding an id, or the free slot where it would go. */
+  private static int find(long[] ids, long id) {
+    int mask = ids.length - 1;
+    int slot = (int) ((id * 0x9E3779B97F4A7C15L) >>> 32) & mask;
+    while (ids[slot] != Event.NO_ID && ids[slot] != id) {
+      slot = (slot + 1) & mask;
+    }
+    return slot;
+  }
+
+  private void grow() {
+    long[] oldIds = ids;
+    int[] oldRows = rows;
+    ids = new long[oldIds.length * 2];
+    rows = new int[oldIds.length * 2];
+    for (int i = 0; i < oldIds.length; i++) {
+      if (oldIds[i] != Event.NO_ID) {
+        int slot = find(ids, oldIds[i]);
+        ids[slot] = oldIds[i];
+        rows[slot] = oldRows[i];
+      }
+    }
+  }
+}
@@ -0,0 +1,230 @@
+package calendar.model.store;
+
+import calendar.model.event.AbstractCalendarEvent;
+import calendar.model.event.Event;
+import calendar.model.event.SingleEvent;
+import calendar.model.index.DayIndex;
+import calendar.model.index.EventIntervalTree;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.NavigableMap;
+import java.util.Objects;
+import java.util.TreeMap;
+import java.util.function.Consumer;
+
+/**
+ * The default event store, which keeps the event objects themselves and indexes them three ways.
+ * An interval tree ordered by start time answers range and busy queries by visiting only the
+ * events that can match. A {@link DayIndex} of buckets keyed by start date answers single-day
+ * lookups with a search over dates and multi-day windows with a walk of the dates in range. A
+ * name index maps each event name to its events
+ * sorted by start, which serves the name-based edit and lookup methods. A hash map from id to
+ * event serves the id-based ones.
+ *
+ * <p>Stored events are never modified. An edit replaces the event with an edited copy in every
+ * index. The tree and the day index are persistent, so they are the state a snapshot needs, and
+ * taking one is constant time.
+ */
+public class IndexedEventStore implements EventStore {
+  private final Map<String, NavigableMap<LocalDateTime, List<Event>>> nameIndex = new HashMap<>();
+  private final Map<Event, Long> seqs = new IdentityHashMap<>();
+  private final Map<Long, Event> byId = new HashMap<>();
+  private EventIntervalTree events = EventIntervalTree.empty();
+  private DayIndex days = DayIndex.empty();
+  private long nextSeq;
+
+  @Override
+  public void add(Event event) {
+    seqs.put(event, nextSeq);
+    events = events.insert(event, nextSeq++);
+    days = days.with(event);
+    addToNameIndex(event);
+    addToIdIndex(event);
+  }
+
+  /**
+   * Adds a batch with one tree update and one day index update, which copies each bucket the
+   * batch touches once instead of placing every event separately.
+   */
+  @Override
+  public void addAll(List<? extends Event> batch) {
+    events = events.insertAll(batch, nextSeq);
+    days = days.withAll(batch);
+    for (Event event : batch) {
+      seqs.put(event, nextSeq++);
+      addToNameIndex(event);
+      addToIdIndex(event);
+    }
+  }
+
+  @Override
+  public int size() {
+    return events.size();
+  }
+
+  @Override
+  public void forEachOverlapping(LocalDateTime from, LocalDateTime to, Consumer<Event> action) {
+    events.forEachOverlapping(from, to, action);
+  }
+
+  @Override
+  public boolean anyOverlapping(LocalDateTime from, LocalDateTime to) {
+    return events.findAnyOverlapping(from, to) != null;
+  }
+
+  @Override
+  public boolean covers(LocalDateTime dateTime) {
+    return events.covers(dateTime);
+  }
+
+  @Override
+  public List<Event> startingOn(LocalDate date) {
+    return TreeEventView.startingOn(days, date);
+  }
+
+  @Override
+  public NavigableMap<LocalDate, List<Event>> startingBetween(LocalDate from, LocalDate to) {
+    return TreeEventView.startingBetween(days, from, to);
+  }
+
+  @Override
+  public Event findByNameAndStart(String name, LocalDateTime start) {
+    NavigableMap<LocalDateTime, List<Event>> byStart = nameIndex.get(name);
+    List<Event> sameStart = byStart == null ? null : byStart.get(start);
+    return sameStart == null ? null : sameStart.get(0);
+  }
+
+  @Override
+  public Event findById(long id) {
+    return byId.get(id);
+  }
+
+  @Override
+  public boolean editById(long id, String property, String newValue) {
+    Event event = byId.get(id);
+    if (event == null) {
+      return false;
+    }
+    updateProperty(event, property, newValue);
+    return true;
+  }
+
+  @Override
+  public boolean editMatching(
+      String name, LocalDateTime start, LocalDateTime end, String property, String newValue) {
+    NavigableMap<LocalDateTime, List<Event>> byStart = nameIndex.get(name);
+    List<Event> candidates = byStart == null ? null : byStart.get(start);
+    if (candidates == null) {
+      return false;
+    }
+    for (Event event : candidates) {
+      if (event.getEnd().equals(end)) {
+        updateProperty(event, property, newValue);
+        return true;
+      }
+    }
+    return false;
+  }
+
+  @Override
+  public int editNamed(
+      String name,
+      LocalDateTime from,
+      String property,
+      String newValue,
+      Consumer<Event> edited) {
+    NavigableMap<LocalDateTime, List<Event>> byStart = nameIndex.get(name);
+    if (byStart == null) {
+      return 0;
+    }
+    // Collect the matches first because a rename moves events out of the slice being walked.
+    List<Event> matches = new ArrayList<>();
+    for (List<Event> sameStart :
+        (from == null ? byStart : byStart.tailMap(from, true)).values()) {
+      matches.addAll(sameStart);
+    }
+    for (Event event : matches) {
+      updateProperty(event, property, newValue);
+      edited.accept(event);
+    }
+    return matches.size();
+  }
+
+  @Override
+  public EventView snapshot() {
+    return new TreeEventView(events, days);
+  }
+
+  @Override
+  public boolean hasPersistentSnapshots() {
+    return true;
+  }
+
+  /** Replaces an event with a copy that has the property changed, in every index. */
+  private void updateProperty(Event event, String property, String newValue) {
+    AbstractCalendarEvent edited =
+        new SingleEvent(
+            event.getName(),
+            event.getStart(),
+            event.getEnd(),
+            event.getDescription(),
+            event.getLocation(),
+            event.isPublic());
+    edited.setProperty(property, newValue);
+    edited.setId(event.getId());
+    addToIdIndex(edited);
+    long seq = seqs.remove(event);
+    seqs.put(edited, seq);
+    events = events.remove(event.getStart(), seq).insert(edited, seq);
+    days = days.replacing(event, edited);
+    if (Objects.equals(edited.getName(), event.getName())) {
+      replace(nameIndex.get(event.getName()).get(event.getStart()), event, edited);
+    } else {
+      removeFromNameIndex(event);
+      addToNameIndex(edited);
+    }
+  }
+
+  /** Replaces an event in a list with another, keeping its position. */
+  private static void replace(List<Event> list, Event event, Event replacement) {
+    for (int i = 0; i < list.size(); i++) {
+      if (list.get(i) == event) {
+        list.set(i, replacement);
+        return;
+      }
+    }
+  }
+
+  /** Adds an event to the id index if it has an id, replacing any event with the same id. */
+  private void addToIdIndex(Event event) {
+    if (event.getId() != Event.NO_ID) {
+      byId.put(event.getId(), event);
+    }
+  }
+
+  /** Adds an event to the name index. */
+  private void addToNameIndex(Event event) {
+    nameIndex
+        .computeIfAbsent(event.getName(), name -> new TreeMap<>())
+        .computeIfAbsent(event.getStart(), start -> new ArrayList<>())
+        .add(event);
+  }
+
+  /** Removes an event from the name index, dropping entries that become empty. */
+  private void removeFromNameIndex(Event event) {
+    NavigableMap<LocalDateTime, List<Event>> byStart = nameIndex.get(event.getName());
+    List<Event> sameStart = byStart.get(event.getStart());
+    sameStart.remove(event);
+    if (sameStart.isEmpty()) {
+      byStart.remove(event.getStart());
+      if (byStart.isEmpty()) {
+        nameIndex.remove(event.getName());
+      }
+    }
+  }
+}
@@ -0,0 +1,229 @@
+package calendar.model.store;
+
+import calendar.model.event.AbstractCalendarEvent;
+import calendar.model.event.Event;
+import calendar.model.event.SingleEvent;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.NavigableMap;
+import java.util.Objects;
+import java.util.function.Consumer;
+
+/**
+ * An event store for a calendar opened from a file without reading the whole file. The events
+ * saved in the file stay there, as {@link EventPages}, and a page is decoded only when a query
+ * reaches it; a small cache keeps the pages used most recently, so the heap holds the part of the
+ * calendar in use. Events added afterwards are kept as objects in an {@link IndexedEventStore}.
+ *
+ * <p>The pages are never written. Editing an event on a page hides it there, by id, and adds the
+ * edited copy to the indexed store, so an edited event comes after the events that start at the
+ * same time rather than keeping its place among them. The hidden ids are stamped in the order they
+ * were hidden, so a snapshot keeps references and a count rather than a copy of them.
+ */
+public class MappedEventStore implements EventStore {
+  private static final EventPages NO_PAGES =
+      new EventPages() {
+        @Override
+        public int pageCount() {
+          return 0;
+        }
+
+        @Override
+        public int eventCount() {
+          return 0;
+        }
+
+        @Override
+        public long firstStart(int page) {
+          throw new IndexOutOfBoundsException();
+        }
+
+        @Override
+        public long maxEnd(int page) {
+          throw new IndexOutOfBoundsException();
+        }
+
+        @Override
+        public long maxEndThrough(int page) {
+          throw new IndexOutOfBoundsException();
+        }
+
+        @Override
+        public List<Event> decode(int page) {
+          throw new IndexOutOfBoundsException();
+        }
+
+        @Override
+        public int pageOfId(long id) {
+          return -1;
+        }
+      };
+
+  private final IndexedEventStore added = new IndexedEventStore();
+  private final ReplacedIds replaced = new ReplacedIds();
+  private PageCache base = new PageCache(NO_PAGES);
+  private MappedEventView view = new MappedEventView(base, replaced, added);
+
+  /**
+   * Makes the events on the given pages the store's saved events. Every event on the pages must
+   * have an id.
+   *
+   * @throws IllegalStateException if the store already has events
+   */
+  public void attach(EventPages pages) {
+    if (size() != 0) {
+      throw new IllegalStateException("Pages can only be attached to an empty store.");
+    }
+    base = new PageCache(pages);
+    view = new MappedEventView(base, replaced, added);
+  }
+
+  @Override
+  public void add(Event event) {
+    added.add(event);
+  }
+
+  @Override
+  public void addAll(List<? extends Event> events) {
+    added.addAll(events);
+  }
+
+  @Override
+  public int size() {
+    return view.size();
+  }
+
+  @Override
+  public void forEachOverlapping(LocalDateTime from, LocalDateTime to, Consumer<Event> action) {
+    view.forEachOverlapping(from, to, action);
+  }
+
+  @Override
+  public boolean anyOverlapping(LocalDateTime from, LocalDateTime to) {
+    return view.anyOverlapping(from, to);
+  }
+
+  @Override
+  public boolean covers(LocalDateTime dateTime) {
+    return view.covers(dateTime);
+  }
+
+  @Override
+  public List<Event> startingOn(LocalDate date) {
+    return view.startingOn(date);
+  }
+
+  @Override
+  public NavigableMap<LocalDate, List<Event>> startingBetween(LocalDate from, LocalDate to) {
+    return view.startingBetween(from, to);
+  }
+
+  @Override
+  public Event findByNameAndStart(String name, LocalDateTime start) {
+    return view.findByNameAndStart(name, start);
+  }
+
+  @Override
+  public Event findById(long id) {
+    Event event = added.findById(id);
+    return event != null ? event : findOnPages(id);
+  }
+
+  @Override
+  public boolean editById(long id, String property, String newValue) {
+    if (added.editById(id, property, newValue)) {
+      return true;
+    }
+    Event event = findOnPages(id);
+    if (event == null) {
+      return false;
+    }
+    replace(event, property, newValue);
+    return true;
+  }
+
+  @Override
+  public boolean editMatching(
+      String name, LocalDateTime start, LocalDateTime end, String property, String newValue) {
+    List<Event> candidates = new ArrayList<>();
+    view.forEachOnPagesStartingBetween(start, start, candidates::add);
+    for (Event event : candidates) {
+      if (Objects.equals(event.getName(), name) && event.getEnd().equals(end)) {
+        replace(event, property, newValue);
+        return true;
+      }
+    }
+    return added.editMatching(name, start, end, property, newValue);
+  }
+
+  @Override
+  public int editNamed(
+      String name,
+      LocalDateTime from,
+      String property,
+      String newValue,
+      Consumer<Event> edited) {
+    // Edit the indexed store first so that the copies of page events added below are not edited
+    // a second time.
+    int count = added.editNamed(name, from, property, newValue, edited);
+    List<Event> matches = new ArrayList<>();
+    view.forEachOnPagesStartingBetween(
+        from == null ? LocalDateTime.MIN : from,
+        LocalDateTime.MAX,
+        e -> {
+          if (Objects.equals(e.getName(), name)) {
+            matches.add(e);
+          }
+        });
+    for (Event event : matches) {
+      replace(event, property, newValue);
+      edited.accept(event);
+    }
+    return count + matches.size();
+  }
+
+  @Override
+  public EventView snapshot() {
+    return new MappedEventView(base, replaced.snapshot(), added.snapshot());
+  }
+
+  @Override
+  public boolean hasPersistentSnapshots() {
+    return true;
+  }
+
+  /** Returns the visible event on a page with the given id, or null. */
+  private Event findOnPages(long id) {
+    if (replaced.contains(id)) {
+      return null;
+    }
+    int page = base.pages().pageOfId(id);
+    if (page < 0) {
+      return null;
+    }
+    for (Event event : base.page(page)) {
+      if (event.getId() == id) {
+        return event;
+      }
+    }
+    return null;
+  }
+
+  /** Hides an event on a page and adds a copy with the property changed in its place. */
+  private void replace(Event event, String property, String newValue) {
+    AbstractCalendarEvent edited =
+        new SingleEvent(
+            event.getName(),
+            event.getStart(),
+            event.getEnd(),
+            event.getDescription(),
+            event.getLocation(),
+            event.isPublic());
+    edited.setProperty(property, newValue);
+    edited.setId(event.getId());
+    replaced.add(event.getId());
+    added.add(edited);
+  }
+}
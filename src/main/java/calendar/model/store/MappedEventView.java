@@ -0,0 +1,182 @@
+package calendar.model.store;
+
+import calendar.model.event.Event;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.time.LocalTime;
+import java.time.ZoneOffset;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.NavigableMap;
+import java.util.Objects;
+import java.util.TreeMap;
+import java.util.function.Consumer;
+
+/**
+ * A view of the events of a {@link MappedEventStore}: the events on its pages, less those replaced
+ * by edits, together with the events it keeps as objects. A query finds the first page it needs by
+ * binary search of the page bounds, decodes only the pages from there whose bounds overlap the
+ * window it asks about, then merges their events with the others in start order. Events on pages
+ * come first among events that start together.
+ */
+final class MappedEventView implements EventView {
+  private final PageCache base;
+  private final ReplacedIds replaced;
+  private final EventView added;
+
+  MappedEventView(PageCache base, ReplacedIds replaced, EventView added) {
+    this.base = base;
+    this.replaced = replaced;
+    this.added = added;
+  }
+
+  @Override
+  public int size() {
+    return base.pages().eventCount() - replaced.size() + added.size();
+  }
+
+  @Override
+  public void forEachOverlapping(LocalDateTime from, LocalDateTime to, Consumer<Event> action) {
+    List<Event> fromPages = new ArrayList<>();
+    forEachOnPagesOverlapping(from, to, fromPages::add);
+    List<Event> fromAdded = new ArrayList<>();
+    added.forEachOverlapping(from, to, fromAdded::add);
+    merge(fromPages, fromAdded, action);
+  }
+
+  @Override
+  public boolean anyOverlapping(LocalDateTime from, LocalDateTime to) {
+    if (added.anyOverlapping(from, to)) {
+      return true;
+    }
+    EventPages pages = base.pages();
+    long lo = minutes(from);
+    long hi = minutes(to);
+    for (int page = pages.firstPageEndingFrom(lo);
+        page < pages.pageCount() && pages.firstStart(page) <= hi;
+        page++) {
+      if (pages.maxEnd(page) >= lo) {
+        for (Event event : base.page(page)) {
+          if (overlaps(event, from, to) && isVisible(event)) {
+            return true;
+          }
+        }
+      }
+    }
+    return false;
+  }
+
+  @Override
+  public boolean covers(LocalDateTime dateTime) {
+    return anyOverlapping(dateTime, dateTime);
+  }
+
+  @Override
+  public List<Event> startingOn(LocalDate date) {
+    List<Event> fromPages = new ArrayList<>();
+    forEachOnPagesStartingBetween(date.atStartOfDay(), date.atTime(LocalTime.MAX), fromPages::add);
+    List<Event> result = new ArrayList<>();
+    merge(fromPages, added.startingOn(date), result::add);
+    return result;
+  }
+
+  @Override
+  public NavigableMap<LocalDate, List<Event>> startingBetween(LocalDate from, LocalDate to) {
+    NavigableMap<LocalDate, List<Event>> result = new TreeMap<>();
+    forEachOnPagesStartingBetween(
+        from.atStartOfDay(),
+        to.atTime(LocalTime.MAX),
+        e -> result.computeIfAbsent(e.getStart().toLocalDate(), d -> new ArrayList<>()).add(e));
+    for (Map.Entry<LocalDate, List<Event>> entry : added.startingBetween(from, to).entrySet()) {
+      List<Event> fromPages = result.get(entry.getKey());
+      if (fromPages == null) {
+        result.put(entry.getKey(), entry.getValue());
+      } else {
+        List<Event> merged = new ArrayList<>();
+        merge(fromPages, entry.getValue(), merged::add);
+        result.put(entry.getKey(), merged);
+      }
+    }
+    return result;
+  }
+
+  @Override
+  public Event findByNameAndStart(String name, LocalDateTime start) {
+    Event[] found = new Event[1];
+    forEachOnPagesStartingBetween(
+        start,
+        start,
+        e -> {
+          if (found[0] == null && Objects.equals(e.getName(), name)) {
+            found[0] = e;
+          }
+        });
+    return found[0] != null ? found[0] : added.findByNameAndStart(name, start);
+  }
+
+  /** Returns true unless an event on a page has been replaced by an edited copy. */
+  boolean isVisible(Event event) {
+    return !replaced.contains(event.getId());
+  }
+
+  /** Passes the visible events on pages that overlap [from, to] to the action, in start order. */
+  void forEachOnPagesOverlapping(LocalDateTime from, LocalDateTime to, Consumer<Event> action) {
+    EventPages pages = base.pages();
+    long lo = minutes(from);
+    long hi = minutes(to);
+    for (int page = pages.firstPageEndingFrom(lo);
+        page < pages.pageCount() && pages.firstStart(page) <= hi;
+        page++) {
+      if (pages.maxEnd(page) >= lo) {
+        for (Event event : base.page(page)) {
+          if (overlaps(event, from, to) && isVisible(event)) {
+            action.accept(event);
+          }
+        }
+      }
+    }
+  }
+
+  /** Passes the visible events on pages that start in [from, to] to the action, in start order. */
+  void forEachOnPagesStartingBetween(
+      LocalDateTime from, LocalDateTime to, Consumer<Event> action) {
+    EventPages pages = base.pages();
+    long lo = minutes(from);
+    long hi = minutes(to);
+    for (int page = pages.firstPageStartingFrom(lo);
+        page < pages.pageCount() && pages.firstStart(page) <= hi;
+        page++) {
+      for (Event event : base.page(page)) {
+        if (!event.getStart().isBefore(from)
+            && !event.getStart().isAfter(to)
+            && isVisible(event)) {
+          action.accept(event);
+        }
+      }
+    }
+  }
+
+  /** Passes the events of two lists in start order to the action, the first list's first. */
+  private static void merge(List<Event> first, List<Event> second, Consumer<Event> action) {
+    int i = 0;
+    int j = 0;
+    while (i < first.size() || j < second.size()) {
+      if (j == second.size()
+          || i < first.size() && !first.get(i).getStart().isAfter(second.get(j).getStart())) {
+        action.accept(first.get(i++));
+      } else {
+        action.accept(second.get(j++));
+      }
+    }
+  }
+
+  private static boolean overlaps(Event event, LocalDateTime from, LocalDateTime to) {
+    return !event.getStart().isAfter(to) && !event.getEnd().isBefore(from);
+  }
+
+  /** Returns the epoch minute a date-time falls in. */
+  private static long minutes(LocalDateTime dateTime) {
+    return Math.floorDiv(dateTime.toEpochSecond(ZoneOffset.UTC), 60);
+  }
+}
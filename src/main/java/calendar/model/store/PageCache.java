@@ -0,0 +1,43 @@
+package calendar.model.store;
+
+import calendar.model.event.Event;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Keeps the most recently used pages of an {@link EventPages} decoded, up to a fixed number, so
+ * the events held on the heap follow the part of a calendar in use rather than its size. Pages
+ * never change, so one cache is shared by a store and all its snapshots.
+ */
+final class PageCache {
+  private static final int CACHED_PAGES = 64;
+
+  private final EventPages pages;
+  private final Map<Integer, List<Event>> decoded =
+      new LinkedHashMap<>(CACHED_PAGES * 2, 0.75f, true) {
+        @Override
+        protected boolean removeEldestEntry(Map.Entry<Integer, List<Event>> eldest) {
+          return size() > CACHED_PAGES;
+        }
+      };
+
+  PageCache(EventPages pages) {
+    this.pages = pages;
+  }
+
+  EventPages pages() {
+    return pages;
+  }
+
+  /** Returns the events on a page, decoding it if it is not cached. */
+  synchronized List<Event> page(int page) {
+    List<Event> events = decoded.get(page);
+    if (events == null) {
+      events = Collections.unmodifiableList(pages.decode(page));
+      decoded.put(page, events);
+    }
+    return events;
+  }
+}
@@ -0,0 +1,55 @@
+package calendar.model.store;
+
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * The ids of the events on a {@link MappedEventStore}'s pages that edits have replaced. Ids are
+ * only ever added, and each is stamped with the number of ids added before it, so the set as it
+ * stood at any point is the ids stamped below its size then. A {@link #snapshot} therefore keeps
+ * the map and that size rather than copying the ids.
+ */
+final class ReplacedIds {
+  private final Map<Long, Integer> stamps;
+  private final boolean frozen;
+  private volatile int size;
+
+  ReplacedIds() {
+    this(new ConcurrentHashMap<>(), 0, false);
+  }
+
+  private ReplacedIds(Map<Long, Integer> stamps, int size, boolean frozen) {
+    this.stamps = stamps;
+    this.size = size;
+    this.frozen = frozen;
+  }
+
+  int size() {
+    return size;
+  }
+
+  boolean contains(long id) {
+    Integer stamp = stamps.get(id);
+    return stamp != null && stamp < size;
+  }
+
+  /**
+   * Adds an id, if it is not there already.
+   *
+   * @throws IllegalStateException if this is a snapshot
+   */
+  void add(long id) {
+    if (frozen) {
+      throw new IllegalStateException("A snapshot of replaced ids cannot change.");
+    }
+    // Stamp before growing, so a snapshot taken in between does not see the id.
+    if (stamps.putIfAbsent(id, size) == null) {
+      size++;
+    }
+  }
+
+  /** Returns the ids replaced so far, unaffected by later additions. */
+  ReplacedIds snapshot() {
+    return new ReplacedIds(stamps, size, true);
+  }
+}
@@ -0,0 +1,29 @@
+package calendar.model.store;
+
+/** The kinds of event store a calendar can keep its single events in. */
+public enum StorageType {
+  /** Event objects indexed by an interval tree, start date and name. */
+  INDEXED,
+  /** Primitive columns of epoch minutes and dictionary codes. */
+  COLUMNAR,
+  /**
+   * Events left in a snapshot file mapped into memory and decoded a page at a time, with events
+   * added later kept as indexed objects. An empty mapped store behaves like an indexed one.
+   */
+  MAPPED;
+
+  /**
+   * Returns a new, empty store of this type. A columnar store encodes its strings with the given
+   * dictionary.
+   */
+  public EventStore newStore(StringDictionary strings) {
+    switch (this) {
+      case COLUMNAR:
+        return new ColumnarEventStore(strings);
+      case MAPPED:
+        return new MappedEventStore();
+      default:
+        return new IndexedEventStore();
+    }
+  }
+}
@@ -0,0 +1,106 @@
+package calendar.model.store;
+
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * Maps strings to small integer codes and back. Every distinct string is stored once, so a column
+ * of codes costs four bytes per row however long or repetitive the strings are. Codes are handed
+ * out in the order strings are first seen and are never reused. Null is encoded as {@link #NULL}.
+ *
+ * <p>The dictionary also interns strings: {@link #intern} returns the one stored instance equal to
+ * its argument, so values that repeat across many events share a single object.
+ *
+ * <p>Strings are only ever appended, so a {@link #snapshot} can share the string table with the
+ * live dictionary and decode every code that existed when it was taken.
+ */
+public class StringDictionary {
+  /** The code of the null string. */
+  public static final int NULL = -1;
+
+  /** The code returned by {@link #lookup} for a string that has never been encoded. */
+  public static final int ABSENT = -2;
+
+  private final Map<String, Integer> codes;
+  private String[] strings;
+  private int size;
+  private long internRequests;
+
+  /** Constructs an empty dictionary. */
+  public StringDictionary() {
+    this.codes = new HashMap<>();
+    this.strings = new String[16];
+  }
+
+  /** Constructs a read-only dictionary that decodes the first {@code size} codes of a table. */
+  private StringDictionary(String[] strings, int size, long internRequests) {
+    this.codes = null;
+    this.strings = strings;
+    this.size = size;
+    this.internRequests = internRequests;
+  }
+
+  /** Returns the code of a string, assigning a new code if the string has not been seen. */
+  public int encode(String value) {
+    if (value == null) {
+      return NULL;
+    }
+    Integer code = codes.get(value);
+    if (code == null) {
+      if (size == strings.length) {
+        strings = Arrays.copyOf(strings, size * 2);
+      }
+      code = size;
+      codes.put(value, code);
+      strings[size++] = value;
+    }
+    return code;
+  }
+
+  /** Returns the code of a string without assigning one, or {@link #ABSENT} if it has none. */
+  public int lookup(String value) {
+    if (value == null) {
+      return NULL;
+    }
+    Integer code = codes.get(value);
+    return code == null ? ABSENT : code;
+  }
+
+  /** Returns the stored instance equal to a string, adding the string if it has not been seen. */
+  public String intern(String value) {
+    if (value == null) {
+      return null;
+    }
+    internRequests++;
+    // Encode first: it may replace the table, which must not be read until it has.
+    int code = encode(value);
+    return strings[code];
+  }
+
+  /**
+   * Returns the average number of interned values that share each stored string, or 1 if nothing
+   * has been interned. A ratio of 10 means every stored string stands in for ten values.
+   */
+  public double dedupRatio() {
+    return internRequests == 0 ? 1 : (double) internRequests / size;
+  }
+
+  /** Returns the string with the given code. */
+  public String decode(int code) {
+    return code == NULL ? null : strings[code];
+  }
+
+  /** Returns the number of distinct strings in the dictionary. */
+  public int size() {
+    return size;
+  }
+
+  /**
+   * Returns a read-only dictionary that decodes the codes assigned so far. Its encode, lookup and
+   * intern methods must not be called.
+   */
+  public StringDictionary snapshot() {
+    return new StringDictionary(strings, size, internRequests);
+  }
+}
@@ -0,0 +1,83 @@
+package calendar.model.store;
+
+import calendar.model.event.Event;
+import calendar.model.index.DayIndex;
+import calendar.model.index.EventIntervalTree;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.NavigableMap;
+import java.util.Objects;
+import java.util.TreeMap;
+import java.util.function.Consumer;
+
+/**
+ * A view of the events in one version of a persistent interval tree and the day index built
+ * alongside it. Day queries read the day index and every other query the tree, so the view is
+ * unaffected by later changes to the store it came from.
+ */
+final class TreeEventView implements EventView {
+  private final EventIntervalTree events;
+  private final DayIndex days;
+
+  TreeEventView(EventIntervalTree events, DayIndex days) {
+    this.events = events;
+    this.days = days;
+  }
+
+  @Override
+  public int size() {
+    return events.size();
+  }
+
+  @Override
+  public void forEachOverlapping(LocalDateTime from, LocalDateTime to, Consumer<Event> action) {
+    events.forEachOverlapping(from, to, action);
+  }
+
+  @Override
+  public boolean anyOverlapping(LocalDateTime from, LocalDateTime to) {
+    return events.findAnyOverlapping(from, to) != null;
+  }
+
+  @Override
+  public boolean covers(LocalDateTime dateTime) {
+    return events.covers(dateTime);
+  }
+
+  @Override
+  public List<Event> startingOn(LocalDate date) {
+    return startingOn(days, date);
+  }
+
+  @Override
+  public NavigableMap<LocalDate, List<Event>> startingBetween(LocalDate from, LocalDate to) {
+    return startingBetween(days, from, to);
+  }
+
+  @Override
+  public Event findByNameAndStart(String name, LocalDateTime start) {
+    List<Event> sameStart = new ArrayList<>();
+    events.forEachStartingBetween(start, start, sameStart::add);
+    for (Event event : sameStart) {
+      if (Objects.equals(event.getName(), name)) {
+        return event;
+      }
+    }
+    return null;
+  }
+
+  /** Returns a copy of the bucket for a date, which callers may change. */
+  static List<Event> startingOn(DayIndex days, LocalDate date) {
+    return new ArrayList<>(days.on(date));
+  }
+
+  /** Returns copies of the buckets for the dates in [from, to] that have events. */
+  static NavigableMap<LocalDate, List<Event>> startingBetween(
+      DayIndex days, LocalDate from, LocalDate to) {
+    NavigableMap<LocalDate, List<Event>> result = new TreeMap<>();
+    days.forEachBetween(from, to, (date, bucket) -> result.put(date, new ArrayList<>(bucket)));
+    return result;
+  }
+}
@@ -56,13 +56,17 @@ public class CopyEventDialog extends JDialog {
    */
   private JPanel createSingleEventPanel() {
     JPanel panel = new JPanel(new GridLayout(0, 2, 5, 5));
+    JTextField idField = new JTextField(20);
     JTextField nameField = new JTextField(20);
+    NameCompletion.attach(nameField, controller);
     JTextField sourceDateTimeField = new JTextField(15);
     JTextField targetCalField = new JTextField(20);
     JTextField targetDateTimeField = new JTextField(15);
     JButton copyButton = new JButton("Copy Single Event");
     JButton cancelButton = new JButton("Cancel");
 
+    panel.add(new JLabel("Event Id (or name and source below):"));
+    panel.add(idField);
     panel.add(new JLabel("Event Name:"));
     panel.add(nameField);
     panel.add(new JLabel("Source DateTime (yyyy-MM-dd'T'HH:mm):"));
@@ -76,17 +80,25 @@ public class CopyEventDialog extends JDialog {
 
     copyButton.addActionListener(
         (ActionEvent e) -> {
+          String id = idField.getText().trim();
           String name = nameField.getText().trim();
           String sourceDT = sourceDateTimeField.getText().trim();
           String targetCal = targetCalField.getText().trim();
           String targetDT = targetDateTimeField.getText().trim();
-          if (name.isEmpty() || sourceDT.isEmpty() || targetCal.isEmpty() || targetDT.isEmpty()) {
+          boolean byId = !id.isEmpty();
+          if (!byId && (name.isEmpty() || sourceDT.isEmpty())
+              || targetCal.isEmpty()
+              || targetDT.isEmpty()) {
             JOptionPane.showMessageDialog(
                 this, "Please fill all fields.", "Error", JOptionPane.ERROR_MESSAGE);
             return;
           }
           try {
-            controller.copyEvent(name, sourceDT, targetCal, targetDT);
+            if (byId) {
+              controller.copyEventById(Long.parseLong(id), targetCal, targetDT);
+            } else {
+              controller.copyEvent(name, sourceDT, targetCal, targetDT);
+            }
             JOptionPane.showMessageDialog(this, "Single event copied successfully!");
             dispose();
           } catch (Exception ex) {
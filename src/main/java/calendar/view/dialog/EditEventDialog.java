@@ -16,6 +16,7 @@ import javax.swing.JTextField;
  */
 public class EditEventDialog extends JDialog {
   private final CalendarController controller;
+  private JTextField idField;
   private JTextField nameField;
   private JTextField startField; // expects yyyy-MM-dd'T'HH:mm format
   private JTextField endField; // expects yyyy-MM-dd'T'HH:mm format
@@ -36,7 +37,9 @@ public class EditEventDialog extends JDialog {
 
   /** Initializes the dialog components and layout. */
   private void initComponents() {
+    idField = new JTextField(20);
     nameField = new JTextField(20);
+    NameCompletion.attach(nameField, controller);
     startField = new JTextField(15);
     endField = new JTextField(15);
     propertyField = new JTextField(10);
@@ -45,6 +48,8 @@ public class EditEventDialog extends JDialog {
     JButton cancelButton = new JButton("Cancel");
 
     JPanel panel = new JPanel(new GridLayout(0, 2, 5, 5));
+    panel.add(new JLabel("Event Id (or name and times below):"));
+    panel.add(idField);
     panel.add(new JLabel("Event Name:"));
     panel.add(nameField);
     panel.add(new JLabel("Start DateTime (yyyy-MM-dd'T'HH:mm):"));
@@ -64,11 +69,26 @@ public class EditEventDialog extends JDialog {
 
     saveButton.addActionListener(
         (ActionEvent e) -> {
+          String id = idField.getText().trim();
           String name = nameField.getText().trim();
           String startDT = startField.getText().trim();
           String endDT = endField.getText().trim();
           String property = propertyField.getText().trim();
           String newValue = newValueField.getText().trim();
+          if (!id.isEmpty() && !property.isEmpty() && !newValue.isEmpty()) {
+            try {
+              controller.editEventById(property, Long.parseLong(id), newValue);
+              JOptionPane.showMessageDialog(this, "Event edited successfully!");
+              dispose();
+            } catch (Exception ex) {
+              JOptionPane.showMessageDialog(
+                  this,
+                  "Error editing event: " + ex.getMessage(),
+                  "Error",
+                  JOptionPane.ERROR_MESSAGE);
+            }
+            return;
+          }
           if (name.isEmpty()
               || startDT.isEmpty()
               || endDT.isEmpty()
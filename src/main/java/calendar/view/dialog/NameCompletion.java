@@ -0,0 +1,76 @@
+package calendar.view.dialog;
+
+import calendar.controller.CalendarController;
+import java.util.List;
+import javax.swing.JMenuItem;
+import javax.swing.JPopupMenu;
+import javax.swing.JTextField;
+import javax.swing.SwingUtilities;
+import javax.swing.event.DocumentEvent;
+import javax.swing.event.DocumentListener;
+
+/**
+ * Offers the names of existing events below an event name field as the user types, the most
+ * common first. Choosing one fills in the field, so edits and copies by name need not be typed
+ * exactly.
+ */
+final class NameCompletion implements DocumentListener {
+  private static final int SUGGESTIONS = 8;
+
+  private final JTextField field;
+  private final CalendarController controller;
+  private final JPopupMenu popup = new JPopupMenu();
+  private boolean filling;
+
+  private NameCompletion(JTextField field, CalendarController controller) {
+    this.field = field;
+    this.controller = controller;
+    popup.setFocusable(false);
+  }
+
+  /** Adds name completion to a text field. */
+  static void attach(JTextField field, CalendarController controller) {
+    field.getDocument().addDocumentListener(new NameCompletion(field, controller));
+  }
+
+  @Override
+  public void insertUpdate(DocumentEvent e) {
+    SwingUtilities.invokeLater(this::suggest);
+  }
+
+  @Override
+  public void removeUpdate(DocumentEvent e) {
+    SwingUtilities.invokeLater(this::suggest);
+  }
+
+  @Override
+  public void changedUpdate(DocumentEvent e) {}
+
+  /** Shows the names starting with the field's text, or hides the list if there are none. */
+  private void suggest() {
+    String prefix = field.getText();
+    popup.setVisible(false);
+    if (filling || prefix.isEmpty() || !field.isShowing()) {
+      return;
+    }
+    List<String> names = controller.completeEventNames(prefix, SUGGESTIONS);
+    if (names.isEmpty() || names.equals(List.of(prefix))) {
+      return;
+    }
+    popup.removeAll();
+    for (String name : names) {
+      JMenuItem item = new JMenuItem(name);
+      item.addActionListener(e -> fill(name));
+      popup.add(item);
+    }
+    popup.pack();
+    popup.show(field, 0, field.getHeight());
+  }
+
+  private void fill(String name) {
+    filling = true;
+    field.setText(name);
+    SwingUtilities.invokeLater(() -> filling = false);
+    popup.setVisible(false);
+  }
+}
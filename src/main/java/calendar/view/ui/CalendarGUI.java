@@ -1,6 +1,8 @@
 package calendar.view.ui;
 
 import calendar.controller.CalendarController;
+import calendar.model.change.CalendarChange;
+import calendar.model.change.ChangeType;
 import calendar.model.event.Event;
 import calendar.view.views.CalendarView;
 import java.awt.BorderLayout;
@@ -10,9 +12,14 @@ import java.util.List;
 import javax.swing.JFileChooser;
 import javax.swing.JFrame;
 import javax.swing.JOptionPane;
+import javax.swing.SwingUtilities;
 
 /**
  * A graphical user interface for the Calendar Application.
+ *
+ * <p>The window listens for changes to the calendars and updates only what a change touched: the
+ * days of the month on show that it affects and, if it affects the selected day, the day's event
+ * list. Switching calendars or months still redraws everything.
  */
 public class CalendarGUI extends JFrame {
 
@@ -74,6 +81,33 @@ public class CalendarGUI extends JFrame {
 
     // FIX: Draw the month view initially so that day buttons appear on launch.
     monthPanel.drawMonth(currentDate);
+
+    controller.addChangeListener(
+        change -> {
+          if (SwingUtilities.isEventDispatchThread()) {
+            applyChange(change);
+          } else {
+            SwingUtilities.invokeLater(() -> applyChange(change));
+          }
+        });
+  }
+
+  /** Updates the parts of the window a change to the calendars affects. */
+  private void applyChange(CalendarChange change) {
+    String active = controller.getCurrentCalendarName();
+    if (change.getTypes().contains(ChangeType.CALENDAR)
+        && (change.getCalendarName() == null || change.getCalendarName().equals(active))) {
+      refreshView();
+      return;
+    }
+    if (!active.equals(change.getCalendarName()) || change.getFrom() == null) {
+      return;
+    }
+    monthPanel.refreshDays(change.getFrom(), change.getTo());
+    if (currentSelectedDate != null
+        && change.affects(currentSelectedDate, currentSelectedDate)) {
+      displayEventsForDay(currentSelectedDate);
+    }
   }
 
   /**
@@ -140,7 +174,6 @@ public class CalendarGUI extends JFrame {
       try {
         int count = controller.importCalendar(path);
         JOptionPane.showMessageDialog(this, "Import successful. " + count + " events imported.");
-        monthPanel.drawMonth(currentDate);
       } catch (Exception ex) {
         JOptionPane.showMessageDialog(
             this, "Error importing: " + ex.getMessage(), "Error", JOptionPane.ERROR_MESSAGE);
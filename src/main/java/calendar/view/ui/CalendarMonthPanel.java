@@ -6,7 +6,9 @@ import java.awt.Color;
 import java.awt.GridLayout;
 import java.awt.event.ActionEvent;
 import java.time.LocalDate;
+import java.util.HashMap;
 import java.util.List;
+import java.util.Map;
 import javax.swing.BorderFactory;
 import javax.swing.JButton;
 import javax.swing.JLabel;
@@ -21,6 +23,7 @@ public class CalendarMonthPanel extends JPanel {
 
   private final Color lavender = new Color(230, 230, 250);
   private final CalendarController controller;
+  private final Map<LocalDate, JButton> dayButtons = new HashMap<>();
   private DaySelectedListener daySelectedListener;
 
   /**
@@ -49,6 +52,7 @@ public class CalendarMonthPanel extends JPanel {
    */
   public void drawMonth(LocalDate currentDate) {
     removeAll();
+    dayButtons.clear();
 
     // Create day-of-week headers.
     String[] headers = {"Sun", "Mon", "Tue", "Wed", "Thu", "Fri", "Sat"};
@@ -72,25 +76,50 @@ public class CalendarMonthPanel extends JPanel {
       dayButton.setOpaque(true);
       dayButton.setContentAreaFilled(true);
       LocalDate date = currentDate.withDayOfMonth(day);
-      try {
-        List<Event> events = controller.getEventsOn(date.toString());
-        if (!events.isEmpty()) {
-          dayButton.setBackground(lavender);
-        } else {
-          dayButton.setBackground(UIManager.getColor("Button.background"));
-        }
-      } catch (Exception ex) {
-        dayButton.setBackground(lavender);
-      }
       dayButton.addActionListener(
           (ActionEvent e) -> {
             if (daySelectedListener != null) {
               daySelectedListener.onDaySelected(date);
             }
           });
+      dayButtons.put(date, dayButton);
       add(dayButton);
     }
+    refreshDays(firstOfMonth, currentDate.withDayOfMonth(daysInMonth));
     revalidate();
+  }
+
+  /**
+   * Recolors the days from {@code from} to {@code to} that are on show, looking up only those days,
+   * for when a change touched just part of the month.
+   */
+  public void refreshDays(LocalDate from, LocalDate to) {
+    LocalDate first = null;
+    LocalDate last = null;
+    for (LocalDate date : dayButtons.keySet()) {
+      if (!date.isBefore(from) && !date.isAfter(to)) {
+        first = first == null || date.isBefore(first) ? date : first;
+        last = last == null || date.isAfter(last) ? date : last;
+      }
+    }
+    if (first == null) {
+      return;
+    }
+    // Look up the whole range at once rather than querying each day separately.
+    Map<LocalDate, List<Event>> eventsByDay;
+    try {
+      eventsByDay = controller.getEventsByDay(first.toString(), last.toString());
+    } catch (Exception ex) {
+      eventsByDay = null;
+    }
+    for (LocalDate date = first; !date.isAfter(last); date = date.plusDays(1)) {
+      JButton dayButton = dayButtons.get(date);
+      if (eventsByDay == null || eventsByDay.containsKey(date)) {
+        dayButton.setBackground(lavender);
+      } else {
+        dayButton.setBackground(UIManager.getColor("Button.background"));
+      }
+    }
     repaint();
   }
 
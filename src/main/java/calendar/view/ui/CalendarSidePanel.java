@@ -46,7 +46,6 @@ public class CalendarSidePanel extends JPanel {
         (ActionEvent e) -> {
           LocalDate dateForEvent = parent.getCurrentSelectedDateOrDefault();
           new CreateEventDialog(parent, controller, dateForEvent).setVisible(true);
-          parent.refreshView();
         });
 
     JPanel buttonPanel = new JPanel();
@@ -1,12 +1,22 @@
 package calendar.view.views;
 
+import calendar.model.EventCursor;
+import calendar.model.QueryCacheStats;
+import calendar.model.RangeStats;
+import calendar.model.TimeSlot;
 import calendar.model.event.Event;
+import java.time.LocalDate;
 import java.time.format.DateTimeFormatter;
+import java.util.Iterator;
 import java.util.List;
+import java.util.Map;
+import java.util.stream.Stream;
 
 /** Provides static methods for formatting calendar events for display. */
 public class CalendarView {
   private static final DateTimeFormatter timeFormatter = DateTimeFormatter.ofPattern("HH:mm");
+  private static final DateTimeFormatter dateTimeFormatter =
+      DateTimeFormatter.ofPattern("yyyy-MM-dd'T'HH:mm");
 
   /**
    * Formats the events on a specific date into a displayable string.
@@ -16,12 +26,25 @@ public class CalendarView {
    * @return the formatted string representing the events and if none a message indicating so
    */
   public static String formatEventsOn(String date, List<Event> events) {
-    if (events.isEmpty()) {
+    return formatEventsOn(date, events.stream());
+  }
+
+  /**
+   * Formats the events on a specific date into a displayable string, consuming them from a stream.
+   *
+   * @param date the date as a string
+   * @param events the events on that date in start order
+   * @return the formatted string representing the events and if none a message indicating so
+   */
+  public static String formatEventsOn(String date, Stream<Event> events) {
+    Iterator<Event> it = events.iterator();
+    if (!it.hasNext()) {
       return "No events on " + date;
     }
     StringBuilder sb = new StringBuilder();
     sb.append("Events on ").append(date).append(":\n");
-    for (Event e : events) {
+    while (it.hasNext()) {
+      Event e = it.next();
       boolean isAllDay =
           (e.getStart().getHour() == 0
               && e.getStart().getMinute() == 0
@@ -41,6 +64,7 @@ public class CalendarView {
           && !e.getLocation().isEmpty()) {
         sb.append(" at ").append(e.getLocation());
       }
+      appendId(sb, e);
       sb.append("\n");
     }
     return sb.toString();
@@ -55,12 +79,26 @@ public class CalendarView {
    * @return the formatted string representing the events and if none a message indicating so
    */
   public static String formatEventsBetween(String start, String end, List<Event> events) {
-    if (events.isEmpty()) {
+    return formatEventsBetween(start, end, events.stream());
+  }
+
+  /**
+   * Formats the events between two date-times, consuming them from a stream.
+   *
+   * @param start the starting date time string
+   * @param end the ending date time string
+   * @param events the events between the given date–times in start order
+   * @return the formatted string representing the events and if none a message indicating so
+   */
+  public static String formatEventsBetween(String start, String end, Stream<Event> events) {
+    Iterator<Event> it = events.iterator();
+    if (!it.hasNext()) {
       return "No events between " + start + " and " + end;
     }
     StringBuilder sb = new StringBuilder();
     sb.append("Events from ").append(start).append(" to ").append(end).append(":\n");
-    for (Event e : events) {
+    while (it.hasNext()) {
+      Event e = it.next();
       sb.append(" - ")
           .append(e.getName())
           .append(" (")
@@ -68,7 +106,152 @@ public class CalendarView {
           .append(" to ")
           .append(timeFormatter.format(e.getEnd()))
           .append(") at ")
-          .append(e.getLocation())
+          .append(e.getLocation());
+      appendId(sb, e);
+      sb.append("\n");
+    }
+    return sb.toString();
+  }
+
+  /**
+   * Formats the events found by a next events query, with their dates since they may span days.
+   *
+   * @param after the date time string the events start at or after
+   * @param events the events in start order
+   * @return the formatted string representing the events and if none a message indicating so
+   */
+  public static String formatNextEvents(String after, List<Event> events) {
+    if (events.isEmpty()) {
+      return "No events after " + after;
+    }
+    StringBuilder sb = new StringBuilder();
+    sb.append("Next ").append(events.size()).append(" events after ").append(after).append(":\n");
+    appendDatedEvents(sb, events);
+    return sb.toString();
+  }
+
+  /**
+   * Formats the events found by a text search, with their dates since they may span days.
+   *
+   * @param query the words searched for
+   * @param events the matching events in start order
+   * @return the formatted string representing the events and if none a message indicating so
+   */
+  public static String formatSearchResults(String query, List<Event> events) {
+    if (events.isEmpty()) {
+      return "No events match \"" + query + "\"";
+    }
+    StringBuilder sb = new StringBuilder();
+    sb.append(events.size()).append(" events match \"").append(query).append("\":\n");
+    appendDatedEvents(sb, events);
+    return sb.toString();
+  }
+
+  /** Formats the event names completing a prefix, one per line. */
+  public static String formatCompletions(String prefix, List<String> names) {
+    if (names.isEmpty()) {
+      return "No event names start with \"" + prefix + "\"";
+    }
+    StringBuilder sb = new StringBuilder();
+    sb.append("Event names starting with \"").append(prefix).append("\":\n");
+    for (String name : names) {
+      sb.append(" - ").append(name).append("\n");
+    }
+    return sb.toString();
+  }
+
+  /** Appends one line per event with its start and end date-times, location and id. */
+  private static void appendDatedEvents(StringBuilder sb, List<Event> events) {
+    for (Event e : events) {
+      sb.append(" - ")
+          .append(e.getName())
+          .append(" (")
+          .append(dateTimeFormatter.format(e.getStart()))
+          .append(" to ")
+          .append(dateTimeFormatter.format(e.getEnd()))
+          .append(")");
+      if (e.getLocation() != null && !e.getLocation().isEmpty()) {
+        sb.append(" at ").append(e.getLocation());
+      }
+      appendId(sb, e);
+      sb.append("\n");
+    }
+  }
+
+  /**
+   * Formats range aggregates compactly: a summary line, then one line per bucket with its first
+   * date and event count.
+   *
+   * @param stats the aggregates to format
+   * @return the formatted summary and counts
+   */
+  public static String formatStats(RangeStats stats) {
+    StringBuilder sb = new StringBuilder();
+    sb.append("Stats from ")
+        .append(stats.getFrom())
+        .append(" to ")
+        .append(stats.getTo())
+        .append(": ")
+        .append(countOf(stats.getEventCount(), "event"))
+        .append(", ")
+        .append(countOf(stats.getBusyMinutes(), "busy minute"))
+        .append(", peak ")
+        .append(stats.getPeakConcurrency())
+        .append(" concurrent");
+    if (stats.getPeakAt() != null) {
+      sb.append(" at ").append(dateTimeFormatter.format(stats.getPeakAt()));
+    }
+    sb.append("\n");
+    String unit = stats.getBucket() == RangeStats.Bucket.WEEK ? "week of " : "";
+    for (Map.Entry<LocalDate, Integer> count : stats.getCounts().entrySet()) {
+      sb.append(unit).append(count.getKey()).append(' ').append(count.getValue()).append("\n");
+    }
+    return sb.toString();
+  }
+
+  /**
+   * Formats the hint that follows a page of events when more events remain.
+   *
+   * @param next the cursor of the next page, or null if the page was the last
+   * @return a line naming the cursor to continue from, or an empty string if none
+   */
+  public static String formatNextPage(EventCursor next) {
+    return next == null ? "" : "More events: continue with --after " + next + "\n";
+  }
+
+  /** Returns a count followed by a noun, made plural unless the count is one. */
+  private static String countOf(long count, String noun) {
+    return count + " " + noun + (count == 1 ? "" : "s");
+  }
+
+  /** Appends the id of an event, which edit and copy commands accept, if it has one. */
+  private static void appendId(StringBuilder sb, Event e) {
+    if (e.getId() != Event.NO_ID) {
+      sb.append(" [id ").append(e.getId()).append("]");
+    }
+  }
+
+  /**
+   * Formats the free slots found between two date-times.
+   *
+   * @param minutes the requested slot length in minutes
+   * @param start the starting date time string
+   * @param end the ending date time string
+   * @param slots the free slots, earliest first
+   * @return the formatted string listing the slots and if none a message indicating so
+   */
+  public static String formatFreeSlots(
+      int minutes, String start, String end, List<TimeSlot> slots) {
+    if (slots.isEmpty()) {
+      return "No free slot of " + minutes + " minutes between " + start + " and " + end;
+    }
+    StringBuilder sb = new StringBuilder();
+    sb.append("Free slots of ").append(minutes).append(" minutes:\n");
+    for (TimeSlot slot : slots) {
+      sb.append(" - ")
+          .append(dateTimeFormatter.format(slot.getStart()))
+          .append(" to ")
+          .append(dateTimeFormatter.format(slot.getEnd()))
           .append("\n");
     }
     return sb.toString();
@@ -84,4 +267,15 @@ public class CalendarView {
   public static String formatBusyStatus(String dateTime, boolean busy) {
     return "Status at " + dateTime + ": " + (busy ? "Busy" : "Available");
   }
+
+  /**
+   * Formats the query cache counters of a calendar.
+   *
+   * @param calendarName the name of the calendar
+   * @param stats the counters of its query cache
+   * @return a formatted string describing the cache
+   */
+  public static String formatQueryCacheStats(String calendarName, QueryCacheStats stats) {
+    return "Query cache of " + calendarName + ": " + stats;
+  }
 }
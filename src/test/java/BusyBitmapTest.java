@@ -0,0 +1,165 @@
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+import calendar.model.Calendar;
+import calendar.model.event.Event;
+import calendar.model.event.RecurringEvent;
+import calendar.model.event.SingleEvent;
+import calendar.model.index.BusyBitmap;
+import java.time.DayOfWeek;
+import java.time.LocalDateTime;
+import java.time.ZoneId;
+import java.util.ArrayList;
+import java.util.EnumSet;
+import java.util.List;
+import java.util.Random;
+import org.junit.Test;
+
+/** Tests for BusyBitmap. */
+public class BusyBitmapTest {
+  private static final LocalDateTime BASE = LocalDateTime.of(2025, 3, 1, 0, 0);
+
+  /** Tests marking across midnight, and that the end minute is busy but not counted. */
+  @Test
+  public void testMarkAcrossDays() {
+    BusyBitmap busy = new BusyBitmap();
+    busy.mark(BASE.plusHours(23), BASE.plusDays(2).plusMinutes(30));
+    assertFalse(busy.isBusy(BASE.plusHours(22).plusMinutes(59)));
+    assertTrue(busy.isBusy(BASE.plusHours(23)));
+    assertTrue(busy.isBusy(BASE.plusDays(1).plusHours(12)));
+    assertTrue(busy.isBusy(BASE.plusDays(2).plusMinutes(30)));
+    assertFalse(busy.isBusy(BASE.plusDays(2).plusMinutes(31)));
+    assertEquals(60 + 1440 + 30, busy.busyMinutes(BASE, BASE.plusDays(3)));
+    assertEquals(BASE.plusDays(2).plusMinutes(31), busy.firstFreeMinute(BASE.plusHours(23)));
+    assertEquals(BASE.plusHours(5), busy.firstFreeMinute(BASE.plusHours(5).plusSeconds(20)));
+  }
+
+  /** Tests that a one-hour event is 60 busy minutes though its end minute is busy. */
+  @Test
+  public void testOneHourEvent() {
+    BusyBitmap busy = new BusyBitmap();
+    busy.mark(BASE.plusHours(10), BASE.plusHours(11));
+    assertEquals(60, busy.busyMinutes(BASE, BASE.plusDays(1)));
+    assertTrue(busy.isBusy(BASE.plusHours(11)));
+    assertFalse(busy.isBusy(BASE.plusHours(11).plusMinutes(1)));
+    assertEquals(BASE.plusHours(11).plusMinutes(1), busy.firstFreeMinute(BASE.plusHours(10)));
+
+    // Back to back events share the minute one ends and the next starts.
+    busy.mark(BASE.plusHours(11), BASE.plusHours(12));
+    assertEquals(120, busy.busyMinutes(BASE, BASE.plusDays(1)));
+    busy.mark(BASE.plusHours(13), BASE.plusHours(13));
+    assertTrue(busy.isBusy(BASE.plusHours(13)));
+    assertEquals(120, busy.busyMinutes(BASE, BASE.plusDays(1)));
+  }
+
+  /** Tests that events with seconds mark only the whole minutes they cover. */
+  @Test
+  public void testPartialMinutes() {
+    BusyBitmap busy = new BusyBitmap();
+    busy.mark(BASE.plusSeconds(30), BASE.plusMinutes(2).plusSeconds(30));
+    assertFalse(busy.isBusy(BASE));
+    assertTrue(busy.isBusy(BASE.plusMinutes(1)));
+    assertTrue(busy.isBusy(BASE.plusMinutes(2)));
+    assertFalse(busy.isBusy(BASE.plusMinutes(3)));
+    busy.mark(BASE.plusMinutes(10).plusSeconds(1), BASE.plusMinutes(10).plusSeconds(59));
+    assertEquals(2, busy.busyMinutes(BASE, BASE.plusDays(1)));
+  }
+
+  /** Tests bitmap answers against the calendar's event indexes on random data. */
+  @Test
+  public void testMatchesEventIndexes() throws Exception {
+    Random random = new Random(11);
+    Calendar calendar = new Calendar("Bits", ZoneId.of("UTC"));
+    BusyBitmap busy = new BusyBitmap();
+    List<SingleEvent> events = new ArrayList<>();
+    for (int i = 0; i < 300; i++) {
+      LocalDateTime start = BASE.plusMinutes(random.nextInt(20 * 1440));
+      LocalDateTime end = start.plusMinutes(random.nextInt(600));
+      SingleEvent event = new SingleEvent("E" + i, start, end, "", "", true);
+      calendar.addEvent(event, false);
+      events.add(event);
+      busy.mark(start, end);
+    }
+    for (int q = 0; q < 2000; q++) {
+      LocalDateTime at = BASE.plusMinutes(random.nextInt(21 * 1440));
+      assertEquals(calendar.snapshot().isBusy(at), busy.isBusy(at));
+    }
+    for (int q = 0; q < 50; q++) {
+      LocalDateTime from = BASE.plusMinutes(random.nextInt(20 * 1440));
+      LocalDateTime to = from.plusMinutes(random.nextInt(3 * 1440));
+      long expected = 0;
+      LocalDateTime free = null;
+      for (LocalDateTime at = from; at.isBefore(to); at = at.plusMinutes(1)) {
+        LocalDateTime minute = at;
+        expected +=
+            events.stream()
+                    .anyMatch(e -> !e.getStart().isAfter(minute) && e.getEnd().isAfter(minute))
+                ? 1
+                : 0;
+        if (free == null && !calendar.snapshot().isBusy(at)) {
+          free = at;
+        }
+      }
+      assertEquals(expected, busy.busyMinutes(from, to));
+      if (free != null) {
+        assertEquals(free, busy.firstFreeMinute(from));
+      }
+    }
+  }
+
+  /** Tests that series, which stay out of the bitmap, are answered from their rule. */
+  @Test
+  public void testSeriesAnsweredFromRule() throws Exception {
+    Random random = new Random(5);
+    Calendar calendar = new Calendar("Rules", ZoneId.of("UTC"));
+    calendar.addRecurringEvent(
+        new RecurringEvent(
+            "Daily",
+            BASE.plusHours(9),
+            BASE.plusHours(9).plusMinutes(30),
+            "",
+            "",
+            true,
+            EnumSet.allOf(DayOfWeek.class),
+            3650),
+        false);
+    calendar.addEvent(
+        new SingleEvent("Lunch", BASE.plusHours(12), BASE.plusHours(13), "", "", true), false);
+    Event occurrence = calendar.getEventsOn(BASE.toLocalDate().plusDays(3)).get(0);
+    calendar.editEventById("location", occurrence.getId(), "Elsewhere");
+    for (int q = 0; q < 2000; q++) {
+      LocalDateTime at = BASE.plusMinutes(random.nextInt(30 * 1440));
+      assertEquals(calendar.snapshot().isBusy(at), calendar.isBusy(at));
+    }
+    assertEquals(30 * 30 + 60, calendar.getBusyMinutes(BASE, BASE.plusDays(30)));
+    assertEquals(BASE.plusHours(9).plusMinutes(31), calendar.getFirstFreeMinute(BASE.plusHours(9)));
+    assertEquals(
+        BASE.plusDays(3).plusHours(9).plusMinutes(31),
+        calendar.getFirstFreeMinute(BASE.plusDays(3).plusHours(9).plusMinutes(10)));
+  }
+
+  /** Tests that an overlay adds minutes to a day without marking it. */
+  @Test
+  public void testOverlay() {
+    BusyBitmap busy = new BusyBitmap();
+    busy.mark(BASE.plusHours(1), BASE.plusHours(2));
+    BusyBitmap.DayOverlay mornings =
+        (date, bits) ->
+            BusyBitmap.markWithinDay(bits, date.atStartOfDay(), date.atStartOfDay().plusHours(3));
+    assertTrue(busy.isBusy(BASE.plusDays(1), mornings));
+    assertFalse(busy.isBusy(BASE.plusDays(1)));
+    assertEquals(3 * 180, busy.busyMinutes(BASE, BASE.plusDays(3), mornings));
+    assertEquals(60, busy.busyMinutes(BASE, BASE.plusDays(3)));
+    assertEquals(BASE.plusHours(3).plusMinutes(1), busy.firstFreeMinute(BASE, mornings));
+  }
+
+  /** Tests that a free minute is found past fully booked days. */
+  @Test
+  public void testFirstFreeAfterFullDays() {
+    BusyBitmap busy = new BusyBitmap();
+    busy.mark(BASE, BASE.plusDays(3).plusMinutes(1439));
+    assertEquals(BASE.plusDays(4), busy.firstFreeMinute(BASE.plusHours(6)));
+    assertEquals(3 * 1440 + 1439, busy.busyMinutes(BASE, BASE.plusDays(5)));
+  }
+}
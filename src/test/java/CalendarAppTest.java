@@ -2,7 +2,9 @@ import static org.junit.Assert.assertEquals;
 import static org.junit.Assert.assertFalse;
 import static org.junit.Assert.assertNotNull;
 import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertSame;
 import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
 
 import calendar.controller.CalendarController;
 import calendar.controller.command.Command;
@@ -12,7 +14,12 @@ import calendar.controller.mode.InteractiveMode;
 import calendar.controller.mode.Mode;
 import calendar.controller.mode.ModeFactory;
 import calendar.model.Calendar;
+import calendar.model.CalendarSnapshot;
+import calendar.model.event.Event;
+import calendar.model.event.RecurringEvent;
 import calendar.model.event.SingleEvent;
+import calendar.model.store.StorageType;
+import calendar.view.exceptions.InvalidCommandException;
 import calendar.view.views.CalendarView;
 import java.io.BufferedReader;
 import java.io.ByteArrayInputStream;
@@ -22,8 +29,15 @@ import java.io.InputStream;
 import java.nio.charset.StandardCharsets;
 import java.nio.file.Files;
 import java.nio.file.Paths;
+import java.time.DayOfWeek;
+import java.time.LocalDate;
 import java.time.LocalDateTime;
 import java.time.ZoneId;
+import java.util.ArrayList;
+import java.util.EnumSet;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CopyOnWriteArrayList;
 import org.junit.Before;
 import org.junit.Test;
 
@@ -547,4 +561,544 @@ public class CalendarAppTest {
     Mode mode = modeFactory.getMode();
     assertTrue(mode instanceof HeadlessMode);
   }
+
+  /** Tests that events on a day are returned in start order. */
+  @Test
+  public void testGetEventsOnStartOrder() throws Exception {
+    controller.createSingleEvent(
+        "Late", "2025-06-01T15:00", "2025-06-01T16:00", "", "", true, false);
+    controller.createSingleEvent(
+        "Early", "2025-06-01T08:00", "2025-06-01T09:00", "", "", true, false);
+    controller.createSingleEvent(
+        "Other", "2025-06-02T08:00", "2025-06-02T09:00", "", "", true, false);
+    List<Event> events = controller.getEventsOn("2025-06-01");
+    assertEquals(2, events.size());
+    assertEquals("Early", events.get(0).getName());
+    assertEquals("Late", events.get(1).getName());
+  }
+
+  /** Tests that events by day only contains days with events inside the window. */
+  @Test
+  public void testGetEventsByDay() throws Exception {
+    controller.createSingleEvent("A", "2025-06-01T10:00", "2025-06-01T11:00", "", "", true, false);
+    controller.createSingleEvent("B", "2025-06-03T10:00", "2025-06-03T11:00", "", "", true, false);
+    controller.createSingleEvent("C", "2025-07-01T10:00", "2025-07-01T11:00", "", "", true, false);
+    Map<LocalDate, List<Event>> byDay = controller.getEventsByDay("2025-06-01", "2025-06-30");
+    assertEquals(2, byDay.size());
+    assertEquals("A", byDay.get(LocalDate.of(2025, 6, 1)).get(0).getName());
+    assertEquals("B", byDay.get(LocalDate.of(2025, 6, 3)).get(0).getName());
+    assertFalse(byDay.containsKey(LocalDate.of(2025, 7, 1)));
+  }
+
+  /** Tests that renamed events are found under their new name only. */
+  @Test
+  public void testRenameKeepsNameIndexConsistent() throws Exception {
+    controller.createRecurringEventOccurrences(
+        "Standup", "2025-06-02T09:00", "2025-06-02T09:15", "", "", true, "MTWRF", 5, false);
+    controller.editEventsFrom("name", "Standup", "2025-06-04T09:00", "Sync");
+    controller.editEvents("location", "Sync", "Room2");
+    assertEquals("Standup", controller.getEventsOn("2025-06-03").get(0).getName());
+    assertEquals("Sync", controller.getEventsOn("2025-06-04").get(0).getName());
+    assertEquals("Room2", controller.getEventsOn("2025-06-06").get(0).getLocation());
+    assertTrue(controller.getEventsOn("2025-06-03").get(0).getLocation().isEmpty());
+    controller.editSingleEvent("name", "Sync", "2025-06-05T09:00", "2025-06-05T09:15", "Review");
+    controller.copyEvent("Review", "2025-06-05T09:00", "Default", "2025-06-07T09:00");
+    assertEquals("Review", controller.getEventsOn("2025-06-07").get(0).getName());
+  }
+
+  /** Tests auto-decline against a long series, including touching end points. */
+  @Test
+  public void testAutoDeclineAgainstLongSeries() throws Exception {
+    controller.createRecurringEventOccurrences(
+        "Daily", "2025-01-01T09:00", "2025-01-01T10:00", "", "", true, "MTWRFSU", 500, true);
+    controller.createSingleEvent(
+        "Gap", "2025-03-01T10:01", "2025-03-01T10:59", "", "", true, true);
+    try {
+      controller.createSingleEvent(
+          "Touch", "2025-03-02T10:00", "2025-03-02T10:30", "", "", true, true);
+      fail("Expected a conflict.");
+    } catch (Exception e) {
+      assertEquals("Event conflict detected.", e.getMessage());
+    }
+    assertEquals(1, controller.getEventsOn("2025-03-02").size());
+  }
+
+  /** Tests that a recurring series answers queries like its expanded occurrences. */
+  @Test
+  public void testRecurringSeriesQueries() throws Exception {
+    controller.createRecurringEventUntil(
+        "Lecture",
+        "2025-09-01T10:00",
+        "2025-09-01T11:00",
+        "",
+        "Hall",
+        true,
+        "MW",
+        "2025-12-31T00:00",
+        false);
+    assertEquals(36, controller.getEventsBetween("2025-09-01T00:00", "2025-12-31T23:59").size());
+    assertEquals(1, controller.getEventsOn("2025-09-03").size());
+    assertTrue(controller.getEventsOn("2025-09-02").isEmpty());
+    assertTrue(controller.isBusy("2025-09-08T10:30"));
+    assertFalse(controller.isBusy("2025-09-09T10:30"));
+    assertFalse(controller.isBusy("2025-09-08T11:01"));
+    assertEquals(2, controller.getEventsByDay("2025-09-01", "2025-09-07").size());
+  }
+
+  /** Tests editing a single occurrence and editing a series from a date. */
+  @Test
+  public void testRecurringSeriesEdits() throws Exception {
+    controller.createRecurringEventOccurrences(
+        "Gym", "2025-09-01T07:00", "2025-09-01T08:00", "", "", true, "MTWRF", 10, false);
+    controller.editSingleEvent(
+        "location", "Gym", "2025-09-03T07:00", "2025-09-03T08:00", "Pool");
+    controller.editEventsFrom("name", "Gym", "2025-09-08T07:00", "Run");
+    assertEquals("Pool", controller.getEventsOn("2025-09-03").get(0).getLocation());
+    assertEquals("", controller.getEventsOn("2025-09-04").get(0).getLocation());
+    assertEquals("Gym", controller.getEventsOn("2025-09-05").get(0).getName());
+    assertEquals("Run", controller.getEventsOn("2025-09-08").get(0).getName());
+    assertEquals(1, controller.getEventsOn("2025-09-03").size());
+    assertEquals(10, controller.getEventsBetween("2025-09-01T00:00", "2025-09-30T00:00").size());
+    controller.editEvents("location", "Run", "Park");
+    assertEquals("Park", controller.getEventsOn("2025-09-12").get(0).getLocation());
+    assertTrue(controller.getEventsOn("2025-09-15").isEmpty());
+  }
+
+  /** Tests that a conflicting recurring event is declined as a whole. */
+  @Test
+  public void testRecurringSeriesDeclinedAsWhole() throws Exception {
+    controller.createSingleEvent(
+        "Busy", "2025-09-04T10:30", "2025-09-04T10:45", "", "", true, false);
+    try {
+      controller.createRecurringEventOccurrences(
+          "Series", "2025-09-01T10:00", "2025-09-01T11:00", "", "", true, "MTWRF", 5, true);
+      fail("Expected a conflict.");
+    } catch (Exception e) {
+      assertEquals("Event conflict detected.", e.getMessage());
+    }
+    assertTrue(controller.getEventsOn("2025-09-01").isEmpty());
+  }
+
+  /** Tests that a calendar created with columnar storage supports events and edits. */
+  @Test
+  public void testColumnarStorageCalendar() throws Exception {
+    String result =
+        CommandFactory.process(
+                "create calendar --name Col --timezone UTC --storage columnar", controller)
+            .execute();
+    assertTrue(result.contains("Calendar created: Col"));
+    controller.useCalendar("Col");
+    controller.createSingleEvent(
+        "Review", "2025-09-02T09:00", "2025-09-02T10:00", "", "", true, false);
+    controller.createRecurringEventOccurrences(
+        "Gym", "2025-09-01T07:00", "2025-09-01T08:00", "", "", true, "MTWRF", 5, false);
+    controller.editSingleEvent(
+        "location", "Gym", "2025-09-03T07:00", "2025-09-03T08:00", "Pool");
+    controller.editEvents("name", "Review", "Retro");
+    assertEquals("Pool", controller.getEventsOn("2025-09-03").get(0).getLocation());
+    List<Event> tuesday = controller.getEventsOn("2025-09-02");
+    assertEquals("Gym", tuesday.get(0).getName());
+    assertEquals("Retro", tuesday.get(1).getName());
+    assertTrue(controller.isBusy("2025-09-02T09:30"));
+    assertEquals(6, controller.getEventsBetween("2025-09-01T00:00", "2025-09-06T00:00").size());
+  }
+
+  /** Tests that an unknown storage type is rejected. */
+  @Test(expected = InvalidCommandException.class)
+  public void testUnknownStorageType() throws Exception {
+    CommandFactory.process("create calendar --name Bad --timezone UTC --storage disk", controller)
+        .execute();
+  }
+
+  /** Tests that equal event strings added to a calendar share one instance. */
+  @Test
+  public void testEventStringsAreInterned() throws Exception {
+    Calendar cal = new Calendar("Interned", ZoneId.of("UTC"));
+    for (int i = 0; i < 10; i++) {
+      String name = new String("Standup");
+      cal.addEvent(
+          new SingleEvent(
+              name,
+              LocalDateTime.of(2025, 3, 1 + i, 9, 0),
+              LocalDateTime.of(2025, 3, 1 + i, 9, 15),
+              new String("Daily sync"),
+              new String("Room 1"),
+              true),
+          false);
+    }
+    cal.editEvents("location", "Standup", new String("Room 2"));
+    cal.editSingleEvent(
+        "location",
+        "Standup",
+        LocalDateTime.of(2025, 3, 2, 9, 0),
+        LocalDateTime.of(2025, 3, 2, 9, 15),
+        new String("Room 2"));
+    Event first = cal.getEventsOn(LocalDate.of(2025, 3, 1)).get(0);
+    Event second = cal.getEventsOn(LocalDate.of(2025, 3, 2)).get(0);
+    assertSame(first.getName(), second.getName());
+    assertSame(first.getDescription(), second.getDescription());
+    assertSame(first.getLocation(), second.getLocation());
+    assertTrue(cal.getStringDedupRatio() > 5);
+  }
+
+  /**
+   * Tests that queries running alongside a writer see consistent results and never fail, for every
+   * storage type and for queries over the snapshot, the busy bitmap and the text and name indexes.
+   */
+  @Test
+  public void testConcurrentReadsDuringWrites() throws Exception {
+    for (StorageType storage : StorageType.values()) {
+      Calendar cal = new Calendar("Shared", ZoneId.of("UTC"), storage);
+      LocalDateTime base = LocalDateTime.of(2025, 1, 1, 9, 0);
+      List<Throwable> failures = new CopyOnWriteArrayList<>();
+      Thread writer =
+          new Thread(
+              () -> {
+                try {
+                  for (int i = 0; i < 2000; i++) {
+                    LocalDateTime start = base.plusDays(i % 50).plusMinutes(i);
+                    cal.addEvent(
+                        new SingleEvent("E", start, start.plusMinutes(30), "", "", true), false);
+                    if (i % 100 == 0) {
+                      cal.editEvents("location", "E", "Room " + i);
+                    }
+                  }
+                } catch (Exception e) {
+                  failures.add(e);
+                }
+              });
+      List<Thread> readers = new ArrayList<>();
+      for (int r = 0; r < 4; r++) {
+        readers.add(
+            new Thread(
+                () -> {
+                  try {
+                    while (writer.isAlive()) {
+                      List<Event> events = cal.getEventsBetween(base, base.plusDays(60));
+                      for (int i = 1; i < events.size(); i++) {
+                        assertFalse(
+                            events.get(i).getStart().isBefore(events.get(i - 1).getStart()));
+                      }
+                      cal.getEventsOn(base.toLocalDate());
+                      cal.isBusy(base.plusMinutes(10));
+                      cal.searchEvents("room", null, null);
+                      cal.completeEventNames("E", 3);
+                    }
+                  } catch (Throwable t) {
+                    failures.add(t);
+                  }
+                }));
+      }
+      writer.start();
+      for (Thread reader : readers) {
+        reader.start();
+      }
+      writer.join();
+      for (Thread reader : readers) {
+        reader.join();
+      }
+      assertTrue(failures.toString(), failures.isEmpty());
+      assertEquals(2000, cal.getEventsBetween(base, base.plusDays(60)).size());
+    }
+  }
+
+  /** Tests that a snapshot keeps showing the version it was taken at, for both storage types. */
+  @Test
+  public void testSnapshotIsolation() throws Exception {
+    for (StorageType storage : StorageType.values()) {
+      Calendar cal = new Calendar("Snap", ZoneId.of("UTC"), storage);
+      LocalDateTime nine = LocalDateTime.of(2025, 5, 5, 9, 0);
+      cal.addEvent(new SingleEvent("Review", nine, nine.plusHours(1), "", "A", true), false);
+      cal.addRecurringEvent(
+          new RecurringEvent(
+              "Gym",
+              nine.minusHours(2),
+              nine.minusHours(1),
+              "",
+              "",
+              true,
+              EnumSet.of(DayOfWeek.MONDAY),
+              4),
+          false);
+      CalendarSnapshot before = cal.snapshot();
+      cal.editSingleEvent("location", "Review", nine, nine.plusHours(1), "B");
+      cal.editSingleEvent("name", "Gym", nine.minusHours(2), nine.minusHours(1), "Run");
+      cal.editEvents("location", "Gym", "Pool");
+      cal.addEvent(
+          new SingleEvent("Late", nine.plusHours(5), nine.plusHours(6), "", "", true), false);
+      LocalDate day = nine.toLocalDate();
+      List<Event> old = before.getEventsOn(day);
+      assertEquals(2, old.size());
+      assertEquals("Gym", old.get(0).getName());
+      assertEquals("A", old.get(1).getLocation());
+      assertEquals("", before.getEventsOn(day.plusWeeks(1)).get(0).getLocation());
+      assertFalse(before.isBusy(nine.plusHours(5)));
+      assertEquals("A", before.findEventByNameAndStart("Review", nine).getLocation());
+      List<Event> now = cal.getEventsOn(day);
+      assertEquals(3, now.size());
+      assertEquals("Run", now.get(0).getName());
+      assertEquals("B", now.get(1).getLocation());
+      assertEquals("Pool", cal.getEventsOn(day.plusWeeks(1)).get(0).getLocation());
+      assertTrue(cal.snapshot().getVersion() > before.getVersion());
+    }
+  }
+
+  /** Tests that a batch of events is added whole or not at all. */
+  @Test
+  public void testAddEventsAllOrNothing() throws Exception {
+    for (StorageType storage : StorageType.values()) {
+      Calendar calendar = new Calendar("Batch", ZoneId.of("UTC"), storage);
+      LocalDateTime day = LocalDateTime.of(2025, 6, 2, 0, 0);
+      calendar.addEvent(batchEvent("Existing", day.plusHours(9), 60), true);
+      calendar.addRecurringEvent(
+          new RecurringEvent(
+              "Standup",
+              day.plusHours(8),
+              day.plusHours(8).plusMinutes(15),
+              "",
+              "",
+              true,
+              EnumSet.of(DayOfWeek.MONDAY),
+              4),
+          true);
+      List<Event> overlappingEachOther =
+          List.of(
+              batchEvent("A", day.plusHours(13), 60),
+              batchEvent("B", day.plusHours(11), 60),
+              batchEvent("C", day.plusHours(12), 60));
+      List<Event> overlappingExisting =
+          List.of(
+              batchEvent("D", day.plusHours(11), 60),
+              batchEvent("E", day.plusDays(7).plusHours(8), 60));
+      for (List<Event> batch : List.of(overlappingEachOther, overlappingExisting)) {
+        try {
+          calendar.addEvents(batch, true);
+          fail("Expected a conflict.");
+        } catch (Exception e) {
+          assertEquals("Event conflict detected.", e.getMessage());
+        }
+      }
+      assertEquals(2, calendar.getEventsOn(day.toLocalDate()).size());
+
+      long version = calendar.snapshot().getVersion();
+      List<Event> valid =
+          List.of(
+              batchEvent("F", day.plusHours(15), 60),
+              batchEvent("G", day.plusHours(11), 30),
+              batchEvent("H", day.plusDays(7).plusHours(9), 60));
+      assertEquals(3, calendar.addEvents(valid, true));
+      assertEquals(version + 1, calendar.snapshot().getVersion());
+      List<String> names = new ArrayList<>();
+      for (Event e : calendar.getEventsOn(day.toLocalDate())) {
+        names.add(e.getName());
+      }
+      assertEquals(List.of("Standup", "Existing", "G", "F"), names);
+      assertNotNull(calendar.findEventByNameAndStart("H", day.plusDays(7).plusHours(9)));
+      assertEquals(2, calendar.addEvents(overlappingEachOther.subList(0, 2), false));
+    }
+  }
+
+  /** Tests that a batch the store rejects leaves search, completion and ids unchanged. */
+  @Test
+  public void testRejectedBatchLeavesNoTrace() throws Exception {
+    Calendar calendar = new Calendar("Batch", ZoneId.of("UTC"), StorageType.COLUMNAR);
+    LocalDateTime day = LocalDateTime.of(2025, 6, 2, 0, 0);
+    Event first = batchEvent("Zebra talk", day.plusHours(9), 60);
+    calendar.addEvent(first, false);
+    // Build the text index and name trie before the rejected batch.
+    assertEquals(first.getId(), calendar.searchEvents("zebra", null, null).get(0).getId());
+    assertEquals(List.of("Zebra talk"), calendar.completeEventNames("Ze", 5));
+    List<Event> batch =
+        List.of(
+            batchEvent("Zeppelin tour", day.plusHours(11), 60),
+            batchEvent("Zen hour", day.plusHours(12).plusSeconds(30), 60));
+    try {
+      calendar.addEvents(batch, false);
+      fail("Expected the columnar store to refuse a time with seconds.");
+    } catch (IllegalArgumentException e) {
+      assertEquals(0, calendar.searchEvents("zeppelin", null, null).size());
+      assertEquals(0, calendar.searchEvents("zen", null, null).size());
+      assertEquals(List.of("Zebra talk"), calendar.completeEventNames("Ze", 5));
+      assertEquals(Event.NO_ID, batch.get(0).getId());
+    }
+    Event next = batchEvent("Zeppelin tour", day.plusHours(11), 60);
+    calendar.addEvent(next, false);
+    assertEquals(first.getId() + 1, next.getId());
+    assertEquals(next.getId(), calendar.searchEvents("zeppelin", null, null).get(0).getId());
+  }
+
+  private static SingleEvent batchEvent(String name, LocalDateTime start, int minutes) {
+    return new SingleEvent(name, start, start.plusMinutes(minutes), "", "", true);
+  }
+
+  /** Tests that copying events leaves the target unchanged when any copy conflicts. */
+  @Test
+  public void testCopyEventsIsAllOrNothing() throws Exception {
+    controller.createSingleEvent(
+        "First", "2025-05-12T09:00", "2025-05-12T10:00", "", "", true, true);
+    controller.createSingleEvent(
+        "Second", "2025-05-12T11:00", "2025-05-12T12:00", "", "", true, true);
+    controller.createCalendar("Target", "UTC");
+    controller.useCalendar("Target");
+    controller.createSingleEvent(
+        "Blocker", "2025-05-13T11:30", "2025-05-13T11:45", "", "", true, true);
+    controller.useCalendar("Default");
+    try {
+      controller.copyEventsOn("2025-05-12", "Target", "2025-05-13T09:00");
+      fail("Expected a conflict.");
+    } catch (Exception e) {
+      assertEquals("Event conflict detected.", e.getMessage());
+    }
+    controller.useCalendar("Target");
+    assertEquals(1, controller.getEventsOn("2025-05-13").size());
+  }
+
+  /** Tests busy minute counts and free minute searches, including recurring occurrences. */
+  @Test
+  public void testBusyMinutesAndFirstFree() throws Exception {
+    controller.createSingleEvent(
+        "Follow-up", "2025-09-01T09:30", "2025-09-01T09:59", "", "", true, true);
+    Calendar calendar = new Calendar("Default", ZoneId.of("America/New_York"));
+    calendar.addRecurringEvent(
+        new RecurringEvent(
+            "Daily",
+            LocalDateTime.of(2025, 9, 1, 9, 0),
+            LocalDateTime.of(2025, 9, 1, 9, 29),
+            "",
+            "",
+            true,
+            EnumSet.of(DayOfWeek.MONDAY, DayOfWeek.WEDNESDAY),
+            4),
+        true);
+    assertTrue(calendar.isBusy(LocalDateTime.of(2025, 9, 8, 9, 29)));
+    assertFalse(calendar.isBusy(LocalDateTime.of(2025, 9, 9, 9, 10)));
+    assertFalse(calendar.isBusy(LocalDateTime.of(2025, 9, 8, 9, 29, 30)));
+    LocalDateTime month = LocalDateTime.of(2025, 9, 1, 0, 0);
+    assertEquals(4 * 29, calendar.getBusyMinutes(month, month.plusMonths(1)));
+    assertEquals(
+        LocalDateTime.of(2025, 9, 3, 9, 30),
+        calendar.getFirstFreeMinute(LocalDateTime.of(2025, 9, 3, 9, 5)));
+    assertTrue(controller.isBusy("2025-09-01T09:45"));
+    assertFalse(controller.isBusy("2025-09-01T10:00"));
+  }
+
+  /** Tests the find slot command across calendars. */
+  @Test
+  public void testFindSlotCommand() throws Exception {
+    controller.createSingleEvent(
+        "Standup", "2025-05-05T09:00", "2025-05-05T09:30", "", "", true, true);
+    controller.createCalendar("Team", "America/New_York");
+    controller.useCalendar("Team");
+    controller.createSingleEvent(
+        "Review", "2025-05-05T10:00", "2025-05-05T11:00", "", "", true, true);
+    String result =
+        CommandFactory.process(
+                "find slot 45 between 2025-05-05T09:00 and 2025-05-05T12:00"
+                    + " --calendars Default,Team --count 2",
+                controller)
+            .execute();
+    assertEquals(
+        "Free slots of 45 minutes:\n - 2025-05-05T11:01 to 2025-05-05T12:00\n", result);
+    result =
+        CommandFactory.process(
+                "find slot 20 between 2025-05-05T09:00 and 2025-05-05T12:00", controller)
+            .execute();
+    assertTrue(result.contains(" - 2025-05-05T09:00 to 2025-05-05T09:59"));
+    result =
+        CommandFactory.process(
+                "find slot 200 between 2025-05-05T09:00 and 2025-05-05T12:00", controller)
+            .execute();
+    assertTrue(result.startsWith("No free slot"));
+    for (String bad :
+        new String[] {
+          "find slot x between 2025-05-05T09:00 and 2025-05-05T12:00",
+          "find slot 30 from 2025-05-05T09:00 and 2025-05-05T12:00",
+          "find slot 30 between 2025-05-05T09:00 and 2025-05-05T12:00 --calendars Nope",
+          "find slot 30 between 2025-05-05T09:00 and 2025-05-05T12:00 --count"
+        }) {
+      try {
+        CommandFactory.process(bad, controller).execute();
+        fail("Expected an error for " + bad);
+      } catch (Exception e) {
+        assertNotNull(e.getMessage());
+      }
+    }
+  }
+
+  /** Tests that events keep their ids through edits, detaching and splitting. */
+  @Test
+  public void testEventIdsSurviveEdits() throws Exception {
+    for (StorageType storage : StorageType.values()) {
+      Calendar calendar = new Calendar("Ids", ZoneId.of("UTC"), storage);
+      LocalDateTime start = LocalDateTime.of(2025, 6, 2, 9, 0);
+      calendar.addEvent(new SingleEvent("Single", start, start.plusHours(1), "", "", true), true);
+      calendar.addRecurringEvent(
+          new RecurringEvent(
+              "Series",
+              start.plusHours(2),
+              start.plusHours(3),
+              "",
+              "",
+              true,
+              EnumSet.of(DayOfWeek.MONDAY),
+              4),
+          true);
+      List<Event> monday = calendar.getEventsOn(start.toLocalDate());
+      long singleId = monday.get(0).getId();
+      long occurrenceId = monday.get(1).getId();
+      assertTrue(singleId != Event.NO_ID && occurrenceId != Event.NO_ID);
+      assertTrue(singleId != occurrenceId);
+
+      assertTrue(calendar.editEventById("name", singleId, "Renamed"));
+      assertEquals("Renamed", calendar.findEventById(singleId).getName());
+      assertEquals(singleId, calendar.getEventsOn(start.toLocalDate()).get(0).getId());
+
+      assertTrue(calendar.editEventById("location", occurrenceId, "Room 1"));
+      Event detached = calendar.findEventById(occurrenceId);
+      assertEquals("Room 1", detached.getLocation());
+      assertEquals(occurrenceId, detached.getId());
+      assertTrue(calendar.editEventById("description", occurrenceId, "Moved"));
+      assertEquals("Moved", calendar.findEventById(occurrenceId).getDescription());
+
+      long laterId = calendar.getEventsOn(start.toLocalDate().plusWeeks(3)).get(0).getId();
+      calendar.editEventsFrom("name", "Series", start.plusWeeks(2).plusHours(2), "Late");
+      assertEquals("Late", calendar.findEventById(laterId).getName());
+      assertEquals(laterId, calendar.getEventsOn(start.toLocalDate().plusWeeks(3)).get(0).getId());
+
+      assertNull(calendar.findEventById(123456789L));
+      assertFalse(calendar.editEventById("name", 123456789L, "x"));
+    }
+  }
+
+  /** Tests editing and copying events by id through commands. */
+  @Test
+  public void testEventIdCommands() throws Exception {
+    controller.createSingleEvent(
+        "Planning", "2025-05-05T09:00", "2025-05-05T10:00", "", "", true, true);
+    controller.createCalendar("Other", "UTC");
+    long id = controller.getEventsOn("2025-05-05").get(0).getId();
+    String printed = CommandFactory.process("print events on 2025-05-05", controller).execute();
+    assertTrue(printed.contains("[id " + id + "]"));
+    CommandFactory.process("edit event location --id " + id + " with Lab", controller).execute();
+    assertEquals("Lab", controller.getEventsOn("2025-05-05").get(0).getLocation());
+    CommandFactory.process(
+            "copy event --id " + id + " --target Other to 2025-05-06T14:00", controller)
+        .execute();
+    controller.useCalendar("Other");
+    Event copy = controller.getEventsOn("2025-05-06").get(0);
+    assertEquals("Planning", copy.getName());
+    assertEquals(LocalDateTime.of(2025, 5, 6, 15, 0), copy.getEnd());
+    try {
+      CommandFactory.process("edit event name --id abc with X", controller).execute();
+      fail("Expected an invalid id.");
+    } catch (InvalidCommandException e) {
+      assertEquals("Invalid command: Event id: abc", e.getMessage());
+    }
+    try {
+      controller.editEventById("name", id + 1000, "X");
+      fail("Expected no event with the id.");
+    } catch (Exception e) {
+      assertTrue(e.getMessage().contains("No event with id"));
+    }
+  }
 }
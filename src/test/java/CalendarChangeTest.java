@@ -0,0 +1,216 @@
+import static calendar.TestEvents.BASE;
+import static calendar.TestEvents.event;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+import calendar.controller.CalendarController;
+import calendar.controller.CalendarManager;
+import calendar.controller.journal.SyncPolicy;
+import calendar.model.Calendar;
+import calendar.model.change.CalendarChange;
+import calendar.model.change.ChangeType;
+import calendar.model.event.RecurringEvent;
+import calendar.model.store.StorageType;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.DayOfWeek;
+import java.time.LocalDate;
+import java.time.ZoneId;
+import java.util.ArrayList;
+import java.util.EnumSet;
+import java.util.List;
+import java.util.Set;
+import org.junit.Test;
+
+/** Tests for the changes calendars and the calendar manager report to listeners. */
+public class CalendarChangeTest {
+
+  /** Tests that adds and edits report their type, dates, event count and version. */
+  @Test
+  public void testCalendarReportsChanges() throws Exception {
+    for (StorageType storage : StorageType.values()) {
+      Calendar calendar = new Calendar("Work", ZoneId.of("UTC"), storage);
+      List<CalendarChange> changes = new ArrayList<>();
+      calendar.addChangeListener(changes::add);
+
+      calendar.addEvent(event("Standup", BASE, 15), false);
+      calendar.addEvents(
+          List.of(event("Review", BASE.plusDays(3), 60), event("Review", BASE.plusDays(9), 60)),
+          false);
+      calendar.addRecurringEvent(
+          new RecurringEvent(
+              "Gym",
+              BASE.plusHours(9),
+              BASE.plusHours(10),
+              "",
+              "",
+              true,
+              EnumSet.of(DayOfWeek.MONDAY),
+              4),
+          false);
+      calendar.editEvents("location", "Review", "Room 2");
+      calendar.editEventsFrom("description", "Gym", BASE.plusDays(14), "legs");
+      calendar.editSingleEvent("name", "Standup", BASE, BASE.plusMinutes(15), "Daily");
+      assertEquals(0, calendar.editEvents("location", "Missing", "nowhere"));
+
+      assertEquals(6, changes.size());
+      assertChange(changes.get(0), ChangeType.ADDED, "2025-04-07", "2025-04-07", 1);
+      assertChange(changes.get(1), ChangeType.ADDED, "2025-04-10", "2025-04-16", 2);
+      assertChange(changes.get(2), ChangeType.ADDED, "2025-04-07", "2025-04-28", 4);
+      assertChange(changes.get(3), ChangeType.EDITED, "2025-04-10", "2025-04-16", 2);
+      assertChange(changes.get(4), ChangeType.EDITED, "2025-04-21", "2025-04-28", 2);
+      assertChange(changes.get(5), ChangeType.EDITED, "2025-04-07", "2025-04-07", 1);
+      for (int i = 0; i < changes.size(); i++) {
+        assertEquals(i + 1, changes.get(i).getVersion());
+      }
+    }
+  }
+
+  /** Tests that changes in a batch, or made by a listener, reach listeners merged. */
+  @Test
+  public void testBurstsAreMerged() throws Exception {
+    Calendar calendar = new Calendar("Work", ZoneId.of("UTC"));
+    List<CalendarChange> changes = new ArrayList<>();
+    calendar.addChangeListener(changes::add);
+    calendar.batchChanges(
+        () -> {
+          calendar.addEvent(event("First", BASE, 30), false);
+          calendar.addEvent(event("Second", BASE.plusDays(5), 30), false);
+          calendar.editEvents("location", "First", "Hall");
+          return null;
+        });
+    assertEquals(1, changes.size());
+    CalendarChange merged = changes.get(0);
+    assertEquals(Set.of(ChangeType.ADDED, ChangeType.EDITED), merged.getTypes());
+    assertEquals(LocalDate.of(2025, 4, 7), merged.getFrom());
+    assertEquals(LocalDate.of(2025, 4, 12), merged.getTo());
+    assertEquals(3, merged.getEventCount());
+    assertEquals(3, merged.getVersion());
+    assertTrue(merged.affects(LocalDate.of(2025, 4, 10), LocalDate.of(2025, 4, 10)));
+    assertFalse(merged.affects(LocalDate.of(2025, 4, 13), LocalDate.of(2025, 4, 30)));
+
+    // A listener that changes the calendar hears of it after its own call returns.
+    List<Integer> depths = new ArrayList<>();
+    int[] depth = {0};
+    calendar.addChangeListener(
+        change -> {
+          depths.add(++depth[0]);
+          try {
+            if (change.getEventCount() == 1 && changes.size() == 2) {
+              calendar.addEvent(event("Follow-up", BASE.plusDays(1), 30), false);
+            }
+          } catch (Exception e) {
+            fail(e.getMessage());
+          } finally {
+            depth[0]--;
+          }
+        });
+    calendar.addEvent(event("Trigger", BASE.plusDays(1), 30), false);
+    assertEquals(3, changes.size());
+    assertEquals(List.of(1, 1), depths);
+
+    // A batch that fails still delivers the changes it made.
+    try {
+      calendar.batchChanges(
+          () -> {
+            calendar.addEvent(event("Kept", BASE.plusDays(20), 30), false);
+            throw new Exception("Stop");
+          });
+      fail("Expected the batch to fail.");
+    } catch (Exception e) {
+      assertEquals("Stop", e.getMessage());
+    }
+    assertEquals(4, changes.size());
+    assertEquals(LocalDate.of(2025, 4, 27), changes.get(3).getFrom());
+  }
+
+  /** Tests that the manager forwards calendar changes and reports changes to its calendars. */
+  @Test
+  public void testManagerReportsChanges() throws Exception {
+    CalendarManager manager = new CalendarManager();
+    List<CalendarChange> changes = new ArrayList<>();
+    manager.addChangeListener(changes::add);
+    manager.createCalendar("Home", "UTC");
+    manager.getCalendar("Home").addEvent(event("Dinner", BASE.plusHours(10), 60), false);
+    manager.editCalendar("Home", "name", "Family");
+    manager.getCalendar("Family").addEvent(event("Movie", BASE.plusDays(1), 120), false);
+
+    Calendar dropped = manager.getCalendar("Family");
+    manager.replaceCalendars(List.of(new Calendar("Fresh", ZoneId.of("UTC"))));
+    dropped.addEvent(event("Unseen", BASE, 10), false);
+
+    assertEquals(5, changes.size());
+    assertEquals(Set.of(ChangeType.CALENDAR), changes.get(0).getTypes());
+    assertEquals("Home", changes.get(0).getCalendarName());
+    assertChange(changes.get(1), ChangeType.ADDED, "2025-04-07", "2025-04-07", 1);
+    assertEquals(Set.of(ChangeType.CALENDAR), changes.get(2).getTypes());
+    assertEquals("Family", changes.get(2).getCalendarName());
+    assertTrue(changes.get(2).affects(LocalDate.MIN, LocalDate.MIN));
+    assertEquals("Family", changes.get(3).getCalendarName());
+    assertNull(changes.get(4).getCalendarName());
+  }
+
+  /** Tests that the controller reports copies and imports as such, and replays as one change. */
+  @Test
+  public void testControllerReportsCopiesAndImports() throws Exception {
+    Path csv = Files.createTempFile("import", ".csv");
+    Path journal = Files.createTempFile("journal", ".bin");
+    Files.delete(journal);
+    try {
+      CalendarController controller =
+          new CalendarController(new Calendar("Default", ZoneId.of("UTC")));
+      controller.openJournal(journal, SyncPolicy.NONE, 0);
+      List<CalendarChange> changes = new ArrayList<>();
+      controller.addChangeListener(changes::add);
+      controller.createSingleEvent(
+          "Standup", "2025-04-07T09:00", "2025-04-07T09:15", "", "", true, true);
+      controller.createCalendar("Work", "UTC");
+      controller.copyEventsOn("2025-04-07", "Work", "2025-05-05T09:00");
+      Files.write(
+          csv,
+          List.of(
+              "Subject,Start Date,Start Time,End Date,End Time,All Day Event,Description,"
+                  + "Location,Private",
+              "Review,04/21/2025,10:00,04/21/2025,11:00,False,notes,hall,False",
+              "Retro,04/25/2025,10:00,04/25/2025,11:00,False,notes,hall,False"),
+          StandardCharsets.UTF_8);
+      controller.importCalendar(csv.toString());
+      controller.closeJournal();
+
+      assertEquals(4, changes.size());
+      assertChange(changes.get(0), ChangeType.ADDED, "2025-04-07", "2025-04-07", 1);
+      assertEquals("Work", changes.get(1).getCalendarName());
+      assertChange(changes.get(2), ChangeType.COPIED, "2025-05-05", "2025-05-05", 1);
+      assertEquals("Work", changes.get(2).getCalendarName());
+      assertChange(changes.get(3), ChangeType.IMPORTED, "2025-04-21", "2025-04-25", 2);
+
+      CalendarController replayed =
+          new CalendarController(new Calendar("Default", ZoneId.of("UTC")));
+      List<CalendarChange> replayedChanges = new ArrayList<>();
+      replayed.addChangeListener(replayedChanges::add);
+      replayed.openJournal(journal, SyncPolicy.NONE, 0);
+      replayed.closeJournal();
+      assertEquals(2, replayedChanges.size());
+      assertEquals("Default", replayedChanges.get(0).getCalendarName());
+      assertEquals(3, replayedChanges.get(0).getEventCount());
+      assertEquals(LocalDate.of(2025, 4, 25), replayedChanges.get(0).getTo());
+      assertEquals(
+          Set.of(ChangeType.CALENDAR, ChangeType.ADDED), replayedChanges.get(1).getTypes());
+    } finally {
+      Files.deleteIfExists(csv);
+      Files.deleteIfExists(journal);
+    }
+  }
+
+  private static void assertChange(
+      CalendarChange change, ChangeType type, String from, String to, int count) {
+    assertEquals(Set.of(type), change.getTypes());
+    assertEquals(LocalDate.parse(from), change.getFrom());
+    assertEquals(LocalDate.parse(to), change.getTo());
+    assertEquals(count, change.getEventCount());
+  }
+}
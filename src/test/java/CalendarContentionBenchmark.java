@@ -0,0 +1,91 @@
+import calendar.model.Calendar;
+import calendar.model.event.SingleEvent;
+import java.time.LocalDateTime;
+import java.time.ZoneId;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Measures query throughput on a shared calendar while one writer keeps adding events. Each run
+ * doubles the number of reader threads, up to the number of available processors, and prints the
+ * reads per second alongside the writes completed in the same time. Readers mix range queries
+ * over random windows, which the query cache rarely answers, with lookups of a few hot days, which
+ * it mostly does. Run with {@code java -cp target/classes:target/test-classes
+ * CalendarContentionBenchmark [seconds] [readers]}.
+ */
+public class CalendarContentionBenchmark {
+  private static final LocalDateTime BASE = LocalDateTime.of(2025, 1, 1, 0, 0);
+  private static final int PRELOADED = 20_000;
+  private static final int SPAN_MINUTES = 365 * 24 * 60;
+  private static final int HOT_DAYS = 16;
+
+  /**
+   * Runs the benchmark. The optional arguments are the length of each run in seconds and the most
+   * reader threads to run, by default one less than the number of processors.
+   */
+  public static void main(String[] args) throws Exception {
+    double seconds = args.length > 0 ? Double.parseDouble(args[0]) : 2;
+    int cores = Runtime.getRuntime().availableProcessors();
+    int maxReaders = args.length > 1 ? Integer.parseInt(args[1]) : Math.max(1, cores - 1);
+    System.out.printf("%8s %16s %14s%n", "readers", "reads/sec", "writes/sec");
+    for (int readers = 1; readers <= maxReaders; readers *= 2) {
+      run(readers, seconds);
+    }
+  }
+
+  private static void run(int readers, double seconds) throws Exception {
+    Calendar calendar = new Calendar("Bench", ZoneId.of("UTC"));
+    for (int i = 0; i < PRELOADED; i++) {
+      calendar.addEvent(randomEvent("Seed"), false);
+    }
+    AtomicBoolean running = new AtomicBoolean(true);
+    LongAdder reads = new LongAdder();
+    LongAdder writes = new LongAdder();
+    List<Thread> threads = new ArrayList<>();
+    threads.add(
+        new Thread(
+            () -> {
+              try {
+                while (running.get()) {
+                  calendar.addEvent(randomEvent("Import"), false);
+                  writes.increment();
+                }
+              } catch (Exception e) {
+                throw new IllegalStateException(e);
+              }
+            }));
+    for (int r = 0; r < readers; r++) {
+      threads.add(
+          new Thread(
+              () -> {
+                ThreadLocalRandom random = ThreadLocalRandom.current();
+                while (running.get()) {
+                  LocalDateTime from = BASE.plusMinutes(random.nextInt(SPAN_MINUTES));
+                  calendar.getEventsBetween(from, from.plusHours(6));
+                  calendar.isBusy(from);
+                  calendar.getEventsOn(BASE.toLocalDate().plusDays(random.nextInt(HOT_DAYS)));
+                  reads.add(3);
+                }
+              }));
+    }
+    for (Thread thread : threads) {
+      thread.start();
+    }
+    Thread.sleep((long) (seconds * 1000));
+    running.set(false);
+    for (Thread thread : threads) {
+      thread.join();
+    }
+    System.out.printf(
+        "%8d %16.0f %14.0f%n", readers, reads.sum() / seconds, writes.sum() / seconds);
+  }
+
+  private static SingleEvent randomEvent(String name) {
+    ThreadLocalRandom random = ThreadLocalRandom.current();
+    LocalDateTime start = BASE.plusMinutes(random.nextInt(SPAN_MINUTES));
+    return new SingleEvent(name, start, start.plusMinutes(15 + random.nextInt(120)), "", "", true);
+  }
+}
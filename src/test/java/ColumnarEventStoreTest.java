@@ -0,0 +1,150 @@
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+
+import calendar.model.event.Event;
+import calendar.model.event.SingleEvent;
+import calendar.model.store.ColumnarEventStore;
+import calendar.model.store.EventStore;
+import calendar.model.store.IndexedEventStore;
+import calendar.model.store.StringDictionary;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+import java.util.stream.Collectors;
+import org.junit.Test;
+
+/** Tests for ColumnarEventStore, checked against IndexedEventStore. */
+public class ColumnarEventStoreTest {
+  private static final LocalDateTime BASE = LocalDateTime.of(2025, 1, 1, 0, 0);
+
+  private static SingleEvent event(String name, int startMinutes, int endMinutes) {
+    return new SingleEvent(
+        name, BASE.plusMinutes(startMinutes), BASE.plusMinutes(endMinutes), "d", "loc", true);
+  }
+
+  private static String describe(Event e) {
+    return e.getName() + "|" + e.getStart() + "|" + e.getEnd() + "|" + e.getDescription() + "|"
+        + e.getLocation() + "|" + e.isPublic();
+  }
+
+  private static List<String> describeAll(List<Event> events) {
+    return events.stream().map(ColumnarEventStoreTest::describe).collect(Collectors.toList());
+  }
+
+  private static List<String> overlapping(EventStore store, LocalDateTime from, LocalDateTime to) {
+    List<String> result = new ArrayList<>();
+    store.forEachOverlapping(from, to, e -> result.add(describe(e)));
+    return result;
+  }
+
+  /** Tests that queries and edits match the indexed store on random data. */
+  @Test
+  public void testMatchesIndexedStore() {
+    Random random = new Random(7);
+    EventStore indexed = new IndexedEventStore();
+    ColumnarEventStore columnar = new ColumnarEventStore();
+    for (int i = 0; i < 3000; i++) {
+      int start = random.nextInt(200_000);
+      SingleEvent e = event("E" + random.nextInt(50), start, start + random.nextInt(3000));
+      indexed.add(e);
+      columnar.add(e);
+      if (i % 100 == 0) {
+        String name = "E" + random.nextInt(50);
+        LocalDateTime from = BASE.plusMinutes(random.nextInt(200_000));
+        assertEquals(
+            indexed.editNamed(name, from, "location", "L" + i),
+            columnar.editNamed(name, from, "location", "L" + i));
+      }
+    }
+    assertEquals(indexed.size(), columnar.size());
+    for (int q = 0; q < 300; q++) {
+      LocalDateTime from = BASE.plusMinutes(random.nextInt(200_000)).plusSeconds(q % 2 * 30);
+      LocalDateTime to = from.plusMinutes(random.nextInt(2000));
+      assertEquals(overlapping(indexed, from, to), overlapping(columnar, from, to));
+      assertEquals(indexed.anyOverlapping(from, to), columnar.anyOverlapping(from, to));
+      assertEquals(indexed.covers(from), columnar.covers(from));
+      LocalDate day = from.toLocalDate();
+      assertEquals(describeAll(indexed.startingOn(day)), describeAll(columnar.startingOn(day)));
+      Map<LocalDate, List<Event>> expected = indexed.startingBetween(day, day.plusDays(3));
+      Map<LocalDate, List<Event>> actual = columnar.startingBetween(day, day.plusDays(3));
+      assertEquals(expected.keySet(), actual.keySet());
+      for (LocalDate date : expected.keySet()) {
+        assertEquals(expected.get(date).size(), actual.get(date).size());
+      }
+    }
+    assertTrue(columnar.distinctStrings() < columnar.size());
+  }
+
+  /** Tests interning more distinct strings than the dictionary's initial table holds. */
+  @Test
+  public void testInternGrowsTable() {
+    StringDictionary dictionary = new StringDictionary();
+    for (int i = 0; i < 100; i++) {
+      String value = "Event " + i;
+      assertEquals(value, dictionary.intern(new String(value)));
+    }
+    assertEquals(100, dictionary.size());
+    assertEquals("Event 99", dictionary.decode(99));
+  }
+
+  /** Tests edits that match one event by name, start and end. */
+  @Test
+  public void testEditMatchingAndRename() {
+    ColumnarEventStore store = new ColumnarEventStore();
+    store.add(event("Standup", 0, 15));
+    store.add(event("Standup", 0, 30));
+    assertTrue(store.editMatching("Standup", BASE, BASE.plusMinutes(30), "name", "Sync"));
+    assertFalse(store.editMatching("Standup", BASE, BASE.plusMinutes(45), "name", "Sync"));
+    assertTrue(store.editMatching("Sync", BASE, BASE.plusMinutes(30), "ispublic", "false"));
+    Event renamed = store.findByNameAndStart("Sync", BASE);
+    assertEquals(BASE.plusMinutes(30), renamed.getEnd());
+    assertFalse(renamed.isPublic());
+    assertEquals(BASE.plusMinutes(15), store.findByNameAndStart("Standup", BASE).getEnd());
+    assertNull(store.findByNameAndStart("Missing", BASE));
+    assertEquals(1, store.editNamed("Sync", null, "description", "renamed"));
+    assertEquals("renamed", store.findByNameAndStart("Sync", BASE).getDescription());
+  }
+
+  /** Tests id lookups and edits for ids added out of order, as a restored calendar adds them. */
+  @Test
+  public void testFindsIdsOutOfOrder() {
+    ColumnarEventStore store = new ColumnarEventStore();
+    Random random = new Random(3);
+    List<Long> ids = new ArrayList<>();
+    for (long id = 1; id <= 1000; id++) {
+      ids.add(id * 7919 % 100_003);
+    }
+    Collections.shuffle(ids, random);
+    List<Event> events = new ArrayList<>();
+    for (long id : ids) {
+      SingleEvent e = event("E" + id, random.nextInt(50_000), 60_000);
+      e.setId(id);
+      events.add(e);
+    }
+    store.addAll(events.subList(0, 500));
+    for (Event e : events.subList(500, 1000)) {
+      store.add(e);
+    }
+    for (Event e : events) {
+      assertEquals(describe(e), describe(store.findById(e.getId())));
+    }
+    assertNull(store.findById(100_004));
+    assertNull(store.findById(Event.NO_ID));
+    assertTrue(store.editById(ids.get(10), "location", "Hall"));
+    assertEquals("Hall", store.findById(ids.get(10)).getLocation());
+    assertFalse(store.editById(100_004, "location", "Hall"));
+  }
+
+  /** Tests that times with seconds are rejected. */
+  @Test(expected = IllegalArgumentException.class)
+  public void testRejectsSeconds() {
+    new ColumnarEventStore()
+        .add(new SingleEvent("A", BASE.plusSeconds(30), BASE.plusMinutes(5), "", "", true));
+  }
+}
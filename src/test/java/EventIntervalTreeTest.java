@@ -0,0 +1,191 @@
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+
+import calendar.model.event.Event;
+import calendar.model.event.SingleEvent;
+import calendar.model.index.DayIndex;
+import calendar.model.index.EventIntervalTree;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+import java.util.TreeMap;
+import org.junit.Test;
+
+/** Tests for EventIntervalTree. */
+public class EventIntervalTreeTest {
+  private static final LocalDateTime BASE = LocalDateTime.of(2025, 1, 1, 0, 0);
+
+  private static SingleEvent event(String name, int startMinutes, int endMinutes) {
+    return new SingleEvent(
+        name, BASE.plusMinutes(startMinutes), BASE.plusMinutes(endMinutes), "", "", true);
+  }
+
+  /** Tests that overlap queries return events in start order. */
+  @Test
+  public void testOverlappingInStartOrder() {
+    EventIntervalTree tree =
+        EventIntervalTree.empty()
+            .insert(event("C", 300, 360), 0)
+            .insert(event("A", 0, 60), 1)
+            .insert(event("B", 60, 120), 2);
+    List<String> names = new ArrayList<>();
+    tree.forEachOverlapping(BASE, BASE.plusMinutes(300), e -> names.add(e.getName()));
+    assertEquals(List.of("A", "B", "C"), names);
+  }
+
+  /** Tests that inserting returns a new tree and leaves the old one unchanged. */
+  @Test
+  public void testInsertIsPersistent() {
+    EventIntervalTree first = EventIntervalTree.empty().insert(event("A", 0, 60), 0);
+    EventIntervalTree second = first.insert(event("B", 120, 180), 1);
+    assertEquals(1, first.size());
+    assertEquals(2, second.size());
+    assertFalse(first.covers(BASE.plusMinutes(150)));
+    assertTrue(second.covers(BASE.plusMinutes(150)));
+  }
+
+  /** Tests that range and busy queries match a linear scan on random data. */
+  @Test
+  public void testMatchesLinearScan() {
+    Random random = new Random(42);
+    List<Event> all = new ArrayList<>();
+    EventIntervalTree tree = EventIntervalTree.empty();
+    for (int i = 0; i < 2000; i++) {
+      int start = random.nextInt(100_000);
+      Event e = event("E" + i, start, start + random.nextInt(600));
+      all.add(e);
+      tree = tree.insert(e, i);
+    }
+    for (int q = 0; q < 200; q++) {
+      LocalDateTime from = BASE.plusMinutes(random.nextInt(100_000));
+      LocalDateTime to = from.plusMinutes(random.nextInt(2000));
+      List<Event> expected = new ArrayList<>();
+      for (Event e : all) {
+        if (!e.getStart().isAfter(to) && !e.getEnd().isBefore(from)) {
+          expected.add(e);
+        }
+      }
+      List<Event> actual = new ArrayList<>();
+      tree.forEachOverlapping(from, to, actual::add);
+      assertEquals(expected.size(), actual.size());
+      assertTrue(actual.containsAll(expected));
+      assertEquals(!expected.isEmpty(), tree.findAnyOverlapping(from, to) != null);
+    }
+  }
+
+  /** Tests removal, including entries indexed under an explicit span. */
+  @Test
+  public void testRemove() {
+    EventIntervalTree tree = EventIntervalTree.empty();
+    for (int i = 0; i < 100; i++) {
+      tree = tree.insert(event("E" + i, i * 10, i * 10 + 5), i);
+    }
+    SingleEvent span = event("Span", 2000, 2001);
+    tree = tree.insert(span, BASE.plusMinutes(2000), BASE.plusMinutes(3000), 100);
+    assertTrue(tree.covers(BASE.plusMinutes(2500)));
+    for (int i = 0; i < 100; i += 2) {
+      tree = tree.remove(BASE.plusMinutes(i * 10), i);
+    }
+    EventIntervalTree withoutSpan = tree.remove(BASE.plusMinutes(2000), 100);
+    assertEquals(51, tree.size());
+    assertEquals(50, withoutSpan.size());
+    assertFalse(withoutSpan.covers(BASE.plusMinutes(2500)));
+    assertFalse(tree.covers(BASE.plusMinutes(22)));
+    assertTrue(tree.covers(BASE.plusMinutes(12)));
+    assertTrue(tree == tree.remove(BASE.plusMinutes(20), 2));
+  }
+
+  /** Tests that an empty tree reports no overlaps. */
+  @Test
+  public void testEmptyTree() {
+    assertNull(EventIntervalTree.empty().findAnyOverlapping(BASE, BASE.plusDays(1)));
+    assertFalse(EventIntervalTree.empty().iterator().hasNext());
+  }
+
+  /** Tests that start range queries return only events starting inside the range. */
+  @Test
+  public void testStartingBetween() {
+    EventIntervalTree tree = EventIntervalTree.empty();
+    for (int i = 0; i < 50; i++) {
+      tree = tree.insert(event("E" + i, i * 10, i * 10 + 500), i);
+    }
+    List<String> names = new ArrayList<>();
+    tree.forEachStartingBetween(
+        BASE.plusMinutes(95), BASE.plusMinutes(130), e -> names.add(e.getName()));
+    assertEquals(List.of("E10", "E11", "E12", "E13"), names);
+  }
+
+  /** Tests that bulk inserts match one-at-a-time inserts, for small and large batches. */
+  @Test
+  public void testInsertAll() {
+    Random random = new Random(7);
+    EventIntervalTree bulk = EventIntervalTree.empty();
+    EventIntervalTree single = EventIntervalTree.empty();
+    long seq = 0;
+    for (int batchSize : new int[] {500, 10, 300, 1}) {
+      List<Event> batch = new ArrayList<>();
+      for (int i = 0; i < batchSize; i++) {
+        int start = random.nextInt(5000);
+        batch.add(event("E" + seq + "-" + i, start, start + random.nextInt(300)));
+      }
+      batch.sort((a, b) -> a.getStart().compareTo(b.getStart()));
+      bulk = bulk.insertAll(batch, seq);
+      for (Event e : batch) {
+        single = single.insert(e, seq++);
+      }
+      List<Event> expected = new ArrayList<>();
+      single.iterator().forEachRemaining(expected::add);
+      List<Event> actual = new ArrayList<>();
+      bulk.iterator().forEachRemaining(actual::add);
+      assertEquals(expected, actual);
+      for (int q = 0; q < 50; q++) {
+        LocalDateTime at = BASE.plusMinutes(random.nextInt(5500));
+        assertEquals(single.covers(at), bulk.covers(at));
+      }
+    }
+  }
+
+  /** Tests that the day index files events like the tree orders them and is persistent. */
+  @Test
+  public void testDayIndexMatchesTree() {
+    Random random = new Random(11);
+    EventIntervalTree tree = EventIntervalTree.empty();
+    DayIndex days = DayIndex.empty();
+    long seq = 0;
+    for (int batchSize : new int[] {1, 200, 1, 50, 1}) {
+      List<Event> batch = new ArrayList<>();
+      for (int i = 0; i < batchSize; i++) {
+        // Whole hours, so that many events start together.
+        int start = random.nextInt(24 * 20) * 60;
+        batch.add(event("E" + seq + "-" + i, start, start + 30));
+      }
+      batch.sort((a, b) -> a.getStart().compareTo(b.getStart()));
+      tree = tree.insertAll(batch, seq);
+      seq += batch.size();
+      days = batchSize == 1 ? days.with(batch.get(0)) : days.withAll(batch);
+    }
+    Map<LocalDate, List<Event>> expected = new TreeMap<>();
+    for (Event e : tree) {
+      expected.computeIfAbsent(e.getStart().toLocalDate(), d -> new ArrayList<>()).add(e);
+    }
+    Map<LocalDate, List<Event>> actual = new TreeMap<>();
+    days.forEachBetween(LocalDate.MIN, LocalDate.MAX, actual::put);
+    assertEquals(expected, actual);
+    LocalDate day = BASE.toLocalDate().plusDays(3);
+    assertEquals(expected.get(day), days.on(day));
+    assertEquals(List.of(), days.on(BASE.toLocalDate().minusDays(1)));
+
+    Event old = days.on(day).get(0);
+    Event renamed =
+        new SingleEvent("Renamed", old.getStart(), old.getEnd(), "", "", old.isPublic());
+    DayIndex edited = days.replacing(old, renamed);
+    assertEquals(old, days.on(day).get(0));
+    assertEquals(renamed, edited.on(day).get(0));
+    assertEquals(days.on(day).size(), edited.on(day).size());
+  }
+}
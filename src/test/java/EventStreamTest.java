@@ -0,0 +1,248 @@
+import static calendar.TestEvents.BASE;
+import static calendar.TestEvents.event;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+import calendar.controller.CalendarController;
+import calendar.controller.command.CommandFactory;
+import calendar.model.Calendar;
+import calendar.model.EventCursor;
+import calendar.model.EventPage;
+import calendar.model.event.Event;
+import calendar.model.event.RecurringEvent;
+import calendar.model.store.StorageType;
+import java.time.DayOfWeek;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.time.ZoneId;
+import java.util.ArrayList;
+import java.util.EnumSet;
+import java.util.List;
+import java.util.stream.Collectors;
+import org.junit.Test;
+
+/** Tests for the event streams calendars and snapshots return. */
+public class EventStreamTest {
+
+  /** Tests that streams list the same events in the same order as the list queries. */
+  @Test
+  public void testStreamsMatchLists() throws Exception {
+    for (StorageType storage : StorageType.values()) {
+      Calendar calendar = filledCalendar(storage);
+      LocalDateTime[][] ranges = {
+        {BASE, BASE.plusDays(30)},
+        {BASE.plusHours(5), BASE.plusDays(2).plusHours(1)},
+        {BASE.minusYears(1), BASE.plusYears(5)},
+        {LocalDateTime.of(1, 1, 1, 0, 0), LocalDateTime.of(9999, 12, 31, 23, 59)},
+        {BASE.plusDays(1), BASE}
+      };
+      for (LocalDateTime[] range : ranges) {
+        List<Event> streamed =
+            calendar.streamEventsBetween(range[0], range[1]).collect(Collectors.toList());
+        assertEquals(describe(calendar.getEventsBetween(range[0], range[1])), describe(streamed));
+      }
+      for (int day = -1; day < 30; day++) {
+        LocalDate date = BASE.toLocalDate().plusDays(day);
+        assertEquals(
+            describe(calendar.getEventsOn(date)),
+            describe(calendar.streamEventsOn(date).collect(Collectors.toList())));
+      }
+    }
+  }
+
+  /** Tests that a stream cut short returns the first events, and ignores later changes. */
+  @Test
+  public void testLimitAndSnapshot() throws Exception {
+    Calendar calendar = filledCalendar(StorageType.INDEXED);
+    LocalDateTime end = LocalDateTime.of(9999, 12, 31, 23, 59);
+    List<Event> all = calendar.getEventsBetween(BASE, end);
+    assertEquals(
+        describe(all.subList(0, 3)),
+        describe(calendar.streamEventsBetween(BASE, end).limit(3).collect(Collectors.toList())));
+
+    List<Event> seen = new ArrayList<>();
+    calendar
+        .streamEventsBetween(BASE, end)
+        .forEach(
+            e -> {
+              seen.add(e);
+              if (seen.size() == 1) {
+                try {
+                  calendar.addEvent(event("Late", BASE.plusDays(3).plusHours(7), 30), false);
+                } catch (Exception ex) {
+                  throw new IllegalStateException(ex);
+                }
+              }
+            });
+    assertEquals(describe(all), describe(seen));
+  }
+
+  /** Tests that paging with cursors walks every event once, in order, for any page size. */
+  @Test
+  public void testPagesCoverListing() throws Exception {
+    for (StorageType storage : StorageType.values()) {
+      Calendar calendar = filledCalendar(storage);
+      LocalDateTime start = BASE.plusHours(5);
+      LocalDateTime end = BASE.plusYears(4);
+      String expected = describe(calendar.getEventsBetween(start, end));
+      for (int limit : new int[] {1, 7, 600, 5000}) {
+        List<Event> paged = new ArrayList<>();
+        EventCursor after = null;
+        do {
+          EventPage page = calendar.pageEventsBetween(start, end, limit, after);
+          assertTrue(page.getEvents().size() <= limit);
+          paged.addAll(page.getEvents());
+          after = page.getNext();
+          if (after != null) {
+            after = EventCursor.parse(after.toString());
+          }
+        } while (after != null);
+        assertEquals(expected, describe(paged));
+      }
+      LocalDate crowdedDay = BASE.toLocalDate().plusDays(2);
+      EventPage first = calendar.pageEventsOn(crowdedDay, 10, null);
+      EventPage second = calendar.pageEventsOn(crowdedDay, 10, first.getNext());
+      assertEquals(
+          describe(calendar.getEventsOn(crowdedDay).subList(10, 20)),
+          describe(second.getEvents()));
+    }
+  }
+
+  /** Tests the paging options of the print command. */
+  @Test
+  public void testPrintPages() throws Exception {
+    CalendarController controller =
+        new CalendarController(new Calendar("Default", ZoneId.of("UTC")));
+    for (String name : new String[] {"Standup", "Review", "Retro"}) {
+      controller.createSingleEvent(
+          name, "2025-04-07T09:00", "2025-04-07T09:15", "", "Hall", true, false);
+    }
+    String range = "print events from 2025-04-07T00:00 to 2025-04-08T00:00";
+    assertEquals(
+        "Events from 2025-04-07T00:00 to 2025-04-08T00:00:\n"
+            + " - Standup (09:00 to 09:15) at Hall [id 1]\n"
+            + " - Review (09:00 to 09:15) at Hall [id 2]\n"
+            + "More events: continue with --after 2025-04-07T09:00#2\n",
+        CommandFactory.process(range + " --limit 2", controller).execute());
+    assertEquals(
+        "Events on 2025-04-07:\n - Retro (09:00 to 09:15) at Hall [id 3]\n",
+        CommandFactory.process(
+                "print events on 2025-04-07 --after 2025-04-07T09:00#2 --limit 2", controller)
+            .execute());
+    String[][] errors = {
+      {" --limit 0", "Invalid command: --limit must be a positive number: 0"},
+      {" --limit", "Missing parameter: value for --limit"},
+      {" --after soon", "Invalid cursor: soon"},
+      {" --page 2", "Invalid command: Unknown print option: --page"}
+    };
+    for (String[] error : errors) {
+      try {
+        CommandFactory.process(range + error[0], controller).execute();
+        fail("Expected an error for" + error[0]);
+      } catch (Exception e) {
+        assertEquals(error[1], e.getMessage());
+      }
+    }
+  }
+
+  /** Tests that next events queries return the first events starting at or after a time. */
+  @Test
+  public void testNextEvents() throws Exception {
+    for (StorageType storage : StorageType.values()) {
+      Calendar calendar = filledCalendar(storage);
+      LocalDateTime from = BASE.plusDays(2).plusMinutes(1170);
+      List<Event> starting =
+          calendar.getEventsBetween(from, BASE.plusYears(4)).stream()
+              .filter(e -> !e.getStart().isBefore(from))
+              .collect(Collectors.toList());
+      assertEquals(
+          describe(starting.subList(0, 20)), describe(calendar.getNextEvents(from, 20)));
+      // Asking for more events than remain returns the rest, up to the last one years later.
+      assertEquals(describe(starting), describe(calendar.getNextEvents(from, 1000)));
+      assertTrue(calendar.getNextEvents(BASE.plusYears(3).plusHours(1), 5).isEmpty());
+    }
+  }
+
+  /** Tests the print events next command. */
+  @Test
+  public void testPrintNextEvents() throws Exception {
+    CalendarController controller =
+        new CalendarController(new Calendar("Default", ZoneId.of("UTC")));
+    controller.createSingleEvent(
+        "Standup", "2025-04-07T09:00", "2025-04-07T09:15", "", "Hall", true, false);
+    controller.createSingleEvent(
+        "Review", "2025-04-09T14:00", "2025-04-09T15:00", "", "", true, false);
+    controller.createSingleEvent(
+        "Retro", "2025-05-02T10:00", "2025-05-02T11:00", "", "", true, false);
+    assertEquals(
+        "Next 2 events after 2025-04-07T09:00:\n"
+            + " - Standup (2025-04-07T09:00 to 2025-04-07T09:15) at Hall [id 1]\n"
+            + " - Review (2025-04-09T14:00 to 2025-04-09T15:00) [id 2]\n",
+        CommandFactory.process("print events next 2 after 2025-04-07T09:00", controller)
+            .execute());
+    assertEquals(
+        "No events after 2025-05-02T10:01",
+        CommandFactory.process("print events next 5 after 2025-05-02T10:01", controller)
+            .execute());
+    try {
+      CommandFactory.process("print events next many after 2025-05-02T10:01", controller)
+          .execute();
+      fail("Expected an error for a count that is not a number.");
+    } catch (Exception e) {
+      assertEquals("Invalid command: event count must be a positive number: many", e.getMessage());
+    }
+  }
+
+  /** Tests that printing a range formats the streamed events. */
+  @Test
+  public void testPrintRangeStreams() throws Exception {
+    CalendarController controller =
+        new CalendarController(new Calendar("Default", ZoneId.of("UTC")));
+    controller.createSingleEvent(
+        "Standup", "2025-04-07T09:00", "2025-04-07T09:15", "", "Hall", true, true);
+    assertEquals(
+        "Events from 2025-04-07T00:00 to 2025-04-08T00:00:\n"
+            + " - Standup (09:00 to 09:15) at Hall [id 1]\n",
+        CommandFactory.process("print events from 2025-04-07T00:00 to 2025-04-08T00:00", controller)
+            .execute());
+    assertEquals(
+        "No events between 2025-04-08T00:00 and 2025-04-09T00:00",
+        CommandFactory.process("print events from 2025-04-08T00:00 to 2025-04-09T00:00", controller)
+            .execute());
+  }
+
+  /**
+   * Returns a calendar with a crowded day, events crossing midnight, a long event, a weekly series
+   * and one event far in the future.
+   */
+  private static Calendar filledCalendar(StorageType storage) throws Exception {
+    Calendar calendar = new Calendar("Work", ZoneId.of("UTC"), storage);
+    List<Event> crowded = new ArrayList<>();
+    for (int i = 0; i < 1200; i++) {
+      crowded.add(event("Slot " + i, BASE.plusDays(2).plusMinutes(i), 1));
+    }
+    calendar.addEvents(crowded, false);
+    calendar.addEvent(event("Night", BASE.plusHours(14), 20 * 60), false);
+    calendar.addEvent(event("Offsite", BASE.minusDays(2), 10 * 24 * 60), false);
+    calendar.addEvent(event("Launch", BASE.plusYears(3), 60), false);
+    calendar.addRecurringEvent(
+        new RecurringEvent(
+            "Gym",
+            BASE.plusHours(9),
+            BASE.plusHours(10),
+            "",
+            "",
+            true,
+            EnumSet.of(DayOfWeek.MONDAY, DayOfWeek.THURSDAY),
+            8),
+        false);
+    return calendar;
+  }
+
+  private static String describe(List<Event> events) {
+    return events.stream()
+        .map(e -> e.getId() + " " + e.getName() + "@" + e.getStart() + "-" + e.getEnd())
+        .collect(Collectors.joining("\n"));
+  }
+}
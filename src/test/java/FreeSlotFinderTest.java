@@ -0,0 +1,121 @@
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+import calendar.model.Calendar;
+import calendar.model.CalendarSnapshot;
+import calendar.model.FreeSlotFinder;
+import calendar.model.TimeSlot;
+import calendar.model.event.RecurringEvent;
+import calendar.model.event.SingleEvent;
+import java.time.DayOfWeek;
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.time.ZoneId;
+import java.util.ArrayList;
+import java.util.EnumSet;
+import java.util.List;
+import java.util.Random;
+import org.junit.Test;
+
+/** Tests for FreeSlotFinder. */
+public class FreeSlotFinderTest {
+  private static final LocalDateTime BASE = LocalDateTime.of(2025, 4, 7, 0, 0);
+
+  /** Tests that slots avoid the events of every calendar, touching ends included. */
+  @Test
+  public void testSlotsAcrossCalendars() throws Exception {
+    Calendar first = new Calendar("First", ZoneId.of("UTC"));
+    Calendar second = new Calendar("Second", ZoneId.of("UTC"));
+    first.addEvent(event(BASE.plusHours(9), 60), false);
+    second.addEvent(event(BASE.plusHours(10).plusMinutes(30), 30), false);
+    second.addRecurringEvent(
+        new RecurringEvent(
+            "Lunch",
+            BASE.plusHours(12),
+            BASE.plusHours(13),
+            "",
+            "",
+            true,
+            EnumSet.allOf(DayOfWeek.class),
+            5),
+        false);
+    List<TimeSlot> slots =
+        FreeSlotFinder.find(
+            List.of(first.snapshot(), second.snapshot()),
+            BASE.plusHours(9),
+            BASE.plusHours(17),
+            Duration.ofMinutes(30),
+            3);
+    assertEquals(
+        List.of(
+            new TimeSlot(BASE.plusHours(11).plusMinutes(1), BASE.plusHours(11).plusMinutes(59)),
+            new TimeSlot(BASE.plusHours(13).plusMinutes(1), BASE.plusHours(17))),
+        slots);
+  }
+
+  /** Tests slot answers against a minute-by-minute scan on random calendars. */
+  @Test
+  public void testMatchesMinuteScan() throws Exception {
+    Random random = new Random(5);
+    List<Calendar> calendars = new ArrayList<>();
+    for (int c = 0; c < 3; c++) {
+      Calendar calendar = new Calendar("C" + c, ZoneId.of("UTC"));
+      for (int i = 0; i < 150; i++) {
+        calendar.addEvent(
+            event(BASE.plusMinutes(random.nextInt(10 * 1440)), random.nextInt(240)), false);
+      }
+      calendars.add(calendar);
+    }
+    List<CalendarSnapshot> snapshots = new ArrayList<>();
+    for (Calendar calendar : calendars) {
+      snapshots.add(calendar.snapshot());
+    }
+    for (int q = 0; q < 30; q++) {
+      LocalDateTime from = BASE.plusMinutes(random.nextInt(9 * 1440));
+      LocalDateTime to = from.plusMinutes(random.nextInt(3 * 1440));
+      int minutes = 1 + random.nextInt(120);
+      List<TimeSlot> expected = new ArrayList<>();
+      LocalDateTime runStart = null;
+      for (LocalDateTime at = from; !at.isAfter(to.plusMinutes(1)); at = at.plusMinutes(1)) {
+        boolean free = !at.isAfter(to);
+        for (Calendar calendar : calendars) {
+          free &= !calendar.isBusy(at);
+        }
+        if (free && runStart == null) {
+          runStart = at;
+        } else if (!free && runStart != null) {
+          LocalDateTime runEnd = at.minusMinutes(1);
+          if (Duration.between(runStart, runEnd).toMinutes() >= minutes) {
+            expected.add(new TimeSlot(runStart, runEnd));
+          }
+          runStart = null;
+        }
+      }
+      List<TimeSlot> all =
+          FreeSlotFinder.find(snapshots, from, to, Duration.ofMinutes(minutes), Integer.MAX_VALUE);
+      assertEquals(expected, all);
+      List<TimeSlot> firstTwo =
+          FreeSlotFinder.find(snapshots, from, to, Duration.ofMinutes(minutes), 2);
+      assertEquals(expected.subList(0, Math.min(2, expected.size())), firstTwo);
+    }
+  }
+
+  /** Tests that a fully booked range has no slots. */
+  @Test
+  public void testNoSlot() throws Exception {
+    Calendar calendar = new Calendar("Full", ZoneId.of("UTC"));
+    calendar.addEvent(event(BASE, 24 * 60), false);
+    assertTrue(
+        FreeSlotFinder.find(
+                List.of(calendar.snapshot()),
+                BASE.plusHours(1),
+                BASE.plusHours(20),
+                Duration.ofMinutes(1),
+                1)
+            .isEmpty());
+  }
+
+  private static SingleEvent event(LocalDateTime start, int minutes) {
+    return new SingleEvent("Busy", start, start.plusMinutes(minutes), "", "", true);
+  }
+}
@@ -0,0 +1,239 @@
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+import calendar.controller.CalendarController;
+import calendar.controller.journal.Journal;
+import calendar.controller.journal.SyncPolicy;
+import calendar.model.Calendar;
+import calendar.model.event.Event;
+import java.io.IOException;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.time.ZoneId;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.TreeSet;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import org.junit.Test;
+
+/** Tests for Journal and the journaling of controller changes. */
+public class JournalTest {
+
+  /** Tests that records are read back in order under each sync policy, across reopening. */
+  @Test
+  public void testRecordsReadBack() throws Exception {
+    for (SyncPolicy policy : SyncPolicy.values()) {
+      Path path = Files.createTempFile("journal", ".bin");
+      Files.delete(path);
+      try {
+        try (Journal journal = Journal.open(path, policy, 10)) {
+          journal.append(bytes("first"));
+          journal.append(bytes("second"));
+        }
+        try (Journal journal = Journal.open(path, policy, 10)) {
+          journal.append(bytes("third"));
+        }
+        assertEquals(List.of("first", "second", "third"), readAll(path));
+      } finally {
+        Files.deleteIfExists(path);
+      }
+    }
+  }
+
+  /** Tests that concurrent appends all reach the file when they share commits. */
+  @Test
+  public void testConcurrentAppends() throws Exception {
+    Path path = Files.createTempFile("journal", ".bin");
+    Files.delete(path);
+    ExecutorService pool = Executors.newFixedThreadPool(4);
+    try {
+      try (Journal journal = Journal.open(path, SyncPolicy.ALWAYS, 0)) {
+        List<Future<?>> futures = new ArrayList<>();
+        for (int t = 0; t < 4; t++) {
+          int thread = t;
+          futures.add(
+              pool.submit(
+                  () -> {
+                    for (int i = 0; i < 50; i++) {
+                      journal.append(bytes(thread + ":" + i));
+                    }
+                    return null;
+                  }));
+        }
+        for (Future<?> future : futures) {
+          future.get();
+        }
+      }
+      List<String> records = readAll(path);
+      assertEquals(200, records.size());
+      for (int t = 0; t < 4; t++) {
+        int previous = -1;
+        for (String record : records) {
+          if (record.startsWith(t + ":")) {
+            int i = Integer.parseInt(record.substring(record.indexOf(':') + 1));
+            assertEquals(previous + 1, i);
+            previous = i;
+          }
+        }
+        assertEquals(49, previous);
+      }
+    } finally {
+      pool.shutdown();
+      Files.deleteIfExists(path);
+    }
+  }
+
+  /** Tests that a torn or corrupted last record is dropped and cut off when reopened. */
+  @Test
+  public void testTornTailIsDropped() throws Exception {
+    Path path = Files.createTempFile("journal", ".bin");
+    Files.delete(path);
+    try {
+      try (Journal journal = Journal.open(path, SyncPolicy.ALWAYS, 0)) {
+        journal.append(bytes("kept"));
+        journal.append(bytes("torn"));
+      }
+      long size = Files.size(path);
+      try (FileChannel channel = FileChannel.open(path, StandardOpenOption.WRITE)) {
+        channel.truncate(size - 2);
+      }
+      assertEquals(List.of("kept"), readAll(path));
+      try (Journal journal = Journal.open(path, SyncPolicy.ALWAYS, 0)) {
+        journal.append(bytes("after"));
+      }
+      assertEquals(List.of("kept", "after"), readAll(path));
+
+      // Flip a byte in the last payload so its checksum fails.
+      byte[] contents = Files.readAllBytes(path);
+      contents[contents.length - 1] ^= 1;
+      Files.write(path, contents);
+      assertEquals(List.of("kept"), readAll(path));
+    } finally {
+      Files.deleteIfExists(path);
+    }
+  }
+
+  /** Tests that a file that is not a journal is refused. */
+  @Test
+  public void testRejectsOtherFiles() throws Exception {
+    Path path = Files.createTempFile("journal", ".csv");
+    try {
+      Files.write(path, bytes("Subject,Start Date"));
+      try {
+        Journal.open(path, SyncPolicy.NONE, 0);
+        fail("Expected a file that is not a journal to be refused.");
+      } catch (IOException e) {
+        assertEquals("Not a calendar journal.", e.getMessage());
+      }
+      assertArrayEquals(bytes("Subject,Start Date"), Files.readAllBytes(path));
+    } finally {
+      Files.deleteIfExists(path);
+    }
+  }
+
+  /** Tests that replaying a journal rebuilds the same calendars, events and ids. */
+  @Test
+  public void testReplayRebuildsCalendars() throws Exception {
+    Path path = Files.createTempFile("journal", ".bin");
+    Path csv = Files.createTempFile("import", ".csv");
+    Files.delete(path);
+    try {
+      CalendarController controller = newController();
+      assertEquals(0, controller.openJournal(path, SyncPolicy.INTERVAL, 5));
+      controller.createSingleEvent(
+          "Standup", "2025-04-07T09:00", "2025-04-07T09:15", "daily", "room 1", true, true);
+      controller.createRecurringEventOccurrences(
+          "Gym", "2025-04-07T18:00", "2025-04-07T19:00", "", "", false, "MWF", 6, true);
+      controller.createRecurringAllDayEventUntil(
+          "Holiday", "2025-04-12", "", "", true, "SU", "2025-04-20", true);
+      controller.editEventsFrom("location", "Gym", "2025-04-09T18:00", "club");
+      controller.editSingleEvent(
+          "description", "Gym", "2025-04-11T18:00", "2025-04-11T19:00", "legs");
+      controller.editEventById("name", 1, "Daily standup");
+      controller.createCalendar("Work", "UTC");
+      controller.copyEventsBetween("2025-04-07", "2025-04-08", "Work", "2025-05-05");
+      controller.editCalendar("Work", "name", "Office");
+      controller.useCalendar("Office");
+      Files.write(
+          csv,
+          List.of(
+              "Subject,Start Date,Start Time,End Date,End Time,All Day Event,Description,"
+                  + "Location,Private",
+              "Review,04/21/2025,10:00,04/21/2025,11:00,False,notes,hall,False"),
+          StandardCharsets.UTF_8);
+      assertEquals(1, controller.importCalendar(csv.toString()));
+      controller.editEvents("location", "Review", "room 2");
+      try {
+        controller.editEvents("location", "Missing", "nowhere");
+        fail("Expected editing a missing event to fail.");
+      } catch (Exception e) {
+        // Failed changes are not recorded.
+      }
+      String expected = describe(controller);
+      controller.closeJournal();
+
+      CalendarController replayed = newController();
+      assertEquals(11, replayed.openJournal(path, SyncPolicy.NONE, 0));
+      assertEquals(expected, describe(replayed));
+      replayed.createSingleEvent(
+          "Late", "2025-04-30T20:00", "2025-04-30T21:00", "", "", true, true);
+      replayed.closeJournal();
+
+      CalendarController again = newController();
+      assertEquals(12, again.openJournal(path, SyncPolicy.ALWAYS, 0));
+      assertTrue(describe(again).contains("Late@2025-04-30T20:00"));
+      again.closeJournal();
+    } finally {
+      Files.deleteIfExists(path);
+      Files.deleteIfExists(csv);
+    }
+  }
+
+  private static CalendarController newController() {
+    return new CalendarController(new Calendar("Default", ZoneId.of("UTC")));
+  }
+
+  /** Returns every event of every calendar, with its id and fields, as text. */
+  private static String describe(CalendarController controller) throws Exception {
+    StringBuilder result = new StringBuilder();
+    for (String name : new TreeSet<>(controller.getCalendarNames())) {
+      controller.useCalendar(name);
+      result.append(name).append('\n');
+      for (Event e : controller.getEventsBetween("2025-01-01T00:00", "2025-12-31T23:59")) {
+        result
+            .append(e.getId())
+            .append(' ')
+            .append(e.getName())
+            .append('@')
+            .append(e.getStart())
+            .append('-')
+            .append(e.getEnd())
+            .append(' ')
+            .append(e.getDescription())
+            .append('|')
+            .append(e.getLocation())
+            .append('|')
+            .append(e.isPublic())
+            .append('\n');
+      }
+    }
+    return result.toString();
+  }
+
+  private static List<String> readAll(Path path) throws Exception {
+    List<String> records = new ArrayList<>();
+    Journal.read(path, payload -> records.add(new String(payload, StandardCharsets.UTF_8)));
+    return records;
+  }
+
+  private static byte[] bytes(String text) {
+    return text.getBytes(StandardCharsets.UTF_8);
+  }
+}
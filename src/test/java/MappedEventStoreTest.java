@@ -0,0 +1,166 @@
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+import calendar.model.event.Event;
+import calendar.model.event.SingleEvent;
+import calendar.model.store.EventPages;
+import calendar.model.store.EventStore;
+import calendar.model.store.IndexedEventStore;
+import calendar.model.store.MappedEventStore;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.time.ZoneOffset;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Random;
+import org.junit.Test;
+
+/** Tests for MappedEventStore, checked against IndexedEventStore. */
+public class MappedEventStoreTest {
+  private static final LocalDateTime BASE = LocalDateTime.of(2025, 1, 1, 0, 0);
+  private static final int PAGE_EVENTS = 4;
+
+  /**
+   * Tests that queries match the indexed store, including past a long event near the start, and
+   * that they find their first page without reading the bounds of every page before it.
+   */
+  @Test
+  public void testQueriesFindFirstPageBySearch() {
+    Random random = new Random(17);
+    List<Event> events = new ArrayList<>();
+    for (int i = 0; i < 4000; i++) {
+      int start = random.nextInt(200_000);
+      events.add(event("E" + i, start, start + random.nextInt(600)));
+    }
+    events.add(event("Long", 50, 150_000));
+    events.sort(Comparator.comparing(Event::getStart));
+    for (int i = 0; i < events.size(); i++) {
+      ((SingleEvent) events.get(i)).setId(i + 1);
+    }
+    EventStore indexed = new IndexedEventStore();
+    indexed.addAll(events);
+    CountingPages pages = new CountingPages(events);
+    MappedEventStore mapped = new MappedEventStore();
+    mapped.attach(pages);
+
+    for (int q = 0; q < 200; q++) {
+      LocalDateTime from = BASE.plusMinutes(random.nextInt(210_000));
+      LocalDateTime to = from.plusMinutes(random.nextInt(2000));
+      assertEquals(overlapping(indexed, from, to), overlapping(mapped, from, to));
+      assertEquals(indexed.anyOverlapping(from, to), mapped.anyOverlapping(from, to));
+      LocalDate date = from.toLocalDate();
+      assertEquals(ids(indexed.startingOn(date)), ids(mapped.startingOn(date)));
+    }
+
+    // A day near the end starts its scan near the end, and so does an overlap query once the long
+    // event has ended.
+    pages.reads = 0;
+    mapped.startingOn(BASE.plusMinutes(195_000).toLocalDate());
+    assertTrue(pages.reads < 40);
+    pages.reads = 0;
+    mapped.forEachOverlapping(BASE.plusMinutes(190_000), BASE.plusMinutes(190_100), e -> {});
+    assertTrue(pages.reads < 40);
+  }
+
+  private static SingleEvent event(String name, int startMinutes, int endMinutes) {
+    return new SingleEvent(
+        name, BASE.plusMinutes(startMinutes), BASE.plusMinutes(endMinutes), "", "", true);
+  }
+
+  private static List<Long> overlapping(EventStore store, LocalDateTime from, LocalDateTime to) {
+    List<Long> result = new ArrayList<>();
+    store.forEachOverlapping(from, to, e -> result.add(e.getId()));
+    return result;
+  }
+
+  private static List<Long> ids(List<Event> events) {
+    List<Long> result = new ArrayList<>();
+    for (Event event : events) {
+      result.add(event.getId());
+    }
+    return result;
+  }
+
+  private static long minutes(LocalDateTime dateTime) {
+    return Math.floorDiv(dateTime.toEpochSecond(ZoneOffset.UTC), 60);
+  }
+
+  /** Pages of a few events each over a list in start order, counting reads of page bounds. */
+  private static final class CountingPages implements EventPages {
+    private final List<Event> events;
+    private final long[] maxEndThrough;
+    private int reads;
+
+    CountingPages(List<Event> events) {
+      this.events = events;
+      maxEndThrough = new long[pageCount()];
+      long max = Long.MIN_VALUE;
+      for (int page = 0; page < maxEndThrough.length; page++) {
+        for (Event event : decode(page)) {
+          max = Math.max(max, minutes(event.getEnd()));
+        }
+        maxEndThrough[page] = max;
+      }
+    }
+
+    @Override
+    public int pageCount() {
+      return (events.size() + PAGE_EVENTS - 1) / PAGE_EVENTS;
+    }
+
+    @Override
+    public int eventCount() {
+      return events.size();
+    }
+
+    @Override
+    public long firstStart(int page) {
+      reads++;
+      return minutes(events.get(page * PAGE_EVENTS).getStart());
+    }
+
+    @Override
+    public long maxEnd(int page) {
+      reads++;
+      long max = Long.MIN_VALUE;
+      for (Event event : decode(page)) {
+        max = Math.max(max, minutes(event.getEnd()));
+      }
+      return max;
+    }
+
+    @Override
+    public long maxEndThrough(int page) {
+      reads++;
+      return maxEndThrough[page];
+    }
+
+    @Override
+    public List<Event> decode(int page) {
+      List<Event> copies = new ArrayList<>();
+      for (Event event : events.subList(page * PAGE_EVENTS, page * PAGE_EVENTS + size(page))) {
+        SingleEvent copy =
+            new SingleEvent(
+                event.getName(),
+                event.getStart(),
+                event.getEnd(),
+                event.getDescription(),
+                event.getLocation(),
+                event.isPublic());
+        copy.setId(event.getId());
+        copies.add(copy);
+      }
+      return copies;
+    }
+
+    @Override
+    public int pageOfId(long id) {
+      return id >= 1 && id <= events.size() ? (int) (id - 1) / PAGE_EVENTS : -1;
+    }
+
+    private int size(int page) {
+      return Math.min(PAGE_EVENTS, events.size() - page * PAGE_EVENTS);
+    }
+  }
+}
@@ -0,0 +1,189 @@
+import static calendar.TestEvents.BASE;
+import static calendar.TestEvents.event;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.fail;
+
+import calendar.controller.CalendarController;
+import calendar.controller.command.CommandFactory;
+import calendar.model.Calendar;
+import calendar.model.event.Event;
+import calendar.model.event.RecurringEvent;
+import calendar.model.index.NameTrie;
+import calendar.model.store.StorageType;
+import java.time.DayOfWeek;
+import java.time.ZoneId;
+import java.util.Comparator;
+import java.util.EnumSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+import java.util.TreeMap;
+import java.util.stream.Collectors;
+import org.junit.Test;
+
+/** Tests for event name completion and bulk edits by name prefix. */
+public class NameTrieTest {
+
+  /** Tests the trie against a sorted map of counts through random adds and removals. */
+  @Test
+  public void testTrieMatchesCounts() {
+    Random random = new Random(7);
+    String[] parts = {"a", "ab", "b", "ba", "abc", ""};
+    NameTrie trie = new NameTrie();
+    TreeMap<String, Long> counts = new TreeMap<>();
+    for (int step = 0; step < 3000; step++) {
+      String name =
+          parts[random.nextInt(parts.length)]
+              + parts[random.nextInt(parts.length)]
+              + parts[random.nextInt(parts.length)];
+      long count = counts.getOrDefault(name, 0L);
+      long delta = count > 0 && random.nextBoolean() ? -1 - random.nextInt((int) count) : 1;
+      trie.add(name, delta);
+      if (count + delta == 0) {
+        counts.remove(name);
+      } else {
+        counts.put(name, count + delta);
+      }
+      String prefix = parts[random.nextInt(parts.length)];
+      assertEquals(expected(counts, prefix, 4), trie.complete(prefix, 4));
+      assertEquals(
+          counts.keySet().stream().filter(n -> n.startsWith(prefix)).collect(Collectors.toList()),
+          trie.namesWithPrefix(prefix));
+      assertEquals(counts.size(), trie.size());
+    }
+    try {
+      trie.add("missing", -1);
+      fail("Expected an error for removing a name that is not there.");
+    } catch (IllegalArgumentException e) {
+      assertEquals("Fewer than 1 events named missing", e.getMessage());
+    }
+  }
+
+  /** Tests that completions count events by name through adds, detaches, splits and renames. */
+  @Test
+  public void testCompletionFollowsEdits() throws Exception {
+    for (StorageType storage : StorageType.values()) {
+      Calendar calendar = new Calendar("Work", ZoneId.of("UTC"), storage);
+      calendar.addEvent(event("Team lunch", BASE, 60), false);
+      calendar.addEvents(
+          List.of(
+              event("Team lunch", BASE.plusDays(1), 60), event("Teaching", BASE.plusDays(2), 60)),
+          false);
+      calendar.addRecurringEvent(
+          new RecurringEvent(
+              "Team sync",
+              BASE.plusHours(8),
+              BASE.plusHours(9),
+              "",
+              "",
+              true,
+              EnumSet.of(DayOfWeek.MONDAY, DayOfWeek.WEDNESDAY),
+              6),
+          false);
+      assertEquals(List.of("Team sync", "Team lunch"), calendar.completeEventNames("Team", 5));
+      assertCounts(calendar);
+
+      Event occurrence = calendar.getEventsOn(BASE.toLocalDate().plusDays(2)).get(1);
+      calendar.editEventById("name", occurrence.getId(), "Teaching");
+      calendar.editEventsFrom("name", "Team sync", BASE.plusWeeks(2), "Tea time");
+      calendar.editSingleEvent(
+          "name", "Team lunch", BASE.plusDays(1), BASE.plusDays(1).plusHours(1), "Tea time");
+      assertCounts(calendar);
+      assertEquals(
+          List.of("Tea time", "Team sync", "Teaching", "Team lunch"),
+          calendar.completeEventNames("Tea", 5));
+
+      assertEquals(4, calendar.editEvents("location", Calendar.PREFIX_MATCHER + "Team", "Hall"));
+      assertEquals(4, calendar.editEvents("name", Calendar.PREFIX_MATCHER + "Team", "Staff"));
+      assertCounts(calendar);
+      assertEquals(List.of(), calendar.completeEventNames("Team", 5));
+      // Only the two series occurrences renamed "Tea time" start after the cutoff.
+      assertEquals(
+          2, calendar.editEventsFrom("name", "prefix:Tea", BASE.plusDays(9), "Late tea"));
+      assertCounts(calendar);
+    }
+  }
+
+  /** Tests that a prefix edit renaming events to a name it matches edits each event once. */
+  @Test
+  public void testPrefixRenameToMatchedName() throws Exception {
+    for (StorageType storage : StorageType.values()) {
+      Calendar calendar = new Calendar("Work", ZoneId.of("UTC"), storage);
+      calendar.addEvent(event("T1", BASE, 60), false);
+      calendar.addEvent(event("T2", BASE.plusDays(1), 60), false);
+      assertEquals(2, calendar.editEvents("name", Calendar.PREFIX_MATCHER + "T", "T2"));
+      assertEquals(List.of("T2"), calendar.completeEventNames("T", 5));
+
+      calendar.addRecurringEvent(
+          new RecurringEvent(
+              "T3",
+              BASE.plusWeeks(1),
+              BASE.plusWeeks(1).plusHours(1),
+              "",
+              "",
+              true,
+              EnumSet.of(DayOfWeek.MONDAY),
+              3),
+          false);
+      assertEquals(5, calendar.editEventsFrom("name", Calendar.PREFIX_MATCHER + "T", BASE, "T3"));
+      assertEquals(List.of("T3"), calendar.completeEventNames("T", 5));
+      assertCounts(calendar);
+    }
+  }
+
+  /** Tests the complete command and the prefix matcher of the edit events command. */
+  @Test
+  public void testCommands() throws Exception {
+    Calendar calendar = new Calendar("Default", ZoneId.of("UTC"));
+    CalendarController controller = new CalendarController(calendar);
+    controller.createSingleEvent(
+        "Standup", "2025-04-07T09:00", "2025-04-07T09:15", "", "", true, false);
+    controller.createSingleEvent(
+        "Standup", "2025-04-08T09:00", "2025-04-08T09:15", "", "", true, false);
+    controller.createSingleEvent(
+        "Staffing", "2025-04-08T10:00", "2025-04-08T11:00", "", "", true, false);
+    assertEquals(
+        "Event names starting with \"Sta\":\n - Standup\n - Staffing\n",
+        CommandFactory.process("complete Sta", controller).execute());
+    assertEquals(
+        "Event names starting with \"Sta\":\n - Standup\n",
+        CommandFactory.process("complete Sta --limit 1", controller).execute());
+    assertEquals(
+        "No event names start with \"Lunch\"",
+        CommandFactory.process("complete Lunch", controller).execute());
+    assertEquals(
+        "All events with name prefix:Sta edited.",
+        CommandFactory.process("edit events location prefix:Sta Hall", controller).execute());
+    assertEquals(
+        List.of("Hall", "Hall", "Hall"),
+        calendar.getEventsBetween(BASE, BASE.plusDays(2)).stream()
+            .map(Event::getLocation)
+            .collect(Collectors.toList()));
+    try {
+      CommandFactory.process("complete Sta --limit 0", controller).execute();
+      fail("Expected an error for a limit that is not positive.");
+    } catch (Exception e) {
+      assertEquals("Invalid command: --limit must be a positive number: 0", e.getMessage());
+    }
+  }
+
+  /** Checks each name's completion rank against counts taken from every event. */
+  private static void assertCounts(Calendar calendar) {
+    Map<String, Long> counts =
+        calendar.getEventsBetween(BASE.minusYears(1), BASE.plusYears(1)).stream()
+            .collect(Collectors.groupingBy(Event::getName, TreeMap::new, Collectors.counting()));
+    assertEquals(expected(counts, "", 100), calendar.completeEventNames("", 100));
+  }
+
+  /** Returns the names with the prefix, the most frequent first, by brute force. */
+  private static List<String> expected(Map<String, Long> counts, String prefix, int limit) {
+    return counts.entrySet().stream()
+        .filter(e -> e.getKey().startsWith(prefix))
+        .sorted(
+            Comparator.comparing((Map.Entry<String, Long> e) -> -e.getValue())
+                .thenComparing(Map.Entry::getKey))
+        .limit(limit)
+        .map(Map.Entry::getKey)
+        .collect(Collectors.toList());
+  }
+}
@@ -0,0 +1,159 @@
+import static calendar.TestEvents.BASE;
+import static calendar.TestEvents.event;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+import calendar.controller.CalendarController;
+import calendar.controller.command.CommandFactory;
+import calendar.model.Calendar;
+import calendar.model.QueryCacheStats;
+import calendar.model.event.Event;
+import calendar.model.store.StorageType;
+import java.time.LocalDate;
+import java.time.ZoneId;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicReference;
+import org.junit.Test;
+
+/** Tests for the query cache each calendar keeps. */
+public class QueryCacheTest {
+  private static final LocalDate DAY = BASE.toLocalDate();
+
+  /** Tests that repeated queries hit, and only changes to the dates they cover invalidate them. */
+  @Test
+  public void testChangesInvalidateOverlappingEntries() throws Exception {
+    for (StorageType storage : StorageType.values()) {
+      Calendar calendar = new Calendar("Work", ZoneId.of("UTC"), storage);
+      calendar.addEvent(event("Standup", BASE, 15), false);
+
+      List<Event> first = calendar.getEventsOn(DAY);
+      assertSame(first, calendar.getEventsOn(DAY));
+      Map<LocalDate, List<Event>> week = calendar.getEventsByDay(DAY, DAY.plusDays(6));
+      assertStats(calendar, 1, 2);
+
+      // A change to another week leaves both entries valid.
+      calendar.addEvent(event("Review", BASE.plusDays(10), 60), false);
+      assertSame(first, calendar.getEventsOn(DAY));
+      assertSame(week, calendar.getEventsByDay(DAY, DAY.plusDays(6)));
+      assertStats(calendar, 3, 2);
+
+      // A change later in the week invalidates the week but not the first day.
+      calendar.addEvent(event("Retro", BASE.plusDays(4), 30), false);
+      assertSame(first, calendar.getEventsOn(DAY));
+      assertEquals(2, calendar.getEventsByDay(DAY, DAY.plusDays(6)).size());
+      assertStats(calendar, 4, 3);
+
+      // An edit to the first day invalidates it.
+      calendar.editEvents("location", "Standup", "Hall");
+      List<Event> edited = calendar.getEventsOn(DAY);
+      assertEquals("Hall", edited.get(0).getLocation());
+      assertStats(calendar, 4, 4);
+
+      List<Event> between = calendar.getEventsBetween(BASE, BASE.plusDays(4).plusHours(1));
+      assertEquals(2, between.size());
+      assertSame(between, calendar.getEventsBetween(BASE, BASE.plusDays(4).plusHours(1)));
+      try {
+        between.clear();
+        fail("Expected cached results to be unmodifiable.");
+      } catch (UnsupportedOperationException e) {
+        assertEquals(2, between.size());
+      }
+    }
+  }
+
+  /** Tests that a full cache evicts its least recently used entry, and that 0 turns it off. */
+  @Test
+  public void testCapacity() throws Exception {
+    Calendar calendar = new Calendar("Work", ZoneId.of("UTC"));
+    calendar.addEvent(event("Standup", BASE, 15), false);
+    calendar.setQueryCacheCapacity(2);
+    calendar.getEventsOn(DAY);
+    calendar.getEventsOn(DAY.plusDays(1));
+    calendar.getEventsOn(DAY);
+    calendar.getEventsOn(DAY.plusDays(2));
+    QueryCacheStats stats = calendar.getQueryCacheStats();
+    assertEquals(1, stats.getEvictions());
+    assertEquals(2, stats.getSize());
+    calendar.getEventsOn(DAY);
+    assertStats(calendar, 2, 3);
+
+    calendar.setQueryCacheCapacity(0);
+    assertEquals(0, calendar.getQueryCacheStats().getSize());
+    List<Event> uncached = calendar.getEventsOn(DAY);
+    assertTrue(uncached != calendar.getEventsOn(DAY));
+    assertEquals(uncached, calendar.getEventsOn(DAY));
+    assertStats(calendar, 2, 6);
+  }
+
+  /** Tests that readers sharing the cache with a writer see every change once it is made. */
+  @Test
+  public void testConcurrentReadersAndWriter() throws Exception {
+    Calendar calendar = new Calendar("Work", ZoneId.of("UTC"));
+    calendar.setQueryCacheCapacity(8);
+    AtomicBoolean running = new AtomicBoolean(true);
+    AtomicReference<Throwable> failure = new AtomicReference<>();
+    List<Thread> readers = new ArrayList<>();
+    for (int r = 0; r < 4; r++) {
+      int offset = r;
+      readers.add(
+          new Thread(
+              () -> {
+                try {
+                  for (int i = 0; running.get(); i++) {
+                    LocalDate day = DAY.plusDays((i + offset) % 12);
+                    int before = calendar.getEventsOn(day).size();
+                    // Events are only added, so a later read of the same day never sees fewer.
+                    assertTrue(calendar.getEventsOn(day).size() >= before);
+                  }
+                } catch (Throwable t) {
+                  failure.compareAndSet(null, t);
+                }
+              }));
+    }
+    for (Thread reader : readers) {
+      reader.start();
+    }
+    for (int i = 0; i < 600; i++) {
+      calendar.addEvent(event("E" + i, BASE.plusDays(i % 12).plusMinutes(i), 1), false);
+      assertEquals(i / 12 + 1, calendar.getEventsOn(DAY.plusDays(i % 12)).size());
+    }
+    running.set(false);
+    for (Thread reader : readers) {
+      reader.join();
+    }
+    if (failure.get() != null) {
+      throw new AssertionError(failure.get());
+    }
+    assertTrue(calendar.getQueryCacheStats().getSize() <= 8);
+    for (int d = 0; d < 12; d++) {
+      assertEquals(50, calendar.getEventsOn(DAY.plusDays(d)).size());
+    }
+  }
+
+  /** Tests that the show cache command reports the active calendar's counters. */
+  @Test
+  public void testShowCacheCommand() throws Exception {
+    CalendarController controller =
+        new CalendarController(new Calendar("Default", ZoneId.of("UTC")));
+    controller.createSingleEvent(
+        "Standup", "2025-04-07T09:00", "2025-04-07T09:15", "", "", true, true);
+    controller.getEventsOn("2025-04-07");
+    controller.getEventsOn("2025-04-07");
+    String status = CommandFactory.process("show cache", controller).execute();
+    assertEquals(
+        "Query cache of Default: 1 hits, 1 misses (50.0% hit rate), 0 evictions, "
+            + "1 of 256 entries used",
+        status);
+  }
+
+  private static void assertStats(Calendar calendar, long hits, long misses) {
+    QueryCacheStats stats = calendar.getQueryCacheStats();
+    assertEquals(hits, stats.getHits());
+    assertEquals(misses, stats.getMisses());
+  }
+}
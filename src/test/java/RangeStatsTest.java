@@ -0,0 +1,134 @@
+import static calendar.TestEvents.BASE;
+import static calendar.TestEvents.event;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.fail;
+
+import calendar.controller.CalendarController;
+import calendar.controller.command.CommandFactory;
+import calendar.model.Calendar;
+import calendar.model.RangeStats;
+import calendar.model.event.Event;
+import calendar.model.event.RecurringEvent;
+import calendar.model.store.StorageType;
+import java.time.DayOfWeek;
+import java.time.LocalDate;
+import java.time.ZoneId;
+import java.util.EnumSet;
+import java.util.List;
+import java.util.Map;
+import org.junit.Test;
+
+/** Tests for the range aggregates calendars compute. */
+public class RangeStatsTest {
+  private static final LocalDate MONDAY = BASE.toLocalDate();
+
+  /** Tests counts, busy minutes and concurrency against the day queries and the busy bitmap. */
+  @Test
+  public void testStatsMatchQueries() throws Exception {
+    for (StorageType storage : StorageType.values()) {
+      Calendar calendar = new Calendar("Work", ZoneId.of("UTC"), storage);
+      calendar.addEvent(event("Offsite", BASE.minusDays(3), 3 * 24 * 60 + 30), false);
+      calendar.addEvent(event("Standup", BASE, 15), false);
+      calendar.addEvent(event("Pairing", BASE.plusMinutes(10), 60), false);
+      calendar.addEvent(event("Review", BASE.plusMinutes(12), 10), false);
+      calendar.addEvent(event("Night", BASE.plusDays(2).plusHours(14), 10 * 60), false);
+      calendar.addEvent(event("Later", BASE.plusDays(20), 30), false);
+      calendar.addRecurringEvent(
+          new RecurringEvent(
+              "Gym",
+              BASE.plusHours(9),
+              BASE.plusHours(10),
+              "",
+              "",
+              true,
+              EnumSet.of(DayOfWeek.MONDAY, DayOfWeek.THURSDAY),
+              6),
+          false);
+
+      LocalDate to = MONDAY.plusDays(13);
+      RangeStats stats = calendar.getStats(MONDAY, to, RangeStats.Bucket.DAY);
+      Map<LocalDate, List<Event>> byDay = calendar.getEventsByDay(MONDAY, to);
+      int total = 0;
+      assertEquals(14, stats.getCounts().size());
+      for (Map.Entry<LocalDate, Integer> count : stats.getCounts().entrySet()) {
+        List<Event> day = byDay.get(count.getKey());
+        assertEquals((int) count.getValue(), day == null ? 0 : day.size());
+        total += count.getValue();
+      }
+      assertEquals(total, stats.getEventCount());
+      assertEquals(
+          calendar.getBusyMinutes(MONDAY.atStartOfDay(), to.plusDays(1).atStartOfDay()),
+          stats.getBusyMinutes());
+      // The offsite, standup, pairing and review are all in progress at 09:12.
+      assertEquals(4, stats.getPeakConcurrency());
+      assertEquals(BASE.plusMinutes(12), stats.getPeakAt());
+
+      RangeStats weeks = calendar.getStats(MONDAY.plusDays(2), to, RangeStats.Bucket.WEEK);
+      assertEquals(List.of(MONDAY, MONDAY.plusWeeks(1)), List.copyOf(weeks.getCounts().keySet()));
+      assertEquals(List.of(2, 2), List.copyOf(weeks.getCounts().values()));
+    }
+  }
+
+  /** Tests a range without events, and a range that ends before it starts. */
+  @Test
+  public void testEmptyAndInvalidRanges() throws Exception {
+    Calendar calendar = new Calendar("Work", ZoneId.of("UTC"));
+    RangeStats stats = calendar.getStats(MONDAY, MONDAY.plusDays(2), RangeStats.Bucket.DAY);
+    assertEquals(0, stats.getEventCount());
+    assertEquals(0, stats.getBusyMinutes());
+    assertEquals(0, stats.getPeakConcurrency());
+    assertNull(stats.getPeakAt());
+    try {
+      calendar.getStats(MONDAY, MONDAY.minusDays(1), RangeStats.Bucket.DAY);
+      fail("Expected an error for a reversed range.");
+    } catch (IllegalArgumentException e) {
+      assertEquals("End date must not be before start date.", e.getMessage());
+    }
+  }
+
+  /** Tests the stats command output. */
+  @Test
+  public void testStatsCommand() throws Exception {
+    CalendarController controller =
+        new CalendarController(new Calendar("Default", ZoneId.of("UTC")));
+    controller.createSingleEvent(
+        "Standup", "2025-04-07T09:00", "2025-04-07T09:15", "", "", true, false);
+    controller.createSingleEvent(
+        "Review", "2025-04-07T09:10", "2025-04-07T10:00", "", "", true, false);
+    controller.createSingleEvent(
+        "Retro", "2025-04-09T10:00", "2025-04-09T11:00", "", "", true, false);
+    assertEquals(
+        "Stats from 2025-04-07 to 2025-04-09: 3 events, 120 busy minutes, peak 2 concurrent at "
+            + "2025-04-07T09:10\n"
+            + "2025-04-07 2\n"
+            + "2025-04-08 0\n"
+            + "2025-04-09 1\n",
+        CommandFactory.process("stats from 2025-04-07 to 2025-04-09", controller).execute());
+    assertEquals(
+        "Stats from 2025-04-08 to 2025-04-14: 1 event, 60 busy minutes, peak 1 concurrent at "
+            + "2025-04-09T10:00\n"
+            + "week of 2025-04-07 1\n"
+            + "week of 2025-04-14 0\n",
+        CommandFactory.process("stats from 2025-04-08 to 2025-04-14 by week", controller)
+            .execute());
+    assertEquals(
+        "Stats from 2025-04-10 to 2025-04-10: 0 events, 0 busy minutes, peak 0 concurrent\n"
+            + "2025-04-10 0\n",
+        CommandFactory.process("stats from 2025-04-10 to 2025-04-10", controller).execute());
+    controller.createSingleEvent(
+        "Ping", "2025-04-11T09:00", "2025-04-11T09:01", "", "", true, false);
+    assertEquals(
+        "Stats from 2025-04-11 to 2025-04-11: 1 event, 1 busy minute, peak 1 concurrent at "
+            + "2025-04-11T09:00\n"
+            + "2025-04-11 1\n",
+        CommandFactory.process("stats from 2025-04-11 to 2025-04-11", controller).execute());
+    try {
+      CommandFactory.process("stats from 2025-04-08 to 2025-04-14 by month", controller)
+          .execute();
+      fail("Expected an error for an unknown grouping.");
+    } catch (Exception e) {
+      assertEquals("Invalid command: stats can be grouped by day or week: month", e.getMessage());
+    }
+  }
+}
@@ -0,0 +1,123 @@
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+
+import calendar.model.event.RecurringEvent;
+import calendar.model.event.SingleEvent;
+import java.time.DayOfWeek;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.EnumSet;
+import java.util.List;
+import java.util.Random;
+import java.util.Set;
+import org.junit.Test;
+
+/** Tests for RecurringEvent. */
+public class RecurringEventTest {
+
+  private static Set<DayOfWeek> randomWeekdays(Random random) {
+    Set<DayOfWeek> weekdays = EnumSet.noneOf(DayOfWeek.class);
+    for (DayOfWeek day : DayOfWeek.values()) {
+      if (random.nextBoolean()) {
+        weekdays.add(day);
+      }
+    }
+    return weekdays;
+  }
+
+  /** Walks the calendar one day at a time, as the series used to be expanded. */
+  private static List<LocalDate> expandByDay(
+      LocalDate start, Set<DayOfWeek> weekdays, int occurrences, LocalDate until) {
+    List<LocalDate> dates = new ArrayList<>();
+    LocalDate date = start;
+    while (until == null ? dates.size() < occurrences : !date.isAfter(until)) {
+      if (weekdays.contains(date.getDayOfWeek())) {
+        dates.add(date);
+      }
+      date = date.plusDays(1);
+    }
+    return dates;
+  }
+
+  private static List<LocalDate> dates(RecurringEvent recurringEvent) {
+    List<LocalDate> dates = new ArrayList<>();
+    for (SingleEvent instance : recurringEvent.getEventInstances()) {
+      dates.add(instance.getStart().toLocalDate());
+    }
+    return dates;
+  }
+
+  /** Tests that computed occurrences match a day-by-day expansion. */
+  @Test
+  public void testMatchesDayByDayExpansion() {
+    Random random = new Random(7);
+    for (int i = 0; i < 300; i++) {
+      Set<DayOfWeek> weekdays = randomWeekdays(random);
+      if (weekdays.isEmpty()) {
+        continue;
+      }
+      LocalDateTime start = LocalDateTime.of(2025, 1, 1, 9, 0).plusDays(random.nextInt(400));
+      LocalDateTime end = start.plusHours(1);
+      int occurrences = 1 + random.nextInt(60);
+      RecurringEvent byCount =
+          new RecurringEvent("E", start, end, "", "", true, weekdays, occurrences);
+      List<LocalDate> expected = expandByDay(start.toLocalDate(), weekdays, occurrences, null);
+      assertEquals(expected, dates(byCount));
+      assertEquals(occurrences, byCount.countOccurrences());
+      assertEquals(expected.get(expected.size() - 1), byCount.getLastOccurrenceDate());
+      int middle = occurrences / 2;
+      assertEquals(expected.get(middle), byCount.getNthOccurrenceDate(middle + 1));
+
+      LocalDateTime until = start.plusDays(random.nextInt(200));
+      RecurringEvent byUntil = new RecurringEvent("E", start, end, "", "", true, weekdays, until);
+      expected = expandByDay(start.toLocalDate(), weekdays, 0, until.toLocalDate());
+      assertEquals(expected, dates(byUntil));
+      assertEquals(expected.size(), byUntil.countOccurrences());
+    }
+  }
+
+  /** Tests that exclusions and splits are reflected in counts and iteration. */
+  @Test
+  public void testExcludeAndSplit() {
+    RecurringEvent daily =
+        new RecurringEvent(
+            "Daily",
+            LocalDateTime.of(2025, 3, 1, 8, 0),
+            LocalDateTime.of(2025, 3, 1, 9, 0),
+            "",
+            "",
+            true,
+            EnumSet.allOf(DayOfWeek.class),
+            10);
+    daily.exclude(LocalDate.of(2025, 3, 1));
+    daily.exclude(LocalDate.of(2025, 3, 8));
+    assertEquals(8, daily.countOccurrences());
+    assertEquals(LocalDate.of(2025, 3, 2), daily.getFirstOccurrenceDate());
+    RecurringEvent tail = daily.splitAt(LocalDate.of(2025, 3, 6));
+    assertEquals(4, daily.countOccurrences());
+    assertEquals(4, tail.countOccurrences());
+    assertEquals(LocalDate.of(2025, 3, 10), tail.getLastOccurrenceDate());
+    assertNull(tail.occurrenceOn(LocalDate.of(2025, 3, 8)));
+    assertTrue(tail.occursOn(LocalDate.of(2025, 3, 9)));
+  }
+
+  /** Tests that a long until range counts occurrences without visiting every day. */
+  @Test
+  public void testLongUntilRange() {
+    RecurringEvent weekly =
+        new RecurringEvent(
+            "Weekly",
+            LocalDateTime.of(2025, 1, 6, 8, 0),
+            LocalDateTime.of(2025, 1, 6, 9, 0),
+            "",
+            "",
+            true,
+            EnumSet.of(DayOfWeek.MONDAY),
+            LocalDateTime.of(9999, 12, 31, 23, 59));
+    assertEquals(LocalDate.of(9999, 12, 27), weekly.getLastOccurrenceDate());
+    assertEquals(
+        1, weekly.countOccurrencesBetween(LocalDate.of(5000, 1, 1), LocalDate.of(5000, 1, 7)));
+  }
+}
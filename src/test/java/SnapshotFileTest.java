@@ -0,0 +1,294 @@
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+import calendar.controller.CalendarController;
+import calendar.model.Calendar;
+import calendar.model.CalendarSnapshot;
+import calendar.model.event.Event;
+import calendar.model.event.RecurringEvent;
+import calendar.model.event.SingleEvent;
+import calendar.model.persist.SnapshotFile;
+import calendar.model.store.StorageType;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.DayOfWeek;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.time.ZoneId;
+import java.util.ArrayList;
+import java.util.EnumSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+import java.util.Set;
+import java.util.function.Supplier;
+import org.junit.Test;
+
+/** Tests for SnapshotFile. */
+public class SnapshotFileTest {
+  private static final LocalDateTime BASE = LocalDateTime.of(2025, 4, 7, 0, 0);
+  private static final LocalDateTime END = LocalDate.of(2026, 1, 1).atStartOfDay();
+
+  /** Tests that calendars of both storage types come back with the same events and ids. */
+  @Test
+  public void testRoundTrip() throws Exception {
+    Calendar indexed = filled("Home", StorageType.INDEXED, 3000, 1);
+    Calendar columnar = filled("Work", StorageType.COLUMNAR, 2500, 2);
+    indexed.addEvent(
+        new SingleEvent(
+            "Odd", BASE.plusSeconds(30), BASE.plusSeconds(90).plusNanos(5), null, "", true),
+        false);
+    Calendar empty = new Calendar("Empty", ZoneId.of("Asia/Kolkata"));
+    Path path = Files.createTempFile("snapshot", ".bin");
+    try {
+      SnapshotFile.write(List.of(indexed, columnar, empty), path);
+      List<Calendar> loaded = SnapshotFile.read(path);
+      assertEquals(3, loaded.size());
+      assertSameCalendar(indexed, loaded.get(0));
+      assertSameCalendar(columnar, loaded.get(1));
+      assertSameCalendar(empty, loaded.get(2));
+      assertEquals(StorageType.COLUMNAR, loaded.get(1).getStorageType());
+      assertEquals(ZoneId.of("Asia/Kolkata"), loaded.get(2).getTimezone());
+
+      // Loaded calendars go on handing out ids where the saved ones stopped.
+      SingleEvent late =
+          new SingleEvent("Late", BASE.minusDays(3), BASE.minusDays(3), "", "", true);
+      SingleEvent lateCopy =
+          new SingleEvent("Late", BASE.minusDays(3), BASE.minusDays(3), "", "", true);
+      indexed.addEvent(late, false);
+      loaded.get(0).addEvent(lateCopy, false);
+      assertEquals(late.getId(), lateCopy.getId());
+      assertTrue(loaded.get(0).isBusy(BASE.minusDays(3)));
+    } finally {
+      Files.deleteIfExists(path);
+    }
+  }
+
+  /** Tests that a file that is not a snapshot is refused. */
+  @Test
+  public void testRejectsOtherFiles() throws Exception {
+    Path path = Files.createTempFile("snapshot", ".csv");
+    try {
+      Files.write(path, "Subject,Start Date,Start Time".getBytes(StandardCharsets.UTF_8));
+      try {
+        SnapshotFile.read(path);
+        fail("Expected a file that is not a snapshot to be refused.");
+      } catch (IOException e) {
+        assertEquals("Not a calendar snapshot.", e.getMessage());
+      }
+    } finally {
+      Files.deleteIfExists(path);
+    }
+  }
+
+  /** Tests that the controller saves and loads every calendar and keeps the active one. */
+  @Test
+  public void testControllerSaveAndLoad() throws Exception {
+    Path path = Files.createTempFile("snapshot", ".bin");
+    try {
+      CalendarController controller =
+          new CalendarController(new Calendar("Default", ZoneId.of("UTC")));
+      controller.createCalendar("Work", "UTC", StorageType.COLUMNAR);
+      controller.useCalendar("Work");
+      controller.createRecurringEventOccurrences(
+          "Sync", "2025-04-07T10:00", "2025-04-07T10:30", "", "", true, "MTWRF", 10, true);
+      controller.editEventsFrom("location", "Sync", "2025-04-10T10:00", "Room 4");
+      controller.saveSnapshot(path);
+
+      CalendarController loaded =
+          new CalendarController(new Calendar("Work", ZoneId.of("UTC")));
+      assertEquals(2, loaded.loadSnapshot(path));
+      assertEquals("Work", loaded.getCurrentCalendarName());
+      assertEquals(List.of("Default", "Work"), sorted(loaded.getCalendarNames()));
+      List<Event> events = loaded.getEventsBetween("2025-04-01T00:00", "2025-04-30T23:59");
+      assertEquals(10, events.size());
+      assertEquals("Room 4", events.get(9).getLocation());
+      assertEquals("", events.get(0).getLocation());
+    } finally {
+      Files.deleteIfExists(path);
+    }
+  }
+
+  /** Tests that a mapped calendar answers queries like the saved one, before and after changes. */
+  @Test
+  public void testMappedCalendar() throws Exception {
+    Calendar original = filled("Home", StorageType.INDEXED, 5000, 3);
+    Calendar other = filled("Work", StorageType.COLUMNAR, 100, 4);
+    Path path = Files.createTempFile("snapshot", ".bin");
+    try {
+      SnapshotFile.write(List.of(original, other), path);
+      Map<String, Supplier<Calendar>> loaders = SnapshotFile.map(path);
+      assertEquals(List.of("Home", "Work"), List.copyOf(loaders.keySet()));
+      Calendar mapped = loaders.get("Home").get();
+      assertEquals(StorageType.MAPPED, mapped.getStorageType());
+      assertSameCalendar(original, mapped);
+      for (int day = -1; day < 100; day += 3) {
+        LocalDateTime from = BASE.plusDays(day).plusMinutes(day * 37);
+        assertEquals(original.getFirstFreeMinute(from), mapped.getFirstFreeMinute(from));
+      }
+
+      List<Event> singles = new ArrayList<>();
+      original.snapshot().forEachSingleEvent(singles::add);
+      Event byId = singles.get(10);
+      Event single = singles.get(4000);
+      CalendarSnapshot frozen = mapped.snapshot();
+      String before = describe(mapped);
+      for (Calendar calendar : List.of(original, mapped)) {
+        calendar.editEventById("description", byId.getId(), "By id");
+        calendar.editSingleEvent(
+            "location", single.getName(), single.getStart(), single.getEnd(), "Single");
+        calendar.editEvents("name", "Event 7", "Seven");
+        calendar.editEventsFrom("description", "Event 8", BASE.plusDays(45), "Late");
+        calendar.addEvent(
+            new SingleEvent("Added", BASE.plusDays(2), BASE.plusDays(2).plusHours(1), "", "", true),
+            false);
+      }
+      assertEquals(sortedLines(describe(original)), sortedLines(describe(mapped)));
+      assertEquals(before, describe(frozen.getEventsBetween(BASE.minusYears(1), END)));
+      CalendarSnapshot edited = mapped.snapshot();
+      String after = describe(mapped);
+      mapped.editEvents("location", "Event 9", "Hall");
+      assertEquals(after, describe(edited.getEventsBetween(BASE.minusYears(1), END)));
+      assertEquals("By id", mapped.findEventById(byId.getId()).getDescription());
+      assertTrue(mapped.isBusy(BASE.plusDays(2).plusMinutes(30)));
+      assertEquals(
+          original.getBusyMinutes(BASE, BASE.plusDays(120)),
+          mapped.getBusyMinutes(BASE, BASE.plusDays(120)));
+    } finally {
+      Files.deleteIfExists(path);
+    }
+  }
+
+  /** Tests that the controller opens mapped calendars when used and can save them again. */
+  @Test
+  public void testControllerMapsSnapshot() throws Exception {
+    Path path = Files.createTempFile("snapshot", ".bin");
+    try {
+      CalendarController controller =
+          new CalendarController(new Calendar("Default", ZoneId.of("UTC")));
+      controller.createCalendar("Work", "UTC");
+      controller.useCalendar("Work");
+      controller.createSingleEvent(
+          "Review", "2025-04-07T10:00", "2025-04-07T11:00", "", "", true, true);
+      controller.saveSnapshot(path);
+
+      CalendarController mapped =
+          new CalendarController(new Calendar("Home", ZoneId.of("UTC")));
+      assertEquals(2, mapped.mapSnapshot(path));
+      assertEquals(List.of("Default", "Work"), sorted(mapped.getCalendarNames()));
+      try {
+        mapped.createCalendar("Work", "UTC");
+        fail("Expected a calendar not opened yet to keep its name.");
+      } catch (Exception e) {
+        assertEquals("Calendar with name Work already exists.", e.getMessage());
+      }
+      mapped.useCalendar("Work");
+      mapped.editEventById("location", 1, "Room 2");
+      mapped.editCalendar("Default", "name", "Personal");
+      mapped.saveSnapshot(path);
+
+      CalendarController loaded =
+          new CalendarController(new Calendar("Work", ZoneId.of("UTC")));
+      loaded.loadSnapshot(path);
+      assertEquals(List.of("Personal", "Work"), sorted(loaded.getCalendarNames()));
+      List<Event> events = loaded.getEventsBetween("2025-04-07T00:00", "2025-04-07T23:59");
+      assertEquals(1, events.size());
+      assertEquals("Room 2", events.get(0).getLocation());
+    } finally {
+      Files.deleteIfExists(path);
+    }
+  }
+
+  /** Returns a calendar with random single events, series and edits of both. */
+  private static Calendar filled(String name, StorageType storage, int count, long seed)
+      throws Exception {
+    Calendar calendar = new Calendar(name, ZoneId.of("UTC"), storage);
+    Random random = new Random(seed);
+    List<Event> events = new ArrayList<>();
+    for (int i = 0; i < count; i++) {
+      LocalDateTime start = BASE.plusMinutes(random.nextInt(60 * 24 * 90));
+      events.add(
+          new SingleEvent(
+              "Event " + random.nextInt(50),
+              start,
+              start.plusMinutes(random.nextInt(300)),
+              random.nextBoolean() ? "Notes " + random.nextInt(5) : null,
+              "Room " + random.nextInt(10),
+              random.nextBoolean()));
+    }
+    calendar.addEvents(events, false);
+    for (int i = 0; i < 5; i++) {
+      calendar.addRecurringEvent(
+          new RecurringEvent(
+              "Series " + i,
+              BASE.plusDays(i).plusHours(8),
+              BASE.plusDays(i).plusHours(9),
+              "",
+              "Hall",
+              i % 2 == 0,
+              EnumSet.of(DayOfWeek.MONDAY, DayOfWeek.THURSDAY),
+              20),
+          false);
+    }
+    calendar.editSingleEvent(
+        "description", "Series 0", BASE.plusHours(8), BASE.plusHours(9), "Detached");
+    calendar.editEventsFrom("name", "Series 1", BASE.plusDays(30), "Renamed");
+    calendar.editEvents("location", "Event 3", "Moved");
+    return calendar;
+  }
+
+  private static void assertSameCalendar(Calendar expected, Calendar actual) {
+    assertEquals(expected.getName(), actual.getName());
+    assertEquals(expected.getTimezone(), actual.getTimezone());
+    assertEquals(describe(expected), describe(actual));
+    LocalDateTime minute = BASE;
+    for (int i = 0; i < 2000; i++) {
+      assertEquals(expected.isBusy(minute), actual.isBusy(minute));
+      minute = minute.plusMinutes(97);
+    }
+    assertEquals(
+        expected.getBusyMinutes(BASE, BASE.plusDays(120)),
+        actual.getBusyMinutes(BASE, BASE.plusDays(120)));
+  }
+
+  private static String describe(Calendar calendar) {
+    return describe(calendar.getEventsBetween(BASE.minusYears(1), END));
+  }
+
+  private static String describe(List<Event> events) {
+    StringBuilder result = new StringBuilder();
+    for (Event e : events) {
+      result
+          .append(e.getId())
+          .append(' ')
+          .append(e.getName())
+          .append('@')
+          .append(e.getStart())
+          .append('-')
+          .append(e.getEnd())
+          .append(' ')
+          .append(e.getDescription())
+          .append('|')
+          .append(e.getLocation())
+          .append('|')
+          .append(e.isPublic())
+          .append('\n');
+    }
+    return result.toString();
+  }
+
+  private static List<String> sortedLines(String text) {
+    List<String> lines = new ArrayList<>(List.of(text.split("\n")));
+    lines.sort(null);
+    return lines;
+  }
+
+  private static List<String> sorted(Set<String> names) {
+    List<String> result = new ArrayList<>(names);
+    result.sort(null);
+    return result;
+  }
+}
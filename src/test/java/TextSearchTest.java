@@ -0,0 +1,189 @@
+import static calendar.TestEvents.BASE;
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.fail;
+
+import calendar.controller.CalendarController;
+import calendar.controller.command.CommandFactory;
+import calendar.model.Calendar;
+import calendar.model.event.Event;
+import calendar.model.event.RecurringEvent;
+import calendar.model.event.SingleEvent;
+import calendar.model.index.TextIndex;
+import calendar.model.store.StorageType;
+import java.time.DayOfWeek;
+import java.time.LocalDateTime;
+import java.time.ZoneId;
+import java.util.EnumSet;
+import java.util.List;
+import java.util.stream.Collectors;
+import org.junit.Test;
+
+/** Tests for searching events by the words of their text. */
+public class TextSearchTest {
+  private static final LocalDateTime FIRST = BASE.minusYears(1);
+  private static final LocalDateTime LAST = BASE.plusYears(1);
+
+  /** Tests word splitting and posting list intersection. */
+  @Test
+  public void testIndex() {
+    assertEquals(
+        List.of("q3", "roadmap", "review"), TextIndex.words("Q3 roadmap-review, roadmap!"));
+    TextIndex index = new TextIndex();
+    index.add(3, "budget review");
+    index.add(1, "Budget planning");
+    index.add(7, "review");
+    index.add(2, "budget Review");
+    assertArrayEquals(new long[] {2, 3}, index.lookup(List.of("review", "budget")));
+    assertArrayEquals(new long[] {1, 2, 3}, index.lookup(List.of("BUDGET")));
+    assertArrayEquals(new long[0], index.lookup(List.of("budget", "missing")));
+    assertEquals(3, index.wordCount());
+  }
+
+  /** Tests that an edit moves an id off the words only the replaced text had. */
+  @Test
+  public void testEditsRemoveStalePostings() {
+    SingleEvent event = event("Budget draft", BASE, "review of numbers", "Room A");
+    TextIndex index = new TextIndex();
+    index.add(1, event);
+    long postings = index.postingCount();
+    for (int i = 0; i < 50; i++) {
+      SingleEvent renamed = event("Budget " + i, BASE, "review of numbers", "Room A");
+      index.update(1, event, "name", renamed.getName());
+      event = renamed;
+      assertEquals(postings, index.postingCount());
+    }
+    assertEquals(7, index.wordCount());
+    assertArrayEquals(new long[0], index.lookup(List.of("48")));
+    assertArrayEquals(new long[] {1}, index.lookup(List.of("49", "review")));
+
+    // Words another field still has stay, and properties without text change nothing.
+    index.update(1, event, "description", "numbers");
+    assertArrayEquals(new long[0], index.lookup(List.of("review")));
+    index.update(1, event, "ispublic", "false");
+    assertEquals(5, index.wordCount());
+  }
+
+  /** Tests that a search finds nothing under a word every event was renamed away from. */
+  @Test
+  public void testSearchAfterRepeatedRenames() throws Exception {
+    for (StorageType storage : StorageType.values()) {
+      Calendar calendar = new Calendar("Work", ZoneId.of("UTC"), storage);
+      calendar.addEvent(event("Budget review", BASE, "", "Room 4"), false);
+      calendar.addEvent(event("Design review", BASE.plusDays(1), "review notes", "Room 2"), false);
+      assertSearch(calendar, "review");
+      for (int i = 0; i < 20; i++) {
+        calendar.editEvents("name", i == 0 ? "Budget review" : "Budget " + (i - 1), "Budget " + i);
+        calendar.editEvents("name", i == 0 ? "Design review" : "Design " + (i - 1), "Design " + i);
+      }
+      assertEquals(List.of("Design 19"), names(calendar.searchEvents("review", null, null)));
+      assertEquals(List.of(), calendar.searchEvents("budget 18", null, null));
+      assertSearch(calendar, "budget");
+    }
+  }
+
+  /** Tests that searches agree with a scan of every event, before and after edits. */
+  @Test
+  public void testSearchFollowsEdits() throws Exception {
+    for (StorageType storage : StorageType.values()) {
+      Calendar calendar = new Calendar("Work", ZoneId.of("UTC"), storage);
+      calendar.addEvent(event("Budget review", BASE, "Quarterly numbers", "Room 4"), false);
+      calendar.addEvents(
+          List.of(
+              event("Design review", BASE.plusDays(1), "API design", "Room 2"),
+              event("Lunch", BASE.plusDays(2), "", "Cafe")),
+          false);
+      calendar.addRecurringEvent(
+          new RecurringEvent(
+              "Standup",
+              BASE.plusHours(8),
+              BASE.plusHours(9),
+              "daily sync",
+              "Room 4",
+              true,
+              EnumSet.of(DayOfWeek.MONDAY, DayOfWeek.WEDNESDAY),
+              6),
+          false);
+      assertSearch(calendar, "review");
+      assertSearch(calendar, "room 4");
+      assertSearch(calendar, "SYNC");
+
+      // Edits made after the index is built are searchable at once.
+      calendar.editEvents("description", "Lunch", "team offsite planning");
+      calendar.editSingleEvent(
+          "location", "Design review", BASE.plusDays(1), BASE.plusDays(1).plusHours(1), "Hall");
+      Event occurrence = calendar.getEventsOn(BASE.toLocalDate().plusDays(2)).get(0);
+      calendar.editEventById("name", occurrence.getId(), "Planning standup");
+      calendar.editEventsFrom("location", "Standup", BASE.plusWeeks(1), "Hall");
+      for (String query : new String[] {"planning", "hall", "room 4", "standup", "review room"}) {
+        assertSearch(calendar, query);
+      }
+      assertEquals(
+          List.of("Planning standup"),
+          names(calendar.searchEvents("planning standup", null, null)));
+      assertEquals(
+          List.of("Standup", "Standup"),
+          names(calendar.searchEvents("hall", BASE.plusWeeks(1), BASE.plusWeeks(2))));
+    }
+  }
+
+  /** Tests the search command, quoted and unquoted, with and without a range. */
+  @Test
+  public void testSearchCommand() throws Exception {
+    CalendarController controller =
+        new CalendarController(new Calendar("Default", ZoneId.of("UTC")));
+    controller.createSingleEvent(
+        "Budget", "2025-04-07T09:00", "2025-04-07T10:00", "Q2 review", "Hall", true, false);
+    controller.createSingleEvent(
+        "Review", "2025-05-07T09:00", "2025-05-07T10:00", "", "", true, false);
+    assertEquals(
+        "1 events match \"q2 review\":\n"
+            + " - Budget (2025-04-07T09:00 to 2025-04-07T10:00) at Hall [id 1]\n",
+        CommandFactory.process("search events \"q2 review\"", controller).execute());
+    assertEquals(
+        "1 events match \"review\":\n - Review (2025-05-07T09:00 to 2025-05-07T10:00) [id 2]\n",
+        CommandFactory.process(
+                "search events review from 2025-05-01T00:00 to 2025-05-31T23:59", controller)
+            .execute());
+    assertEquals(
+        "No events match \"lunch\"",
+        CommandFactory.process("search events \"lunch\"", controller).execute());
+    try {
+      CommandFactory.process("search events \"q2 review", controller).execute();
+      fail("Expected an error for an unclosed quote.");
+    } catch (Exception e) {
+      assertEquals("Expected '\"' token.", e.getMessage());
+    }
+  }
+
+  /** Checks a search over the whole calendar against a scan of every event. */
+  private static void assertSearch(Calendar calendar, String query) {
+    List<String> words = TextIndex.words(query);
+    List<Event> scanned =
+        calendar.getEventsBetween(FIRST, LAST).stream()
+            .filter(
+                e -> {
+                  String text =
+                      (e.getName() + " " + e.getDescription() + " " + e.getLocation())
+                          .toLowerCase();
+                  return TextIndex.words(text).containsAll(words);
+                })
+            .collect(Collectors.toList());
+    assertEquals(describe(scanned), describe(calendar.searchEvents(query, null, null)));
+  }
+
+  private static List<String> names(List<Event> events) {
+    return events.stream().map(Event::getName).collect(Collectors.toList());
+  }
+
+  private static List<String> describe(List<Event> events) {
+    return events.stream()
+        .map(e -> e.getId() + " " + e.getName() + "@" + e.getStart() + " " + e.getLocation())
+        .collect(Collectors.toList());
+  }
+
+  private static SingleEvent event(
+      String name, LocalDateTime start, String description, String location) {
+    return new SingleEvent(name, start, start.plusHours(1), description, location, true);
+  }
+}
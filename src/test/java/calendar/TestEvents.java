@@ -0,0 +1,17 @@
+package calendar;
+
+import calendar.model.event.SingleEvent;
+import java.time.LocalDateTime;
+
+/** Events shared by tests that build calendars around a single week. */
+public final class TestEvents {
+  /** A Monday morning that tests place their events relative to. */
+  public static final LocalDateTime BASE = LocalDateTime.of(2025, 4, 7, 9, 0);
+
+  private TestEvents() {}
+
+  /** Returns a public event with no description or location, lasting the given minutes. */
+  public static SingleEvent event(String name, LocalDateTime start, int minutes) {
+    return new SingleEvent(name, start, start.plusMinutes(minutes), "", "", true);
+  }
+}